@@ -119,4 +119,14 @@ public @interface Argument {
      */
     double maxRecommendedValue() default Double.POSITIVE_INFINITY;
 
+    /**
+     * Validators to run on the values of the annotated argument once all arguments have been parsed. Each validator
+     * receives all of the values for the argument in a single batch, and validators for all arguments are run
+     * concurrently. See {@link FileArgumentValidators} for built-in validators for file arguments.
+     *
+     * @return Classes of the validators to apply to this argument's values. Each must have a public no-arg
+     *         constructor.
+     */
+    Class<? extends ArgumentValidator>[] validators() default {};
+
 }
@@ -0,0 +1,105 @@
+package org.broadinstitute.barclay.argparser;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Process-wide caches for the reflective work done by the command line parsers when building argument
+ * definitions and converting argument values. The caches are {@link ClassValue}s, so each entry is held by the
+ * class it describes; since entries refer back to their class (through its fields and constructor), an entry
+ * doesn't keep any other class loader reachable, but a class that has been inspected can't be unloaded until
+ * its class loader itself becomes unreachable. Plugin discovery is cached separately, by a
+ * {@link PluginDiscoveryCache} owned by the code that creates the parsers.
+ */
+final class ArgumentReflectionCache {
+
+    // All declared fields of a class and its superclasses
+    private static final ClassValue<List<Field>> allFields = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(final Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            Class<?> clazz = type;
+            do {
+                fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
+                clazz = clazz.getSuperclass();
+            } while (clazz != null);
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    // The (accessible) fields of a class and its superclasses that have argument annotations, in the same order
+    // as getAllFields
+    private static final ClassValue<List<Field>> argumentFields = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(final Class<?> type) {
+            final List<Field> fields = new ArrayList<>();
+            for (final Field field : allFields.get(type)) {
+                if (field.getAnnotation(Argument.class) != null ||
+                        field.getAnnotation(ArgumentCollection.class) != null ||
+                        field.getAnnotation(PositionalArguments.class) != null) {
+                    field.setAccessible(true);
+                    fields.add(field);
+                }
+            }
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    // The (accessible) String constructor for a class, if it has one
+    private static final ClassValue<Optional<Constructor<?>>> stringConstructors = new ClassValue<Optional<Constructor<?>>>() {
+        @Override
+        protected Optional<Constructor<?>> computeValue(final Class<?> type) {
+            try {
+                // Need to use getDeclaredConstructor() instead of getConstructor() in case the constructor
+                // is non-public. Set it to be accessible if it isn't already.
+                final Constructor<?> ctor = type.getDeclaredConstructor(String.class);
+                ctor.setAccessible(true);
+                return Optional.of(ctor);
+            } catch (final NoSuchMethodException e) {
+                return Optional.empty();
+            }
+        }
+    };
+
+    private ArgumentReflectionCache() {}
+
+    /**
+     * @param clazz class to inspect
+     * @return an unmodifiable list of all declared fields of {@code clazz} and its superclasses
+     */
+    static List<Field> getAllFields(final Class<?> clazz) {
+        return allFields.get(clazz);
+    }
+
+    /**
+     * @param clazz class to inspect
+     * @return an unmodifiable list of the fields of {@code clazz} and its superclasses that are annotated with
+     * {@link Argument}, {@link ArgumentCollection} or {@link PositionalArguments}, made accessible
+     */
+    static List<Field> getArgumentFields(final Class<?> clazz) {
+        return argumentFields.get(clazz);
+    }
+
+    /**
+     * @param clazz class to inspect
+     * @return the accessible constructor for {@code clazz} that takes a single String, or null if there is none
+     */
+    static Constructor<?> getStringConstructor(final Class<?> clazz) {
+        return stringConstructors.get(clazz).orElse(null);
+    }
+
+    /**
+     * Scan the classpath for the descriptor's plugin classes, without caching.
+     *
+     * @param loader class loader to scan
+     * @param pluginDescriptor descriptor for which to find plugin classes
+     * @return plugin classes, in discovery order
+     */
+    static Set<Class<?>> scanForPluginClasses(final ClassLoader loader, final CommandLinePluginDescriptor<?> pluginDescriptor) {
+        final ClassFinder classFinder = new ClassFinder(loader);
+        pluginDescriptor.getPackageNames().forEach(
+                pkg -> classFinder.find(pkg, pluginDescriptor.getPluginBaseClass()));
+        return Collections.unmodifiableSet(classFinder.getClasses());
+    }
+}
@@ -0,0 +1,200 @@
+package org.broadinstitute.barclay.argparser;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Low level encoding for the serialized argument state produced by
+ * {@link CommandLineArgumentParser#serializeArgumentState()}.
+ *
+ * The encoded form is:
+ *
+ *     magic (int), format version (byte), schema fingerprint (long),
+ *     string table: count (varint), then each string as a varint UTF-8 length followed by the bytes,
+ *     body: varints and bytes written by the parser, where all strings are varint string table indices
+ *
+ * Strings are de-duplicated through the string table, so repeated values such as tag names and attribute
+ * keys and values are stored only once.
+ */
+final class ArgumentStateCodec {
+
+    static final int MAGIC = 0x42434c41; // "BCLA"
+    static final byte FORMAT_VERSION = 1;
+
+    // Markers for individual values in the body
+    static final byte NULL_VALUE = 0;
+    static final byte PLAIN_VALUE = 1;
+    static final byte TAGGED_VALUE = 2;
+
+    private ArgumentStateCodec() {}
+
+    /**
+     * Compute a fingerprint for the set of argument definitions of a parser, so state serialized by one parser
+     * is only rehydrated by a parser with the same arguments.
+     *
+     * @param toolName name of the class of the object containing the arguments
+     * @param argumentDefinitions all argument definitions for the parser
+     * @param positionalType element type of the positional arguments, or null
+     * @return 64-bit FNV-1a hash of the argument names and types
+     */
+    static long fingerprint(
+            final String toolName,
+            final Collection<CommandLineArgumentParser.ArgumentDefinition> argumentDefinitions,
+            final Class<?> positionalType) {
+        final List<String> signatures = new ArrayList<>(argumentDefinitions.size());
+        for (final CommandLineArgumentParser.ArgumentDefinition argDef : argumentDefinitions) {
+            signatures.add(argDef.getLongName() + '\t' + argDef.type.getName() + '\t' + argDef.isCollection);
+        }
+        Collections.sort(signatures);
+        long hash = 0xcbf29ce484222325L;
+        for (final String s : Arrays.asList(toolName, String.valueOf(positionalType), String.join("\n", signatures))) {
+            for (final byte b : s.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= (b & 0xff);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= '\n';
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Accumulates the body and string table for a serialized argument state.
+     */
+    static final class StateWriter {
+        private final Map<String, Integer> stringTable = new LinkedHashMap<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        void writeByte(final int b) {
+            body.write(b);
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7f) != 0) {
+                body.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            body.write(value);
+        }
+
+        void writeString(final String s) {
+            Integer index = stringTable.get(s);
+            if (index == null) {
+                index = stringTable.size();
+                stringTable.put(s, index);
+            }
+            writeVarInt(index);
+        }
+
+        byte[] toByteArray(final long fingerprint) {
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.size() + 64);
+                final DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(MAGIC);
+                out.writeByte(FORMAT_VERSION);
+                out.writeLong(fingerprint);
+                final StateWriter header = new StateWriter();
+                header.writeVarInt(stringTable.size());
+                for (final String s : stringTable.keySet()) {
+                    final byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+                    header.writeVarInt(utf8.length);
+                    header.body.write(utf8, 0, utf8.length);
+                }
+                header.body.writeTo(out);
+                body.writeTo(out);
+                out.flush();
+                return bytes.toByteArray();
+            } catch (final IOException e) {
+                throw new CommandLineException.ShouldNeverReachHereException("I/O error writing to a byte array", e);
+            }
+        }
+    }
+
+    /**
+     * Reads the body of a serialized argument state, resolving string table references.
+     */
+    static final class StateReader {
+        private final byte[] bytes;
+        private int position;
+        private final String[] stringTable;
+
+        /**
+         * @param bytes serialized state
+         * @param expectedFingerprint fingerprint of the parser that will receive the state
+         */
+        StateReader(final byte[] bytes, final long expectedFingerprint) {
+            this.bytes = bytes;
+            if (bytes.length < 13) {
+                throw new CommandLineException("Serialized argument state is truncated");
+            }
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, 13));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new CommandLineException("Serialized argument state has an unrecognized header");
+                }
+                final byte version = in.readByte();
+                if (version != FORMAT_VERSION) {
+                    throw new CommandLineException(String.format(
+                            "Serialized argument state has format version %d, but only version %d is supported",
+                            version, FORMAT_VERSION));
+                }
+                if (in.readLong() != expectedFingerprint) {
+                    throw new CommandLineException(
+                            "Serialized argument state was created for a different set of arguments than this parser's");
+                }
+            } catch (final IOException e) {
+                throw new CommandLineException.ShouldNeverReachHereException("I/O error reading from a byte array", e);
+            }
+            position = 13;
+            // every string table entry takes at least one byte for its length, so a larger count can't be valid
+            final int stringCount = readVarInt();
+            if (stringCount < 0 || stringCount > bytes.length - position) {
+                throw new CommandLineException.BadArgumentValue(String.format(
+                        "serialized argument state has a corrupt string table count %d", stringCount));
+            }
+            stringTable = new String[stringCount];
+            for (int i = 0; i < stringTable.length; i++) {
+                final int length = readVarInt();
+                checkAvailable(length);
+                stringTable[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+        }
+
+        private void checkAvailable(final int count) {
+            if (count < 0 || position + count > bytes.length) {
+                throw new CommandLineException("Serialized argument state is truncated or corrupt");
+            }
+        }
+
+        byte readByte() {
+            checkAvailable(1);
+            return bytes[position++];
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                final byte b = readByte();
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new CommandLineException("Serialized argument state contains a malformed integer");
+        }
+
+        String readString() {
+            final int index = readVarInt();
+            if (index < 0 || index >= stringTable.length) {
+                throw new CommandLineException("Serialized argument state contains an invalid string reference");
+            }
+            return stringTable[index];
+        }
+
+        boolean hasRemaining() {
+            return position < bytes.length;
+        }
+    }
+}
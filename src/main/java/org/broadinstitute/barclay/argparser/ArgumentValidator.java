@@ -0,0 +1,30 @@
+package org.broadinstitute.barclay.argparser;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Interface for validators that can be attached to argument fields using {@link Argument#validators()}. Validators
+ * are run by the command line parser once all argument values have been converted, and receive all of the values
+ * for an argument at once, so that expensive checks (such as filesystem access) can be batched and run
+ * concurrently. The parser starts all validators before waiting for any of them, so validators for different
+ * arguments also run concurrently.
+ *
+ * Implementations must have a public no-argument constructor, and must be thread-safe.
+ */
+public interface ArgumentValidator {
+
+    /**
+     * Start validating the values of an argument.
+     *
+     * @param argumentName name of the argument being validated, for use in error messages
+     * @param values the non-null values of the argument (all of the elements for collection arguments)
+     * @param executor executor on which independent checks should be run. Validators should not block the
+     *                 calling thread, or wait on tasks submitted to this executor from within another task.
+     * @return a future that completes with a message for each invalid value, or an empty list if all values are
+     * valid
+     */
+    CompletableFuture<List<String>> validate(String argumentName, List<Object> values, Executor executor);
+
+}
@@ -8,6 +8,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.utils.Utils;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintStream;
@@ -15,6 +16,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -60,6 +62,9 @@ public final class CommandLineArgumentParser implements CommandLineParser {
     // Extension for collection argument list files
     static final String COLLECTION_LIST_FILE_EXTENSION = ".args";
 
+    // Separates the tag string from the value on a line of a collection list file for a tagged argument
+    static final char LIST_FILE_TAG_SEPARATOR = '\t';
+
     private static final Logger logger = LogManager.getLogger();
 
     // Map from (full class) name of each CommandLinePluginDescriptor requested and
@@ -115,6 +120,12 @@ public final class CommandLineArgumentParser implements CommandLineParser {
 
     private final Set<CommandLineParserOptions> parserOptions;
 
+    // null if plugin classes aren't shared with other parsers
+    private final PluginDiscoveryCache pluginDiscoveryCache;
+
+    // directory against which relative file paths are resolved, or null to use the process's working directory
+    private File workingDirectory;
+
     // null if no @PositionalArguments annotation
     private Field positionalArguments;
     private int minPositionalArguments;
@@ -167,12 +178,32 @@ public final class CommandLineArgumentParser implements CommandLineParser {
             final Object callerArguments,
             final List<? extends CommandLinePluginDescriptor<?>> pluginDescriptors,
             final Set<CommandLineParserOptions> parserOptions) {
+        this(callerArguments, pluginDescriptors, parserOptions, null);
+    }
+
+    /**
+     * @param callerArguments The object containing the command line arguments to be populated by
+     *                        this command line parser.
+     * @param pluginDescriptors A list of {@link CommandLinePluginDescriptor} objects that
+     *                          should be used by this command line parser to extend the list of
+     *                          command line arguments with dynamically discovered plugins. If
+     *                          null, no descriptors are loaded.
+     * @param parserOptions options that control the parser's behavior
+     * @param pluginDiscoveryCache cache of discovered plugin classes to share with other parsers, or null to
+     *                             scan the classpath for the plugin classes of each descriptor
+     */
+    public CommandLineArgumentParser(
+            final Object callerArguments,
+            final List<? extends CommandLinePluginDescriptor<?>> pluginDescriptors,
+            final Set<CommandLineParserOptions> parserOptions,
+            final PluginDiscoveryCache pluginDiscoveryCache) {
         Utils.nonNull(callerArguments, "The object with command line arguments cannot be null");
         Utils.nonNull(pluginDescriptors, "The list of pluginDescriptors cannot be null");
         Utils.nonNull(parserOptions, "The set of parser options cannot be null");
 
         this.callerArguments = callerArguments;
         this.parserOptions = parserOptions;
+        this.pluginDiscoveryCache = pluginDiscoveryCache;
 
         createArgumentDefinitions(callerArguments, null);
         createCommandLinePluginArgumentDefinitions(pluginDescriptors);
@@ -188,7 +219,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
     private void createArgumentDefinitions(
             final Object callerArguments,
             final CommandLinePluginDescriptor<?> controllingDescriptor) {
-        for (final Field field : CommandLineParser.getAllFields(callerArguments.getClass())) {
+        for (final Field field : ArgumentReflectionCache.getArgumentFields(callerArguments.getClass())) {
             if (field.getAnnotation(Argument.class) != null && field.getAnnotation(ArgumentCollection.class) != null){
                 throw new CommandLineException.CommandLineParserInternalException("An Argument cannot be an argument collection: "
                         +field.getName() + " in " + callerArguments.toString() + " is annotated as both.");
@@ -228,10 +259,12 @@ public final class CommandLineArgumentParser implements CommandLineParser {
     // instance each and add its ArgumentDefinitions
     private void findPluginsForDescriptor(
             final CommandLinePluginDescriptor<?> pluginDescriptor) {
-        final ClassFinder classFinder = new ClassFinder();
-        pluginDescriptor.getPackageNames().forEach(
-                pkg -> classFinder.find(pkg, pluginDescriptor.getPluginBaseClass()));
-        final Set<Class<?>> pluginClasses = classFinder.getClasses();
+        final Set<Class<?>> pluginClasses;
+        if (pluginDiscoveryCache != null) {
+            pluginClasses = pluginDiscoveryCache.findPluginClasses(pluginDescriptor);
+        } else {
+            pluginClasses = ArgumentReflectionCache.scanForPluginClasses(Thread.currentThread().getContextClassLoader(), pluginDescriptor);
+        }
 
         final List<Object> plugins = new ArrayList<>(pluginClasses.size());
         for (Class<?> c : pluginClasses) {
@@ -248,6 +281,27 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Relative paths are resolved for the values of {@link File} arguments, and for arguments files and collection
+     * list files. Values of other types (including Strings) are passed to the tool as given.
+     */
+    @Override
+    public void setWorkingDirectory(final File workingDirectory) {
+        Utils.nonNull(workingDirectory, "working directory");
+        if (!workingDirectory.isAbsolute()) {
+            throw new IllegalArgumentException("The working directory must be absolute: " + workingDirectory);
+        }
+        this.workingDirectory = workingDirectory;
+    }
+
+    // Resolve a path against the working directory, if there is one and the path is relative
+    private File resolveFile(final String path) {
+        final File file = new File(path);
+        return workingDirectory == null || file.isAbsolute() ? file : new File(workingDirectory, path);
+    }
+
     /**
      * @return the list of ArgumentDefinitions seen by the parser
      */
@@ -432,6 +486,185 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         return true;
     }
 
+    /**
+     * Serialize the resolved values of all arguments that have been set on this parser (by parsing a command line,
+     * or by {@link #deserializeArgumentState}) into a compact, versioned binary form. This includes the arguments
+     * that select plugins, the arguments of the selected plugins, positional arguments, and the tag names and
+     * attributes of {@link TaggedArgument} values.
+     *
+     * Values are serialized as strings (using {@link Enum#name()} for enums, and {@code toString()} otherwise),
+     * so argument value types must produce a string that their String constructor accepts; the same contract
+     * used by {@link #getCommandLine()}.
+     *
+     * @return serialized argument state, to be passed to {@link #deserializeArgumentState} on a parser for a fresh
+     * instance of the same argument class, with the same plugin descriptors
+     */
+    public byte[] serializeArgumentState() {
+        final ArgumentStateCodec.StateWriter writer = new ArgumentStateCodec.StateWriter();
+        final List<ArgumentDefinition> setArguments = argumentDefinitions.stream()
+                .filter(argDef -> argDef.hasBeenSet)
+                .collect(Collectors.toList());
+        writer.writeVarInt(setArguments.size());
+        for (final ArgumentDefinition argDef : setArguments) {
+            writer.writeString(argDef.getLongName());
+            final Object value = argDef.getFieldValue();
+            if (argDef.isCollection) {
+                final Collection<?> values = (Collection<?>) value;
+                writer.writeVarInt(values.size());
+                values.forEach(v -> writeArgumentStateValue(writer, v));
+            } else {
+                writer.writeVarInt(1);
+                writeArgumentStateValue(writer, value);
+            }
+        }
+
+        final Collection<?> positionalValues = getPositionalArgumentValues();
+        writer.writeVarInt(positionalValues.size());
+        positionalValues.forEach(v -> writer.writeString(argumentStateString(v)));
+
+        return writer.toByteArray(getArgumentStateFingerprint());
+    }
+
+    /**
+     * Populate the arguments of a fresh argument object using state created by {@link #serializeArgumentState()},
+     * without tokenizing a command line, reading list or arguments files, or checking argument constraints (which
+     * were checked when the original command line was parsed). Plugin descriptors are given the chance to
+     * resolve the selected plugins, as they are after parsing.
+     *
+     * @param argumentState serialized argument state
+     * @throws CommandLineException if the state was created for a different set of arguments, or is corrupt
+     */
+    public void deserializeArgumentState(final byte[] argumentState) {
+        Utils.nonNull(argumentState, "The serialized argument state cannot be null");
+        final ArgumentStateCodec.StateReader reader =
+                new ArgumentStateCodec.StateReader(argumentState, getArgumentStateFingerprint());
+
+        final int argumentCount = reader.readVarInt();
+        for (int i = 0; i < argumentCount; i++) {
+            final String argumentName = reader.readString();
+            final ArgumentDefinition argDef = argumentMap.get(argumentName);
+            if (argDef == null) {
+                throw new CommandLineException("Serialized argument state contains an unknown argument: " + argumentName);
+            }
+            final int valueCount = reader.readVarInt();
+            if (argDef.isCollection) {
+                @SuppressWarnings("unchecked")
+                final Collection<Object> values = (Collection<Object>) argDef.getFieldValue();
+                values.clear();
+                for (int j = 0; j < valueCount; j++) {
+                    final Object value = readArgumentStateValue(reader, argDef);
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+            } else {
+                if (valueCount != 1) {
+                    throw new CommandLineException(String.format(
+                            "Serialized argument state contains %d values for argument %s", valueCount, argumentName));
+                }
+                argDef.setFieldValue(readArgumentStateValue(reader, argDef));
+            }
+            argDef.hasBeenSet = true;
+        }
+
+        final int positionalCount = reader.readVarInt();
+        if (positionalCount > 0) {
+            @SuppressWarnings("unchecked")
+            final Collection<Object> positionalValues = (Collection<Object>) getPositionalArgumentValues();
+            positionalValues.clear();
+            final Class<?> positionalType = CommandLineParser.getUnderlyingType(positionalArguments);
+            for (int i = 0; i < positionalCount; i++) {
+                positionalValues.add(constructFromString(positionalType, reader.readString(), POSITIONAL_ARGUMENTS_NAME));
+            }
+        }
+        if (reader.hasRemaining()) {
+            throw new CommandLineException("Serialized argument state contains unexpected trailing data");
+        }
+
+        validatePluginArguments();
+    }
+
+    // The fingerprint covers every argument this parser knows about, including the arguments of all plugins
+    private long getArgumentStateFingerprint() {
+        return ArgumentStateCodec.fingerprint(
+                callerArguments.getClass().getName(),
+                new LinkedHashSet<>(argumentMap.values()),
+                positionalArguments == null ? null : CommandLineParser.getUnderlyingType(positionalArguments));
+    }
+
+    private Collection<?> getPositionalArgumentValues() {
+        if (positionalArguments == null) {
+            return Collections.emptyList();
+        }
+        try {
+            positionalArguments.setAccessible(true);
+            return (Collection<?>) positionalArguments.get(positionalArgumentsParent);
+        } catch (final IllegalAccessException e) {
+            throw new CommandLineException.ShouldNeverReachHereException("Should never reach here because we setAccessible(true)", e);
+        }
+    }
+
+    private static String argumentStateString(final Object value) {
+        return value instanceof Enum ? ((Enum<?>) value).name() : value.toString();
+    }
+
+    private static void writeArgumentStateValue(final ArgumentStateCodec.StateWriter writer, final Object value) {
+        if (value == null) {
+            writer.writeByte(ArgumentStateCodec.NULL_VALUE);
+        } else if (value instanceof TaggedArgument && ((TaggedArgument) value).getTag() != null) {
+            final TaggedArgument taggedValue = (TaggedArgument) value;
+            final Map<String, String> attributes = taggedValue.getTagAttributes() == null ?
+                    Collections.emptyMap() :
+                    taggedValue.getTagAttributes();
+            writer.writeByte(ArgumentStateCodec.TAGGED_VALUE);
+            writer.writeString(argumentStateString(value));
+            writer.writeString(taggedValue.getTag());
+            writer.writeVarInt(attributes.size());
+            attributes.forEach((k, v) -> {
+                writer.writeString(k);
+                writer.writeString(v);
+            });
+        } else {
+            writer.writeByte(ArgumentStateCodec.PLAIN_VALUE);
+            writer.writeString(argumentStateString(value));
+        }
+    }
+
+    private Object readArgumentStateValue(final ArgumentStateCodec.StateReader reader, final ArgumentDefinition argDef) {
+        final byte valueType = reader.readByte();
+        switch (valueType) {
+            case ArgumentStateCodec.NULL_VALUE:
+                return null;
+            case ArgumentStateCodec.PLAIN_VALUE: {
+                final Object value = constructFromString(argDef.type, reader.readString(), argDef.getLongName());
+                if (value instanceof TaggedArgument) {
+                    tagParser.populateArgumentTags((TaggedArgument) value, argDef.getLongName(), null);
+                }
+                return value;
+            }
+            case ArgumentStateCodec.TAGGED_VALUE: {
+                final Object value = constructFromString(argDef.type, reader.readString(), argDef.getLongName());
+                if (!(value instanceof TaggedArgument)) {
+                    throw new CommandLineException("Serialized argument state contains tags for untaggable argument: " +
+                            argDef.getLongName());
+                }
+                final String tag = reader.readString();
+                final int attributeCount = reader.readVarInt();
+                final List<String> keys = new ArrayList<>(attributeCount);
+                final List<String> values = new ArrayList<>(attributeCount);
+                for (int i = 0; i < attributeCount; i++) {
+                    keys.add(reader.readString());
+                    values.add(reader.readString());
+                }
+                ((TaggedArgument) value).setTag(tag);
+                ((TaggedArgument) value).setTagAttributes(TagAttributeMap.of(keys, values));
+                return value;
+            }
+            default:
+                throw new CommandLineException("Serialized argument state contains an unknown value type: " + valueType);
+        }
+    }
+
     /**
      *  helper to deal with the case of special flags that are evaluated before the options are properly set
      */
@@ -489,9 +722,70 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         } catch (final IllegalAccessException e) {
             throw new CommandLineException.ShouldNeverReachHereException("Should never happen",e);
         }
+        runArgumentValidators();
 
     }
 
+    /**
+     * Run the {@link Argument#validators()} of all arguments that were specified, and throw a single exception
+     * describing every invalid value. All validators are started before waiting on any of them, so validators
+     * (and the batches of checks within each validator) run concurrently.
+     */
+    private void runArgumentValidators() {
+        final List<CompletableFuture<List<String>>> results = new ArrayList<>();
+        for (final ArgumentDefinition argumentDefinition : argumentDefinitions) {
+            if (argumentDefinition.validators.isEmpty() || !argumentDefinition.hasBeenSet) {
+                continue;
+            }
+            final Object value = argumentDefinition.getFieldValue();
+            final List<Object> values = new ArrayList<>();
+            if (argumentDefinition.isCollection) {
+                ((Collection<?>) value).stream().filter(Objects::nonNull).forEach(values::add);
+            } else if (value != null) {
+                values.add(value);
+            }
+            if (values.isEmpty()) {
+                continue;
+            }
+            final List<Object> unmodifiableValues = Collections.unmodifiableList(values);
+            for (final ArgumentValidator validator : argumentDefinition.validators) {
+                results.add(validator.validate(
+                        argumentDefinition.getLongName(), unmodifiableValues, ValidationExecutorHolder.EXECUTOR));
+            }
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+
+        final List<String> messages = new ArrayList<>();
+        for (final CompletableFuture<List<String>> result : results) {
+            try {
+                messages.addAll(result.join());
+            } catch (final CompletionException e) {
+                throw new CommandLineException.CommandLineParserInternalException(
+                        "An argument validator failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+        if (!messages.isEmpty()) {
+            throw new CommandLineException.BadArgumentValue(String.join(System.lineSeparator(), messages));
+        }
+    }
+
+    // Shared executor for argument validators, created on first use. Validation is typically I/O bound (e.g.
+    // checking files on a network filesystem), so this uses more threads than there are processors.
+    private static final class ValidationExecutorHolder {
+        private static final int THREADS = Math.max(16, 2 * Runtime.getRuntime().availableProcessors());
+        private static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+                THREADS, THREADS, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+                    final Thread t = new Thread(r, "barclay-argument-validation");
+                    t.setDaemon(true);
+                    return t;
+                });
+        static {
+            EXECUTOR.allowCoreThreadTimeOut(true);
+        }
+    }
+
     // Error message for when mutex args are mutually required (meaning one of them must be specified) but none was
     private String getArgRequiredErrorMessage(ArgumentDefinition argumentDefinition) {
         return "Argument '" + argumentDefinition.getLongName() + "' is required" +
@@ -609,7 +903,6 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         c.add(value);
     }
 
-    @SuppressWarnings("unchecked")
     private void setArgument(ArgumentDefinition argumentDefinition, List<String> values) {
         //special treatment for flags
         if (argumentDefinition.isFlag() && values.isEmpty()){
@@ -630,122 +923,176 @@ public final class CommandLineArgumentParser implements CommandLineParser {
                 final Collection c = (Collection) argumentDefinition.getFieldValue();
                 c.clear();
             }
-            values = expandListFile(values);
-        }
-
-        for (int i = 0; i < values.size(); i++) {
-            String stringValue = values.get(i);
-            final Object value;
-            if (stringValue.equals(NULL_STRING)) {
-                if (argumentDefinition.isCollection && i != 0) {
-                    // If a "null" is included, and its not the first value for this option, honor it, but warn,
-                    // since it will clobber any values that were previously set for this option, and may indicate
-                    // an unintentional error on the user's part
-                    logger.warn("A \"null\" value was detected for an option after values for that option were already set. " +
-                            "Clobbering previously set values for this option: " + argumentDefinition.getNames() + ".");
-                }
-                //"null" is a special value that allows the user to override any default
-                //value set for this arg
-                if (argumentDefinition.optional) {
-                    value = null;
-                } else {
-                    throw new CommandLineException("Non \"null\" value must be provided for '" + argumentDefinition.getNames() + "'.");
-                }
+        }
+
+        int valueCount = 0;
+        for (final String stringValue : values) {
+            if (argumentDefinition.isCollection && stringValue.endsWith(COLLECTION_LIST_FILE_EXTENSION)) {
+                valueCount = loadCollectionListFile(argumentDefinition, stringValue, valueCount);
             } else {
-                // See if the value is a surrogate key in the tag parser's map that was placed there during preprocessing,
-                // and if so, unpack the values retrieved via the key and use those to populate the field
-                Pair<String, String> taggedOptionPair = tagParser.getTaggedOptionForSurrogate(stringValue);
-                if (TaggedArgument.class.isAssignableFrom(argumentDefinition.type)) {
+                setArgumentValue(argumentDefinition, stringValue, null, valueCount++ == 0);
+            }
+        }
+    }
+
+    /**
+     * Convert a single string value and set it into (or add it to, for collections) the argument's field.
+     *
+     * @param argumentDefinition the argument to receive the value
+     * @param stringValue the raw string value, which may be a surrogate key for a tagged command line value
+     * @param taggedValue Pair(tag string, argument value) for a value that was tagged in a list file, or null
+     * @param isFirstValue true if this is the first value processed for this argument occurrence
+     */
+    private void setArgumentValue(
+            final ArgumentDefinition argumentDefinition,
+            final String stringValue,
+            final Pair<String, String> taggedValue,
+            final boolean isFirstValue) {
+        final Object value;
+        if (taggedValue == null && stringValue.equals(NULL_STRING)) {
+            if (argumentDefinition.isCollection && !isFirstValue) {
+                // If a "null" is included, and its not the first value for this option, honor it, but warn,
+                // since it will clobber any values that were previously set for this option, and may indicate
+                // an unintentional error on the user's part
+                logger.warn("A \"null\" value was detected for an option after values for that option were already set. " +
+                        "Clobbering previously set values for this option: " + argumentDefinition.getNames() + ".");
+            }
+            //"null" is a special value that allows the user to override any default
+            //value set for this arg
+            if (argumentDefinition.optional) {
+                value = null;
+            } else {
+                throw new CommandLineException("Non \"null\" value must be provided for '" + argumentDefinition.getNames() + "'.");
+            }
+        } else {
+            // See if the value is a surrogate key in the tag parser's map that was placed there during preprocessing,
+            // and if so, unpack the values retrieved via the key and use those to populate the field
+            final Pair<String, String> taggedOptionPair = taggedValue == null ?
+                    tagParser.getTaggedOptionForSurrogate(stringValue) :
+                    taggedValue;
+            if (TaggedArgument.class.isAssignableFrom(argumentDefinition.type)) {
+                value = constructFromString(
+                        argumentDefinition.type,
+                        taggedOptionPair == null ?
+                                stringValue :
+                                taggedOptionPair.getRight(),        // argument value
+                        argumentDefinition.getLongName());
+                // NOTE: this propagates the tag name/attributes to the field BEFORE the value is set
+                TaggedArgument taggedArgument = (TaggedArgument) value;
+                tagParser.populateArgumentTags(
+                        taggedArgument,
+                        argumentDefinition.getLongName(),
+                        taggedOptionPair == null ?
+                                null :
+                                taggedOptionPair.getLeft());
+            }
+            else {
+                if (taggedOptionPair == null) {
                     value = constructFromString(
-                            CommandLineParser.getUnderlyingType(argumentDefinition.field),
-                            taggedOptionPair == null ?
-                                    stringValue :
-                                    taggedOptionPair.getRight(),        // argument value
+                            argumentDefinition.type,
+                            stringValue,
                             argumentDefinition.getLongName());
-                    // NOTE: this propagates the tag name/attributes to the field BEFORE the value is set
-                    TaggedArgument taggedArgument = (TaggedArgument) value;
-                    tagParser.populateArgumentTags(
-                            taggedArgument,
-                            argumentDefinition.getLongName(),
-                            taggedOptionPair == null ?
-                                    null :
-                                    taggedOptionPair.getLeft());
-                }
-                else {
-                    if (taggedOptionPair == null) {
-                        value = constructFromString(
-                                CommandLineParser.getUnderlyingType(argumentDefinition.field),
-                                stringValue,
-                                argumentDefinition.getLongName());
-                    } else {
-                        // a tag was found for a non-taggable argument
-                        throw new CommandLineException(
-                                String.format("The argument: \"%s/%s\" does not accept tags: \"%s\"",
-                                        argumentDefinition.shortName,
-                                        argumentDefinition.fullName,
-                                        taggedOptionPair.getLeft()));
-                    }
+                } else {
+                    // a tag was found for a non-taggable argument
+                    throw new CommandLineException(
+                            String.format("The argument: \"%s/%s\" does not accept tags: \"%s\"",
+                                    argumentDefinition.shortName,
+                                    argumentDefinition.fullName,
+                                    taggedOptionPair.getLeft()));
                 }
             }
+        }
 
-            // check the argument range
-            checkArgumentRange(argumentDefinition, value);
+        // check the argument range
+        checkArgumentRange(argumentDefinition, value);
 
-            if (argumentDefinition.isCollection) {
-                @SuppressWarnings("rawtypes")
-                final Collection c = (Collection) argumentDefinition.getFieldValue();
-                if (value == null) {
-                    //user specified this arg=null which is interpreted as empty list
-                    c.clear();
-                } else {
-                    c.add(value);
-                }
-                argumentDefinition.hasBeenSet = true;
+        if (argumentDefinition.isCollection) {
+            @SuppressWarnings("unchecked")
+            final Collection<Object> c = (Collection<Object>) argumentDefinition.getFieldValue();
+            if (value == null) {
+                //user specified this arg=null which is interpreted as empty list
+                c.clear();
             } else {
-                argumentDefinition.setFieldValue(value);
-                argumentDefinition.hasBeenSet = true;
+                c.add(value);
             }
+            argumentDefinition.hasBeenSet = true;
+        } else {
+            argumentDefinition.setFieldValue(value);
+            argumentDefinition.hasBeenSet = true;
         }
     }
 
     /**
-     * Expand any collection values that are ".list" argument files, and add them
-     * to the list of values for that argument.
-     * @param originalValues
-     * @return a list containing the original entries in {@code originalValues}, with any
-     * values from list files expanded in place, preserving both the original list order and
-     * the file order
+     * Stream the values in a collection list file into a collection argument. Blank lines, and lines that start
+     * with {@link #COMMENT}, are ignored.
+     *
+     * For arguments whose type implements {@link TaggedArgument}, each line may optionally carry its own tag
+     * and attributes, separated from the value by a tab, using the same tag syntax as the command line:
+     *
+     *     logical_name(,key=value)*&lt;TAB&gt;argument_value
+     *
+     * A line is only split at its first tab when the text before the tab starts with a valid logical name (non-empty,
+     * with no whitespace, '=' or ','), and contains no whitespace other than around the tab; otherwise the whole line,
+     * including any tabs, is an untagged value. A line that starts with a tab is always an untagged value, so values containing a tab that
+     * would otherwise be mistaken for a tag can be written with a leading tab. For all other argument types, each
+     * (trimmed) line is a value.
+     *
+     * @param argumentDefinition the collection argument to receive the values
+     * @param collectionListFile a text file containing list values
+     * @param valueCount the number of values already processed for this argument occurrence
+     * @return the updated number of values processed for this argument occurrence
      */
-    private List<String> expandListFile(final List<String> originalValues) {
-        List<String> expandedValues = new ArrayList<>(originalValues.size());
-        for (String stringValue: originalValues) {
-            if (stringValue.endsWith(COLLECTION_LIST_FILE_EXTENSION)) {
-                expandedValues.addAll(loadCollectionListFile(stringValue));
-            }
-            else {
-                expandedValues.add(stringValue);
+    private int loadCollectionListFile(
+            final ArgumentDefinition argumentDefinition,
+            final String collectionListFile,
+            int valueCount) {
+        final boolean isTaggable = TaggedArgument.class.isAssignableFrom(argumentDefinition.type);
+        try (BufferedReader reader = new BufferedReader(new FileReader(resolveFile(collectionListFile)))){
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final boolean isUntaggedLine = !isTaggable || line.startsWith(String.valueOf(LIST_FILE_TAG_SEPARATOR));
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(COMMENT)) {
+                    continue;
+                }
+                final int tagSeparatorIndex = isUntaggedLine ? -1 : getListFileTagSeparatorIndex(line);
+                if (tagSeparatorIndex == -1) {
+                    setArgumentValue(argumentDefinition, line, null, valueCount++ == 0);
+                } else {
+                    final String tagString = line.substring(0, tagSeparatorIndex).trim();
+                    // the line has been trimmed, so the value on either side of the separator is never empty
+                    final String argValue = line.substring(tagSeparatorIndex + 1).trim();
+                    setArgumentValue(argumentDefinition, argValue, Pair.of(tagString, argValue), valueCount++ == 0);
+                }
             }
+        } catch (final IOException e) {
+            throw new CommandLineException("I/O error loading list file:" + collectionListFile, e);
         }
-        return expandedValues;
+        return valueCount;
     }
 
     /**
-     * Read a list file and return a list of the collection values contained in it
-     * A line that starts with {@link #COMMENT}  is ignored.
+     * Find the tab separating the tag string from the value on a (trimmed) line of a collection list file for a
+     * tagged argument.
      *
-     * @param collectionListFile a text file containing list values
-     * @return false if a fatal error occurred
+     * @param line a trimmed, non-empty line from a collection list file
+     * @return the index of the separator, or -1 if the line has no tag string
      */
-    private List<String> loadCollectionListFile(final String collectionListFile) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(collectionListFile))){
-            return reader.lines()
-                    .map(String::trim)
-                    .filter(line -> !line.isEmpty())
-                    .filter(line -> !line.startsWith(COMMENT))
-                    .collect(Collectors.toList());
-        } catch (final IOException e) {
-            throw new CommandLineException("I/O error loading list file:" + collectionListFile, e);
+    private static int getListFileTagSeparatorIndex(final String line) {
+        final int tagSeparatorIndex = line.indexOf(LIST_FILE_TAG_SEPARATOR);
+        if (tagSeparatorIndex == -1) {
+            return -1;
+        }
+        final String tagString = line.substring(0, tagSeparatorIndex).trim();
+        for (int i = 0; i < tagString.length(); i++) {
+            if (Character.isWhitespace(tagString.charAt(i))) {
+                return -1;
+            }
         }
+        // the attributes are validated when the tag string is parsed, but the logical name has to be present
+        final int nameEnd = tagString.indexOf(',');
+        final String logicalName = nameEnd == -1 ? tagString : tagString.substring(0, nameEnd);
+        return logicalName.isEmpty() || logicalName.contains("=") ? -1 : tagSeparatorIndex;
     }
 
     /**
@@ -757,7 +1104,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
      */
     private List<String> loadArgumentsFile(final String argumentsFile) {
         List<String> args = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(argumentsFile))){
+        try (BufferedReader reader = new BufferedReader(new FileReader(resolveFile(argumentsFile)))){
             String line;
             while ((line = reader.readLine()) != null) {
                 if (!line.startsWith(COMMENT) && !line.trim().isEmpty()) {
@@ -963,7 +1310,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         try {
             field.setAccessible(true);
             final Argument argumentAnnotation = field.getAnnotation(Argument.class);
-            final boolean isCollection = isCollectionField(field);
+            final boolean isCollection = CommandLineParser.isCollectionField(field);
             if (isCollection) {
                 field.setAccessible(true);
                 if (field.get(parent) == null) {
@@ -1012,7 +1359,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         field.setAccessible(true);
         positionalArguments = field;
         positionalArgumentsParent = parent;
-        if (!isCollectionField(field)) {
+        if (!CommandLineParser.isCollectionField(field)) {
             throw new CommandLineException.CommandLineParserInternalException("@PositionalArguments must be applied to a Collection");
         }
 
@@ -1038,16 +1385,6 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         }
     }
 
-
-    private static boolean isCollectionField(final Field field) {
-        try {
-            field.getType().asSubclass(Collection.class);
-            return true;
-        } catch (final ClassCastException e) {
-            return false;
-        }
-    }
-
     private void createCollection(final Field field, final Object callerArguments, final String annotationType)
             throws IllegalAccessException {
         try {
@@ -1082,6 +1419,9 @@ public final class CommandLineArgumentParser implements CommandLineParser {
 
     @SuppressWarnings({"unchecked", "rawtypes"})
     private Object constructFromString(final Class clazz, final String s, final String argumentName) {
+        if (clazz == File.class) {
+            return resolveFile(s);
+        }
         try {
             if (clazz.isEnum()) {
                 try {
@@ -1091,14 +1431,12 @@ public final class CommandLineArgumentParser implements CommandLineParser {
                             clazz.getSimpleName() + ". "+ getEnumOptions(clazz) );
                 }
             }
-            // Need to use getDeclaredConstructor() instead of getConstructor() in case the constructor
-            // is non-public. Set it to be accessible if it isn't already.
-            final Constructor<?> ctor = clazz.getDeclaredConstructor(String.class);
-            ctor.setAccessible(true);
+            final Constructor<?> ctor = ArgumentReflectionCache.getStringConstructor(clazz);
+            if (ctor == null) {
+                // Shouldn't happen because we've checked for presence of ctor
+                throw new CommandLineException.ShouldNeverReachHereException("Cannot find string ctor for " + clazz.getName());
+            }
             return ctor.newInstance(s);
-        } catch (final NoSuchMethodException e) {
-            // Shouldn't happen because we've checked for presence of ctor
-            throw new CommandLineException.ShouldNeverReachHereException("Cannot find string ctor for " + clazz.getName(), e);
         } catch (final InstantiationException e) {
             throw new CommandLineException.CommandLineParserInternalException("Abstract class '" + clazz.getSimpleName() +
                     "'cannot be used for an argument value type.", e);
@@ -1134,6 +1472,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
         final Double minRecommendedValue;
         final boolean isHidden;
         final boolean isAdvanced;
+        final List<ArgumentValidator> validators;
 
         public ArgumentDefinition(
                 final Field field,
@@ -1146,7 +1485,7 @@ public final class CommandLineArgumentParser implements CommandLineParser {
             this.fullName = annotation.fullName();
             this.shortName = annotation.shortName();
             this.doc = annotation.doc();
-            this.isCollection = isCollectionField(field);
+            this.isCollection = CommandLineParser.isCollectionField(field);
 
             this.isCommon = annotation.common();
             this.isSpecial = annotation.special();
@@ -1201,6 +1540,16 @@ public final class CommandLineArgumentParser implements CommandLineParser {
                 // required arguments cannot be advanced, because they represent options that should be changed carefully
                 throw new CommandLineException.CommandLineParserInternalException(String.format("A required argument cannot be annotated with @Advanced: %s", this.getLongName()));
             }
+            this.validators = new ArrayList<>(annotation.validators().length);
+            for (final Class<? extends ArgumentValidator> validatorClass : annotation.validators()) {
+                try {
+                    this.validators.add(validatorClass.newInstance());
+                } catch (final InstantiationException | IllegalAccessException e) {
+                    throw new CommandLineException.CommandLineParserInternalException(String.format(
+                            "Validator %s for argument --%s must have a public no-arg constructor",
+                            validatorClass.getName(), this.getLongName()), e);
+                }
+            }
         }
 
         public Object getFieldValue() {
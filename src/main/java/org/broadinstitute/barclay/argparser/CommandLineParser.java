@@ -2,6 +2,7 @@ package org.broadinstitute.barclay.argparser;
 
 import org.apache.commons.lang3.tuple.Pair;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
@@ -48,6 +49,20 @@ public interface CommandLineParser {
 
     public abstract String getVersion();
 
+    /**
+     * Resolve relative paths against a directory other than the process's working directory, for a parser that is
+     * parsing a command line on behalf of another process (such as a client of a server). Must be called before
+     * the arguments are parsed.
+     *
+     * @param workingDirectory absolute directory against which relative paths are resolved
+     */
+    public default void setWorkingDirectory(final File workingDirectory) {
+        // Throw unless overridden - the legacy command line parser doesn't resolve relative paths
+        throw new CommandLineException.CommandLineParserInternalException(
+                "Resolving relative paths against a working directory is not implemented by this command line parser"
+        );
+    }
+
     /**
      * Return the plugin instance corresponding to the targetDescriptor class
      */
@@ -180,22 +195,15 @@ public interface CommandLineParser {
         }
     }
 
+    /**
+     * @return an unmodifiable (and cached) list of all declared fields of {@code clazz} and its superclasses
+     */
     static List<Field> getAllFields(Class<?> clazz) {
-        final List<Field> ret = new ArrayList<>();
-        do {
-            ret.addAll(Arrays.asList(clazz.getDeclaredFields()));
-            clazz = clazz.getSuperclass();
-        } while (clazz != null);
-        return ret;
+        return ArgumentReflectionCache.getAllFields(clazz);
     }
 
     public static boolean isCollectionField(final Field field) {
-        try {
-            field.getType().asSubclass(Collection.class);
-            return true;
-        } catch (final ClassCastException e) {
-            return false;
-        }
+        return Collection.class.isAssignableFrom(field.getType());
     }
 
 
@@ -0,0 +1,126 @@
+package org.broadinstitute.barclay.argparser;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Built-in {@link ArgumentValidator}s for {@link File} and {@link Path} arguments (other values are validated
+ * using the path named by their string representation). Values are split into batches that are checked
+ * concurrently, so validating thousands of inputs on a high-latency (e.g. network) filesystem doesn't require
+ * thousands of sequential round trips.
+ *
+ * Use these by naming them in an argument's {@link Argument#validators()}, e.g.
+ * {@code validators = FileArgumentValidators.Readable.class}.
+ */
+public final class FileArgumentValidators {
+
+    /**
+     * Maximum number of values checked by a single task.
+     */
+    public static final int BATCH_SIZE = 16;
+
+    private FileArgumentValidators() {}
+
+    /**
+     * Validates that every value names an existing file or directory.
+     */
+    public static final class Exists extends PathCheckValidator {
+        @Override
+        String check(final Path path) {
+            return Files.exists(path) ? null : "does not exist";
+        }
+    }
+
+    /**
+     * Validates that every value names an existing, readable file or directory.
+     */
+    public static final class Readable extends PathCheckValidator {
+        @Override
+        String check(final Path path) {
+            if (!Files.exists(path)) {
+                return "does not exist";
+            }
+            return Files.isReadable(path) ? null : "is not readable";
+        }
+    }
+
+    /**
+     * Validates that every value names either an existing writable file, or a file that doesn't exist but can be
+     * created in an existing writable directory.
+     */
+    public static final class Writable extends PathCheckValidator {
+        @Override
+        String check(final Path path) {
+            if (Files.exists(path)) {
+                return Files.isDirectory(path) ? "is a directory" : Files.isWritable(path) ? null : "is not writable";
+            }
+            final Path parent = path.toAbsolutePath().getParent();
+            if (parent == null || !Files.isDirectory(parent)) {
+                return "is in a directory that does not exist";
+            }
+            return Files.isWritable(parent) ? null : "is in a directory that is not writable";
+        }
+    }
+
+    /**
+     * Base class for validators that check each value independently.
+     */
+    abstract static class PathCheckValidator implements ArgumentValidator {
+
+        /**
+         * @return a description of the problem with the path (to be prefixed with the path), or null if it's valid
+         */
+        abstract String check(Path path);
+
+        @Override
+        public CompletableFuture<List<String>> validate(
+                final String argumentName,
+                final List<Object> values,
+                final Executor executor) {
+            final List<CompletableFuture<List<String>>> batches = new ArrayList<>();
+            for (int start = 0; start < values.size(); start += BATCH_SIZE) {
+                final List<Object> batch = values.subList(start, Math.min(start + BATCH_SIZE, values.size()));
+                batches.add(CompletableFuture.supplyAsync(() -> checkBatch(argumentName, batch), executor));
+            }
+            return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[batches.size()]))
+                    .thenApply(ignored -> {
+                        final List<String> messages = new ArrayList<>();
+                        batches.forEach(batch -> messages.addAll(batch.join()));
+                        return messages;
+                    });
+        }
+
+        private List<String> checkBatch(final String argumentName, final List<Object> batch) {
+            final List<String> messages = new ArrayList<>();
+            for (final Object value : batch) {
+                String problem;
+                try {
+                    problem = check(toPath(value));
+                } catch (final InvalidPathException | SecurityException e) {
+                    problem = "can't be accessed: " + e.getMessage();
+                }
+                if (problem != null) {
+                    messages.add(String.format("Argument %s: %s %s", argumentName, value, problem));
+                }
+            }
+            return messages;
+        }
+
+        private static Path toPath(final Object value) {
+            if (value instanceof Path) {
+                return (Path) value;
+            } else if (value instanceof File) {
+                return ((File) value).toPath();
+            } else {
+                return Paths.get(value.toString());
+            }
+        }
+    }
+}
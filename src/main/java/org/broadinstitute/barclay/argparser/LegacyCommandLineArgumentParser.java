@@ -23,6 +23,7 @@
  */
 package org.broadinstitute.barclay.argparser;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.barclay.utils.Utils;
@@ -35,17 +36,16 @@ import java.io.PrintStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -176,6 +176,19 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
     // The associated program properties using the CommandLineProgramProperties annotation
     private final CommandLineProgramProperties programProperties;
 
+    // Upper bound on the number of rendered usage strings cached for each options class. Usage beyond this
+    // limit is still correct, it just isn't cached.
+    private static final int MAX_RENDERED_USAGE_PER_CLASS = 1024;
+
+    // Usage text rendered (HTML conversion, wrapping and validation) for each options class, keyed by the
+    // unrendered text, so that parsers created for the same class don't render the same text again
+    private static final ClassValue<Map<String, String>> renderedUsage = new ClassValue<Map<String, String>>() {
+        @Override
+        protected Map<String, String> computeValue(final Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     /**
      * Prepare for parsing command line arguments, by validating annotations.
      *
@@ -228,7 +241,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
     }
 
     private void createArgumentDefinitions(final Object callerArguments) {
-        for (final Field field : CommandLineParser.getAllFields(callerArguments.getClass())) {
+        for (final Field field : ArgumentReflectionCache.getArgumentFields(callerArguments.getClass())) {
             if (field.getAnnotation(Argument.class) != null && field.getAnnotation(ArgumentCollection.class) != null){
                 throw new CommandLineException.CommandLineParserInternalException("An Argument cannot be an argument collection: "
                         +field.getName() + " in " + callerArguments.toString() + " is annotated as both.");
@@ -271,9 +284,15 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         }
 
         if (prefix.isEmpty()) {
-            final String preamble = htmlUnescape(convertFromHtml(getStandardUsagePreamble(callerOptions.getClass()) + getUsagePreamble()));
-            checkForNonASCII(preamble, "Tool description");
-            sb.append(Utils.wrapParagraph(preamble,OPTION_COLUMN_WIDTH + DESCRIPTION_COLUMN_WIDTH));
+            final String rawPreamble = getStandardUsagePreamble(callerOptions.getClass()) + getUsagePreamble();
+            String renderedPreamble = getRenderedUsage(rawPreamble);
+            if (renderedPreamble == null) {
+                final String preamble = htmlUnescape(convertFromHtml(rawPreamble));
+                checkForNonASCII(preamble, "Tool description");
+                renderedPreamble = Utils.wrapParagraph(preamble,OPTION_COLUMN_WIDTH + DESCRIPTION_COLUMN_WIDTH);
+                putRenderedUsage(rawPreamble, renderedPreamble);
+            }
+            sb.append(renderedPreamble);
             sb.append("\nVersion: " + getVersion());
             sb.append("\n");
             sb.append("\n\nOptions:\n\n");
@@ -288,70 +307,78 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         }
 
         if (printCommon) {
+            printOptionUsage(sb, OptionsFileDefinitionHolder.OPTIONS_FILE_DEFINITION);
+        }
+        return sb.toString();
+    }
+
+    // Definition used to document OPTIONS_FILE, created on first use
+    private static final class OptionsFileDefinitionHolder {
+        // Temp class for OPTIONS_FILE
+        private static final class OptionFileContainerForUsage { public File optionFileContainer; }
+
+        private static final OptionDefinition OPTIONS_FILE_DEFINITION;
+        static {
             final Field fileField;
             try {
-                //Temp class OPTIONS_FILE
-                class OptionFileContainerForUsage { public File optionFileContainer;}
                 fileField = OptionFileContainerForUsage.class.getField("optionFileContainer");
             } catch (final NoSuchFieldException e) {
                 throw new CommandLineException("Should never happen", e);
             }
-            final OptionDefinition optionsFileOptionDefinition =
-                    new OptionDefinition(fileField, null, OPTIONS_FILE, "",
-                            "File of OPTION_NAME=value pairs.  No positional parameters allowed.  Unlike command-line options, " +
-                                    "unrecognized options are ignored.  " + "A single-valued option set in an options file may be overridden " +
-                                    "by a subsequent command-line option.  " +
-                                    "A line starting with '#' is considered a comment.",
-                            false, false, 0, Integer.MAX_VALUE, null, true, new String[0]);
-            printOptionUsage(sb, optionsFileOptionDefinition);
+            OPTIONS_FILE_DEFINITION = new OptionDefinition(fileField, null, OPTIONS_FILE, "",
+                    "File of OPTION_NAME=value pairs.  No positional parameters allowed.  Unlike command-line options, " +
+                            "unrecognized options are ignored.  " + "A single-valued option set in an options file may be overridden " +
+                            "by a subsequent command-line option.  " +
+                            "A line starting with '#' is considered a comment.",
+                    false, false, 0, Integer.MAX_VALUE, null, true, new String[0]);
         }
-        return sb.toString();
     }
 
+    private static final Pattern NON_ASCII_CHARACTER = Pattern.compile("[^\\p{ASCII}]");
+    private static final Pattern HTML_ENTITY = Pattern.compile(".*&[a-zA-Z]*?;.*", Pattern.MULTILINE);
+
     static void checkForNonASCII(String documentationText, String location) {
-        if (documentationText.matches("[^\\p{ASCII}]")) {
+        if (NON_ASCII_CHARACTER.matcher(documentationText).matches()) {
             throw new AssertionError("Non-ASCII character used in documentation ("+location+"). Only ASCII characters are allowed.");
         }
         //make sure that html-encoded non-ascii characters are found as well
-        if ( Pattern.compile(".*&[a-zA-Z]*?;.*",Pattern.MULTILINE).matcher(documentationText).find()) {
+        if (HTML_ENTITY.matcher(documentationText).find()) {
             throw new AssertionError("Non-ASCII character used in documentation ("+location+"). Only ASCII characters are allowed.");
         }
     }
-    // package local for testing
-    static String convertFromHtml(final String textToConvert) {
-
-        //LinkedHashmap since the order matters
-        final Map<String, String> regexps = new LinkedHashMap<>();
 
-        regexps.put("< *a *href=[\'\"](.*?)[\'\"] *>(.*?)</ *a *>","$2 ($1)");
-        regexps.put("< *a *href=[\'\"](.*?)[\'\"] *>(.*?)< *a */>","$2 ($1)");
-        regexps.put("</ *(br|p|table|h[1-4]|pre|hr|li|ul) *>","\n");
-        regexps.put("< *(br|p|table|h[1-4]|pre|hr|li|ul) */>","\n");
-        regexps.put("< *(p|table|h[1-4]|ul|pre) *>","\n");
-        regexps.put("<li>", " - ");
-        regexps.put("</th>", "\t");
-        regexps.put("<\\w*?>", "");
+    // HTML to text replacements for convertFromHtml, compiled once; the order matters
+    private static final Pattern[] HTML_PATTERNS = {
+            Pattern.compile("< *a *href=[\'\"](.*?)[\'\"] *>(.*?)</ *a *>"),
+            Pattern.compile("< *a *href=[\'\"](.*?)[\'\"] *>(.*?)< *a */>"),
+            Pattern.compile("</ *(br|p|table|h[1-4]|pre|hr|li|ul) *>"),
+            Pattern.compile("< *(br|p|table|h[1-4]|pre|hr|li|ul) */>"),
+            Pattern.compile("< *(p|table|h[1-4]|ul|pre) *>"),
+            Pattern.compile("<li>"),
+            Pattern.compile("</th>"),
+            Pattern.compile("<\\w*?>")
+    };
+    private static final String[] HTML_REPLACEMENTS = { "$2 ($1)", "$2 ($1)", "\n", "\n", "\n", " - ", "\t", "" };
 
-        return regexps.entrySet().stream().sequential()
-                .reduce(textToConvert, (string, entrySet) -> string.replaceAll(entrySet.getKey(), entrySet.getValue()), (a, b) -> b);
+    // package local for testing
+    static String convertFromHtml(final String textToConvert) {
+        String text = textToConvert;
+        for (int i = 0; i < HTML_PATTERNS.length; i++) {
+            text = HTML_PATTERNS[i].matcher(text).replaceAll(HTML_REPLACEMENTS[i]);
+        }
+        return text;
     }
 
-    private static final Map<String, String> htmlToText = new LinkedHashMap<String, String>(){
-        private static final long serialVersionUID = 1L;
-        {
-            put("&lt;","<");
-            put("&gt;",">");
-            put("&ge;",">=");
-            put("&le;","<=");
-
-            put("<p>","\n");
-        }
-    };
+    // Literal replacements for htmlUnescape; the order matters
+    private static final String[] HTML_ESCAPES = { "&lt;", "&gt;", "&ge;", "&le;", "<p>" };
+    private static final String[] HTML_UNESCAPED = { "<", ">", ">=", "<=", "\n" };
 
     static String htmlUnescape(String str) {
         // May need more here
-        return htmlToText.entrySet().stream().sequential()
-                .reduce(str, (string, entrySet) -> string.replace(entrySet.getKey(), entrySet.getValue()), (a, b) -> b);
+        for (int i = 0; i < HTML_ESCAPES.length; i++) {
+            str = StringUtils.replace(str, HTML_ESCAPES[i], HTML_UNESCAPED[i]);
+        }
+        return str;
     }
 
     /**
@@ -384,12 +411,13 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                 return false;
             }
 
-            final String[] pair = arg.split("=", 2);
-            if (pair.length == 2) {
-                if (pair[1].isEmpty() && i < args.length - 1) {
-                    pair[1] = args[++i];
+            final int separatorIndex = arg.indexOf('=');
+            if (separatorIndex >= 0) {
+                String value = arg.substring(separatorIndex + 1);
+                if (value.isEmpty() && i < args.length - 1) {
+                    value = args[++i];
                 }
-                if (!parseOption(pair[0], pair[1], false)) {
+                if (!parseOption(arg.substring(0, separatorIndex), value, false)) {
                     messageStream.println();
                     messageStream.append(usage(true, true));
                     return false;
@@ -496,7 +524,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         }
         final Object value;
         try {
-            value = constructFromString(getUnderlyingType(positionalArguments), stringValue);
+            value = constructFromString(CommandLineParser.getUnderlyingType(positionalArguments), stringValue);
         } catch (final CommandLineException e) {
             messageStream.println("ERROR: " + e.getMessage());
             return false;
@@ -551,7 +579,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                     return false;
                 }
             } else {
-                value = constructFromString(getUnderlyingType(optionDefinition.field), stringValue);
+                value = constructFromString(optionDefinition.type, stringValue);
             }
         } catch (final CommandLineException e) {
             messageStream.println("ERROR: " + e.getMessage());
@@ -609,9 +637,9 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                 if (line.startsWith("#") || line.trim().isEmpty()) {
                     continue;
                 }
-                final String[] pair = line.split("=", 2);
-                if (pair.length == 2) {
-                    if (!parseOption(pair[0], pair[1], optionFileStyleValidation)) {
+                final int separatorIndex = line.indexOf('=');
+                if (separatorIndex >= 0) {
+                    if (!parseOption(line.substring(0, separatorIndex), line.substring(separatorIndex + 1), optionFileStyleValidation)) {
                         messageStream.println();
                         messageStream.append(usage(true, true));
                         return false;
@@ -630,15 +658,35 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
     }
 
     private void printHtmlOptionUsage(final PrintStream stream, final OptionDefinition optionDefinition) {
-        final String type = getUnderlyingType(optionDefinition.field).getSimpleName();
+        final String type = optionDefinition.type.getSimpleName();
         final String optionLabel = prefixDot + optionDefinition.name + " (" + type + ")";
         stream.println("<tr><td>" + optionLabel + "</td><td>" + makeOptionDescription(optionDefinition) + "</td></tr>");
     }
 
     private void printOptionUsage(final StringBuilder sb, final OptionDefinition optionDefinition) {
-        printOptionParamUsage(sb, optionDefinition.name, optionDefinition.shortName,
-                getUnderlyingType(optionDefinition.field).getSimpleName(),
-                makeOptionDescription(optionDefinition));
+        final String type = optionDefinition.type.getSimpleName();
+        final String description = makeOptionDescription(optionDefinition);
+        // the rendered usage depends only on the label and the (unwrapped) description
+        final String key = String.join("\0", prefixDot, optionDefinition.name, optionDefinition.shortName, type, description);
+        String usage = getRenderedUsage(key);
+        if (usage == null) {
+            final StringBuilder usageBuilder = new StringBuilder();
+            printOptionParamUsage(usageBuilder, optionDefinition.name, optionDefinition.shortName, type, description);
+            usage = usageBuilder.toString();
+            putRenderedUsage(key, usage);
+        }
+        sb.append(usage);
+    }
+
+    private String getRenderedUsage(final String key) {
+        return renderedUsage.get(callerOptions.getClass()).get(key);
+    }
+
+    private void putRenderedUsage(final String key, final String usage) {
+        final Map<String, String> classUsage = renderedUsage.get(callerOptions.getClass());
+        if (classUsage.size() < MAX_RENDERED_USAGE_PER_CLASS) {
+            classUsage.putIfAbsent(key, usage);
+        }
     }
 
 
@@ -690,8 +738,8 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         } else if (!optionDefinition.isCollection) {
             sb.append("Required. ");
         }
-        Object[] enumConstants = getUnderlyingType(optionDefinition.field).getEnumConstants();
-        if (enumConstants == null && getUnderlyingType(optionDefinition.field) == Boolean.class) {
+        Object[] enumConstants = optionDefinition.type.getEnumConstants();
+        if (enumConstants == null && optionDefinition.type == Boolean.class) {
             enumConstants = TRUE_FALSE_VALUES;
         }
 
@@ -765,7 +813,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         try {
             field.setAccessible(true);
             final Argument optionAnnotation = field.getAnnotation(Argument.class);
-            final boolean isCollection = isCollectionField(field);
+            final boolean isCollection = CommandLineParser.isCollectionField(field);
             if (isCollection) {
                 if (optionAnnotation.maxElements() == 0) {
                     throw new CommandLineException.CommandLineParserInternalException("@Argument member " + field.getName() +
@@ -779,7 +827,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                     createCollection(field, parent, "@Argument");
                 }
             }
-            if (!canBeMadeFromString(getUnderlyingType(field))) {
+            if (!canBeMadeFromString(CommandLineParser.getUnderlyingType(field))) {
                 throw new CommandLineException.CommandLineParserInternalException("@Argument member " + field.getName() +
                         " must have a String ctor or be an enum");
             }
@@ -841,11 +889,11 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         }
         field.setAccessible(true);
         positionalArguments = field;
-        if (!isCollectionField(field)) {
+        if (!CommandLineParser.isCollectionField(field)) {
             throw new CommandLineException.CommandLineParserInternalException("@PositionalArguments must be applied to a Collection");
         }
 
-        if (!canBeMadeFromString(getUnderlyingType(field))) {
+        if (!canBeMadeFromString(CommandLineParser.getUnderlyingType(field))) {
             throw new CommandLineException.CommandLineParserInternalException("@PositionalParameters member " + field.getName() +
                     "does not have a String ctor");
         }
@@ -867,15 +915,6 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
         }
     }
 
-    private boolean isCollectionField(final Field field) {
-        try {
-            field.getType().asSubclass(Collection.class);
-            return true;
-        } catch (final ClassCastException e) {
-            return false;
-        }
-    }
-
     private void createCollection(final Field field, final Object callerOptions, final String annotationType)
             throws IllegalAccessException {
         try {
@@ -893,50 +932,17 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
 
     }
 
-    /**
-     * Returns the type that each instance of the argument needs to be converted to. In
-     * the case of primitive fields it will return the wrapper type so that String
-     * constructors can be found.
-     */
-    private Class<?> getUnderlyingType(final Field field) {
-        if (isCollectionField(field)) {
-            final ParameterizedType clazz = (ParameterizedType) (field.getGenericType());
-            final Type[] genericTypes = clazz.getActualTypeArguments();
-            if (genericTypes.length != 1) {
-                throw new CommandLineException.CommandLineParserInternalException("Strange collection type for field " +
-                        field.getName());
-            }
-            return (Class) genericTypes[0];
-
-        } else {
-            final Class<?> type = field.getType();
-            if (type == Byte.TYPE) return Byte.class;
-            if (type == Short.TYPE) return Short.class;
-            if (type == Integer.TYPE) return Integer.class;
-            if (type == Long.TYPE) return Long.class;
-            if (type == Float.TYPE) return Float.class;
-            if (type == Double.TYPE) return Double.class;
-            if (type == Boolean.TYPE) return Boolean.class;
-
-            return type;
-        }
-    }
-
-    // True if clazz is an enum, or if it has a ctor that takes a single String argument.
-    private boolean canBeMadeFromString(final Class<?> clazz) {
+    // True if clazz is an enum, or if it has a public ctor that takes a single String argument.
+    private static boolean canBeMadeFromString(final Class<?> clazz) {
         if (clazz.isEnum()) {
             return true;
         }
-        try {
-            clazz.getConstructor(String.class);
-            return true;
-        } catch (final NoSuchMethodException e) {
-            return false;
-        }
+        final Constructor<?> ctor = ArgumentReflectionCache.getStringConstructor(clazz);
+        return ctor != null && Modifier.isPublic(ctor.getModifiers());
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private Object constructFromString(final Class clazz, final String s) {
+    private static Object constructFromString(final Class clazz, final String s) {
         try {
             if (clazz.isEnum()) {
                 try {
@@ -946,11 +952,12 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                             clazz.getSimpleName() + ".", e);
                 }
             }
-            final Constructor ctor = clazz.getConstructor(String.class);
+            final Constructor<?> ctor = ArgumentReflectionCache.getStringConstructor(clazz);
+            if (ctor == null) {
+                // Shouldn't happen because we've checked for presence of ctor
+                throw new CommandLineException("Cannot find string ctor for " + clazz.getName());
+            }
             return ctor.newInstance(s);
-        } catch (final NoSuchMethodException e) {
-            // Shouldn't happen because we've checked for presence of ctor
-            throw new CommandLineException("Cannot find string ctor for " + clazz.getName(), e);
         } catch (final InstantiationException e) {
             throw new CommandLineException("Abstract class '" + clazz.getSimpleName() +
                     "'cannot be used for an option value type.", e);
@@ -969,6 +976,8 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
 
     protected static final class OptionDefinition {
         final Field field;
+        // the type to which each value is converted
+        final Class<?> type;
         final Object parent;
         final String name;
         final String shortName;
@@ -989,6 +998,7 @@ public class LegacyCommandLineArgumentParser implements CommandLineParser {
                                  final int maxElements, final Object defaultValue, final boolean isCommon,
                                  final String[] mutuallyExclusive) {
             this.field = field;
+            this.type = CommandLineParser.getUnderlyingType(field);
             this.parent = parent;
             this.name = name.toUpperCase();
             this.shortName = shortName.toUpperCase();
@@ -0,0 +1,38 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the plugin classes found on the classpath for {@link CommandLinePluginDescriptor}s, which can be shared
+ * by the {@link CommandLineArgumentParser}s created by a single owner (such as a launcher or a documentation run)
+ * so the classpath is scanned only once for each combination of class loader, plugin base class and packages.
+ *
+ * The cache holds strong references to the classes it has found, and to their class loaders, so it should be
+ * owned by something with the same lifetime as the classes it is used for, and should only be used when classes
+ * aren't added to the classpath after startup. The cache is thread-safe.
+ */
+public final class PluginDiscoveryCache {
+
+    // Plugin classes found for a (class loader, plugin base class, package names) combination
+    private final Map<List<Object>, Set<Class<?>>> pluginClasses = new ConcurrentHashMap<>();
+
+    /**
+     * Find the classes in the descriptor's plugin packages that derive from its plugin base class, using the
+     * current thread's context class loader, scanning the classpath only if they aren't already cached.
+     *
+     * @param pluginDescriptor descriptor for which to find plugin classes
+     * @return plugin classes, in discovery order
+     */
+    public Set<Class<?>> findPluginClasses(final CommandLinePluginDescriptor<?> pluginDescriptor) {
+        Utils.nonNull(pluginDescriptor, "The plugin descriptor cannot be null");
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        final List<Object> key = Arrays.asList(
+                loader,
+                pluginDescriptor.getPluginBaseClass(),
+                new ArrayList<>(pluginDescriptor.getPackageNames()));
+        return pluginClasses.computeIfAbsent(key, k -> ArgumentReflectionCache.scanForPluginClasses(loader, pluginDescriptor));
+    }
+}
@@ -0,0 +1,226 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact, immutable {@code Map<String, String>} used to hold the attribute/value pairs that are
+ * propagated to {@link TaggedArgument} instances via {@link TaggedArgument#setTagAttributes(Map)}.
+ *
+ * Large command lines (or list files) often contain tens of thousands of tagged values that all use the
+ * same small set of attribute keys and values. Rather than allocating a hash map per tagged value, each
+ * instance holds a reference to a shared, interned key table (which maps each key to its slot) and a
+ * single array of interned values, one per slot. Lookups are O(1) via the shared key table index, and
+ * iteration order is the order in which the attributes were originally specified.
+ *
+ * Instances are immutable; all mutating {@link Map} operations throw {@link UnsupportedOperationException}.
+ * Deserialized instances share the interned key table and values, just as instances created by
+ * {@link #of(List, List)} do.
+ */
+public final class TagAttributeMap extends AbstractMap<String, String> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Upper bound on the number of distinct key tables we'll intern. Key tables beyond this limit are
+    // still correct, they just aren't shared.
+    private static final int MAX_INTERNED_KEY_TABLES = 4096;
+
+    private static final Map<List<String>, KeyTable> keyTables = new ConcurrentHashMap<>();
+
+    private static final TagAttributeMap EMPTY = new TagAttributeMap(KeyTable.EMPTY, new String[0]);
+
+    private final KeyTable keyTable;
+    private final String[] values;
+    private transient Set<Map.Entry<String, String>> entrySet;
+
+    private TagAttributeMap(final KeyTable keyTable, final String[] values) {
+        this.keyTable = keyTable;
+        this.values = values;
+    }
+
+    /**
+     * @return an empty attribute map
+     */
+    public static TagAttributeMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Create an attribute map from parallel lists of keys and values.
+     *
+     * @param keys attribute keys, in display order. May not contain null or duplicate keys.
+     * @param values attribute values, corresponding to {@code keys}. May not contain null values.
+     * @return an immutable attribute map with shared key storage and interned values
+     */
+    public static TagAttributeMap of(final List<String> keys, final List<String> values) {
+        Utils.nonNull(keys, "attribute keys");
+        Utils.nonNull(values, "attribute values");
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException(
+                    String.format("Attribute key count (%d) does not match value count (%d)", keys.size(), values.size()));
+        }
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        final KeyTable table = getKeyTable(keys);
+        final String[] internedValues = new String[values.size()];
+        for (int i = 0; i < internedValues.length; i++) {
+            internedValues[i] = Utils.nonNull(values.get(i), "attribute value").intern();
+        }
+        return new TagAttributeMap(table, internedValues);
+    }
+
+    /**
+     * Create a compact attribute map containing the same entries (in the same iteration order) as an existing map.
+     *
+     * @param attributes map to copy. May not be null.
+     * @return an immutable attribute map; if {@code attributes} is already a {@link TagAttributeMap}, it is returned
+     */
+    public static TagAttributeMap copyOf(final Map<String, String> attributes) {
+        Utils.nonNull(attributes, "attributes");
+        if (attributes instanceof TagAttributeMap) {
+            return (TagAttributeMap) attributes;
+        }
+        final List<String> keys = new ArrayList<>(attributes.size());
+        final List<String> values = new ArrayList<>(attributes.size());
+        attributes.forEach((k, v) -> { keys.add(k); values.add(v); });
+        return of(keys, values);
+    }
+
+    private static KeyTable getKeyTable(final List<String> keys) {
+        KeyTable table = keyTables.get(keys);
+        if (table == null) {
+            table = new KeyTable(keys);
+            if (keyTables.size() < MAX_INTERNED_KEY_TABLES) {
+                final KeyTable previous = keyTables.putIfAbsent(Collections.unmodifiableList(Arrays.asList(table.keys)), table);
+                if (previous != null) {
+                    table = previous;
+                }
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return keyTable.indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(final Object value) {
+        for (final String v : values) {
+            if (v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String get(final Object key) {
+        final int index = keyTable.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, String>>() {
+                @Override
+                public Iterator<Map.Entry<String, String>> iterator() {
+                    return new Iterator<Map.Entry<String, String>>() {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Map.Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final Map.Entry<String, String> entry =
+                                    new AbstractMap.SimpleImmutableEntry<>(keyTable.keys[next], values[next]);
+                            next++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return values.length;
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    // Re-intern the values, and preserve the empty singleton; the key table has already been resolved
+    private Object readResolve() {
+        if (values.length == 0) {
+            return EMPTY;
+        }
+        final String[] internedValues = new String[values.length];
+        for (int i = 0; i < internedValues.length; i++) {
+            internedValues[i] = values[i].intern();
+        }
+        return new TagAttributeMap(keyTable, internedValues);
+    }
+
+    /**
+     * @return true if this map shares its key storage with {@code other}
+     */
+    boolean sharesKeyTableWith(final TagAttributeMap other) {
+        return keyTable == other.keyTable;
+    }
+
+    /**
+     * An ordered, immutable set of attribute keys, shared by all attribute maps that use the same keys
+     * in the same order.
+     */
+    private static final class KeyTable implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        static final KeyTable EMPTY = new KeyTable(Collections.emptyList());
+
+        final String[] keys;
+        final transient Map<String, Integer> index;
+
+        KeyTable(final List<String> keyList) {
+            keys = new String[keyList.size()];
+            final Map<String, Integer> keyIndex = new HashMap<>(keyList.size() * 2);
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = Utils.nonNull(keyList.get(i), "attribute key").intern();
+                if (keyIndex.put(keys[i], i) != null) {
+                    throw new IllegalArgumentException("Duplicate attribute key: " + keys[i]);
+                }
+            }
+            index = keyIndex;
+        }
+
+        int indexOf(final Object key) {
+            final Integer i = index.get(key);
+            return i == null ? -1 : i;
+        }
+
+        // Only the keys are serialized; resolve them to the interned table, which also rebuilds the index
+        private Object readResolve() {
+            return keys.length == 0 ? EMPTY : getKeyTable(Arrays.asList(keys));
+        }
+    }
+}
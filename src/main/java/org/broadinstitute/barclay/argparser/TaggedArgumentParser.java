@@ -37,6 +37,11 @@ import java.util.*;
  * 2) In phase 2, which occurs when the underlying argument field is being populated with a value, the key is used to
  * retrieve the original tag string and argument value. The tag string is parsed (logical name and attributes) and used
  * to populate the underlying argument field.
+ *
+ * Tagged values for collection arguments can also be provided in a collection list file, one per line, where each
+ * line has the tag string and value separated by a tab. A line is only split when the text before the tab starts
+ * with a valid logical name, so other values containing a tab are kept intact. These bypass phase 1 entirely; the tag
+ * string is passed directly to {@link #populateArgumentTags} as each line is read.
  */
 public final class TaggedArgumentParser {
 
@@ -209,7 +214,7 @@ public final class TaggedArgumentParser {
     public void populateArgumentTags(final TaggedArgument taggedArg, final String longArgName, final String tagString) {
         if (tagString == null) {
             taggedArg.setTag(null);
-            taggedArg.setTagAttributes(Collections.emptyMap());
+            taggedArg.setTagAttributes(TagAttributeMap.empty());
         } else {
             final ParsedArgument pa = ParsedArgument.of(longArgName, tagString);
             taggedArg.setTag(pa.getName());
@@ -256,7 +261,9 @@ public final class TaggedArgumentParser {
      */
     private static final class ParsedArgument{
         private final String name;
-        private final Map<String, String> keyValueMap;
+        // attribute keys and values, in the order specified; the number of attributes is small
+        private final List<String> keys;
+        private final List<String> values;
 
         /**
          * Parses an argument value String of the forms:
@@ -303,7 +310,8 @@ public final class TaggedArgumentParser {
 
         private ParsedArgument(final String name) {
             this.name=name;
-            this.keyValueMap = new LinkedHashMap<>(2);
+            this.keys = new ArrayList<>(2);
+            this.values = new ArrayList<>(2);
         }
 
         public String getName() {
@@ -311,18 +319,19 @@ public final class TaggedArgumentParser {
         }
 
         /**
-         * Returns an immutable view of the key-value map.
+         * Returns a compact, immutable map of the key-value pairs.
          */
         public Map<String, String> keyValueMap() {
-            return Collections.unmodifiableMap(keyValueMap);
+            return TagAttributeMap.of(keys, values);
         }
 
         public void addKeyValue(final String k, final String v) {
-            keyValueMap.put(k, v);
+            keys.add(k);
+            values.add(v);
         }
 
         private boolean containsKey(final String k) {
-            return keyValueMap.containsKey(k);
+            return keys.contains(k);
         }
     }
 
@@ -0,0 +1,299 @@
+package org.broadinstitute.barclay.help;
+
+import java.util.*;
+
+/**
+ * Documentation for a single argument. This is a typed model, but it is also a {@code Map<String, Object>}
+ * with the standard argument property names as keys, so it can be used directly as the FreeMarker binding for
+ * the argument, and by existing code (such as custom work unit handlers) that reads or adds properties by name.
+ *
+ * Properties that aren't standard are kept in a separate map, which is only created if one is added. A value put
+ * for a standard property that doesn't have the property's type (a String for the string properties, a List for
+ * options, and a Number for minElements and maxElements) is kept in that map as well, and the typed property is
+ * cleared. A standard property is present in the map once it has been set, even if it was set to null.
+ */
+public class ArgumentDoc extends AbstractMap<String, Object> {
+
+    private static final List<String> STANDARD_KEYS = Collections.unmodifiableList(Arrays.asList(
+            "name", "synonyms", "required", "type", "summary", "fulltext", "otherArgumentRequired", "exclusiveOf",
+            "options", "attributes", "kind", "defaultValue", "minValue", "maxValue", "minRecValue", "maxRecValue",
+            "minElements", "maxElements"));
+
+    private String name;
+    private String synonyms;
+    private String required;
+    private String type;
+    private String summary;
+    private String fulltext;
+    private String otherArgumentRequired;
+    private String exclusiveOf;
+    private List<Map<String, Object>> options;
+    private String attributes;
+    private String kind;
+    private Object defaultValue;
+    private Object minValue;
+    private Object maxValue;
+    private Object minRecValue;
+    private Object maxRecValue;
+    private Integer minElements;
+    private Integer maxElements;
+
+    private int presentKeys;                        // bit for each standard key that has been set
+    private Map<String, Object> otherProperties;    // non-standard properties, created when first needed
+
+    public String getName() { return name; }
+    public void setName(final String name) { this.name = name; markPresent("name"); }
+
+    public String getSynonyms() { return synonyms; }
+    public void setSynonyms(final String synonyms) { this.synonyms = synonyms; markPresent("synonyms"); }
+
+    public String getRequired() { return required; }
+    public void setRequired(final String required) { this.required = required; markPresent("required"); }
+
+    public String getType() { return type; }
+    public void setType(final String type) { this.type = type; markPresent("type"); }
+
+    public String getSummary() { return summary; }
+    public void setSummary(final String summary) { this.summary = summary; markPresent("summary"); }
+
+    public String getFulltext() { return fulltext; }
+    public void setFulltext(final String fulltext) { this.fulltext = fulltext; markPresent("fulltext"); }
+
+    public String getOtherArgumentRequired() { return otherArgumentRequired; }
+    public void setOtherArgumentRequired(final String otherArgumentRequired) { this.otherArgumentRequired = otherArgumentRequired; markPresent("otherArgumentRequired"); }
+
+    public String getExclusiveOf() { return exclusiveOf; }
+    public void setExclusiveOf(final String exclusiveOf) { this.exclusiveOf = exclusiveOf; markPresent("exclusiveOf"); }
+
+    public List<Map<String, Object>> getOptions() { return options; }
+    public void setOptions(final List<Map<String, Object>> options) { this.options = options; markPresent("options"); }
+
+    public String getAttributes() { return attributes; }
+    public void setAttributes(final String attributes) { this.attributes = attributes; markPresent("attributes"); }
+
+    public String getKind() { return kind; }
+    public void setKind(final String kind) { this.kind = kind; markPresent("kind"); }
+
+    public Object getDefaultValue() { return defaultValue; }
+    public void setDefaultValue(final Object defaultValue) { this.defaultValue = defaultValue; markPresent("defaultValue"); }
+
+    /**
+     * @return the minimum value (a Number), or "NA"
+     */
+    public Object getMinValue() { return minValue; }
+    public void setMinValue(final Object minValue) { this.minValue = minValue; markPresent("minValue"); }
+
+    /**
+     * @return the maximum value (a Number), or "NA"
+     */
+    public Object getMaxValue() { return maxValue; }
+    public void setMaxValue(final Object maxValue) { this.maxValue = maxValue; markPresent("maxValue"); }
+
+    /**
+     * @return the minimum recommended value (a Number), or "NA"
+     */
+    public Object getMinRecValue() { return minRecValue; }
+    public void setMinRecValue(final Object minRecValue) { this.minRecValue = minRecValue; markPresent("minRecValue"); }
+
+    /**
+     * @return the maximum recommended value (a Number), or "NA"
+     */
+    public Object getMaxRecValue() { return maxRecValue; }
+    public void setMaxRecValue(final Object maxRecValue) { this.maxRecValue = maxRecValue; markPresent("maxRecValue"); }
+
+    public Integer getMinElements() { return minElements; }
+    public void setMinElements(final Integer minElements) { this.minElements = minElements; markPresent("minElements"); }
+
+    public Integer getMaxElements() { return maxElements; }
+    public void setMaxElements(final Integer maxElements) { this.maxElements = maxElements; markPresent("maxElements"); }
+
+    /**
+     * @return the JSON representation of this argument. Standard properties are read through {@link #get(Object)},
+     * so values that were put with a non-standard type are included, converted using {@code toString()}.
+     */
+    public GSONArgument toGSONArgument() {
+        final GSONArgument gsonArgument = new GSONArgument();
+        gsonArgument.populate(
+                getString("summary"),
+                getString("name"),
+                getString("synonyms"),
+                getString("type"),
+                getString("required"),
+                getString("fulltext"),
+                String.valueOf(get("defaultValue")),
+                String.valueOf(get("minValue")),
+                String.valueOf(get("maxValue")),
+                String.valueOf(get("minRecValue")),
+                String.valueOf(get("maxRecValue")),
+                getString("kind"),
+                options);
+        return gsonArgument;
+    }
+
+    // The string form of a property, or null if it has no value
+    private String getString(final String key) {
+        final Object value = get(key);
+        return value == null ? null : value.toString();
+    }
+
+    // Mark a standard property as present, replacing any value of the wrong type kept for it in otherProperties
+    private void markPresent(final String key) {
+        presentKeys |= 1 << STANDARD_KEYS.indexOf(key);
+        if (otherProperties != null) {
+            otherProperties.remove(key);
+        }
+    }
+
+    private boolean isPresent(final Object key) {
+        final int index = STANDARD_KEYS.indexOf(key);
+        return index >= 0 && (presentKeys & (1 << index)) != 0;
+    }
+
+    // Clear the typed field for a standard property, and mark it as not present
+    private void clearStandard(final String key) {
+        put(key, null);
+        presentKeys &= ~(1 << STANDARD_KEYS.indexOf(key));
+    }
+
+    @Override
+    public Object get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        if (!isPresent(key)) {
+            return otherProperties == null ? null : otherProperties.get(key);
+        }
+        switch ((String) key) {
+            case "name": return name;
+            case "synonyms": return synonyms;
+            case "required": return required;
+            case "type": return type;
+            case "summary": return summary;
+            case "fulltext": return fulltext;
+            case "otherArgumentRequired": return otherArgumentRequired;
+            case "exclusiveOf": return exclusiveOf;
+            case "options": return options;
+            case "attributes": return attributes;
+            case "kind": return kind;
+            case "defaultValue": return defaultValue;
+            case "minValue": return minValue;
+            case "maxValue": return maxValue;
+            case "minRecValue": return minRecValue;
+            case "maxRecValue": return maxRecValue;
+            case "minElements": return minElements;
+            case "maxElements": return maxElements;
+            default: throw new IllegalStateException("Unhandled standard key: " + key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return isPresent(key) || (otherProperties != null && otherProperties.containsKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object put(final String key, final Object value) {
+        final Object previous = get(key);
+        final boolean isString = value == null || value instanceof String;
+        switch (key) {
+            case "name": if (isString) { setName((String) value); return previous; } break;
+            case "synonyms": if (isString) { setSynonyms((String) value); return previous; } break;
+            case "required": if (isString) { setRequired((String) value); return previous; } break;
+            case "type": if (isString) { setType((String) value); return previous; } break;
+            case "summary": if (isString) { setSummary((String) value); return previous; } break;
+            case "fulltext": if (isString) { setFulltext((String) value); return previous; } break;
+            case "otherArgumentRequired": if (isString) { setOtherArgumentRequired((String) value); return previous; } break;
+            case "exclusiveOf": if (isString) { setExclusiveOf((String) value); return previous; } break;
+            case "options":
+                if (value == null || value instanceof List) {
+                    setOptions((List<Map<String, Object>>) value);
+                    return previous;
+                }
+                break;
+            case "attributes": if (isString) { setAttributes((String) value); return previous; } break;
+            case "kind": if (isString) { setKind((String) value); return previous; } break;
+            case "defaultValue": setDefaultValue(value); return previous;
+            case "minValue": setMinValue(value); return previous;
+            case "maxValue": setMaxValue(value); return previous;
+            case "minRecValue": setMinRecValue(value); return previous;
+            case "maxRecValue": setMaxRecValue(value); return previous;
+            case "minElements":
+                if (value == null || value instanceof Number) {
+                    setMinElements(value == null ? null : ((Number) value).intValue());
+                    return previous;
+                }
+                break;
+            case "maxElements":
+                if (value == null || value instanceof Number) {
+                    setMaxElements(value == null ? null : ((Number) value).intValue());
+                    return previous;
+                }
+                break;
+            default:
+                break;
+        }
+
+        // a non-standard property, or a standard property with a value that doesn't have the property's type
+        if (STANDARD_KEYS.contains(key)) {
+            clearStandard(key);
+        }
+        if (otherProperties == null) {
+            otherProperties = new HashMap<>();
+        }
+        otherProperties.put(key, value);
+        return previous;
+    }
+
+    @Override
+    public Object remove(final Object key) {
+        if (isPresent(key)) {
+            final Object previous = get(key);
+            clearStandard((String) key);
+            return previous;
+        }
+        return otherProperties == null ? null : otherProperties.remove(key);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                final List<String> keys = new ArrayList<>(STANDARD_KEYS.size());
+                STANDARD_KEYS.stream().filter(ArgumentDoc.this::isPresent).forEach(keys::add);
+                if (otherProperties != null) {
+                    keys.addAll(otherProperties.keySet());
+                }
+                final Iterator<String> keyIterator = keys.iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    private String lastKey;
+
+                    @Override
+                    public boolean hasNext() { return keyIterator.hasNext(); }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        lastKey = keyIterator.next();
+                        return new SimpleImmutableEntry<>(lastKey, get(lastKey));
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (lastKey == null) {
+                            throw new IllegalStateException();
+                        }
+                        ArgumentDoc.this.remove(lastKey);
+                        lastKey = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return Integer.bitCount(presentKeys)
+                        + (otherProperties == null ? 0 : otherProperties.size());
+            }
+        };
+    }
+}
@@ -0,0 +1,671 @@
+package org.broadinstitute.barclay.help;
+
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders a Bash tab completion script for all of the work units. The script uses associative arrays to look up
+ * tools and arguments, and the completion information for each tool is written to a separate file, which the
+ * script only sources the first time that tool is completed. The generated script requires Bash 4.2 or later.
+ *
+ * The renderer also writes a completion index (see {@link #getCompletionIndexFileName()}), which the script uses to
+ * complete the allowed values of arguments, such as enum constants and plugin names, without starting a JVM. The
+ * index is a sorted text file with a line for each tool, each argument of a tool, and each allowed value of an
+ * argument, with the fields of each line separated by tabs:
+ *
+ *     tool
+ *     tool    argument
+ *     tool    argument    value
+ *
+ * so the values of an argument that start with a given prefix can be found with a binary search, using look(1).
+ *
+ * A {@link HelpDoclet} run adds this renderer, alongside its usual HTML and JSON output, when any of the
+ * {@code -caller-*} options are used; {@link BashTabCompletionDoclet} only uses this renderer.
+ *
+ * Using this to generate tab-completion files requires that there is a
+ * wrapper script around the call to java that acts as a user-interface.
+ *
+ * This is required because of how Bash handles tab completion - it keys off
+ * of the first word typed in a line.  When invoking directly from java, Bash
+ * will complete for the `java` command, but will not know how to complete for a
+ * jar incorporating Barclay-enabled arguments.
+ */
+public class BashTabCompletionRenderer extends DocRenderer {
+
+    /**
+     * Name of the template used to generate the completion script.
+     */
+    public static final String COMPLETION_TEMPLATE_NAME = "bash-completion.ftl";
+
+    /**
+     * Name of the template used to generate the completion file for each tool.
+     */
+    public static final String TOOL_COMPLETION_TEMPLATE_NAME = "bash-completion.tool.ftl";
+
+    /**
+     * Extension of the completion script.
+     */
+    public static final String COMPLETION_FILE_EXTENSION = "sh";
+
+    /**
+     * Extension of the completion index.
+     */
+    public static final String COMPLETION_INDEX_FILE_EXTENSION = "index";
+
+    // Separates the fields of each line of the completion index
+    private static final char INDEX_FIELD_SEPARATOR = '\t';
+
+    // Bash tab completion command-line arguments, accepted by HelpDoclet and BashTabCompletionDoclet:
+
+    // All these arguments are optional, but it is highly recommended
+    // to specify the caller script name.
+
+    final private static String CALLER_SCRIPT_NAME = "-caller-script-name";
+
+    final private static String CALLER_SCRIPT_PREFIX_LEGAL_ARGS          = "-caller-pre-legal-args";
+    final private static String CALLER_SCRIPT_PREFIX_ARG_VALUE_TYPES     = "-caller-pre-arg-val-types";
+    final private static String CALLER_SCRIPT_PREFIX_MUTEX_ARGS          = "-caller-pre-mutex-args";
+    final private static String CALLER_SCRIPT_PREFIX_ALIAS_ARGS          = "-caller-pre-alias-args";
+    final private static String CALLER_SCRIPT_PREFIX_ARG_MIN_OCCURRENCES = "-caller-pre-arg-min-occurs";
+    final private static String CALLER_SCRIPT_PREFIX_ARG_MAX_OCCURRENCES = "-caller-pre-arg-max-occurs";
+
+    final private static String CALLER_SCRIPT_POSTFIX_LEGAL_ARGS          = "-caller-post-legal-args";
+    final private static String CALLER_SCRIPT_POSTFIX_ARG_VALUE_TYPES     = "-caller-post-arg-val-types";
+    final private static String CALLER_SCRIPT_POSTFIX_MUTEX_ARGS          = "-caller-post-mutex-args";
+    final private static String CALLER_SCRIPT_POSTFIX_ALIAS_ARGS          = "-caller-post-alias-args";
+    final private static String CALLER_SCRIPT_POSTFIX_ARG_MIN_OCCURRENCES = "-caller-post-arg-min-occurs";
+    final private static String CALLER_SCRIPT_POSTFIX_ARG_MAX_OCCURRENCES = "-caller-post-arg-max-occurs";
+
+    // =============================================
+
+    // Variables that are set on the command line when running the doclet:
+
+    /**
+     * Name of the executable / wrapper script that will actually invoke the java process.
+     * This wrapper script would call into the JAR and tell it which class to run.
+     */
+    private String callerScriptName = null;
+
+    /**
+     * Arguments to the executable / wrapper script that come before any Java class names / tools.
+     *
+     * This is expected to be a space-delimited string with the options themselves as they should be
+     * typed by the user.
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "--help --info --list --inputFile --outFolder --memSize --multiplier"}
+     */
+    private String callerScriptPrefixLegalArgs       = "";
+
+    /**
+     * Types of the arguments that the executable / wrapper script is expecting before any Java class names / tools.
+     * The order of these space-delimited types should correspond to the contents of {@link #callerScriptPrefixLegalArgs}
+     *
+     * This is expected to be a space-delimited string of types.
+     *
+     * Currently accepted type values are the following (not case-sensitive):
+     *
+     *      {@code file}
+     *      {@code folder}
+     *      {@code directory}
+     *      {@code int}
+     *      {@code long}
+     *      {@code double}
+     *      {@code float}
+     *      {@code null}   (to be used in the case of an argument that acts as a flag [i.e. one that takes no additional input])
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "null null null file directory int double"}
+     */
+    private String callerScriptPrefixArgValueTypes   = "";
+
+    /**
+     * Sets of arguments to the executable / wrapper script that are mutually exclusive to each other and
+     * are expected before any Java class names / tools.
+     *
+     * This is expected to be a string with mutex information for each argument that is mutually exclusive with another
+     * argument.  The format for this string is:
+     *
+     * {@code FOO;mutexToFoo1[,mutexToFoo2][,mutexToFoo3]... BAR;mutexToBar1[,mutexToBar2][,mutexToBar3]... }
+     *
+     *  where:
+     *
+     * {@code FOO} is an argument to the wrapper script which is expected before any Java class names / tools
+     * {@code mutexToFoo1} is an argument with which {@code FOO} is mutually exclusive without leading decorators (usually - or --)
+     * {@code mutexToFoo2} is an argument with which {@code FOO} is mutually exclusive without leading decorators (usually - or --)
+     * {@code mutexToFoo3} is an argument with which {@code FOO} is mutually exclusive without leading decorators (usually - or --)
+     *  and
+     * {@code BAR} is an argument to the wrapper script which is expected before any Java class names / tools
+     * {@code mutexToBar1} is an argument with which {@code BAR} is mutually exclusive without leading decorators (usually - or --)
+     * {@code mutexToBar2} is an argument with which {@code BAR} is mutually exclusive without leading decorators (usually - or --)
+     * {@code mutexToBar3} is an argument with which {@code BAR} is mutually exclusive without leading decorators (usually - or --)
+     *
+     * This can be thought of as a set of such argument relationships and does not have any ordering scheme.
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "--help;info,list,inputFile --info;help,list,inputFile"}
+     */
+    private String callerScriptPrefixMutexArgs       = "";
+
+    /**
+     * Sets of arguments to the executable / wrapper script that are aliases of each other and
+     * are expected before any Java class names / tools.
+     * For example, full argument names and short names for those arguments.
+     *
+     * This is expected to be a string with alias information for each argument that is an alias of another
+     * argument.  The format for this string is:
+     *
+     * {@code FOO;aliasToFoo1[,aliasToFoo2][,aliasToFoo3]... BAR;aliasToBar1[,aliasToBar2][,aliasToBar3]... }
+     *
+     *  where:
+     *
+     * {@code FOO} is an argument to the wrapper script which is expected before any Java class names / tools
+     * {@code aliasToFoo1} is an argument which is an alias to {@code FOO}
+     * {@code aliasToFoo2} is an argument which is an alias to {@code FOO}
+     * {@code aliasToFoo3} is an argument which is an alias to {@code FOO}
+     *  and
+     * {@code BAR} is an argument to the wrapper script which is expected before any Java class names / tools
+     * {@code aliasToBar1} is an argument which is an alias to {@code BAR}
+     * {@code aliasToBar2} is an argument which is an alias to {@code BAR}
+     * {@code aliasToBar3} is an argument which is an alias to {@code BAR}
+     *
+     * This can be thought of as a set of such argument relationships and does not have any ordering scheme.
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "--help;-h --info;-i --inputFile;-if,-infile,-inny"}
+     */
+    private String callerScriptPrefixAliasArgs       = "";
+
+    /**
+     * The minimum number of occurrences of each argument that the executable / wrapper script is expecting
+     * before any Java class names / tools.
+     * This is expected to be a space-delimited string with the min occurrences as {@code integer} values.
+     *
+     * The order of these space-delimited values should correspond to the contents of {@link #callerScriptPrefixLegalArgs}
+     *
+     * This is used in the logic that tracks the number of times an option is specified.
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "0 0 0 1 1 0 0 0"}
+     */
+    private String callerScriptPrefixMinOccurrences  = "";
+
+    /**
+     * The maximum number of occurrences of each argument that the executable / wrapper script is expecting
+     * before any Java class names / tools.
+     * This is expected to be a space-delimited string with the max occurrences as {@code integer} values.
+     *
+     * The order of these space-delimited values should correspond to the contents of {@link #callerScriptPrefixLegalArgs}
+     *
+     * This is used in the logic that tracks the number of times an option is specified.
+     *
+     * This syntax is used to pass this information to directly to the bash completion script.
+     *
+     * Example: {@code "1 1 1 1 1 1 1 1"}
+     */
+    private String callerScriptPrefixMaxOccurrences  = "";
+
+
+    /**
+     * Arguments to the executable / wrapper script that come after any Java class names / tools.  The start of these
+     * options is indicated by the user inputting the special option {@code --}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixLegalArgs}
+     */
+    private String callerScriptPostfixLegalArgs      = "";
+
+    /**
+     * Types of the arguments that the executable / wrapper script is expecting after any Java class
+     * names / tools.  The start of these options is indicated by the user inputting the special option {@code --}
+     *
+     * The order of these space-delimited types should correspond to the contents of {@link #callerScriptPostfixLegalArgs}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixArgValueTypes}
+     */
+    private String callerScriptPostfixArgValueTypes  = "";
+
+    /**
+     * Sets of arguments to the executable / wrapper script that are mutually exclusive to each other and
+     * are expected after any Java class names / tools.  The start of these options is indicated by the user
+     * inputting the special option {@code --}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixMutexArgs}
+     */
+    private String callerScriptPostfixMutexArgs      = "";
+
+    /**
+     * Sets of arguments to the executable / wrapper script that are aliases of each other and
+     * are expected after any Java class names / tools.  The start of these options is indicated by the user
+     * inputting the special option {@code --}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixAliasArgs}
+     */
+    private String callerScriptPostfixAliasArgs      = "";
+
+    /**
+     * The minimum number of occurrences of each argument that the executable / wrapper script is expecting
+     * after any Java class names / tools.  The start of these options is indicated by the user
+     * inputting the special option {@code --}
+     *
+     * The order of these space-delimited types should correspond to the contents of {@link #callerScriptPostfixLegalArgs}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixMinOccurrences}
+     */
+    private String callerScriptPostfixMinOccurrences = "";
+
+    /**
+     * The maximum number of occurrences of each argument that the executable / wrapper script is expecting
+     * after any Java class names / tools.  The start of these options is indicated by the user
+     * inputting the special option {@code --}
+     *
+     * The order of these space-delimited types should correspond to the contents of {@link #callerScriptPostfixLegalArgs}
+     *
+     * The format of this variable is identical to {@link #callerScriptPrefixMaxOccurrences}
+     */
+    private String callerScriptPostfixMaxOccurrences = "";
+
+    /**
+     * True if the executable / wrapper script has arguments that are expected after any Java class names / tools.
+     * The start of these options is indicated by the user inputting the special option {@code --}
+     * The value of this is set internally based on the contents of {@link #callerScriptPostfixLegalArgs}
+     */
+    private boolean hasCallerScriptPostfixArgs       = false;
+
+    // The lines of the completion index. Work units may be rendered concurrently, and the set keeps the lines sorted.
+    private final Set<String> completionIndexLines = new ConcurrentSkipListSet<>();
+
+    // =============================================
+
+    /**
+     * @param doclet the HelpDoclet driving this documentation run. Can not be null.
+     */
+    public BashTabCompletionRenderer(final HelpDoclet doclet) {
+        super(doclet);
+    }
+
+    /**
+     * @param option Option to validate.
+     * @return Number of potential parameters if this is a completion option; 0 otherwise.
+     */
+    public static int optionLength(final String option) {
+        if (option.equals(CALLER_SCRIPT_NAME) ||
+            option.equals(CALLER_SCRIPT_PREFIX_LEGAL_ARGS) ||
+            option.equals(CALLER_SCRIPT_PREFIX_ARG_VALUE_TYPES) ||
+            option.equals(CALLER_SCRIPT_PREFIX_MUTEX_ARGS) ||
+            option.equals(CALLER_SCRIPT_PREFIX_ALIAS_ARGS) ||
+            option.equals(CALLER_SCRIPT_PREFIX_ARG_MIN_OCCURRENCES) ||
+            option.equals(CALLER_SCRIPT_PREFIX_ARG_MAX_OCCURRENCES) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_LEGAL_ARGS) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_ARG_VALUE_TYPES) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_MUTEX_ARGS) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_ALIAS_ARGS) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_ARG_MIN_OCCURRENCES) ||
+            option.equals(CALLER_SCRIPT_POSTFIX_ARG_MAX_OCCURRENCES) )
+        {
+            return 2;
+        }
+        else {
+            return 0;
+        }
+    }
+
+    /**
+     * Handles a completion option.
+     *
+     * @param option Option to parse.
+     * @return True if {@code option} was parsed, False otherwise.
+     */
+    public boolean parseOption(final String[] option) {
+        boolean hasParsedOption = false;
+
+        if (option[0].equals(CALLER_SCRIPT_NAME)) {
+
+            // Remove the last period and anything after it:
+            final int lastDotIndex = option[1].lastIndexOf('.');
+            if ( lastDotIndex != -1 ) {
+                callerScriptName = option[1].substring(0, lastDotIndex);
+            }
+            else {
+                callerScriptName = option[1];
+            }
+
+            hasParsedOption = true;
+        }
+
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_LEGAL_ARGS)) {
+            callerScriptPrefixLegalArgs = option[1];
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_ARG_VALUE_TYPES)) {
+            // We have to format this option to contain quotes around each word:
+            callerScriptPrefixArgValueTypes = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_MUTEX_ARGS)) {
+            // We have to format this option to contain quotes around each group of options:
+            callerScriptPrefixMutexArgs = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_ALIAS_ARGS)) {
+            // We have to format this option to contain quotes around each group of options:
+            callerScriptPrefixAliasArgs = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_ARG_MIN_OCCURRENCES)) {
+            callerScriptPrefixMinOccurrences = option[1];
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_PREFIX_ARG_MAX_OCCURRENCES)) {
+            callerScriptPrefixMaxOccurrences = option[1];
+            hasParsedOption = true;
+        }
+
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_LEGAL_ARGS)) {
+            callerScriptPostfixLegalArgs = option[1];
+            hasCallerScriptPostfixArgs = !callerScriptPostfixLegalArgs.isEmpty();
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_ARG_VALUE_TYPES)) {
+            // We have to format this option to contain quotes around each word:
+            callerScriptPostfixArgValueTypes = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_MUTEX_ARGS)) {
+            // We have to format this option to contain quotes around each word:
+            callerScriptPostfixMutexArgs = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_ALIAS_ARGS)) {
+            // We have to format this option to contain quotes around each word:
+            callerScriptPostfixAliasArgs = quoteEachWord(option[1]);
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_ARG_MIN_OCCURRENCES)) {
+            callerScriptPostfixMinOccurrences = option[1];
+            hasParsedOption = true;
+        }
+        else if (option[0].equals(CALLER_SCRIPT_POSTFIX_ARG_MAX_OCCURRENCES)) {
+            callerScriptPostfixMaxOccurrences = option[1];
+            hasParsedOption = true;
+        }
+
+        return hasParsedOption;
+    }
+
+    private String quoteEachWord(final String sentence) {
+        return quoteEachWord(sentence, " ");
+    }
+    private String quoteEachWord(final String sentence, final String sep) {
+
+        return Stream.of(sentence.split(sep))
+                .map(s -> String.format("\"%s\"", s))
+                .collect(Collectors.joining(sep));
+    }
+
+    @Override
+    public void validate() {
+        if ( callerScriptName == null ) {
+            // The user did not specify the caller script name.
+            // We cannot function under these conditions:
+            throw new RuntimeException("ERROR: You must specify a caller script name using the option: " + CALLER_SCRIPT_NAME);
+        }
+    }
+
+    /**
+     * @return the name of the caller script, without its extension, or null if it hasn't been set
+     */
+    public String getCallerScriptName() { return callerScriptName; }
+
+    /**
+     * @return The base filename of the completion script.
+     */
+    public String getOutputBaseFileName() { return callerScriptName + "-completion"; }
+
+    /**
+     * @return The filename of the completion script in the destination directory.
+     */
+    public String getOutputFileName() { return getOutputBaseFileName() + "." + COMPLETION_FILE_EXTENSION; }
+
+    /**
+     * @return The name of the directory, next to the completion script, that contains the completion file for
+     * each tool.
+     */
+    public String getToolCompletionDirName() { return getOutputBaseFileName() + ".d"; }
+
+    /**
+     * @return The filename of the completion index, next to the completion script.
+     */
+    public String getCompletionIndexFileName() { return getOutputBaseFileName() + "." + COMPLETION_INDEX_FILE_EXTENSION; }
+
+    @Override
+    public Set<String> getTemplateNames(final Collection<DocWorkUnit> workUnits) {
+        return new HashSet<>(Arrays.asList(COMPLETION_TEMPLATE_NAME, TOOL_COMPLETION_TEMPLATE_NAME));
+    }
+
+    /**
+     * Write out the completion file for a single tool, which is only sourced by the completion script the first
+     * time the tool is completed, to {@link #getToolCompletionDirName()}.
+     *
+     * The Freemarker instance will see a top-level map that has three keys in it: "callerScriptOptions" (as for
+     * {@link #renderIndex}), "toolName", and "tool", which is the property map of the work unit for the tool.
+     * The "arguments" property of the tool is a map containing the following Keys:
+     *
+     *     all
+     *     common
+     *     positional
+     *     hidden
+     *     advanced
+     *     deprecated
+     *     optional
+     *     dependent
+     *     required
+     *
+     *     Each of those keys maps to a List&lt;SimpleMap&gt; representing each property.
+     *     These property maps each contain the following keys:
+     *
+     *         kind
+     *         name
+     *         summary
+     *         fulltext
+     *         otherArgumentRequired
+     *         synonyms
+     *         exclusiveOf
+     *         type
+     *         options
+     *         attributes
+     *         required
+     *         minRecValue
+     *         maxRecValue
+     *         minValue
+     *         maxValue
+     *         defaultValue
+     *         minElements
+     *         maxElements
+     *
+     *     and arguments of plugin descriptors can also have "allowedValues", the collection of the values that the
+     *     descriptor allows for the argument.
+     *
+     * The tool, its arguments, and the allowed values of its arguments (the "options" of enum arguments, and the
+     * "allowedValues" of plugin descriptor arguments) are also added to the completion index.
+     *
+     * @param workUnit
+     * @param groupMaps
+     * @param featureMaps
+     */
+    @Override
+    public void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {
+        final Map<String, Object> rootMap = new HashMap<>();
+        rootMap.put("callerScriptOptions", getCallerScriptOptionsMap());
+        rootMap.put("toolName", workUnit.getName());
+        rootMap.put("tool", workUnit.getRootMap());
+
+        try {
+            processTemplate(TOOL_COMPLETION_TEMPLATE_NAME, rootMap,
+                    getToolCompletionDirName() + "/" + workUnit.getName() + "." + COMPLETION_FILE_EXTENSION);
+        } catch (IOException e) {
+            throw new DocException("IOException during tool completion file creation", e);
+        }
+        addCompletionIndexLines(workUnit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addCompletionIndexLines(final DocWorkUnit workUnit) {
+        final String toolName = workUnit.getName();
+        completionIndexLines.add(toolName);
+
+        final Map<String, List<Map<String, Object>>> arguments =
+                (Map<String, List<Map<String, Object>>>) workUnit.getProperty("arguments");
+        if (arguments == null) {
+            return;
+        }
+        for (final Map<String, Object> argument : arguments.getOrDefault("all", Collections.emptyList())) {
+            if ("positional".equals(argument.get("kind"))) {
+                continue;
+            }
+            final String argName = String.valueOf(argument.get("name"));
+            final String argPrefix = toolName + INDEX_FIELD_SEPARATOR + argName;
+            completionIndexLines.add(argPrefix);
+
+            final List<Map<String, Object>> options = (List<Map<String, Object>>) argument.get("options");
+            if (options != null) {
+                options.forEach(option -> addCompletionIndexValue(argPrefix, option.get("name")));
+            }
+            final Collection<?> allowedValues = (Collection<?>) argument.get("allowedValues");
+            if (allowedValues != null) {
+                allowedValues.forEach(value -> addCompletionIndexValue(argPrefix, value));
+            }
+        }
+    }
+
+    private void addCompletionIndexValue(final String argPrefix, final Object value) {
+        final String valueString = value == null ? "" : value.toString();
+        // values that can't be represented in the index can't be completed anyway
+        if (!valueString.isEmpty() && valueString.chars().noneMatch(c -> c == INDEX_FIELD_SEPARATOR || c == '\n' || c == '\r')) {
+            completionIndexLines.add(argPrefix + INDEX_FIELD_SEPARATOR + valueString);
+        }
+    }
+
+    /**
+     * Write out the shell completion output file, {@link #getOutputFileName()}. The completion information for
+     * each tool is written separately, by {@link #renderWorkUnit}, so the completion script only contains the
+     * names of the tools, and is quick to source.
+     *
+     * The Freemarker instance will see a top-level map that has two keys in it.
+     *
+     * The first key is for caller script options:
+     *
+     * SimpleMap callerScriptOptions = SimpleMap {
+     *
+     *   "callerScriptName"                 : caller script name
+     *   "toolCompletionDirName"            : name of the directory containing the tool completion files
+     *   "completionIndexFileName"          : name of the completion index file
+     *
+     *   "callerScriptPrefixLegalArgs"      : caller Script Prefix Legal Args
+     *   "callerScriptPrefixArgValueTypes"  : caller Script Prefix Arg Value Types
+     *   "callerScriptPrefixMutexArgs"      : caller Script Prefix Mutex Args
+     *   "callerScriptPrefixAliasArgs"      : caller Script Prefix Alias Args
+     *   "callerScriptPrefixMinOccurrences" : caller Script Prefix Min Occurrences
+     *   "callerScriptPrefixMaxOccurrences" : caller Script Prefix Max Occurrences
+     *   "hasCallerScriptPrefixArgs"        : has Caller Script Prefix Args
+     *
+     *   "callerScriptPostfixLegalArgs"      : caller Script Postfix Legal Args
+     *   "callerScriptPostfixArgValueTypes"  : caller Script Postfix Arg Value Types
+     *   "callerScriptPostfixMutexArgs"      : caller Script Postfix Mutex Args
+     *   "callerScriptPostfixAliasArgs"      : caller Script Postfix Alias Args
+     *   "callerScriptPostfixMinOccurrences" : caller Script Postfix Min Occurrences
+     *   "callerScriptPostfixMaxOccurrences" : caller Script Postfix Max Occurrences
+     *   "hasCallerScriptPostfixArgs"        : has Caller Script Postfix Args
+     *
+     * }
+     *
+     * The second key, "toolNames", is the sorted list of the names of all of the tools.
+     *
+     * @param workUnitList
+     * @param groupMaps
+     * @throws IOException
+     */
+    @Override
+    public void renderIndex(
+            final List<DocWorkUnit> workUnitList,
+            final List<Map<String, String>> groupMaps
+    ) throws IOException {
+        final Map<String, Object> rootMap = new HashMap<>();
+        rootMap.put("toolNames", workUnitList.stream().map(DocWorkUnit::getName).sorted().collect(Collectors.toList()));
+        rootMap.put("callerScriptOptions", getCallerScriptOptionsMap());
+        processTemplate(COMPLETION_TEMPLATE_NAME, rootMap, getOutputFileName());
+        writeCompletionIndex();
+    }
+
+    // Write out the completion index. Lines are sorted by String order, which is the same as the byte order of the
+    // UTF-8 encoded lines (that look(1) relies on in the C locale) for all but supplementary characters.
+    private void writeCompletionIndex() throws IOException {
+        try (final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                getDoclet().getDocOutput().newOutputStream(getCompletionIndexFileName()), StandardCharsets.UTF_8))) {
+            for (final String line : completionIndexLines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private Map<String, Object> getCallerScriptOptionsMap() {
+        final Map<String, Object> callerScriptOptionsMap = new HashMap<>();
+        callerScriptOptionsMap.put("callerScriptName", callerScriptName);
+        callerScriptOptionsMap.put("toolCompletionDirName", getToolCompletionDirName());
+        callerScriptOptionsMap.put("completionIndexFileName", getCompletionIndexFileName());
+
+        callerScriptOptionsMap.put("callerScriptPrefixLegalArgs", callerScriptPrefixLegalArgs);
+        callerScriptOptionsMap.put("callerScriptPrefixArgValueTypes", callerScriptPrefixArgValueTypes);
+        callerScriptOptionsMap.put("callerScriptPrefixMutexArgs", callerScriptPrefixMutexArgs);
+        callerScriptOptionsMap.put("callerScriptPrefixAliasArgs", callerScriptPrefixAliasArgs);
+        callerScriptOptionsMap.put("callerScriptPrefixMinOccurrences", callerScriptPrefixMinOccurrences);
+        callerScriptOptionsMap.put("callerScriptPrefixMaxOccurrences", callerScriptPrefixMaxOccurrences);
+
+        callerScriptOptionsMap.put("callerScriptPostfixLegalArgs", callerScriptPostfixLegalArgs);
+        callerScriptOptionsMap.put("callerScriptPostfixArgValueTypes", callerScriptPostfixArgValueTypes);
+        callerScriptOptionsMap.put("callerScriptPostfixMutexArgs", callerScriptPostfixMutexArgs);
+        callerScriptOptionsMap.put("callerScriptPostfixAliasArgs", callerScriptPostfixAliasArgs);
+        callerScriptOptionsMap.put("callerScriptPostfixMinOccurrences", callerScriptPostfixMinOccurrences);
+        callerScriptOptionsMap.put("callerScriptPostfixMaxOccurrences", callerScriptPostfixMaxOccurrences);
+        if ( hasCallerScriptPostfixArgs ) {
+            callerScriptOptionsMap.put("hasCallerScriptPostfixArgs", "true");
+        }
+        else {
+            callerScriptOptionsMap.put("hasCallerScriptPostfixArgs", "false");
+        }
+        return callerScriptOptionsMap;
+    }
+
+    // Run the template and merge in the data
+    private void processTemplate(final String templateName, final Map<String, Object> rootMap, final String outputPath) throws IOException {
+        final Template template = getDoclet().getTemplateEngine().getTemplate(templateName);
+        try (final OutputStream outStream = getDoclet().getDocOutput().newOutputStream(outputPath);
+             final OutputStreamWriter outWriter = new OutputStreamWriter(outStream)) {
+            template.process(rootMap, outWriter);
+        } catch (TemplateException e) {
+            throw new DocException("Freemarker Template Exception during completion file creation", e);
+        }
+    }
+
+    /**
+     * The completion script is generated from every work unit, so it can't be generated incrementally.
+     */
+    @Override
+    public boolean supportsIncrementalGeneration() { return false; }
+
+}
@@ -0,0 +1,171 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.javadoc.RootDoc;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates documentation from compiled classes, using the comments recorded for them at compile time by
+ * {@link DocCommentProcessor}, instead of from a javadoc run over the sources. Any Barclay doclet (a
+ * {@link HelpDoclet} subclass with the usual static {@code start} and {@code optionLength} methods) can be run
+ * this way, using the same work unit handlers and templates, and producing the same output as when it's run by
+ * javadoc. Incremental generation works as it does with javadoc (using the doclet's {@code -incremental} option).
+ *
+ * The arguments are {@code [-doclet <doclet class name>] (-package <package name> | -class <class name>)...},
+ * followed by the options for the doclet. The doclet defaults to {@link HelpDoclet}. The classes documented are
+ * those in each named package (and its subpackages) for which comments were recorded, plus each named class
+ * (given by its binary name). The doclet, the classes, and their comment resources are all loaded using the same
+ * class loader.
+ */
+public final class CompiledDocGenerator {
+    final private static Logger logger = LogManager.getLogger(CompiledDocGenerator.class);
+
+    public static final String DOCLET_OPTION = "-doclet";
+    public static final String PACKAGE_OPTION = "-package";
+    public static final String CLASS_OPTION = "-class";
+
+    private CompiledDocGenerator() {}
+
+    /**
+     * Run a doclet over compiled classes.
+     *
+     * @param args generator and doclet arguments
+     * @param classLoader class loader for the doclet, the classes to document, and their comment resources
+     * @return the value returned by the doclet's {@code start} method
+     */
+    public static boolean generate(final String[] args, final ClassLoader classLoader) {
+        String docletClassName = HelpDoclet.class.getName();
+        for (int i = 0; i < args.length - 1; i++) {
+            if (args[i].equals(DOCLET_OPTION)) {
+                docletClassName = args[i + 1];
+            }
+        }
+        final Class<?> docletClass;
+        try {
+            docletClass = Class.forName(docletClassName, true, classLoader);
+        } catch (final ClassNotFoundException e) {
+            throw new DocException("Can't load doclet class " + docletClassName, e);
+        }
+
+        final SortedSet<String> classNames = new TreeSet<>();
+        final List<String[]> docletOptions = new ArrayList<>();
+        for (int i = 0; i < args.length; ) {
+            final String option = args[i];
+            final int optionLength = option.equals(DOCLET_OPTION) || option.equals(PACKAGE_OPTION) || option.equals(CLASS_OPTION) ?
+                    2 :
+                    getOptionLength(docletClass, option);
+            if (optionLength <= 0) {
+                throw new DocException(String.format("Option %s isn't recognized by doclet %s", option, docletClassName));
+            }
+            if (i + optionLength > args.length) {
+                throw new DocException(String.format("Option %s requires %d argument(s)", option, optionLength - 1));
+            }
+            final String[] optionValues = Arrays.copyOfRange(args, i, i + optionLength);
+            i += optionLength;
+            if (option.equals(PACKAGE_OPTION)) {
+                classNames.addAll(findCommentedClasses(classLoader, optionValues[1]));
+            } else if (option.equals(CLASS_OPTION)) {
+                classNames.add(optionValues[1]);
+            } else if (!option.equals(DOCLET_OPTION)) {
+                docletOptions.add(optionValues);
+            }
+        }
+        if (classNames.isEmpty()) {
+            throw new DocException(String.format(
+                    "No classes to document were found. Use %s or %s, and compile the classes with %s.",
+                    PACKAGE_OPTION, CLASS_OPTION, DocCommentProcessor.class.getName()));
+        }
+
+        logger.info(String.format("Generating documentation for %d compiled classes using %s", classNames.size(), docletClassName));
+        final RootDoc rootDoc = CompiledJavadoc.createRootDoc(
+                classLoader, classNames, docletOptions.toArray(new String[docletOptions.size()][]));
+        try {
+            final Method start = docletClass.getMethod("start", RootDoc.class);
+            return (Boolean) start.invoke(null, rootDoc);
+        } catch (final InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new DocException("Documentation generation failed", e.getCause());
+        } catch (final NoSuchMethodException | IllegalAccessException e) {
+            throw new DocException("Can't run doclet " + docletClassName, e);
+        }
+    }
+
+    private static int getOptionLength(final Class<?> docletClass, final String option) {
+        try {
+            return (Integer) docletClass.getMethod("optionLength", String.class).invoke(null, option);
+        } catch (final NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new DocException("Can't get the length of option " + option + " from doclet " + docletClass.getName(), e);
+        }
+    }
+
+    /**
+     * @return the binary names of the classes in a package and its subpackages that have comment resources
+     */
+    static SortedSet<String> findCommentedClasses(final ClassLoader classLoader, final String packageName) {
+        final String packagePath = packageName.replace('.', '/');
+        final SortedSet<String> resourceNames = new TreeSet<>();
+        try {
+            for (final URL url : Collections.list(classLoader.getResources(packagePath))) {
+                if (url.getProtocol().equals("file")) {
+                    final Path packageDir = Paths.get(url.toURI());
+                    try (final Stream<Path> paths = Files.walk(packageDir)) {
+                        paths.filter(Files::isRegularFile)
+                                .map(p -> packagePath + "/" + packageDir.relativize(p).toString().replace('\\', '/'))
+                                .forEach(resourceNames::add);
+                    }
+                } else if (url.getProtocol().equals("jar")) {
+                    final JarURLConnection connection = (JarURLConnection) url.openConnection();
+                    connection.setUseCaches(false);
+                    try (final JarFile jarFile = connection.getJarFile()) {
+                        jarFile.stream()
+                                .map(JarEntry::getName)
+                                .filter(n -> n.startsWith(packagePath + "/"))
+                                .forEach(resourceNames::add);
+                    }
+                } else {
+                    logger.warn("Can't search for documentation comments in " + url);
+                }
+            }
+        } catch (final IOException | URISyntaxException e) {
+            throw new DocException("Can't search for documentation comments in package " + packageName, e);
+        }
+        return resourceNames.stream()
+                .filter(n -> n.endsWith(DocCommentProcessor.COMMENT_RESOURCE_SUFFIX))
+                .map(n -> n.substring(0, n.length() - DocCommentProcessor.COMMENT_RESOURCE_SUFFIX.length()).replace('/', '.'))
+                .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * Generate documentation from compiled classes on the classpath.
+     *
+     * @param args generator and doclet arguments
+     */
+    public static void main(final String[] args) {
+        if (args.length == 0) {
+            System.err.println(String.format(
+                    "Usage: %s [%s <doclet class>] (%s <package name> | %s <class name>)... <doclet options>...",
+                    CompiledDocGenerator.class.getName(), DOCLET_OPTION, PACKAGE_OPTION, CLASS_OPTION));
+            System.exit(1);
+        }
+        System.exit(generate(args, CompiledDocGenerator.class.getClassLoader()) ? 0 : 1);
+    }
+}
@@ -0,0 +1,737 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.sun.javadoc.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * An implementation of the parts of the javadoc object model used by the Barclay doclets, built from compiled
+ * classes and the comments recorded for them at compile time by {@link DocCommentProcessor}, so that doclets can
+ * be run without a javadoc run over the sources. Comments are parsed into text and tags the way javadoc parses
+ * them. Classes with no recorded comments (such as anonymous classes, or classes compiled without the processor)
+ * are modeled using reflection, with empty comments.
+ *
+ * Classes are only loaded (without initialization) when a part of the model that needs them is used, so the
+ * annotations of a class with recorded comments can be inspected without loading it. Each model object is a
+ * dynamic proxy for the corresponding javadoc interface; methods of the javadoc model that aren't implemented
+ * throw UnsupportedOperationException. Like the javadoc model, this model isn't thread-safe.
+ *
+ * Package protected - only for use by doclets, since the com.sun.javadoc.* classes are not available on all systems.
+ */
+final class CompiledJavadoc {
+    final private static Logger logger = LogManager.getLogger(CompiledJavadoc.class);
+
+    private final ClassLoader classLoader;
+    private final Map<String, ClassDoc> classDocs = new HashMap<>();           // by binary name
+    private final Map<String, Optional<String>> binaryNames = new HashMap<>(); // resolved names for classNamed
+    private final Map<String, PackageDoc> packageDocs = new HashMap<>();
+
+    private CompiledJavadoc(final ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @param classLoader class loader for the classes and their comment resources
+     * @param classNames binary names of the classes to document
+     * @param options options for the doclet, in the form returned by {@link RootDoc#options()}
+     * @return a javadoc root for the classes
+     */
+    static RootDoc createRootDoc(final ClassLoader classLoader, final Collection<String> classNames, final String[][] options) {
+        final CompiledJavadoc model = new CompiledJavadoc(classLoader);
+        final ClassDoc[] classes = classNames.stream().map(model::getClassDoc).toArray(ClassDoc[]::new);
+        return newProxy(RootDoc.class, model.new RootDocHandler(classes, options));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T newProxy(final Class<T> docInterface, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(RootDoc.class.getClassLoader(), new Class<?>[] { docInterface }, handler);
+    }
+
+    private ClassDoc getClassDoc(final String binaryName) {
+        return classDocs.computeIfAbsent(binaryName, n -> newProxy(ClassDoc.class, new ClassDocHandler(n)));
+    }
+
+    private PackageDoc getPackageDoc(final String packageName) {
+        return packageDocs.computeIfAbsent(packageName, n -> newProxy(PackageDoc.class, new PackageDocHandler(n)));
+    }
+
+    private Type getType(final Class<?> type) {
+        Class<?> componentType = type;
+        final StringBuilder dimension = new StringBuilder();
+        while (componentType.isArray()) {
+            componentType = componentType.getComponentType();
+            dimension.append("[]");
+        }
+        if (!componentType.isPrimitive() && dimension.length() == 0) {
+            return getClassDoc(componentType.getName());
+        }
+        return newProxy(Type.class, new TypeHandler(
+                componentType.isPrimitive() ? null : getClassDoc(componentType.getName()),
+                componentType.getName(),
+                dimension.toString()));
+    }
+
+    // Resolve a class name as accepted by RootDoc.classNamed (with either '.' or '$' before nested class names)
+    private String resolveBinaryName(final String className) {
+        return binaryNames.computeIfAbsent(className, name -> {
+            for (String candidate = name; ; ) {
+                if (classLoader.getResource(DocCommentProcessor.getCommentResourceName(candidate)) != null ||
+                        loadClass(candidate) != null) {
+                    return Optional.of(candidate);
+                }
+                final int lastDot = candidate.lastIndexOf('.');
+                if (lastDot < 0) {
+                    return Optional.empty();
+                }
+                candidate = candidate.substring(0, lastDot) + '$' + candidate.substring(lastDot + 1);
+            }
+        }).orElse(null);
+    }
+
+    private Class<?> loadClass(final String binaryName) {
+        try {
+            return Class.forName(binaryName, false, classLoader);
+        } catch (final ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private DocCommentProcessor.TypeComments loadComments(final String binaryName) {
+        final String resourceName = DocCommentProcessor.getCommentResourceName(binaryName);
+        try (final InputStream stream = classLoader.getResourceAsStream(resourceName)) {
+            if (stream == null) {
+                return null;
+            }
+            try (final Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                return new Gson().fromJson(reader, DocCommentProcessor.TypeComments.class);
+            }
+        } catch (final IOException | JsonParseException e) {
+            throw new DocException("Can't read documentation comments resource " + resourceName, e);
+        }
+    }
+
+    private static UnsupportedOperationException unsupported(final Method method) {
+        return new UnsupportedOperationException(String.format("%s.%s isn't available when documenting compiled classes",
+                method.getDeclaringClass().getSimpleName(), method.getName()));
+    }
+
+    /**
+     * Base handler for all model objects. Proxies are compared by identity, and described by {@link #describe()}.
+     */
+    private abstract static class ModelHandler implements InvocationHandler {
+        @Override
+        public final Object invoke(final Object proxy, final Method method, final Object[] args) {
+            final Object[] arguments = args == null ? new Object[0] : args;
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return proxy == arguments[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    default: return describe();
+                }
+            }
+            return invokeModel(proxy, method, arguments);
+        }
+
+        abstract String describe();
+
+        abstract Object invokeModel(Object proxy, Method method, Object[] args);
+    }
+
+    private final class RootDocHandler extends ModelHandler {
+        private final ClassDoc[] classes;
+        private final String[][] options;
+
+        RootDocHandler(final ClassDoc[] classes, final String[][] options) {
+            this.classes = classes;
+            this.options = options;
+        }
+
+        @Override
+        String describe() { return "RootDoc"; }
+
+        @Override
+        Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "classes":
+                case "specifiedClasses":
+                    return classes.clone();
+                case "specifiedPackages":
+                    return new PackageDoc[0];
+                case "options":
+                    return Arrays.stream(options).map(String[]::clone).toArray(String[][]::new);
+                case "classNamed":
+                    final String binaryName = resolveBinaryName((String) args[0]);
+                    return binaryName == null ? null : getClassDoc(binaryName);
+                case "packageNamed":
+                    return getPackageDoc((String) args[0]);
+                case "name":
+                    return "";
+                case "printError":
+                    logger.error(args[args.length - 1]);
+                    return null;
+                case "printWarning":
+                    logger.warn(args[args.length - 1]);
+                    return null;
+                case "printNotice":
+                    logger.info(args[args.length - 1]);
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private final class PackageDocHandler extends ModelHandler {
+        private final String name;
+
+        PackageDocHandler(final String name) {
+            this.name = name;
+        }
+
+        @Override
+        String describe() { return name; }
+
+        @Override
+        Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "name":
+                    return name;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    /**
+     * Handler for the model objects that have comments: classes and fields.
+     */
+    private abstract class DocHandler extends ModelHandler {
+        private final String rawComment;
+        private Comment comment;    // parsed when first needed
+
+        DocHandler(final String rawComment) {
+            this.rawComment = rawComment == null ? "" : rawComment;
+        }
+
+        @Override
+        final Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "getRawCommentText":
+                    return rawComment;
+                case "commentText":
+                    return getComment().text;
+                case "inlineTags":
+                    return Comment.getInlineTags((Doc) proxy, getComment().text);
+                case "firstSentenceTags":
+                    return Comment.getInlineTags((Doc) proxy, Comment.getFirstSentence(getComment().text));
+                case "tags":
+                    return getComment().getTags((Doc) proxy, args.length == 0 ? null : (String) args[0]);
+                case "position":
+                    return null;
+                default:
+                    return invokeDoc(proxy, method, args);
+            }
+        }
+
+        private Comment getComment() {
+            if (comment == null) {
+                comment = new Comment(rawComment);
+            }
+            return comment;
+        }
+
+        abstract Object invokeDoc(Object proxy, Method method, Object[] args);
+    }
+
+    private final class ClassDocHandler extends DocHandler {
+        private final String binaryName;
+        private final String packageName;
+        private final String name;      // the name within the package, with '.' separating nested class names
+        private final DocCommentProcessor.TypeComments comments;
+        private Class<?> clazz;
+        private FieldDoc[] fields;
+
+        ClassDocHandler(final String binaryName) {
+            this(binaryName, loadComments(binaryName));
+        }
+
+        private ClassDocHandler(final String binaryName, final DocCommentProcessor.TypeComments comments) {
+            super(comments == null ? null : comments.comment);
+            this.binaryName = binaryName;
+            this.comments = comments;
+            final int lastDot = binaryName.lastIndexOf('.');
+            this.packageName = lastDot < 0 ? "" : binaryName.substring(0, lastDot);
+            this.name = binaryName.substring(lastDot + 1).replace('$', '.');
+        }
+
+        @Override
+        String describe() { return getQualifiedName(); }
+
+        private String getQualifiedName() {
+            return packageName.isEmpty() ? name : packageName + "." + name;
+        }
+
+        private Class<?> getClazz() {
+            if (clazz == null) {
+                clazz = loadClass(binaryName);
+                if (clazz == null) {
+                    throw new DocException("Can't load class " + binaryName);
+                }
+            }
+            return clazz;
+        }
+
+        private FieldDoc[] getFields(final ClassDoc classDoc) {
+            if (fields == null) {
+                final List<String> fieldNames = comments != null ?
+                        comments.fields.stream().map(f -> f.name).collect(Collectors.toList()) :
+                        Arrays.stream(getClazz().getDeclaredFields())
+                                .filter(f -> !f.isSynthetic())
+                                .map(java.lang.reflect.Field::getName)
+                                .collect(Collectors.toList());
+                fields = new FieldDoc[fieldNames.size()];
+                for (int i = 0; i < fields.length; i++) {
+                    final String fieldComment = comments == null ? null : comments.fields.get(i).comment;
+                    fields[i] = newProxy(FieldDoc.class, new FieldDocHandler(classDoc, this, fieldNames.get(i), fieldComment));
+                }
+            }
+            return fields;
+        }
+
+        private List<String> getAnnotationNames() {
+            return comments != null ?
+                    comments.annotations :
+                    Arrays.stream(getClazz().getDeclaredAnnotations())
+                            .map(a -> a.annotationType().getName())
+                            .collect(Collectors.toList());
+        }
+
+        @Override
+        Object invokeDoc(final Object proxy, final Method method, final Object[] args) {
+            final ClassDoc classDoc = (ClassDoc) proxy;
+            switch (method.getName()) {
+                case "name":
+                case "typeName":
+                    return name;
+                case "simpleTypeName":
+                    return name.substring(name.lastIndexOf('.') + 1);
+                case "qualifiedName":
+                case "qualifiedTypeName":
+                    return getQualifiedName();
+                case "dimension":
+                    return "";
+                case "isPrimitive":
+                    return false;
+                case "asClassDoc":
+                    return classDoc;
+                case "containingPackage":
+                    return getPackageDoc(packageName);
+                case "containingClass":
+                    final int lastDollar = binaryName.lastIndexOf('$');
+                    return lastDollar > packageName.length() ? getClassDoc(binaryName.substring(0, lastDollar)) : null;
+                case "superclass":
+                case "superclassType":
+                    final Class<?> superclass = getClazz().getSuperclass();
+                    return superclass == null ? null : getClassDoc(superclass.getName());
+                case "fields":
+                    final boolean filter = args.length == 0 || (Boolean) args[0];
+                    return Arrays.stream(getFields(classDoc))
+                            .filter(f -> !filter || f.isPublic() || f.isProtected())
+                            .toArray(FieldDoc[]::new);
+                case "enumConstants":
+                    return Arrays.stream(getFields(classDoc)).filter(FieldDoc::isEnumConstant).toArray(FieldDoc[]::new);
+                case "annotations":
+                    return getAnnotationNames().stream()
+                            .map(n -> newProxy(AnnotationDesc.class, new AnnotationDescHandler(n)))
+                            .toArray(AnnotationDesc[]::new);
+                case "isIncluded":
+                    return comments != null;
+                case "isEnum":
+                    return getClazz().isEnum();
+                case "isInterface":
+                    return getClazz().isInterface() && !getClazz().isAnnotation();
+                case "isAnnotationType":
+                    return getClazz().isAnnotation();
+                case "isOrdinaryClass":
+                    return !getClazz().isInterface() && !getClazz().isEnum() && !Throwable.class.isAssignableFrom(getClazz());
+                case "isClass":
+                    return !getClazz().isInterface();
+                default:
+                    return invokeModifiers(getClazz().getModifiers(), method);
+            }
+        }
+    }
+
+    private final class FieldDocHandler extends DocHandler {
+        private final ClassDoc containingClass;
+        private final ClassDocHandler containingClassHandler;
+        private final String name;
+        private java.lang.reflect.Field field;
+
+        FieldDocHandler(
+                final ClassDoc containingClass,
+                final ClassDocHandler containingClassHandler,
+                final String name,
+                final String rawComment) {
+            super(rawComment);
+            this.containingClass = containingClass;
+            this.containingClassHandler = containingClassHandler;
+            this.name = name;
+        }
+
+        @Override
+        String describe() { return containingClassHandler.getQualifiedName() + "." + name; }
+
+        private java.lang.reflect.Field getField() {
+            if (field == null) {
+                try {
+                    field = containingClassHandler.getClazz().getDeclaredField(name);
+                } catch (final NoSuchFieldException e) {
+                    throw new DocException("Can't find field " + describe(), e);
+                }
+            }
+            return field;
+        }
+
+        @Override
+        Object invokeDoc(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "name":
+                    return name;
+                case "qualifiedName":
+                    return describe();
+                case "containingClass":
+                    return containingClass;
+                case "containingPackage":
+                    return containingClass.containingPackage();
+                case "type":
+                    return getType(getField().getType());
+                case "isField":
+                    return !getField().isEnumConstant();
+                case "isEnumConstant":
+                    return getField().isEnumConstant();
+                default:
+                    return invokeModifiers(getField().getModifiers(), method);
+            }
+        }
+    }
+
+    // Modifier methods shared by classes and fields
+    private static Object invokeModifiers(final int modifiers, final Method method) {
+        switch (method.getName()) {
+            case "modifierSpecifier": return modifiers;
+            case "modifiers": return Modifier.toString(modifiers);
+            case "isPublic": return Modifier.isPublic(modifiers);
+            case "isProtected": return Modifier.isProtected(modifiers);
+            case "isPrivate": return Modifier.isPrivate(modifiers);
+            case "isPackagePrivate": return (modifiers & (Modifier.PUBLIC | Modifier.PROTECTED | Modifier.PRIVATE)) == 0;
+            case "isStatic": return Modifier.isStatic(modifiers);
+            case "isFinal": return Modifier.isFinal(modifiers);
+            case "isAbstract": return Modifier.isAbstract(modifiers);
+            case "isTransient": return Modifier.isTransient(modifiers);
+            case "isVolatile": return Modifier.isVolatile(modifiers);
+            default: throw unsupported(method);
+        }
+    }
+
+    private static final class TypeHandler extends ModelHandler {
+        private final ClassDoc classDoc;    // null for primitive types
+        private final String typeName;
+        private final String dimension;
+
+        TypeHandler(final ClassDoc classDoc, final String typeName, final String dimension) {
+            this.classDoc = classDoc;
+            this.typeName = typeName;
+            this.dimension = dimension;
+        }
+
+        @Override
+        String describe() { return (classDoc == null ? typeName : classDoc.qualifiedTypeName()) + dimension; }
+
+        @Override
+        Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "typeName":
+                    return classDoc == null ? typeName : classDoc.typeName();
+                case "simpleTypeName":
+                    return classDoc == null ? typeName : classDoc.simpleTypeName();
+                case "qualifiedTypeName":
+                    return classDoc == null ? typeName : classDoc.qualifiedTypeName();
+                case "dimension":
+                    return dimension;
+                case "isPrimitive":
+                    return classDoc == null && dimension.isEmpty();
+                case "asClassDoc":
+                    return classDoc;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private final class AnnotationDescHandler extends ModelHandler {
+        private final String annotationName;
+
+        AnnotationDescHandler(final String annotationName) {
+            this.annotationName = annotationName;
+        }
+
+        @Override
+        String describe() { return "@" + annotationName; }
+
+        @Override
+        Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "annotationType":
+                    // the annotation class isn't loaded, so only its name is available
+                    final ClassDocHandler handler = new ClassDocHandler(annotationName, null);
+                    return newProxy(AnnotationTypeDoc.class, handler);
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    private static final class TagHandler extends ModelHandler {
+        private final Doc holder;
+        private final String name;
+        private final String text;
+
+        TagHandler(final Doc holder, final String name, final String text) {
+            this.holder = holder;
+            this.name = name;
+            this.text = text;
+        }
+
+        @Override
+        String describe() { return name + ":" + text; }
+
+        @Override
+        Object invokeModel(final Object proxy, final Method method, final Object[] args) {
+            switch (method.getName()) {
+                case "name":
+                    return name;
+                case "kind":
+                    switch (name) {
+                        case "@link":
+                        case "@linkplain":
+                            return "@see";
+                        case "@exception":
+                            return "@throws";
+                        default:
+                            return name;
+                    }
+                case "text":
+                    return text;
+                case "holder":
+                    return holder;
+                case "inlineTags":
+                    return Comment.getInlineTags(holder, text);
+                case "firstSentenceTags":
+                    return Comment.getInlineTags(holder, Comment.getFirstSentence(text));
+                case "position":
+                    return null;
+                default:
+                    throw unsupported(method);
+            }
+        }
+    }
+
+    /**
+     * A comment parsed into its main text and block tags, following the rules used by javadoc.
+     */
+    static final class Comment {
+        private static final Pattern PRE_PATTERN = Pattern.compile("(?i)<(/?)pre>");
+        private static final String[] SENTENCE_TERMINATORS = {
+                "<p>", "</p>", "<h1>", "<h2>", "<h3>", "<h4>", "<h5>", "<h6>",
+                "</h1>", "</h2>", "</h3>", "</h4>", "</h5>", "</h6>", "<hr>", "<pre>", "</pre>"
+        };
+
+        final String text;
+        final List<String[]> blockTags = new ArrayList<>();    // name and text of each block tag
+
+        /**
+         * The main text is everything before the first block tag (an '@' at the start of a line), and the text of
+         * each block tag runs up to the next one. Leading and trailing whitespace is removed from each.
+         */
+        Comment(final String rawComment) {
+            String mainText = null;
+            String tagName = null;
+            boolean inTagName = false;
+            boolean inText = false;
+            boolean newLine = true;
+            int tagStart = 0;
+            int textStart = 0;
+            int lastNonWhite = -1;
+            final int length = rawComment.length();
+            for (int i = 0; i < length; i++) {
+                final char c = rawComment.charAt(i);
+                final boolean isWhite = Character.isWhitespace(c);
+                if (inTagName) {
+                    if (isWhite) {
+                        tagName = rawComment.substring(tagStart, i);
+                        inTagName = false;
+                    }
+                } else {
+                    if (!inText && !isWhite) {
+                        textStart = i;
+                        inText = true;
+                    }
+                    if (inText && newLine && c == '@') {
+                        if (tagName == null) {
+                            mainText = substring(rawComment, textStart, lastNonWhite + 1);
+                        } else {
+                            blockTags.add(new String[] { tagName, substring(rawComment, textStart, lastNonWhite + 1) });
+                        }
+                        tagStart = i;
+                        inTagName = true;
+                        inText = false;
+                    }
+                }
+                if (c == '\n') {
+                    newLine = true;
+                } else if (!isWhite) {
+                    newLine = false;
+                    lastNonWhite = i;
+                }
+            }
+            if (inTagName) {
+                tagName = rawComment.substring(tagStart);
+            }
+            if (!inText) {
+                textStart = length;
+            }
+            if (tagName == null) {
+                mainText = substring(rawComment, textStart, lastNonWhite + 1);
+            } else {
+                blockTags.add(new String[] { tagName, substring(rawComment, textStart, lastNonWhite + 1) });
+            }
+            this.text = mainText;
+        }
+
+        private static String substring(final String s, final int from, final int to) {
+            return to <= from ? "" : s.substring(from, to);
+        }
+
+        Tag[] getTags(final Doc holder, final String tagName) {
+            final String name = tagName == null || tagName.startsWith("@") ? tagName : "@" + tagName;
+            return blockTags.stream()
+                    .filter(t -> name == null || t[0].equals(name))
+                    .map(t -> newProxy(Tag.class, new TagHandler(holder, t[0], t[1])))
+                    .toArray(Tag[]::new);
+        }
+
+        /**
+         * Split text into "Text" tags and inline tags ({@code {@name text}}, with nested braces allowed in the
+         * text), as javadoc does.
+         */
+        static Tag[] getInlineTags(final Doc holder, final String text) {
+            final List<Tag> tags = new ArrayList<>();
+            final int length = text.length();
+            int textStart = 0;
+            boolean inPre = false;
+            while (textStart < length) {
+                final int tagStart = text.indexOf("{@", textStart);
+                if (tagStart < 0 || text.indexOf('}', tagStart) < 0) {
+                    tags.add(newProxy(Tag.class, new TagHandler(holder, "Text", text.substring(textStart))));
+                    break;
+                }
+                final Matcher preMatcher = PRE_PATTERN.matcher(text).region(textStart, tagStart);
+                while (preMatcher.find()) {
+                    inPre = preMatcher.group(1).isEmpty();
+                }
+                int tagTextStart = tagStart;
+                while (tagTextStart < length && !Character.isWhitespace(text.charAt(tagTextStart)) && text.charAt(tagTextStart) != '}') {
+                    tagTextStart++;
+                }
+                final String tagName = text.substring(tagStart + 2, tagTextStart);
+                if (!(inPre && (tagName.equals("code") || tagName.equals("literal")))) {
+                    while (tagTextStart < length && Character.isWhitespace(text.charAt(tagTextStart))) {
+                        tagTextStart++;
+                    }
+                }
+                tags.add(newProxy(Tag.class, new TagHandler(holder, "Text", text.substring(textStart, tagStart))));
+                final int tagEnd = findInlineTagEnd(text, tagTextStart);
+                if (tagEnd < 0) {
+                    logger.warn(String.format("Missing closing '}' for inline tag in comment for %s: %s", holder, text.substring(tagTextStart)));
+                    break;
+                }
+                tags.add(newProxy(Tag.class, new TagHandler(holder, "@" + tagName, text.substring(tagTextStart, tagEnd))));
+                textStart = tagEnd + 1;
+            }
+            return tags.toArray(new Tag[tags.size()]);
+        }
+
+        private static int findInlineTagEnd(final String text, final int searchStart) {
+            final int end = text.indexOf('}', searchStart);
+            if (end < 0) {
+                return -1;
+            }
+            final int nestedStart = text.indexOf('{', searchStart);
+            if (nestedStart >= 0 && nestedStart < end) {
+                final int nestedEnd = findInlineTagEnd(text, nestedStart + 1);
+                return nestedEnd < 0 ? -1 : findInlineTagEnd(text, nestedEnd + 1);
+            }
+            return end;
+        }
+
+        /**
+         * @return the first sentence of the text: up to the first period followed by whitespace, or the first
+         * HTML tag that ends a sentence, as determined by javadoc for English text
+         */
+        static String getFirstSentence(final String text) {
+            if (text.isEmpty()) {
+                return "";
+            }
+            final int commentEnd = text.indexOf("-->");
+            if (text.trim().startsWith("<!--") && commentEnd >= 0) {
+                return getFirstSentence(text.substring(commentEnd + 3));
+            }
+            boolean period = false;
+            for (int i = 0; i < text.length(); i++) {
+                switch (text.charAt(i)) {
+                    case '.':
+                        period = true;
+                        break;
+                    case ' ':
+                    case '\t':
+                    case '\n':
+                    case '\r':
+                    case '\f':
+                        if (period) {
+                            return text.substring(0, i).trim();
+                        }
+                        break;
+                    case '<':
+                        if (i > 0 && isSentenceTerminator(text, i)) {
+                            return text.substring(0, i).trim();
+                        }
+                        break;
+                    default:
+                        period = false;
+                }
+            }
+            return text.trim();
+        }
+
+        private static boolean isSentenceTerminator(final String text, final int index) {
+            return Arrays.stream(SENTENCE_TERMINATORS).anyMatch(t -> text.regionMatches(true, index, t, 0, t.length()));
+        }
+    }
+}
@@ -195,8 +195,13 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
             final Object argumentContainer = workUnit.getClazz().newInstance();
             if (argumentContainer instanceof CommandLinePluginProvider) {
                 pluginDescriptors = ((CommandLinePluginProvider) argumentContainer).getPluginDescriptors();
+                // Many tools typically share the same plugin descriptors, so only scan the classpath for
+                // each descriptor's plugins once per doclet run
                 clp = new CommandLineArgumentParser(
-                        argumentContainer, pluginDescriptors, Collections.emptySet()
+                        argumentContainer,
+                        pluginDescriptors,
+                        Collections.emptySet(),
+                        getDoclet().getDocletIndex().getPluginDiscoveryCache()
                 );
             } else {
                 clp = new CommandLineArgumentParser(argumentContainer);
@@ -214,6 +219,7 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
         addHighLevelBindings(workUnit);
         addCommandLineArgumentBindings(workUnit, clp);
         addDefaultPlugins(workUnit, pluginDescriptors);
+        addPluginDescriptorAllowedValues(workUnit, pluginDescriptors);
         addExtraDocsBindings(workUnit);
         addCustomBindings(workUnit);
     }
@@ -313,6 +319,10 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
             // make a GSON-friendly map of arguments -- uses some hacky casting
             final List<GSONArgument> allGSONArgs = new ArrayList<>();
             for (final Map<String, Object> item : argMap.get("all")) {
+                if (item instanceof ArgumentDoc) {
+                    allGSONArgs.add(((ArgumentDoc) item).toGSONArgument());
+                    continue;
+                }
                 GSONArgument itemGSONArg = new GSONArgument();
 
                 itemGSONArg.populate(item.get("summary").toString(),
@@ -367,6 +377,35 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
         }
     }
 
+    // Add the values allowed by its plugin descriptor (i.e. the plugin names) to each plugin descriptor argument, as
+    // the "allowedValues" property of the argument. Arguments for which any value is allowed aren't changed.
+    @SuppressWarnings("unchecked")
+    protected void addPluginDescriptorAllowedValues(
+            final DocWorkUnit currentWorkUnit,
+            final List<? extends CommandLinePluginDescriptor<?>> pluginDescriptors)
+    {
+        final Map<String, List<Map<String, Object>>> argMap =
+                (Map<String, List<Map<String, Object>>>) currentWorkUnit.getProperty("arguments");
+        if (argMap == null || pluginDescriptors.isEmpty()) {
+            return;
+        }
+        for (final Map<String, Object> argBindings : argMap.getOrDefault("all", Collections.emptyList())) {
+            final String name = String.valueOf(argBindings.get("name"));
+            if (!name.startsWith("--")) {
+                continue;
+            }
+            for (final CommandLinePluginDescriptor<?> descriptor : pluginDescriptors) {
+                final Set<String> allowedValues = descriptor.getAllowedValuesForDescriptorHelp(name.substring(2));
+                if (allowedValues != null) {
+                    if (!allowedValues.isEmpty()) {
+                        argBindings.put("allowedValues", new TreeSet<>(allowedValues));
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
     private void processNamedArgument(
             final DocWorkUnit currentWorkUnit,
             final Map<String, List<Map<String, Object>>> args,
@@ -477,26 +516,26 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
         // first get the positional arguments
         final Field positionalField = clp.getPositionalArguments();
         if (positionalField != null) {
-            final Map<String, Object> argBindings = new HashMap<>();
+            final ArgumentDoc argBindings = new ArgumentDoc();
             PositionalArguments posArgs = positionalField.getAnnotation(PositionalArguments.class);
-            argBindings.put("kind", "positional");
-            argBindings.put("name", NAME_FOR_POSITIONAL_ARGS);
-            argBindings.put("summary", posArgs.doc());
-            argBindings.put("fulltext", posArgs.doc());
-            argBindings.put("otherArgumentRequired", "NA");
-            argBindings.put("synonyms", "NA");
-            argBindings.put("exclusiveOf", "NA");
-            argBindings.put("type", argumentTypeString(positionalField.getGenericType()));
-            argBindings.put("options", Collections.EMPTY_LIST);
-            argBindings.put("attributes", "NA");
-            argBindings.put("required", "yes");
-            argBindings.put("minRecValue", "NA");
-            argBindings.put("maxRecValue", "NA");
-            argBindings.put("minValue", "NA");
-            argBindings.put("maxValue", "NA");
-            argBindings.put("defaultValue", "NA");
-            argBindings.put("minElements", posArgs.minElements());
-            argBindings.put("maxElements", posArgs.maxElements());
+            argBindings.setKind("positional");
+            argBindings.setName(NAME_FOR_POSITIONAL_ARGS);
+            argBindings.setSummary(posArgs.doc());
+            argBindings.setFulltext(posArgs.doc());
+            argBindings.setOtherArgumentRequired("NA");
+            argBindings.setSynonyms("NA");
+            argBindings.setExclusiveOf("NA");
+            argBindings.setType(argumentTypeString(positionalField.getGenericType()));
+            argBindings.setOptions(Collections.emptyList());
+            argBindings.setAttributes("NA");
+            argBindings.setRequired("yes");
+            argBindings.setMinRecValue("NA");
+            argBindings.setMaxRecValue("NA");
+            argBindings.setMinValue("NA");
+            argBindings.setMaxValue("NA");
+            argBindings.setDefaultValue("NA");
+            argBindings.setMinElements(posArgs.minElements());
+            argBindings.setMaxElements(posArgs.maxElements());
 
             args.get("positional").add(argBindings);
             args.get("all").add(argBindings);
@@ -640,45 +679,11 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
     }
 
     /**
-     * Recursive helper routine to getFieldDoc()
+     * Find the FieldDoc for a field in a class, its argument collections or its superclasses, using the doclet's
+     * index of the fields visible from each class.
      */
     private FieldDoc getFieldDoc(final ClassDoc classDoc, final String argumentFieldName) {
-        for (final FieldDoc fieldDoc : classDoc.fields(false)) {
-            if (fieldDoc.name().equals(argumentFieldName)) {
-                return fieldDoc;
-            }
-
-            // This can return null, specifically, we can encounter https://bugs.openjdk.java.net/browse/JDK-8033735,
-            // which is fixed in JDK9 http://hg.openjdk.java.net/jdk9/jdk9/hotspot/rev/ba8c351b7096.
-            final Field field = DocletUtils.getFieldForFieldDoc(fieldDoc);
-            if (field == null) {
-                logger.warn(
-                    String.format(
-                        "Could not access the field definition for %s while searching for %s, presumably because the field is inaccessible",
-                        fieldDoc.name(),
-                            argumentFieldName)
-                );
-            } else if (field.isAnnotationPresent(ArgumentCollection.class)) {
-                final ClassDoc typeDoc = getDoclet().getRootDoc().classNamed(fieldDoc.type().qualifiedTypeName());
-                if (typeDoc == null) {
-                    throw new DocException("Tried to get javadocs for ArgumentCollection field " +
-                            fieldDoc + " but couldn't find the class in the RootDoc");
-                } else {
-                    FieldDoc result = getFieldDoc(typeDoc, argumentFieldName);
-                    if (result != null) {
-                        return result;
-                    }
-                    // else keep searching
-                }
-            }
-        }
-
-        // if we didn't find it here, wander up to the superclass to find the field
-        if (classDoc.superclass() != null) {
-            return getFieldDoc(classDoc.superclass(), argumentFieldName);
-        }
-
-        return null;
+        return getDoclet().getDocletIndex().getFieldDoc(classDoc, argumentFieldName);
     }
 
     /**
@@ -739,43 +744,49 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
      * High-level entry point for creating a FreeMarker map describing the argument
      * source with definition def, with associated javadoc fieldDoc.
      *
+     * A new doc is built for each argument of each work unit, rather than shared by all work units with the same
+     * argument field, since its properties depend on the tool instance (whether the argument is optional depends
+     * on its initial value, and plugin arguments name the plugin instance), and since callers add per-tool
+     * properties to it. The expensive lookups (the FieldDoc, and the docs for enum options) are cached for the run
+     * by the {@link DocletIndex}.
+     *
      * @param fieldDoc
      * @param def
-     * @return a non-null Map binding argument keys with their values
+     * @return a non-null Map binding argument keys with their values (an {@link ArgumentDoc})
      */
     protected Map<String, Object> docForArgument(final FieldDoc fieldDoc, final CommandLineArgumentParser.ArgumentDefinition def) {
-        final Map<String, Object> root = new HashMap<>();
+        final ArgumentDoc root = new ArgumentDoc();
 
         final Pair<String, String> names = displayNames(def.shortName, def.getLongName());
-        root.put("name", names.getLeft());
-        root.put("synonyms", names.getRight() != null ? names.getRight() : "NA");
-        root.put("required", def.optional ? "no": "yes") ;
-        root.put("type", argumentTypeString(def.field.getGenericType()));
+        root.setName(names.getLeft());
+        root.setSynonyms(names.getRight() != null ? names.getRight() : "NA");
+        root.setRequired(def.optional ? "no": "yes") ;
+        root.setType(argumentTypeString(def.field.getGenericType()));
 
         // summary and fulltext
-        root.put("summary", def.doc != null ? def.doc : "");
-        root.put("fulltext", fieldDoc.commentText());
+        root.setSummary(def.doc != null ? def.doc : "");
+        root.setFulltext(fieldDoc.commentText());
 
         // Does this argument interact with any others?
         if (def.isControlledByPlugin()) {
-            root.put("otherArgumentRequired",
+            root.setOtherArgumentRequired(
                     def.parent.getClass().getSimpleName().length() == 0 ?
                         def.parent.getClass().getName() :
                         def.parent.getClass().getSimpleName());
         } else {
-            root.put("otherArgumentRequired", "NA");
+            root.setOtherArgumentRequired("NA");
         }
 
-        root.put("exclusiveOf",
+        root.setExclusiveOf(
                 def.mutuallyExclusive != null && !def.mutuallyExclusive.isEmpty() ?
                     String.join(", ", def.mutuallyExclusive) :
                     "NA");
 
         // enum options
-        root.put("options",
+        root.setOptions(
                 def.field.getType().isEnum() ?
-                        docForEnumArgument(def.field.getType()) :
-                        Collections.EMPTY_LIST);
+                        getDoclet().getDocletIndex().getEnumDocs(def.field.getType(), this::docForEnumArgument) :
+                        Collections.emptyList());
 
         List<String> attributes = new ArrayList<>();
         if (!def.optional) {
@@ -784,7 +795,7 @@ public class DefaultDocWorkUnitHandler extends DocWorkUnitHandler {
         if (def.field.isAnnotationPresent(Deprecated.class)) {
             attributes.add("deprecated");
         }
-        root.put("attributes", attributes.size() > 0 ? String.join(", ", attributes) : "NA");
+        root.setAttributes(attributes.size() > 0 ? String.join(", ", attributes) : "NA");
 
         return root;
     }
@@ -0,0 +1,136 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.Gson;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor that captures the javadoc comments needed for documentation generation at compile time, so
+ * that documentation can later be generated from the compiled classes by {@link CompiledDocGenerator}, without a
+ * javadoc run over the sources.
+ *
+ * For each type that is annotated with {@link DocumentedFeature}, is an enum, or declares fields with Barclay
+ * argument annotations, the processor writes a class output resource (named by {@link #getCommentResourceName})
+ * recording the type's comment, the names of its annotations, and the name and comment of each of its fields, in
+ * declaration order. Each resource depends only on its own type, so the processor works with incremental
+ * compilation.
+ *
+ * The processor isn't registered as a service, so it only runs when requested, i.e. by passing
+ * {@code -processor org.broadinstitute.barclay.help.DocCommentProcessor} to javac, with Barclay on the processor
+ * path.
+ */
+@SupportedAnnotationTypes("*")
+public class DocCommentProcessor extends AbstractProcessor {
+
+    /**
+     * Suffix of the comment resource for each class.
+     */
+    public static final String COMMENT_RESOURCE_SUFFIX = ".barclaydoc.json";
+
+    private static final String ARGPARSER_PACKAGE = "org.broadinstitute.barclay.argparser";
+
+    /**
+     * @param binaryClassName binary name of a class, i.e. with '$' separating nested class names
+     * @return the name of the resource containing the comments for the class
+     */
+    public static String getCommentResourceName(final String binaryClassName) {
+        return binaryClassName.replace('.', '/') + COMMENT_RESOURCE_SUFFIX;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        for (final Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                processType((TypeElement) element);
+            }
+        }
+        // other processors can still process any of the annotations
+        return false;
+    }
+
+    private void processType(final TypeElement typeElement) {
+        final Elements elements = processingEnv.getElementUtils();
+        final TypeComments typeComments = new TypeComments();
+        typeComments.comment = elements.getDocComment(typeElement);
+        boolean isDocumented = typeElement.getKind() == ElementKind.ENUM;
+
+        for (final AnnotationMirror annotation : typeElement.getAnnotationMirrors()) {
+            final String annotationName = getQualifiedName(annotation);
+            typeComments.annotations.add(annotationName);
+            isDocumented |= annotationName.equals(DocumentedFeature.class.getName());
+        }
+
+        for (final Element enclosed : typeElement.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                processType((TypeElement) enclosed);
+            } else if (enclosed.getKind() == ElementKind.FIELD || enclosed.getKind() == ElementKind.ENUM_CONSTANT) {
+                final FieldComments fieldComments = new FieldComments();
+                fieldComments.name = enclosed.getSimpleName().toString();
+                fieldComments.comment = elements.getDocComment(enclosed);
+                typeComments.fields.add(fieldComments);
+                isDocumented |= enclosed.getAnnotationMirrors().stream()
+                        .anyMatch(a -> getQualifiedName(a).startsWith(ARGPARSER_PACKAGE + "."));
+            }
+        }
+
+        if (isDocumented) {
+            writeComments(typeElement, typeComments);
+        }
+    }
+
+    private void writeComments(final TypeElement typeElement, final TypeComments typeComments) {
+        final Elements elements = processingEnv.getElementUtils();
+        final String packageName = elements.getPackageOf(typeElement).getQualifiedName().toString();
+        final String binaryName = elements.getBinaryName(typeElement).toString();
+        final String relativeName = getCommentResourceName(
+                packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+        try {
+            final FileObject resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, packageName, relativeName, typeElement);
+            try (final Writer writer = resource.openWriter()) {
+                new Gson().toJson(typeComments, writer);
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(
+                    Diagnostic.Kind.ERROR,
+                    "Can't write documentation comments for " + binaryName + ": " + e.getMessage(),
+                    typeElement);
+        }
+    }
+
+    private static String getQualifiedName(final AnnotationMirror annotation) {
+        return ((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * The comments recorded for a type. A comment is null if the element has no javadoc comment.
+     */
+    static final class TypeComments {
+        String comment;
+        List<String> annotations = new ArrayList<>();
+        List<FieldComments> fields = new ArrayList<>();
+    }
+
+    static final class FieldComments {
+        String name;
+        String comment;
+    }
+}
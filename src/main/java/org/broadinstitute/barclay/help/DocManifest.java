@@ -0,0 +1,115 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Manifest used by incremental documentation generation, recording a fingerprint of the inputs used to generate
+ * the output files for each work unit (keyed by the work unit's target file name). The manifest is kept in the
+ * destination directory.
+ *
+ * Package protected - only for use by doclets.
+ */
+final class DocManifest {
+    final private static Logger logger = LogManager.getLogger(DocManifest.class);
+
+    static final String MANIFEST_FILE_NAME = ".barclay-doc-manifest.json";
+
+    private DocManifest() {}
+
+    /**
+     * @param destinationDir directory containing the manifest
+     * @return the fingerprints recorded by the last successful run, or an empty map if there is no usable manifest
+     */
+    static Map<String, String> load(final File destinationDir) {
+        final File manifestFile = new File(destinationDir, MANIFEST_FILE_NAME);
+        if (!manifestFile.exists()) {
+            return new TreeMap<>();
+        }
+        try (final Reader reader = new InputStreamReader(new FileInputStream(manifestFile), StandardCharsets.UTF_8)) {
+            final Map<String, String> fingerprints =
+                    new Gson().fromJson(reader, new TypeToken<TreeMap<String, String>>(){}.getType());
+            return fingerprints == null ? new TreeMap<>() : fingerprints;
+        } catch (final IOException | JsonParseException e) {
+            logger.warn("Ignoring unreadable documentation manifest " + manifestFile + ": " + e.getMessage());
+            return new TreeMap<>();
+        }
+    }
+
+    /**
+     * Remove the manifest, so that if this run fails, the next run regenerates everything.
+     *
+     * @param destinationDir directory containing the manifest
+     */
+    static void delete(final File destinationDir) {
+        try {
+            Files.deleteIfExists(new File(destinationDir, MANIFEST_FILE_NAME).toPath());
+        } catch (final IOException e) {
+            throw new DocException("Can't delete documentation manifest in " + destinationDir, e);
+        }
+    }
+
+    /**
+     * @param destinationDir directory in which to write the manifest
+     * @param fingerprints fingerprint for each work unit, keyed by target file name
+     */
+    static void store(final File destinationDir, final Map<String, String> fingerprints) {
+        final File manifestFile = new File(destinationDir, MANIFEST_FILE_NAME);
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(manifestFile), StandardCharsets.UTF_8)) {
+            new Gson().toJson(new TreeMap<>(fingerprints), writer);
+        } catch (final IOException e) {
+            throw new DocException("Can't write documentation manifest " + manifestFile, e);
+        }
+    }
+
+    /**
+     * Accumulates the inputs to a fingerprint. Each value is length-prefixed, so different sequences of values
+     * always produce different input to the digest.
+     */
+    static final class Fingerprint {
+        private final MessageDigest digest;
+
+        Fingerprint() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (final NoSuchAlgorithmException e) {
+                throw new DocException("SHA-256 is not available", e);
+            }
+        }
+
+        Fingerprint add(final String value) {
+            return add(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Fingerprint add(final byte[] value) {
+            final int length = value == null ? -1 : value.length;
+            digest.update(new byte[] { (byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length });
+            if (value != null) {
+                digest.update(value);
+            }
+            return this;
+        }
+
+        /**
+         * @return the hex digest of the values added so far. The fingerprint can't be used after this is called.
+         */
+        String finish() {
+            final StringBuilder sb = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package org.broadinstitute.barclay.help;
+
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Destination for the files written by a documentation run. Renderers write each output file by opening a stream
+ * for its path, relative to the output root, using '/' as the separator.
+ *
+ * By default (see {@link #forDirectory}), output files are written to the doclet's destination directory. With the
+ * doclet's {@code -zip-output} option (see {@link #forZipFile}), each output file is instead written as an entry
+ * of a single zip file, as soon as the stream for it is closed, and no other files are created. Streams for
+ * different paths can be written concurrently.
+ */
+public abstract class DocOutput implements Closeable {
+
+    /**
+     * @param destinationDir directory in which to write the output files
+     * @return output that writes each output file to {@code destinationDir}
+     */
+    public static DocOutput forDirectory(final File destinationDir) {
+        Utils.nonNull(destinationDir, "Destination directory cannot be null");
+        return new DirectoryOutput(destinationDir);
+    }
+
+    /**
+     * @param zipFile zip file to create
+     * @param compressed true if the entries should be deflated, false if they should be stored uncompressed
+     * @return output that writes each output file as an entry of {@code zipFile}
+     * @throws IOException if the zip file can't be created
+     */
+    public static DocOutput forZipFile(final File zipFile, final boolean compressed) throws IOException {
+        Utils.nonNull(zipFile, "Zip file cannot be null");
+        return new ZipOutput(zipFile, compressed);
+    }
+
+    /**
+     * Open a stream for writing an output file. The file is complete once the stream is closed.
+     *
+     * @param path path of the output file, relative to the output root
+     * @return a stream for writing the file, which must be closed by the caller
+     * @throws IOException if the file can't be created
+     */
+    public abstract OutputStream newOutputStream(final String path) throws IOException;
+
+    /**
+     * @return true if output files that have been written can be read again, using {@link #newInputStream}
+     */
+    public boolean isReadable() { return false; }
+
+    /**
+     * Open a stream for reading an output file that has already been written. Only supported if
+     * {@link #isReadable()} returns true.
+     *
+     * @param path path of the output file, relative to the output root
+     * @return a stream for reading the file, which must be closed by the caller
+     * @throws IOException if the file can't be read
+     */
+    public InputStream newInputStream(final String path) throws IOException {
+        throw new UnsupportedOperationException("Documentation output can't be read: " + this);
+    }
+
+    /**
+     * @return true if the output files are kept from one run to the next, so that the output for unchanged work
+     * units doesn't need to be written again by incremental generation
+     */
+    public boolean supportsIncrementalGeneration() { return false; }
+
+    /**
+     * Finish writing the output. Called once all of the output files have been written.
+     *
+     * @throws IOException if the output can't be finished
+     */
+    @Override
+    public void close() throws IOException {}
+
+    private static final class DirectoryOutput extends DocOutput {
+        private final File destinationDir;
+
+        DirectoryOutput(final File destinationDir) {
+            this.destinationDir = destinationDir;
+        }
+
+        @Override
+        public OutputStream newOutputStream(final String path) throws IOException {
+            final File outputFile = new File(destinationDir, path);
+            final File parentDir = outputFile.getParentFile();
+            if (parentDir != null && !parentDir.equals(destinationDir)) {
+                Files.createDirectories(parentDir.toPath());
+            }
+            return new FileOutputStream(outputFile);
+        }
+
+        @Override
+        public boolean isReadable() { return true; }
+
+        @Override
+        public InputStream newInputStream(final String path) throws IOException {
+            return new FileInputStream(new File(destinationDir, path));
+        }
+
+        @Override
+        public boolean supportsIncrementalGeneration() { return true; }
+
+        @Override
+        public String toString() { return destinationDir.toString(); }
+    }
+
+    private static final class ZipOutput extends DocOutput {
+        private final File zipFile;
+        private final boolean compressed;
+        private final ZipOutputStream zipStream;     // guarded by itself
+
+        ZipOutput(final File zipFile, final boolean compressed) throws IOException {
+            this.zipFile = zipFile;
+            this.compressed = compressed;
+            zipStream = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(zipFile)));
+        }
+
+        /**
+         * The contents of each file are buffered in memory until its stream is closed, so files can be written
+         * concurrently, and stored entries can be written with their size and checksum.
+         */
+        @Override
+        public OutputStream newOutputStream(final String path) {
+            return new ByteArrayOutputStream() {
+                private boolean closed = false;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        writeEntry(path, buf, count);
+                    }
+                }
+            };
+        }
+
+        private void writeEntry(final String path, final byte[] contents, final int length) throws IOException {
+            final ZipEntry entry = new ZipEntry(path);
+            if (compressed) {
+                entry.setMethod(ZipEntry.DEFLATED);
+            } else {
+                final CRC32 crc = new CRC32();
+                crc.update(contents, 0, length);
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(length);
+                entry.setCompressedSize(length);
+                entry.setCrc(crc.getValue());
+            }
+            synchronized (zipStream) {
+                zipStream.putNextEntry(entry);
+                zipStream.write(contents, 0, length);
+                zipStream.closeEntry();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            synchronized (zipStream) {
+                zipStream.close();
+            }
+        }
+
+        @Override
+        public String toString() { return zipFile.toString(); }
+    }
+}
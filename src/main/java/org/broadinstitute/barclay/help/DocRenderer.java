@@ -0,0 +1,90 @@
+package org.broadinstitute.barclay.help;
+
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Abstract base class for documentation output renderers. A {@link HelpDoclet} run computes the work units and
+ * populates their property maps once, and then passes each work unit, and finally the index data, to every one
+ * of its renderers (see {@link HelpDoclet#createRenderers()}), so that several kinds of output (e.g. HTML, JSON,
+ * and a bash completion script) can be generated by a single javadoc run.
+ *
+ * Work units may be rendered concurrently when the doclet is running in parallel mode, so renderers must only
+ * modify shared state in {@link #renderWorkUnit} in a thread-safe way.
+ */
+public abstract class DocRenderer {
+    private final HelpDoclet doclet;
+
+    /**
+     * @param doclet the HelpDoclet driving this documentation run. Can not be null.
+     */
+    public DocRenderer(final HelpDoclet doclet) {
+        Utils.nonNull(doclet, "Doclet cannot be null");
+        this.doclet = doclet;
+    }
+
+    /**
+     * @return the HelpDoclet driving this documentation run
+     */
+    public HelpDoclet getDoclet() {
+        return doclet;
+    }
+
+    /**
+     * Check that the renderer has been configured correctly (i.e., by the doclet options). Called before
+     * any output is generated. Implementations should throw if there are issues.
+     */
+    public void validate() {}
+
+    /**
+     * @param workUnits all of the work units for this run
+     * @return the names of the templates used by this renderer, which are parsed before any output is written
+     */
+    public Set<String> getTemplateNames(final Collection<DocWorkUnit> workUnits) {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Write the output for a single work unit, whose property map has been populated. Default implementation
+     * doesn't write anything.
+     *
+     * @param workUnit work unit to render
+     * @param groupMaps the index map for each group
+     * @param featureMaps the index map for each work unit
+     */
+    public void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {}
+
+    /**
+     * Write the output for the whole run, once every work unit has been rendered. Default implementation
+     * doesn't write anything.
+     *
+     * @param workUnitList all of the work units for this run
+     * @param groupMaps the index map for each group
+     * @throws IOException if the output can't be written
+     */
+    public void renderIndex(
+            final List<DocWorkUnit> workUnitList,
+            final List<Map<String, String>> groupMaps) throws IOException {}
+
+    /**
+     * @return true if {@link #renderIndex} uses the property maps of the work units, in which case they are
+     * retained until the index has been rendered
+     */
+    public boolean usesWorkUnitProperties() { return false; }
+
+    /**
+     * @return true if the output for each work unit only depends on that work unit, so that it doesn't need to be
+     * rendered again if the work unit hasn't changed. Incremental generation is disabled if any renderer for the
+     * run returns false.
+     */
+    public boolean supportsIncrementalGeneration() { return true; }
+}
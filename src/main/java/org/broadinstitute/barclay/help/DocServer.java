@@ -0,0 +1,240 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Local HTTP server that renders documentation on demand, used by {@link HelpDoclet} when the {@code -serve-port}
+ * option is used. Instead of rendering every work unit up front, the output files for a work unit are rendered,
+ * by the doclet's renderers, the first time one of them is requested, so they're the same as the files written by
+ * a normal doclet run. The index is rendered from the lightweight index data for the work units (which doesn't
+ * need any of the work unit property maps to be populated).
+ *
+ * Rendered files are cached in memory, and the least recently used files are evicted once the cache is full.
+ * Requests are rendered one at a time, since the javadoc model isn't thread-safe. The server only accepts
+ * connections from the local host.
+ */
+public final class DocServer {
+    final private static Logger logger = LogManager.getLogger(DocServer.class);
+
+    private final HelpDoclet doclet;
+    private final List<DocWorkUnit> workUnits;
+    private final List<Map<String, String>> featureMaps;
+    private final List<Map<String, String>> groupMaps;
+    private final String indexFileName;
+    private final Map<String, DocWorkUnit> workUnitsByFileName = new HashMap<>();
+    private final Map<String, byte[]> cache;     // guarded by this
+    private final MemoryOutput output = new MemoryOutput();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer httpServer;
+
+    /**
+     * @param doclet the doclet whose renderers are used to render the documentation
+     * @param workUnits all of the work units, in index order
+     * @param featureMaps the index map for each work unit
+     * @param groupMaps the index map for each group
+     * @param cacheSize the maximum number of rendered files to keep in memory
+     */
+    DocServer(
+            final HelpDoclet doclet,
+            final Collection<DocWorkUnit> workUnits,
+            final List<Map<String, String>> featureMaps,
+            final List<Map<String, String>> groupMaps,
+            final int cacheSize) {
+        Utils.nonNull(doclet, "Doclet cannot be null");
+        if (cacheSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1: " + cacheSize);
+        }
+        this.doclet = doclet;
+        this.workUnits = new ArrayList<>(workUnits);
+        this.featureMaps = featureMaps;
+        this.groupMaps = groupMaps;
+        this.indexFileName = doclet.getIndexBaseFileName() + "." + doclet.getIndexFileExtension();
+        for (final DocWorkUnit workUnit : workUnits) {
+            workUnitsByFileName.put(workUnit.getTargetFileName(), workUnit);
+            workUnitsByFileName.put(workUnit.getJSONFileName(), workUnit);
+        }
+        cache = new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, byte[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @return the output to which the doclet's renderers write while this server is rendering
+     */
+    DocOutput getDocOutput() { return output; }
+
+    /**
+     * Start serving documentation.
+     *
+     * @param port port to listen on, or 0 to use any free port
+     * @throws IOException if the server can't be started
+     */
+    public void start(final int port) throws IOException {
+        httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+        logger.info(String.format("Serving documentation for %d work units at http://localhost:%d/", workUnits.size(), getPort()));
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() { return httpServer.getAddress().getPort(); }
+
+    /**
+     * Stop serving documentation.
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        stopped.countDown();
+    }
+
+    /**
+     * Wait until {@link #stop()} is called.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Get the contents of an output file, rendering it if it isn't in the cache.
+     *
+     * @param fileName name of the output file, relative to the output root
+     * @return the contents of the file, or null if there's no such file
+     */
+    synchronized byte[] getFile(final String fileName) {
+        final byte[] cached = cache.get(fileName);
+        if (cached != null) {
+            return cached;
+        }
+        final DocWorkUnit workUnit = workUnitsByFileName.get(fileName);
+        if (workUnit != null) {
+            logger.info("Rendering documentation for " + workUnit.getName());
+            workUnit.processDoc(featureMaps, groupMaps);
+            try {
+                doclet.renderWorkUnit(workUnit, groupMaps, featureMaps);
+            } finally {
+                if (doclet.isReleasingWorkUnitProperties()) {
+                    workUnit.releaseProperties();
+                }
+            }
+        } else if (fileName.equals(indexFileName)) {
+            for (final DocRenderer renderer : doclet.getRenderers()) {
+                if (renderer instanceof TemplateDocRenderer) {
+                    try {
+                        renderer.renderIndex(workUnits, groupMaps);
+                    } catch (final IOException e) {
+                        throw new DocException("IOException rendering documentation index", e);
+                    }
+                }
+            }
+        }
+        // cache every file written while rendering, e.g. both the template and JSON output for a work unit
+        final Map<String, byte[]> renderedFiles = output.removeFiles();
+        cache.putAll(renderedFiles);
+        return renderedFiles.get(fileName);
+    }
+
+    /**
+     * @return the names of the files that are currently cached, from least to most recently used
+     */
+    synchronized List<String> getCachedFileNames() {
+        return new ArrayList<>(cache.keySet());
+    }
+
+    private void handle(final HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                sendResponse(exchange, 405, null);
+                return;
+            }
+            final URI uri = exchange.getRequestURI();
+            final String fileName = uri.getPath().equals("/") ? indexFileName : uri.getPath().substring(1);
+            byte[] contents;
+            try {
+                contents = getFile(fileName);
+            } catch (final RuntimeException e) {
+                logger.error("Failed to render " + fileName, e);
+                sendResponse(exchange, 500, null);
+                return;
+            }
+            if (contents == null) {
+                sendResponse(exchange, 404, null);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", getContentType(fileName));
+            sendResponse(exchange, 200, exchange.getRequestMethod().equals("HEAD") ? null : contents);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void sendResponse(final HttpExchange exchange, final int status, final byte[] contents) throws IOException {
+        exchange.sendResponseHeaders(status, contents == null ? -1 : contents.length);
+        if (contents != null) {
+            try (final OutputStream body = exchange.getResponseBody()) {
+                body.write(contents);
+            }
+        }
+    }
+
+    private static String getContentType(final String fileName) {
+        final String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        switch (extension) {
+            case "html":
+            case "htm":
+                return "text/html";
+            case "xhtml":
+                return "application/xhtml+xml";
+            case "json":
+                return "application/json";
+            default:
+                return "text/plain";
+        }
+    }
+
+    // Collects the files written by the renderers, until they're added to the cache
+    private static final class MemoryOutput extends DocOutput {
+        private final Map<String, byte[]> files = new LinkedHashMap<>();     // guarded by itself
+
+        @Override
+        public OutputStream newOutputStream(final String path) {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    synchronized (files) {
+                        files.put(path, toByteArray());
+                    }
+                }
+            };
+        }
+
+        Map<String, byte[]> removeFiles() {
+            synchronized (files) {
+                final Map<String, byte[]> removed = new LinkedHashMap<>(files);
+                files.clear();
+                return removed;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.broadinstitute.barclay.help;
+
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.cache.FileTemplateLoader;
+import freemarker.cache.TemplateLoader;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.Template;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Shared FreeMarker template engine for doclets. There is one engine per template location (settings directory,
+ * or class and classpath folder), which is reused for every doclet run in the process, so the FreeMarker
+ * {@link Configuration}, the object wrapper's introspection caches and the parsed templates are only created once.
+ * Engines for classpath templates are held by the class they load templates for, so they don't keep its class
+ * loader reachable.
+ *
+ * Parsed templates are cached by template name and a hash of the template source, so a template is only parsed
+ * again if its contents change. Template sources are only read and hashed when a template is first used, and when
+ * a run validates its templates with {@link #preloadTemplates(Collection)}; other lookups are by name. Engines and
+ * their templates are thread-safe.
+ */
+public final class DocTemplateEngine {
+
+    /**
+     * Extension of the template files found by {@link #preloadAllTemplates()}.
+     */
+    public static final String TEMPLATE_EXTENSION = ".ftl";
+
+    // DefaultObjectWrapperBuilder returns a shared instance, with a shared class introspection cache
+    private static final ObjectWrapper OBJECT_WRAPPER =
+            new DefaultObjectWrapperBuilder(Configuration.VERSION_2_3_23).build();
+
+    // Engines for template directories, by canonical directory
+    private static final Map<File, DocTemplateEngine> directoryEngines = new ConcurrentHashMap<>();
+
+    // Engines for classpath templates, by classpath folder, held by the class used to load the templates
+    private static final ClassValue<Map<String, DocTemplateEngine>> classpathEngines =
+            new ClassValue<Map<String, DocTemplateEngine>>() {
+                @Override
+                protected Map<String, DocTemplateEngine> computeValue(final Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final Configuration configuration;
+    private final File templateDir;
+    private final ClassLoader templateClassLoader;
+    private final String templateClassPath;
+    // Parsed templates by name and source hash, and the template currently used for each name
+    private final Map<String, Template> templatesBySource = new ConcurrentHashMap<>();
+    private final Map<String, Template> currentTemplates = new ConcurrentHashMap<>();
+
+    private DocTemplateEngine(final TemplateLoader templateLoader, final File templateDir,
+            final ClassLoader templateClassLoader, final String templateClassPath) {
+        this.templateDir = templateDir;
+        this.templateClassLoader = templateClassLoader;
+        this.templateClassPath = templateClassPath;
+        configuration = new Configuration(Configuration.VERSION_2_3_23);
+        configuration.setObjectWrapper(OBJECT_WRAPPER);
+        configuration.setTemplateLoader(templateLoader);
+        // template names are used as-is, so the source that is hashed is the source FreeMarker would load
+        configuration.setLocalizedLookup(false);
+    }
+
+    /**
+     * @param templateDir directory containing the templates
+     * @return the engine for templates in {@code templateDir}
+     */
+    public static DocTemplateEngine forDirectory(final File templateDir) {
+        final File canonicalDir;
+        try {
+            canonicalDir = templateDir.getCanonicalFile();
+        } catch (final IOException e) {
+            throw new DocException("Can't resolve template directory " + templateDir, e);
+        }
+        return directoryEngines.computeIfAbsent(canonicalDir, k -> {
+            try {
+                return new DocTemplateEngine(new FileTemplateLoader(canonicalDir), canonicalDir, null, null);
+            } catch (final IOException e) {
+                throw new DocException("Can't load templates from " + canonicalDir, e);
+            }
+        });
+    }
+
+    /**
+     * @param clazz class whose class loader is used to load templates, such as the doclet class
+     * @param templateClassPath classpath folder containing the templates, e.g. "/org/broadinstitute/barclay/helpTemplates"
+     * @return the engine for templates in {@code templateClassPath}
+     */
+    public static DocTemplateEngine forClasspath(final Class<?> clazz, final String templateClassPath) {
+        final String path = templateClassPath.replaceAll("^/+|/+$", "");
+        final ClassLoader loader = clazz.getClassLoader() == null ? ClassLoader.getSystemClassLoader() : clazz.getClassLoader();
+        return classpathEngines.get(clazz).computeIfAbsent(path,
+                k -> new DocTemplateEngine(new ClassTemplateLoader(loader, path), null, loader, path));
+    }
+
+    /**
+     * @return the FreeMarker configuration used by this engine. Callers must not change its settings.
+     */
+    public Configuration getConfiguration() { return configuration; }
+
+    /**
+     * Get a parsed template. The template's source is only read the first time the template is requested;
+     * after that, changes to the source are only picked up by {@link #preloadTemplates(Collection)}.
+     *
+     * @param templateName name of the template, relative to the template location
+     * @return the parsed template
+     * @throws IOException if the template can't be found or read, or has syntax errors
+     */
+    public Template getTemplate(final String templateName) throws IOException {
+        final Template current = currentTemplates.get(templateName);
+        return current != null ? current : loadTemplate(templateName);
+    }
+
+    // Read and hash the template's source, only parsing it if a template with the same name and source hasn't been
+    // parsed by this engine before, and make it the current template for its name
+    private Template loadTemplate(final String templateName) throws IOException {
+        final String source = readTemplateSource(templateName);
+        final String key = templateName + '\0' + sourceHash(source);
+        Template template = templatesBySource.get(key);
+        if (template == null) {
+            template = new Template(templateName, source, configuration);
+            final Template previous = templatesBySource.putIfAbsent(key, template);
+            if (previous != null) {
+                template = previous;
+            }
+        }
+        currentTemplates.put(templateName, template);
+        return template;
+    }
+
+    /**
+     * @param templateName name of the template, relative to the template location
+     * @return a hash of the current source of the template
+     * @throws IOException if the template can't be found or read
+     */
+    public String getTemplateSourceHash(final String templateName) throws IOException {
+        return sourceHash(readTemplateSource(templateName));
+    }
+
+    /**
+     * Check the named templates against their current sources, parsing any that have changed, so that syntax
+     * errors are reported before any output is generated. Doclets call this when each run starts.
+     *
+     * @param templateNames names of the templates to load
+     * @throws DocException listing every template that could not be loaded
+     */
+    public void preloadTemplates(final Collection<String> templateNames) {
+        final List<String> failures = new ArrayList<>();
+        for (final String templateName : new TreeSet<>(templateNames)) {
+            try {
+                loadTemplate(templateName);
+            } catch (final IOException e) {
+                failures.add(templateName + ": " + e.getMessage());
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new DocException("Invalid documentation templates:" + System.lineSeparator() +
+                    String.join(System.lineSeparator(), failures));
+        }
+    }
+
+    /**
+     * Parse every template (file ending in {@link #TEMPLATE_EXTENSION}) in this engine's template location.
+     *
+     * @throws DocException listing every template that could not be loaded
+     */
+    public void preloadAllTemplates() {
+        preloadTemplates(getTemplateNames());
+    }
+
+    /**
+     * @return the names of all of the templates (files ending in {@link #TEMPLATE_EXTENSION}) in this engine's
+     * template location, excluding subdirectories
+     */
+    public SortedSet<String> getTemplateNames() {
+        final SortedSet<String> names = new TreeSet<>();
+        if (templateDir != null) {
+            addTemplateNames(templateDir, names);
+            return names;
+        }
+        final URL url = templateClassLoader.getResource(templateClassPath);
+        if (url == null) {
+            throw new DocException("Can't find template folder " + templateClassPath + " on the classpath");
+        }
+        try {
+            if (url.getProtocol().equals("file")) {
+                addTemplateNames(new File(url.toURI()), names);
+            } else {
+                final URLConnection connection = url.openConnection();
+                if (!(connection instanceof JarURLConnection)) {
+                    throw new DocException("Can't list templates in " + url);
+                }
+                connection.setUseCaches(false);
+                final String prefix = templateClassPath + '/';
+                try (final JarFile jarFile = ((JarURLConnection) connection).getJarFile()) {
+                    for (final JarEntry entry : Collections.list(jarFile.entries())) {
+                        final String name = entry.getName();
+                        if (name.startsWith(prefix) && name.endsWith(TEMPLATE_EXTENSION)
+                                && name.indexOf('/', prefix.length()) < 0) {
+                            names.add(name.substring(prefix.length()));
+                        }
+                    }
+                }
+            }
+        } catch (final IOException | URISyntaxException e) {
+            throw new DocException("Can't list templates in " + url, e);
+        }
+        return names;
+    }
+
+    private static void addTemplateNames(final File dir, final Set<String> names) {
+        final File[] files = dir.listFiles((d, name) -> name.endsWith(TEMPLATE_EXTENSION));
+        if (files == null) {
+            throw new DocException("Can't list templates in " + dir);
+        }
+        Arrays.stream(files).filter(File::isFile).forEach(f -> names.add(f.getName()));
+    }
+
+    private String readTemplateSource(final String templateName) throws IOException {
+        final TemplateLoader loader = configuration.getTemplateLoader();
+        final Object source = loader.findTemplateSource(templateName);
+        if (source == null) {
+            throw new IOException("Template not found: " + templateName);
+        }
+        try (final Reader reader = loader.getReader(source, configuration.getEncoding(configuration.getLocale()))) {
+            final StringBuilder sb = new StringBuilder();
+            final char[] buffer = new char[8192];
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            loader.closeTemplateSource(source);
+        }
+    }
+
+    private static String sourceHash(final String source) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (final byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new DocException("SHA-256 is not available", e);
+        }
+    }
+}
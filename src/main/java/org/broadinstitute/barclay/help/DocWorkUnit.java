@@ -99,6 +99,14 @@ public class DocWorkUnit implements Comparable<DocWorkUnit> {
         return propertyMap.get(key);
     }
 
+    /**
+     * Release the root property map for this work unit, once its output has been generated. The property map
+     * is empty afterwards.
+     */
+    public void releaseProperties() {
+        propertyMap = new HashMap<>();
+    }
+
     /**
      * Get the DocumentedFeature annotation object for this class.
      * @return DocumentedFeature object. Will not be null.
@@ -0,0 +1,151 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.RootDoc;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.PluginDiscoveryCache;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Lookup indexes that are built once per doclet run, and shared by the handlers for all work units, so that
+ * resolving the javadoc for each argument doesn't require a scan of its class hierarchy, and resolving
+ * references to other work units doesn't require a scan of all of the work units. The indexes are thread-safe.
+ *
+ * Package protected - only for use by doclets.
+ */
+final class DocletIndex {
+    final private static Logger logger = LogManager.getLogger(DocletIndex.class);
+
+    private final RootDoc rootDoc;
+    private final Map<Class<?>, DocWorkUnit> workUnitsByClass = new HashMap<>();
+    private final Map<String, FieldDocIndex> fieldDocIndexes = new ConcurrentHashMap<>();
+    private final Map<Class<?>, List<Map<String, Object>>> enumDocs = new ConcurrentHashMap<>();
+    private final PluginDiscoveryCache pluginDiscoveryCache = new PluginDiscoveryCache();
+
+    /**
+     * @param rootDoc javadoc root for this run
+     * @param workUnits all of the work units for this run
+     */
+    DocletIndex(final RootDoc rootDoc, final Collection<DocWorkUnit> workUnits) {
+        this.rootDoc = rootDoc;
+        workUnits.forEach(workUnit -> workUnitsByClass.putIfAbsent(workUnit.getClazz(), workUnit));
+    }
+
+    /**
+     * @return the work unit for {@code clazz}, or null if there is none
+     */
+    DocWorkUnit findWorkUnitForClass(final Class<?> clazz) {
+        return workUnitsByClass.get(clazz);
+    }
+
+    /**
+     * Find the FieldDoc for a field in a class, its argument collections, or its superclasses (and their argument
+     * collections). If more than one such field has the name, the first found by a depth-first search of the
+     * class's fields (descending into argument collections as they are encountered) and then its superclass is
+     * returned.
+     *
+     * @return the FieldDoc for the field, or null if there is none
+     * @throws DocException if the search reaches an argument collection that isn't in the RootDoc
+     */
+    FieldDoc getFieldDoc(final ClassDoc classDoc, final String fieldName) {
+        return getFieldDocIndex(classDoc).getFieldDoc(fieldName);
+    }
+
+    /**
+     * @return the (cached) option docs for an enum class, computed using {@code docFunction} the first time the
+     * enum class is seen. The returned list is a copy, but the option maps are shared.
+     */
+    List<Map<String, Object>> getEnumDocs(
+            final Class<?> enumClass,
+            final Function<Class<?>, List<Map<String, Object>>> docFunction) {
+        return new ArrayList<>(enumDocs.computeIfAbsent(enumClass, docFunction));
+    }
+
+    /**
+     * @return the plugin classes discovered during this run, shared by the parsers for all work units, since
+     * many tools typically use the same plugin descriptors
+     */
+    PluginDiscoveryCache getPluginDiscoveryCache() {
+        return pluginDiscoveryCache;
+    }
+
+    // Indexes aren't built with computeIfAbsent, since building an index recursively requests other indexes
+    private FieldDocIndex getFieldDocIndex(final ClassDoc classDoc) {
+        final String key = classDoc.qualifiedTypeName();
+        final FieldDocIndex existing = fieldDocIndexes.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final FieldDocIndex index = new FieldDocIndex(classDoc);
+        final FieldDocIndex previous = fieldDocIndexes.putIfAbsent(key, index);
+        return previous == null ? index : previous;
+    }
+
+    /**
+     * All of the fields visible from a class, in search order. If the search reaches an argument collection that
+     * can't be resolved, indexing stops there, and lookups of names that weren't found before that point fail.
+     */
+    private final class FieldDocIndex {
+        private final Map<String, FieldDoc> fields = new HashMap<>();
+        private DocException unresolvedCollection;
+
+        FieldDocIndex(final ClassDoc classDoc) {
+            indexFields(classDoc);
+        }
+
+        FieldDoc getFieldDoc(final String fieldName) {
+            final FieldDoc fieldDoc = fields.get(fieldName);
+            if (fieldDoc == null && unresolvedCollection != null) {
+                throw unresolvedCollection;
+            }
+            return fieldDoc;
+        }
+
+        private void indexFields(final ClassDoc classDoc) {
+            for (final FieldDoc fieldDoc : classDoc.fields(false)) {
+                fields.putIfAbsent(fieldDoc.name(), fieldDoc);
+
+                // This can return null, specifically, we can encounter https://bugs.openjdk.java.net/browse/JDK-8033735,
+                // which is fixed in JDK9 http://hg.openjdk.java.net/jdk9/jdk9/hotspot/rev/ba8c351b7096.
+                final Field field = DocletUtils.getFieldForFieldDoc(fieldDoc);
+                if (field == null) {
+                    logger.warn(
+                        String.format(
+                            "Could not access the field definition for %s while indexing %s, presumably because the field is inaccessible",
+                            fieldDoc.name(),
+                            classDoc.qualifiedTypeName())
+                    );
+                } else if (field.isAnnotationPresent(ArgumentCollection.class)) {
+                    final ClassDoc typeDoc = rootDoc.classNamed(fieldDoc.type().qualifiedTypeName());
+                    if (typeDoc == null) {
+                        unresolvedCollection = new DocException("Tried to get javadocs for ArgumentCollection field " +
+                                fieldDoc + " but couldn't find the class in the RootDoc");
+                        return;
+                    }
+                    if (!merge(getFieldDocIndex(typeDoc))) {
+                        return;
+                    }
+                }
+            }
+
+            // then wander up to the superclass
+            if (classDoc.superclass() != null) {
+                merge(getFieldDocIndex(classDoc.superclass()));
+            }
+        }
+
+        // returns false if the other index stopped at an unresolved collection, in which case so does this one
+        private boolean merge(final FieldDocIndex other) {
+            other.fields.forEach(fields::putIfAbsent);
+            unresolvedCollection = other.unresolvedCollection;
+            return unresolvedCollection == null;
+        }
+    }
+}
@@ -1,26 +1,35 @@
 package org.broadinstitute.barclay.help;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.sun.javadoc.AnnotationDesc;
 import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
 import com.sun.javadoc.RootDoc;
 
-import freemarker.cache.TemplateLoader;
-import freemarker.cache.FileTemplateLoader;
-import freemarker.cache.ClassTemplateLoader;
 
 import freemarker.template.Configuration;
-import freemarker.template.DefaultObjectWrapper;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLinePluginProvider;
 import org.broadinstitute.barclay.argparser.Hidden;
+import org.broadinstitute.barclay.argparser.PositionalArguments;
 import org.broadinstitute.barclay.utils.JVMUtils;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * Javadoc Doclet that combines javadoc, Barclay annotations, and FreeMarker
@@ -36,8 +45,42 @@ import java.util.*;
  * java Class, and DocWorkUnitHandler
  * 4 -- After all DocWorkUnits are accumulated, delegate the processing of each work unit to
  * the work unit's handler, allowing it to populate the work unit's Freemarker property map, after
- * which each work unit is written to it's template-based output file and GSON file
- * 5 -- write out an index of all units, organized by group
+ * which each work unit is passed to each of the doclet's renderers (and its property map is released, if
+ * {@link #releaseWorkUnitProperties()} is overridden to opt in, and no renderer uses the property maps)
+ * 5 -- pass the index of all units, organized by group, to each of the renderers
+ * <p/>
+ * The renderers are created by {@link #createRenderers()}. By default, a {@link TemplateDocRenderer} writes each
+ * work unit's template-based output file and the index, and a {@link JSONDocRenderer} writes each work unit's GSON
+ * file. When any of the {@code -caller-*} options are used, a {@link BashTabCompletionRenderer} also writes a Bash
+ * tab completion script, and when the {@code -search-index-file} option is used, a {@link SearchIndexDocRenderer}
+ * writes a prebuilt full-text search index, so all of these outputs are generated from the same work units in a
+ * single run.
+ * <p/>
+ * When the {@code -parallel-threads} option is used, steps 4 (populating the property maps, and writing the
+ * output files for each work unit) are run on a pool of the requested size. Javadoc access from those threads is
+ * serialized, since the javadoc model is not thread-safe, and the output is the same as for a sequential run.
+ * Custom doclets and work unit handlers that use parallel mode must not modify shared state while processing
+ * work units.
+ * <p/>
+ * When the {@code -incremental} option is used, a manifest of fingerprints of the inputs for each work unit
+ * (class bytecode and javadoc for the class and the classes it documents, templates, the index data, and the
+ * build settings) is kept in the destination directory, and step 4 is skipped for work units whose inputs haven't
+ * changed since the last run, leaving their existing output files in place. Work units for
+ * {@link CommandLinePluginProvider}s are always regenerated, since their plugins are only discovered at runtime.
+ * <p/>
+ * When the {@code -json-index-file <name>} option is used, a single compact JSON file containing the JSON output
+ * for every work unit is also written to the destination directory (gzipped, if the name ends in ".gz"), so
+ * clients don't need to fetch the JSON file for each work unit separately.
+ * <p/>
+ * When the {@code -zip-output <file>} option is used, all of the output files are written as entries of a single
+ * zip file instead of to the destination directory, without creating any other files (see {@link DocOutput}). The
+ * entries are deflated, unless the {@code -zip-store} option is also used. Incremental generation isn't supported
+ * for zip output.
+ * <p/>
+ * When the {@code -serve-port <port>} option is used, no output files are written. Instead, the doclet starts a
+ * local HTTP server (see {@link DocServer}), which renders the output for each work unit the first time it's
+ * requested, and keeps the most recently used files in memory (up to the number given by the
+ * {@code -serve-cache-size} option). The doclet serves documentation until the process is stopped.
  * <p/>
  * Note: although this class can be used to generate documentation directly, most consumers will
  * want to subclass it to override the following methods in order to create application-specific
@@ -66,6 +109,14 @@ public class HelpDoclet {
     final private static String OUTPUT_FILE_EXTENSION_OPTION = "-output-file-extension";
     final private static String INDEX_FILE_EXTENSION_OPTION = "-index-file-extension";
     final private static String USE_DEFAULT_TEMPLATES_OPTION = "-use-default-templates";
+    final private static String PARALLEL_THREADS_OPTION = "-parallel-threads";
+    final private static String INCREMENTAL_OPTION = "-incremental";
+    final private static String JSON_INDEX_FILE_OPTION = "-json-index-file";
+    final private static String ZIP_OUTPUT_OPTION = "-zip-output";
+    final private static String SEARCH_INDEX_FILE_OPTION = "-search-index-file";
+    final private static String SERVE_PORT_OPTION = "-serve-port";
+    final private static String SERVE_CACHE_SIZE_OPTION = "-serve-cache-size";
+    final private static String ZIP_STORE_OPTION = "-zip-store";
 
     // Where we find the help FreeMarker templates
     final private static File DEFAULT_SETTINGS_DIR = new File("settings/helpTemplates");
@@ -89,6 +140,21 @@ public class HelpDoclet {
     protected static String absoluteVersion = "[no version available]";
     protected static boolean showHiddenFeatures = false;
     protected boolean useDefaultTemplates = false;
+    protected int parallelThreads = 1;
+    protected boolean incremental = false;
+    protected String jsonIndexFileName = null;
+    protected File zipOutputFile = null;
+    protected String searchIndexFileName = null;
+    protected int servePort = -1;               // not serving
+    protected int serveCacheSize = 100;
+    protected boolean zipStore = false;
+
+    private DocTemplateEngine templateEngine;
+    private List<DocRenderer> renderers;       // the renderers for this run
+    private DocOutput docOutput;                // where the output files for this run are written
+    private BashTabCompletionRenderer bashTabCompletionRenderer;   // created if any completion options are used
+    private DocletIndex docletIndex;            // lookup indexes for this run
+    private String runFingerprint;              // fingerprint of the inputs shared by all work units
 
     // Variables to store data for Freemarker:
     private RootDoc rootDoc;                // The javadoc root doc
@@ -157,6 +223,8 @@ public class HelpDoclet {
         // Make sure we're in a good state to run:
         validateDocletStartingState();
 
+        renderers = createRenderers();
+        renderers.forEach(DocRenderer::validate);
 
 
         processDocs(rootDoc);
@@ -213,9 +281,58 @@ public class HelpDoclet {
             useDefaultTemplates = true;
             hasParsedOption = true;
         }
+        else if (options[0].equals(JSON_INDEX_FILE_OPTION)) {
+            jsonIndexFileName = options[1];
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(SERVE_PORT_OPTION)) {
+            servePort = parseIntOption(options, 0);
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(SERVE_CACHE_SIZE_OPTION)) {
+            serveCacheSize = parseIntOption(options, 1);
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(SEARCH_INDEX_FILE_OPTION)) {
+            searchIndexFileName = options[1];
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(ZIP_OUTPUT_OPTION)) {
+            zipOutputFile = new File(options[1]);
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(ZIP_STORE_OPTION)) {
+            zipStore = true;
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(INCREMENTAL_OPTION)) {
+            incremental = true;
+            hasParsedOption = true;
+        }
+        else if (options[0].equals(PARALLEL_THREADS_OPTION)) {
+            parallelThreads = parseIntOption(options, 1);
+            hasParsedOption = true;
+        }
+        else if (BashTabCompletionRenderer.optionLength(options[0]) > 0) {
+            hasParsedOption = getBashTabCompletionRenderer().parseOption(options);
+        }
 
         return hasParsedOption;
     }
+
+    // Parse the integer value of an option, which must be at least minValue
+    private static int parseIntOption(final String[] options, final int minValue) {
+        final int value;
+        try {
+            value = Integer.parseInt(options[1]);
+        } catch (final NumberFormatException e) {
+            throw new DocException(options[0] + " must be an integer: " + options[1], e);
+        }
+        if (value < minValue) {
+            throw new DocException(options[0] + " must be at least " + minValue + ": " + options[1]);
+        }
+        return value;
+    }
     /**
      * Validates the given options against options supported by this doclet.
      *
@@ -237,11 +354,21 @@ public class HelpDoclet {
             option.equals(BUILD_TIMESTAMP_OPTION) ||
             option.equals(ABSOLUTE_VERSION_OPTION) ||
             option.equals(OUTPUT_FILE_EXTENSION_OPTION) ||
-            option.equals(INDEX_FILE_EXTENSION_OPTION)) {
+            option.equals(INDEX_FILE_EXTENSION_OPTION) ||
+            option.equals(PARALLEL_THREADS_OPTION) ||
+            option.equals(JSON_INDEX_FILE_OPTION) ||
+            option.equals(ZIP_OUTPUT_OPTION) ||
+            option.equals(SEARCH_INDEX_FILE_OPTION) ||
+            option.equals(SERVE_PORT_OPTION) ||
+            option.equals(SERVE_CACHE_SIZE_OPTION)) {
             return 2;
         } else if (option.equals(QUIET_OPTION) ||
-                   option.equals(USE_DEFAULT_TEMPLATES_OPTION)) {
+                   option.equals(USE_DEFAULT_TEMPLATES_OPTION) ||
+                   option.equals(INCREMENTAL_OPTION) ||
+                   option.equals(ZIP_STORE_OPTION)) {
             return 1;
+        } else if (BashTabCompletionRenderer.optionLength(option) > 0) {
+            return BashTabCompletionRenderer.optionLength(option);
         } else {
             logger.error("The Javadoc command line option is not recognized by the Barclay doclet: " + option);
             return 0;
@@ -254,10 +381,12 @@ public class HelpDoclet {
      * @param rootDoc root structure containing the the set of objects accumulated by the javadoc process
      */
     private void processDocs(final RootDoc rootDoc) {
-        this.rootDoc = rootDoc;
+        // In parallel mode, all javadoc access (including from the ClassDocs held by work units) must be serialized
+        this.rootDoc = parallelThreads > 1 ? SynchronizedJavadoc.wrap(rootDoc) : rootDoc;
 
         // Get a list of all the features and groups that we'll actually retain
         workUnits = computeWorkUnits();
+        docletIndex = new DocletIndex(this.rootDoc, workUnits);
 
         final Set<String> uniqueGroups = new HashSet<>();
         final List<Map<String, String>> featureMaps = new ArrayList<>();
@@ -274,13 +403,281 @@ public class HelpDoclet {
                 }
         );
 
-        // Second pass:  populate the property map for each work unit
-        workUnits.stream().forEach(workUnit -> { workUnit.processDoc(featureMaps, groupMaps); });
+        // The template engine (and its FreeMarker configuration and parsed templates) is shared by every
+        // doclet run in this process that loads templates from the same place
+        templateEngine = useDefaultTemplates ?
+                DocTemplateEngine.forClasspath(getClass(), DEFAULT_SETTINGS_CLASSPATH) :
+                DocTemplateEngine.forDirectory(settingsDir);
+
+        // Parse every template we'll use up front, so template errors are reported before any output is written
+        templateEngine.preloadTemplates(getTemplateNames());
+
+        if (servePort >= 0) {
+            serveDocs(featureMaps, groupMaps);
+            return;
+        }
+
+        docOutput = createDocOutput();
+        try {
+            renderDocs(featureMaps, groupMaps);
+        } finally {
+            try {
+                docOutput.close();
+            } catch (final IOException e) {
+                throw new DocException("Can't finish writing documentation output " + docOutput, e);
+            }
+        }
+    }
+
+    // Serve the documentation, rendering the output for each work unit on demand, until the server is stopped
+    private void serveDocs(final List<Map<String, String>> featureMaps, final List<Map<String, String>> groupMaps) {
+        final DocServer server = new DocServer(this, workUnits, featureMaps, groupMaps, serveCacheSize);
+        docOutput = server.getDocOutput();
+        try {
+            server.start(servePort);
+        } catch (final IOException e) {
+            throw new DocException("Can't start documentation server on port " + servePort, e);
+        }
+        try {
+            waitForServer(server);
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Wait while the documentation server is running, when the {@code -serve-port} option is used. The server is
+     * stopped once this returns. The default implementation waits until the server is stopped, or the thread is
+     * interrupted.
+     *
+     * @param server the running server
+     */
+    protected void waitForServer(final DocServer server) {
+        try {
+            server.awaitStop();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Populate the property maps of the work units, and render the output for each work unit and the indexes
+    private void renderDocs(final List<Map<String, String>> featureMaps, final List<Map<String, String>> groupMaps) {
+        // In incremental mode, only work units whose inputs have changed since the last run are processed
+        final boolean isIncremental = incremental && supportsIncrementalGeneration()
+                && docOutput.supportsIncrementalGeneration()
+                && renderers.stream().allMatch(DocRenderer::supportsIncrementalGeneration);
+        final Map<String, String> fingerprints = new TreeMap<>();
+        final Collection<DocWorkUnit> changedWorkUnits = isIncremental ?
+                findChangedWorkUnits(featureMaps, groupMaps, fingerprints) :
+                workUnits;
+
+        if (!isReleasingWorkUnitProperties()) {
+            // Second pass:  populate the property map for each work unit
+            forEachWorkUnit(changedWorkUnits, workUnit -> { workUnit.processDoc(featureMaps, groupMaps); });
+
+            // Third pass: Generate the individual outputs for each work unit
+            forEachWorkUnit(changedWorkUnits, workUnit -> renderWorkUnit(workUnit, groupMaps, featureMaps));
+        } else {
+            // Second and third passes, pipelined: populate the property map for each work unit, generate its
+            // outputs, and then release the property map, so only the property maps for the work units that are
+            // currently being processed are held in memory
+            forEachWorkUnit(changedWorkUnits, workUnit -> {
+                workUnit.processDoc(featureMaps, groupMaps);
+                renderWorkUnit(workUnit, groupMaps, featureMaps);
+                workUnit.releaseProperties();
+            });
+        }
+
+        // Generate the top-level index outputs
+        emitIndexes(groupMaps);
+
+        if (isIncremental) {
+            DocManifest.store(getDestinationDir(), fingerprints);
+        }
+    }
+
+    /**
+     * Determine which work units need to be regenerated, because their fingerprint differs from the one recorded
+     * in the manifest by the last run, or because their output files are missing.
+     *
+     * @param fingerprints populated with the current fingerprint of each work unit, keyed by target file name
+     * @return the work units that need to be regenerated, in work unit order
+     */
+    private List<DocWorkUnit> findChangedWorkUnits(
+            final List<Map<String, String>> featureMaps,
+            final List<Map<String, String>> groupMaps,
+            final Map<String, String> fingerprints) {
+        final Map<String, String> previousFingerprints = DocManifest.load(getDestinationDir());
+        // if this run fails part way through, the next run regenerates everything
+        DocManifest.delete(getDestinationDir());
+
+        runFingerprint = getRunFingerprint(featureMaps, groupMaps);
+        final List<DocWorkUnit> changedWorkUnits = new ArrayList<>();
+        for (final DocWorkUnit workUnit : workUnits) {
+            final String fingerprint = getWorkUnitFingerprint(workUnit);
+            if (fingerprint != null) {
+                fingerprints.put(workUnit.getTargetFileName(), fingerprint);
+            }
+            if (fingerprint == null
+                    || !fingerprint.equals(previousFingerprints.get(workUnit.getTargetFileName()))
+                    || !new File(getDestinationDir(), workUnit.getTargetFileName()).exists()
+                    || !new File(getDestinationDir(), workUnit.getJSONFileName()).exists()) {
+                changedWorkUnits.add(workUnit);
+            }
+        }
+        logger.info(String.format("Incremental documentation: %d of %d work units changed",
+                changedWorkUnits.size(), workUnits.size()));
+        return changedWorkUnits;
+    }
+
+    /**
+     * @return a fingerprint of the inputs that are shared by the output of every work unit: the doclet and its
+     * settings, all of the templates, and the index data
+     */
+    private String getRunFingerprint(final List<Map<String, String>> featureMaps, final List<Map<String, String>> groupMaps) {
+        final DocManifest.Fingerprint fingerprint = new DocManifest.Fingerprint()
+                .add(getClass().getName())
+                .add(getBuildTimeStamp())
+                .add(getBuildVersion())
+                .add(Boolean.toString(showHiddenFeatures()))
+                .add(getOutputFileExtension())
+                .add(getIndexFileExtension());
+        try {
+            for (final String templateName : templateEngine.getTemplateNames()) {
+                fingerprint.add(templateName).add(templateEngine.getTemplateSourceHash(templateName));
+            }
+        } catch (final IOException e) {
+            throw new DocException("IOException reading documentation templates", e);
+        }
+        featureMaps.forEach(m -> fingerprint.add(new TreeMap<>(m).toString()));
+        groupMaps.forEach(m -> fingerprint.add(new TreeMap<>(m).toString()));
+        return fingerprint.finish();
+    }
+
+    /**
+     * Compute a fingerprint of the inputs used to generate the output for a work unit in incremental mode. The
+     * default implementation covers the bytecode and javadoc of the work unit's class, its superclasses, the types
+     * of its arguments and argument collections, and its extraDocs classes. Subclasses that use other inputs should
+     * override this to include them.
+     *
+     * @param workUnit work unit to fingerprint
+     * @return a fingerprint for the work unit, or null if the work unit must always be regenerated
+     */
+    protected String getWorkUnitFingerprint(final DocWorkUnit workUnit) {
+        if (CommandLinePluginProvider.class.isAssignableFrom(workUnit.getClazz())) {
+            // plugins are discovered at runtime, so we can't tell which classes the output depends on
+            return null;
+        }
+        final Map<String, Class<?>> dependencies = new TreeMap<>();
+        addFingerprintDependencies(workUnit.getClazz(), dependencies);
+        Arrays.stream(workUnit.getDocumentedFeature().extraDocs()).forEach(c -> addFingerprintDependencies(c, dependencies));
+
+        final DocManifest.Fingerprint fingerprint = new DocManifest.Fingerprint()
+                .add(runFingerprint)
+                .add(workUnit.getTemplateName());
+        for (final Class<?> clazz : dependencies.values()) {
+            fingerprint.add(clazz.getName()).add(getClassBytes(clazz));
+            final ClassDoc classDoc = clazz.getCanonicalName() == null ? null : rootDoc.classNamed(clazz.getCanonicalName());
+            if (classDoc != null) {
+                fingerprint.add(classDoc.getRawCommentText());
+                for (final FieldDoc fieldDoc : classDoc.fields(false)) {
+                    fingerprint.add(fieldDoc.name()).add(fieldDoc.getRawCommentText());
+                }
+                for (final FieldDoc enumConstant : classDoc.enumConstants()) {
+                    fingerprint.add(enumConstant.name()).add(enumConstant.getRawCommentText());
+                }
+            }
+        }
+        return fingerprint.finish();
+    }
 
-        // Third pass: Generate the individual outputs for each work unit, and the top-level index file
-        emitOutputFromTemplates(groupMaps, featureMaps);
+    // Add a class, its superclasses, and the types of its argument fields to the dependencies of a work unit
+    private static void addFingerprintDependencies(final Class<?> clazz, final Map<String, Class<?>> dependencies) {
+        for (Class<?> c = clazz; c != null && c.getClassLoader() != null; c = c.getSuperclass()) {
+            if (dependencies.putIfAbsent(c.getName(), c) != null) {
+                return;
+            }
+            for (final Field field : c.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ArgumentCollection.class)) {
+                    addFingerprintDependencies(field.getType(), dependencies);
+                } else if (field.isAnnotationPresent(Argument.class) || field.isAnnotationPresent(PositionalArguments.class)) {
+                    final List<Type> types = new ArrayList<>();
+                    types.add(field.getType());
+                    if (field.getGenericType() instanceof ParameterizedType) {
+                        types.addAll(Arrays.asList(((ParameterizedType) field.getGenericType()).getActualTypeArguments()));
+                    }
+                    types.stream()
+                            .filter(t -> t instanceof Class && ((Class<?>) t).getClassLoader() != null)
+                            .forEach(t -> dependencies.putIfAbsent(((Class<?>) t).getName(), (Class<?>) t));
+                }
+            }
+        }
+    }
+
+    private static byte[] getClassBytes(final Class<?> clazz) {
+        try (final InputStream in = clazz.getClassLoader().getResourceAsStream(clazz.getName().replace('.', '/') + ".class")) {
+            if (in == null) {
+                return null;
+            }
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, n);
+            }
+            return bytes.toByteArray();
+        } catch (final IOException e) {
+            throw new DocException("Can't read class file for " + clazz.getName(), e);
+        }
     }
 
+    /**
+     * @return true if this doclet supports incremental generation. Doclets whose output for each work unit isn't
+     * written to that work unit's target and JSON files should return false.
+     */
+    protected boolean supportsIncrementalGeneration() { return true; }
+
+
+    /**
+     * Apply an action to each of the given work units; either sequentially, or on a pool of {@link #parallelThreads} threads.
+     * All work units are processed before this returns. If any action fails, the failure for the first such
+     * work unit (in work unit order) is rethrown.
+     */
+    private void forEachWorkUnit(final Collection<DocWorkUnit> workUnits, final Consumer<DocWorkUnit> action) {
+        if (parallelThreads <= 1) {
+            workUnits.forEach(action);
+            return;
+        }
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelThreads, r -> {
+            final Thread t = new Thread(r, "barclay-doclet-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            t.setContextClassLoader(contextClassLoader);
+            return t;
+        });
+        try {
+            final List<Future<?>> results = new ArrayList<>(workUnits.size());
+            workUnits.forEach(workUnit -> results.add(executor.submit(() -> action.accept(workUnit))));
+            for (final Future<?> result : results) {
+                try {
+                    result.get();
+                } catch (final ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    } else if (e.getCause() instanceof Error) {
+                        throw (Error) e.getCause();
+                    }
+                    throw new DocException("Exception processing work unit", e.getCause());
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DocException("Interrupted while processing work units", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
     /**
      * For each class in the rootDoc class list, delegate to the appropriate DocWorkUnitHandler to
@@ -292,6 +689,11 @@ public class HelpDoclet {
         final TreeSet<DocWorkUnit> workUnits = new TreeSet<>();
 
         for (final ClassDoc classDoc : rootDoc.classes()) {
+            // Only load classes that are annotated, since loading (and initializing) every class in the source
+            // tree is slow, and fails for classes with unavailable dependencies (such as native bindings)
+            if (!hasDocumentedFeatureAnnotation(classDoc)) {
+                continue;
+            }
             final Class<?> clazz = getClassForClassDoc(classDoc);
             final DocumentedFeature documentedFeature = getDocumentedFeatureForClass(clazz);
 
@@ -349,6 +751,39 @@ public class HelpDoclet {
      */
     public File getDestinationDir() { return  destinationDir; }
 
+    /**
+     * Create the output for this run. Called once the work units have been computed, before any output is written.
+     * The default implementation writes to the zip file given by the {@code -zip-output} option, if it was used,
+     * and otherwise to the destination directory.
+     *
+     * @return the output to which the files for this run are written
+     */
+    protected DocOutput createDocOutput() {
+        if (zipOutputFile == null) {
+            return DocOutput.forDirectory(getDestinationDir());
+        }
+        try {
+            return DocOutput.forZipFile(zipOutputFile, !zipStore);
+        } catch (final IOException e) {
+            throw new DocException("Can't create documentation zip file " + zipOutputFile, e);
+        }
+    }
+
+    /**
+     * @return the output to which renderers write the files for this run
+     */
+    public DocOutput getDocOutput() { return docOutput; }
+
+    /**
+     * @return the name of the consolidated JSON index file, or null if none should be written
+     */
+    public String getJSONIndexFileName() { return jsonIndexFileName; }
+
+    /**
+     * @return the name of the search index file, or null if none should be written
+     */
+    public String getSearchIndexFileName() { return searchIndexFileName; }
+
     /**
      * Determine if a particular class should be included in the output. This is called by the doclet
      * to determine if a DocWorkUnit should be created for this feature.
@@ -364,38 +799,81 @@ public class HelpDoclet {
     }
 
     /**
-     * Actually write out the output files (html and gson file for each feature) and the index file.
+     * @return true if the property map for each work unit can be released as soon as its output has been written,
+     * so that memory use is bounded by the work units being processed rather than by the whole documentation set.
+     * By default, the property maps are retained until the index has been written, since subclasses may use them
+     * (for example, from {@link DocWorkUnit#getProperty} in {@link #indexDataMap}). Subclasses that don't use the
+     * property maps after each work unit has been rendered can override this to return true.
      */
-    private void emitOutputFromTemplates (
-            final List<Map<String, String>> groupMaps,
-            final List<Map<String, String>> featureMaps)
-    {
-        try {
-            /* ------------------------------------------------------------------- */
-            /* You should do this ONLY ONCE in the whole application life-cycle:   */
-            final Configuration cfg = new Configuration(Configuration.VERSION_2_3_23);
-            cfg.setObjectWrapper(new DefaultObjectWrapper(Configuration.VERSION_2_3_23));
+    protected boolean releaseWorkUnitProperties() { return false; }
 
-            // We need to set up a scheme to load our settings from wherever they may live.
-            // This means we need to set up a multi-loader including the classpath and any specified options:
+    // True if the property maps of the work units are released once each work unit has been rendered
+    boolean isReleasingWorkUnitProperties() {
+        return releaseWorkUnitProperties() && renderers.stream().noneMatch(DocRenderer::usesWorkUnitProperties);
+    }
 
-            TemplateLoader templateLoader;
+    /**
+     * Create the renderers for this run. Called once the doclet options have been parsed. The default
+     * implementation renders the template-based output and the JSON output, plus the Bash tab completion script
+     * if any completion options were used, and the search index if a search index file was requested. Subclasses can override this to add custom renderers, or to replace
+     * the default ones.
+     *
+     * @return the renderers to which every work unit, and the index, are passed
+     */
+    protected List<DocRenderer> createRenderers() {
+        final List<DocRenderer> renderers = new ArrayList<>();
+        renderers.add(new TemplateDocRenderer(this));
+        renderers.add(new JSONDocRenderer(this));
+        if (bashTabCompletionRenderer != null) {
+            renderers.add(bashTabCompletionRenderer);
+        }
+        if (searchIndexFileName != null) {
+            renderers.add(new SearchIndexDocRenderer(this));
+        }
+        return renderers;
+    }
 
-            // Only add the settings directory if we're supposed to:
-            if ( useDefaultTemplates ) {
-                templateLoader = new ClassTemplateLoader(getClass(), DEFAULT_SETTINGS_CLASSPATH);
-            }
-            else {
-                templateLoader = new FileTemplateLoader(new File(settingsDir.getPath()));
-            }
+    /**
+     * @return the renderers for this run. Only valid once output generation has started.
+     */
+    protected List<DocRenderer> getRenderers() { return renderers; }
 
-            // Tell freemarker to load our templates as we specified above:
-            cfg.setTemplateLoader(templateLoader);
+    /**
+     * @return the Bash tab completion renderer that receives the completion options, created (using
+     * {@link #createBashTabCompletionRenderer()}) when first needed
+     */
+    protected BashTabCompletionRenderer getBashTabCompletionRenderer() {
+        if (bashTabCompletionRenderer == null) {
+            bashTabCompletionRenderer = createBashTabCompletionRenderer();
+        }
+        return bashTabCompletionRenderer;
+    }
 
-            // Generate one template file for each work unit
-            workUnits.stream().forEach(workUnit -> processWorkUnitTemplate(cfg, workUnit, groupMaps, featureMaps));
-            processIndexTemplate(cfg, new ArrayList<>(workUnits), groupMaps);
+    /**
+     * @return a new Bash tab completion renderer for this doclet
+     */
+    protected BashTabCompletionRenderer createBashTabCompletionRenderer() {
+        return new BashTabCompletionRenderer(this);
+    }
 
+    /**
+     * Pass a work unit, whose property map has been populated, to each renderer.
+     */
+    void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {
+        renderers.forEach(renderer -> renderer.renderWorkUnit(workUnit, groupMaps, featureMaps));
+    }
+
+    /**
+     * Actually write out the index outputs.
+     */
+    private void emitIndexes(final List<Map<String, String>> groupMaps) {
+        try {
+            for (final DocRenderer renderer : renderers) {
+                renderer.renderIndex(new ArrayList<>(workUnits), groupMaps);
+            }
         } catch (FileNotFoundException e) {
             throw new RuntimeException("FileNotFoundException processing javadoc template", e);
         } catch (IOException e) {
@@ -434,6 +912,24 @@ public class HelpDoclet {
         }
     }
 
+    /**
+     * @return true if the javadoc for the class shows it is directly annotated with {@link DocumentedFeature}
+     * (which isn't inherited), or if its annotations can't be resolved
+     */
+    private static boolean hasDocumentedFeatureAnnotation(final ClassDoc classDoc) {
+        for (final AnnotationDesc annotation : classDoc.annotations()) {
+            try {
+                if (annotation.annotationType().qualifiedName().equals(DocumentedFeature.class.getName())) {
+                    return true;
+                }
+            } catch (final ClassCastException e) {
+                // javadoc throws this for annotation types it can't resolve; load the class to find out
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Return the Java class described by the ClassDoc doc
      *
@@ -453,6 +949,20 @@ public class HelpDoclet {
         }
     }
 
+    /**
+     * @return the names of all of the templates used to generate output for this run
+     */
+    protected Set<String> getTemplateNames() {
+        final Set<String> templateNames = new HashSet<>();
+        renderers.forEach(renderer -> templateNames.addAll(renderer.getTemplateNames(workUnits)));
+        return templateNames;
+    }
+
+    /**
+     * @return the template engine used to load templates for this run. Only valid once output generation has started.
+     */
+    protected DocTemplateEngine getTemplateEngine() { return templateEngine; }
+
     /**
      * Create the php index listing all of the Docs features
      *
@@ -467,14 +977,12 @@ public class HelpDoclet {
             final List<Map<String, String>> groupMaps
    ) throws IOException {
         // Get or create a template and merge in the data
-        final Template template = cfg.getTemplate(getIndexTemplateName());
+        final Template template = getTemplateEngine().getTemplate(getIndexTemplateName());
 
-        final File indexFile = new File(getDestinationDir(),
-                            getIndexBaseFileName() + '.' + getIndexFileExtension()
-        );
+        final String indexFileName = getIndexBaseFileName() + '.' + getIndexFileExtension();
 
-        try (final FileOutputStream fileOutStream = new FileOutputStream(indexFile);
-             final OutputStreamWriter outWriter = new OutputStreamWriter(fileOutStream)) {
+        try (final OutputStream outStream = getDocOutput().newOutputStream(indexFileName);
+             final OutputStreamWriter outWriter = new OutputStreamWriter(outStream)) {
             template.process(groupIndexMap(workUnitList, groupMaps), outWriter);
         } catch (TemplateException e) {
             throw new DocException("Freemarker Template Exception during documentation index creation", e);
@@ -555,12 +1063,26 @@ public class HelpDoclet {
      * @return the DocWorkUnit whose .clazz.equals(c), or null if none could be found
      */
     public final DocWorkUnit findWorkUnitForClass(final Class<?> c) {
+        if (docletIndex != null) {
+            return docletIndex.findWorkUnitForClass(c);
+        }
         for (final DocWorkUnit workUnit : this.workUnits)
             if (workUnit.getClazz().equals(c))
                 return workUnit;
         return null;
     }
 
+    /**
+     * @return the lookup indexes for this run. Package protected - only for use by work unit handlers.
+     */
+    DocletIndex getDocletIndex() {
+        if (docletIndex == null) {
+            // not running via processDocs (i.e., a handler is being used directly)
+            docletIndex = new DocletIndex(rootDoc, workUnits == null ? Collections.emptySet() : workUnits);
+        }
+        return docletIndex;
+    }
+
     /**
      * Return the ClassDoc associated with clazz
      *
@@ -572,7 +1094,8 @@ public class HelpDoclet {
     }
 
     /**
-     * High-level function that processes a single DocWorkUnit unit using its handler
+     * High-level function that writes the template-based output for a single DocWorkUnit, using its template.
+     * Called by the {@link TemplateDocRenderer}.
      *
      * @param cfg
      * @param workUnit
@@ -587,9 +1110,8 @@ public class HelpDoclet {
     {
         try {
             // Merge data-model with template
-            Template template = cfg.getTemplate(workUnit.getTemplateName());
-            File outputPath = new File(getDestinationDir(), workUnit.getTargetFileName());
-            try (final Writer out = new OutputStreamWriter(new FileOutputStream(outputPath))) {
+            Template template = getTemplateEngine().getTemplate(workUnit.getTemplateName());
+            try (final Writer out = new OutputStreamWriter(getDocOutput().newOutputStream(workUnit.getTargetFileName()))) {
                 template.process(workUnit.getRootMap(), out);
             }
         } catch (IOException e) {
@@ -597,33 +1119,6 @@ public class HelpDoclet {
         } catch (TemplateException e) {
             throw new DocException("TemplateException during documentation creation", e);
         }
-
-        // Create GSON-friendly container object
-        GSONWorkUnit gsonworkunit = createGSONWorkUnit(workUnit, indexByGroupMaps, featureMaps);
-
-        gsonworkunit.populate(
-                workUnit.getProperty("summary").toString(),
-                workUnit.getProperty("gson-arguments"),
-                workUnit.getProperty("description").toString(),
-                workUnit.getProperty("name").toString(),
-                workUnit.getProperty("group").toString(),
-                Boolean.valueOf(workUnit.getProperty("beta").toString()),
-                Boolean.valueOf(workUnit.getProperty("experimental").toString())
-        );
-
-        // Convert object to JSON and write JSON entry to file
-        File outputPathForJSON = new File(getDestinationDir(), workUnit.getJSONFileName());
-
-        try (final BufferedWriter jsonWriter = new BufferedWriter(new FileWriter(outputPathForJSON))) {
-            Gson gson = new GsonBuilder()
-                .serializeSpecialFloatingPointValues()
-                .setPrettyPrinting()
-                .create();
-            String json = gson.toJson(gsonworkunit);
-            jsonWriter.write(json);
-        } catch (IOException e) {
-            throw new DocException("Failed to create JSON entry", e);
-        }
     }
 
     /**
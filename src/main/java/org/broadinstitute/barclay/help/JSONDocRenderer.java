@@ -0,0 +1,121 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders the JSON output for each work unit, using the GSON object created by the doclet's
+ * {@link HelpDoclet#createGSONWorkUnit} method, and, when the doclet's {@code -json-index-file} option is used,
+ * a single compact JSON index of every work unit.
+ *
+ * The index is built from the JSON files that have been written, unless the doclet's output can't be read back
+ * (e.g. zip output), in which case the compact JSON for each work unit is kept in memory until the index is written.
+ */
+public class JSONDocRenderer extends DocRenderer {
+
+    // Gson instances are thread-safe, so these are shared by all work units
+    final private static Gson GSON = new GsonBuilder()
+            .serializeSpecialFloatingPointValues()
+            .setPrettyPrinting()
+            .create();
+    final private static Gson COMPACT_GSON = new GsonBuilder()
+            .serializeSpecialFloatingPointValues()
+            .create();
+
+    // compact JSON for each work unit, keyed by JSON file name; only used if the output can't be read back
+    private final Map<String, String> compactJSON = new ConcurrentHashMap<>();
+
+    /**
+     * @param doclet the HelpDoclet driving this documentation run. Can not be null.
+     */
+    public JSONDocRenderer(final HelpDoclet doclet) {
+        super(doclet);
+    }
+
+    @Override
+    public void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {
+        // Create GSON-friendly container object
+        final GSONWorkUnit gsonworkunit = getDoclet().createGSONWorkUnit(workUnit, groupMaps, featureMaps);
+
+        gsonworkunit.populate(
+                workUnit.getProperty("summary").toString(),
+                workUnit.getProperty("gson-arguments"),
+                workUnit.getProperty("description").toString(),
+                workUnit.getProperty("name").toString(),
+                workUnit.getProperty("group").toString(),
+                Boolean.valueOf(workUnit.getProperty("beta").toString()),
+                Boolean.valueOf(workUnit.getProperty("experimental").toString())
+        );
+
+        // Convert object to JSON and write JSON entry to file
+        final DocOutput output = getDoclet().getDocOutput();
+        try (final BufferedWriter jsonWriter = new BufferedWriter(new OutputStreamWriter(output.newOutputStream(workUnit.getJSONFileName())))) {
+            GSON.toJson(gsonworkunit, jsonWriter);
+        } catch (IOException | JsonIOException e) {
+            throw new DocException("Failed to create JSON entry", e);
+        }
+        if (getDoclet().getJSONIndexFileName() != null && !output.isReadable()) {
+            compactJSON.put(workUnit.getJSONFileName(), COMPACT_GSON.toJson(gsonworkunit));
+        }
+    }
+
+    @Override
+    public void renderIndex(final List<DocWorkUnit> workUnitList, final List<Map<String, String>> groupMaps) {
+        if (getDoclet().getJSONIndexFileName() != null) {
+            writeJSONIndex(workUnitList, getDoclet().getJSONIndexFileName());
+        }
+    }
+
+    /**
+     * Write a single compact JSON index of every work unit, containing the JSON output for each work unit
+     * (with an additional "filename" property naming the work unit's output file), streamed from the JSON
+     * files that have already been written. The index is gzipped if its name ends with ".gz".
+     *
+     * @param workUnitList all work units, in index order
+     * @param jsonIndexFileName name of the index file in the doclet's output
+     */
+    protected void writeJSONIndex(final List<DocWorkUnit> workUnitList, final String jsonIndexFileName) {
+        final HelpDoclet doclet = getDoclet();
+        final DocOutput output = doclet.getDocOutput();
+        try (final OutputStream fileStream = output.newOutputStream(jsonIndexFileName);
+             final OutputStream outStream = jsonIndexFileName.endsWith(".gz") ? new GZIPOutputStream(fileStream) : fileStream;
+             final JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8)))) {
+            jsonWriter.beginObject();
+            jsonWriter.name("version").value(doclet.getBuildVersion());
+            jsonWriter.name("timestamp").value(doclet.getBuildTimeStamp());
+            jsonWriter.name("features").beginArray();
+            for (final DocWorkUnit workUnit : workUnitList) {
+                final JsonElement feature;
+                try (final Reader reader = output.isReadable() ?
+                        new BufferedReader(new InputStreamReader(output.newInputStream(workUnit.getJSONFileName()))) :
+                        new StringReader(compactJSON.get(workUnit.getJSONFileName()))) {
+                    feature = new JsonParser().parse(reader);
+                }
+                if (!feature.isJsonObject()) {
+                    throw new DocException("JSON output for " + workUnit.getName() + " is not an object: " + workUnit.getJSONFileName());
+                }
+                feature.getAsJsonObject().addProperty("filename", workUnit.getTargetFileName());
+                COMPACT_GSON.toJson(feature, jsonWriter);
+            }
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+        } catch (IOException | JsonParseException e) {
+            throw new DocException("Failed to create JSON index " + jsonIndexFileName, e);
+        }
+    }
+}
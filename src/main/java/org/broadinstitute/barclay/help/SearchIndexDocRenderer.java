@@ -0,0 +1,221 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Renders a prebuilt full-text search index of every work unit, when the doclet's {@code -search-index-file}
+ * option is used, so that a search UI only needs to load a single small file rather than the JSON output for
+ * every work unit. The index is gzipped if its name ends with ".gz".
+ *
+ * The index is a compact JSON object:
+ *
+ *     {
+ *       "version": build version,
+ *       "timestamp": build timestamp,
+ *       "features": [ { "name": ..., "filename": ..., "summary": ..., "arguments": [ "--argName", ... ] }, ... ],
+ *       "terms": { term: [ [ feature, argument, weight ], ... ], ... }
+ *     }
+ *
+ * Each posting refers to a feature by its position in "features", and to one of the feature's arguments by its
+ * position in that feature's "arguments", or -1 for the feature itself. Postings are in feature and argument order.
+ * The weight of a posting is the number of times the term occurs in each field of the feature or argument,
+ * multiplied by the field's weight: names count more than summaries, which count more than the full text.
+ *
+ * Terms are lower case words and numbers from the feature name and summary, and the argument names, synonyms,
+ * summaries and full text (with HTML tags removed). Compound words (e.g. camelCase argument names) are indexed both
+ * whole and as their separate parts. Very short words and common English words aren't indexed.
+ */
+public class SearchIndexDocRenderer extends DocRenderer {
+
+    static final int FEATURE_NAME_WEIGHT = 10;
+    static final int ARGUMENT_NAME_WEIGHT = 8;
+    static final int FEATURE_SUMMARY_WEIGHT = 4;
+    static final int ARGUMENT_SUMMARY_WEIGHT = 2;
+    static final int ARGUMENT_FULLTEXT_WEIGHT = 1;
+
+    // argument index used in postings for the feature itself
+    private static final int FEATURE_POSTING = -1;
+
+    private static final Pattern HTML_MARKUP = Pattern.compile("<[^>]*>|&[#\\w]+;");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMPOUND_WORD_BOUNDARY = Pattern.compile(
+            "(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{Lu})(?=\\p{Lu}\\p{Ll})|(?<=\\p{L})(?=\\p{N})|(?<=\\p{N})(?=\\p{L})");
+    private static final int MIN_TERM_LENGTH = 2;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "if", "in", "into", "is", "it", "its",
+            "of", "on", "or", "that", "the", "this", "to", "was", "which", "will", "with"));
+
+    // the terms for each work unit, keyed by target file name; work units may be rendered concurrently
+    private final Map<String, FeatureTerms> featureTerms = new ConcurrentHashMap<>();
+
+    /**
+     * @param doclet the HelpDoclet driving this documentation run. Can not be null.
+     */
+    public SearchIndexDocRenderer(final HelpDoclet doclet) {
+        super(doclet);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {
+        final FeatureTerms terms = new FeatureTerms(workUnit);
+        terms.addTerms(FEATURE_POSTING, workUnit.getName(), FEATURE_NAME_WEIGHT);
+        terms.addTerms(FEATURE_POSTING, terms.summary, FEATURE_SUMMARY_WEIGHT);
+
+        final Map<String, List<Map<String, Object>>> arguments =
+                (Map<String, List<Map<String, Object>>>) workUnit.getProperty("arguments");
+        if (arguments != null) {
+            for (final Map<String, Object> argument : arguments.getOrDefault("all", Collections.emptyList())) {
+                if ("positional".equals(argument.get("kind"))) {
+                    continue;
+                }
+                final int argIndex = terms.argumentNames.size();
+                terms.argumentNames.add(String.valueOf(argument.get("name")));
+                terms.addTerms(argIndex, argument.get("name"), ARGUMENT_NAME_WEIGHT);
+                if (!"NA".equals(argument.get("synonyms"))) {
+                    terms.addTerms(argIndex, argument.get("synonyms"), ARGUMENT_NAME_WEIGHT);
+                }
+                terms.addTerms(argIndex, argument.get("summary"), ARGUMENT_SUMMARY_WEIGHT);
+                terms.addTerms(argIndex, argument.get("fulltext"), ARGUMENT_FULLTEXT_WEIGHT);
+            }
+        }
+        featureTerms.put(workUnit.getTargetFileName(), terms);
+    }
+
+    @Override
+    public void renderIndex(final List<DocWorkUnit> workUnitList, final List<Map<String, String>> groupMaps) {
+        if (getDoclet().getSearchIndexFileName() != null) {
+            writeSearchIndex(workUnitList, getDoclet().getSearchIndexFileName());
+        }
+    }
+
+    /**
+     * The index is built from every work unit, so it can't be generated incrementally.
+     */
+    @Override
+    public boolean supportsIncrementalGeneration() { return false; }
+
+    /**
+     * Write the search index for the work units.
+     *
+     * @param workUnitList all work units, in index order
+     * @param searchIndexFileName name of the index file in the doclet's output
+     */
+    protected void writeSearchIndex(final List<DocWorkUnit> workUnitList, final String searchIndexFileName) {
+        final HelpDoclet doclet = getDoclet();
+        final List<FeatureTerms> features = new ArrayList<>(workUnitList.size());
+        final SortedMap<String, List<int[]>> postings = new TreeMap<>();
+        for (final DocWorkUnit workUnit : workUnitList) {
+            final FeatureTerms terms = featureTerms.get(workUnit.getTargetFileName());
+            if (terms == null) {
+                throw new DocException("No search terms were found for " + workUnit.getName());
+            }
+            final int featureIndex = features.size();
+            features.add(terms);
+            terms.termWeights.forEach((term, weights) -> weights.forEach((argIndex, weight) ->
+                    postings.computeIfAbsent(term, t -> new ArrayList<>()).add(new int[] {featureIndex, argIndex, weight})));
+        }
+
+        try (final OutputStream fileStream = doclet.getDocOutput().newOutputStream(searchIndexFileName);
+             final OutputStream outStream = searchIndexFileName.endsWith(".gz") ? new GZIPOutputStream(fileStream) : fileStream;
+             final JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8)))) {
+            jsonWriter.beginObject();
+            jsonWriter.name("version").value(doclet.getBuildVersion());
+            jsonWriter.name("timestamp").value(doclet.getBuildTimeStamp());
+            jsonWriter.name("features").beginArray();
+            for (final FeatureTerms terms : features) {
+                jsonWriter.beginObject();
+                jsonWriter.name("name").value(terms.name);
+                jsonWriter.name("filename").value(terms.fileName);
+                jsonWriter.name("summary").value(terms.summary);
+                jsonWriter.name("arguments").beginArray();
+                for (final String argumentName : terms.argumentNames) {
+                    jsonWriter.value(argumentName);
+                }
+                jsonWriter.endArray();
+                jsonWriter.endObject();
+            }
+            jsonWriter.endArray();
+            jsonWriter.name("terms").beginObject();
+            for (final Map.Entry<String, List<int[]>> entry : postings.entrySet()) {
+                jsonWriter.name(entry.getKey()).beginArray();
+                for (final int[] posting : entry.getValue()) {
+                    jsonWriter.beginArray();
+                    for (final int value : posting) {
+                        jsonWriter.value(value);
+                    }
+                    jsonWriter.endArray();
+                }
+                jsonWriter.endArray();
+            }
+            jsonWriter.endObject();
+            jsonWriter.endObject();
+        } catch (IOException e) {
+            throw new DocException("Failed to create search index " + searchIndexFileName, e);
+        }
+    }
+
+    /**
+     * Split text into search terms.
+     *
+     * @param text text to split, which may contain HTML markup. May be null.
+     * @return the terms in the text, in order, including repeated terms
+     */
+    static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (final String word : WORD_SEPARATOR.split(HTML_MARKUP.matcher(text).replaceAll(" "))) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            addTerm(terms, word);
+            final String[] parts = COMPOUND_WORD_BOUNDARY.split(word);
+            if (parts.length > 1) {
+                Arrays.stream(parts).forEach(part -> addTerm(terms, part));
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(final List<String> terms, final String word) {
+        final String term = word.toLowerCase(Locale.ROOT);
+        if (term.length() >= MIN_TERM_LENGTH && !STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+
+    // The search terms for a single work unit
+    private static final class FeatureTerms {
+        final String name;
+        final String fileName;
+        final String summary;
+        final List<String> argumentNames = new ArrayList<>();
+        // weight of each term for the feature and each of its arguments, keyed by term and argument index
+        final Map<String, SortedMap<Integer, Integer>> termWeights = new HashMap<>();
+
+        FeatureTerms(final DocWorkUnit workUnit) {
+            name = workUnit.getName();
+            fileName = workUnit.getTargetFileName();
+            final Object summaryProperty = workUnit.getProperty("summary");
+            summary = summaryProperty == null ? "" : summaryProperty.toString();
+        }
+
+        void addTerms(final int argIndex, final Object text, final int weight) {
+            for (final String term : tokenize(text == null ? null : text.toString())) {
+                termWeights.computeIfAbsent(term, t -> new TreeMap<>()).merge(argIndex, weight, Integer::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.javadoc.RootDoc;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Wraps the javadoc object model in proxies that serialize all calls on a single lock, so that work units can be
+ * processed concurrently. The javadoc implementation lazily completes its model on access and is not thread-safe,
+ * but most of the work done for each work unit (instantiating the feature, building its argument parser,
+ * rendering templates and writing output) doesn't touch javadoc, and can run in parallel.
+ *
+ * Every javadoc object returned from a wrapped object (including the elements of returned arrays) is itself
+ * wrapped, and each javadoc object has a single proxy, so identity comparisons between wrapped objects behave
+ * as they do for the underlying objects. Wrapped objects passed as arguments to javadoc methods are unwrapped.
+ *
+ * Package protected - only for use by doclets, since the com.sun.javadoc.* classes are not available on all systems.
+ */
+final class SynchronizedJavadoc {
+
+    private static final String JAVADOC_PACKAGE = RootDoc.class.getPackage().getName();
+
+    private final Object lock = new Object();
+    private final Map<Object, Object> proxies = new IdentityHashMap<>();
+
+    private SynchronizedJavadoc() {}
+
+    /**
+     * @param rootDoc javadoc root to wrap
+     * @return a thread-safe view of {@code rootDoc}
+     */
+    static RootDoc wrap(final RootDoc rootDoc) {
+        return (RootDoc) new SynchronizedJavadoc().wrapValue(rootDoc);
+    }
+
+    // Must be called while holding the lock, or before the model is shared
+    private Object wrapValue(final Object value) {
+        if (value == null) {
+            return null;
+        }
+        final Class<?> valueClass = value.getClass();
+        if (valueClass.isArray()) {
+            final Class<?> componentType = valueClass.getComponentType();
+            if (!isJavadocInterface(componentType)) {
+                return value;
+            }
+            final int length = Array.getLength(value);
+            final Object wrappedArray = Array.newInstance(componentType, length);
+            for (int i = 0; i < length; i++) {
+                Array.set(wrappedArray, i, wrapValue(Array.get(value, i)));
+            }
+            return wrappedArray;
+        }
+        if (Proxy.isProxyClass(valueClass) && Proxy.getInvocationHandler(value) instanceof Handler) {
+            return value;
+        }
+        final Class<?>[] interfaces = getJavadocInterfaces(valueClass);
+        if (interfaces.length == 0) {
+            return value;
+        }
+        return proxies.computeIfAbsent(value, v -> Proxy.newProxyInstance(
+                RootDoc.class.getClassLoader(), interfaces, new Handler(v)));
+    }
+
+    private static Object unwrapValue(final Object value) {
+        if (value != null && Proxy.isProxyClass(value.getClass())) {
+            final InvocationHandler handler = Proxy.getInvocationHandler(value);
+            if (handler instanceof Handler) {
+                return ((Handler) handler).target;
+            }
+        }
+        return value;
+    }
+
+    private static boolean isJavadocInterface(final Class<?> clazz) {
+        return clazz.isInterface() && clazz.getPackage() != null && clazz.getPackage().getName().equals(JAVADOC_PACKAGE);
+    }
+
+    private static Class<?>[] getJavadocInterfaces(final Class<?> clazz) {
+        final Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            for (final Class<?> i : c.getInterfaces()) {
+                if (isJavadocInterface(i)) {
+                    interfaces.add(i);
+                }
+            }
+        }
+        return interfaces.toArray(new Class<?>[interfaces.size()]);
+    }
+
+    private final class Handler implements InvocationHandler {
+        private final Object target;
+
+        Handler(final Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            if (method.getName().equals("equals") && args != null && args.length == 1 &&
+                    method.getParameterTypes()[0] == Object.class) {
+                synchronized (lock) {
+                    return target.equals(unwrapValue(args[0]));
+                }
+            }
+            final Object[] targetArgs = args == null ? null : new Object[args.length];
+            for (int i = 0; targetArgs != null && i < args.length; i++) {
+                targetArgs[i] = unwrapValue(args[i]);
+            }
+            synchronized (lock) {
+                try {
+                    return wrapValue(method.invoke(target, targetArgs));
+                } catch (final InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
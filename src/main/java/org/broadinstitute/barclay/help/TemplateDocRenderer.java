@@ -0,0 +1,46 @@
+package org.broadinstitute.barclay.help;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders the FreeMarker template output (HTML, by default) for each work unit, and the index, using the doclet's
+ * {@link HelpDoclet#processWorkUnitTemplate} and {@link HelpDoclet#processIndexTemplate} methods.
+ */
+public class TemplateDocRenderer extends DocRenderer {
+
+    /**
+     * @param doclet the HelpDoclet driving this documentation run. Can not be null.
+     */
+    public TemplateDocRenderer(final HelpDoclet doclet) {
+        super(doclet);
+    }
+
+    @Override
+    public Set<String> getTemplateNames(final Collection<DocWorkUnit> workUnits) {
+        final Set<String> templateNames = new HashSet<>();
+        workUnits.forEach(workUnit -> templateNames.add(workUnit.getTemplateName()));
+        templateNames.add(getDoclet().getIndexTemplateName());
+        return templateNames;
+    }
+
+    @Override
+    public void renderWorkUnit(
+            final DocWorkUnit workUnit,
+            final List<Map<String, String>> groupMaps,
+            final List<Map<String, String>> featureMaps) {
+        getDoclet().processWorkUnitTemplate(
+                getDoclet().getTemplateEngine().getConfiguration(), workUnit, groupMaps, featureMaps);
+    }
+
+    @Override
+    public void renderIndex(
+            final List<DocWorkUnit> workUnitList,
+            final List<Map<String, String>> groupMaps) throws IOException {
+        getDoclet().processIndexTemplate(getDoclet().getTemplateEngine().getConfiguration(), workUnitList, groupMaps);
+    }
+}
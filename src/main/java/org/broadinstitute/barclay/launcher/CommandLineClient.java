@@ -0,0 +1,135 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client for {@link CommandLineServer}. Sends a tool name and arguments to a running server, copies the tool's
+ * output and error streams to local streams as they arrive, and returns the tool's exit code. The client's working
+ * directory is sent with each request, so that relative paths in the arguments refer to the same files as they
+ * would if the tool were run directly.
+ */
+public final class CommandLineClient {
+
+    private CommandLineClient() {}
+
+    /**
+     * Run a tool on a server listening on the loopback interface, with relative paths resolved against this
+     * process's working directory.
+     *
+     * @param port server port
+     * @param authToken server authentication token
+     * @param args tool name followed by the tool's arguments
+     * @param out destination for the tool's standard output
+     * @param err destination for the tool's standard error
+     * @return the tool's exit code
+     * @throws IOException if communication with the server fails
+     */
+    public static int run(
+            final int port,
+            final String authToken,
+            final String[] args,
+            final OutputStream out,
+            final OutputStream err) throws IOException {
+        return run(port, authToken, new File("").getAbsoluteFile(), args, out, err);
+    }
+
+    /**
+     * Run a tool on a server listening on the loopback interface.
+     *
+     * @param port server port
+     * @param authToken server authentication token
+     * @param workingDirectory absolute directory against which relative paths in the arguments are resolved
+     * @param args tool name followed by the tool's arguments
+     * @param out destination for the tool's standard output
+     * @param err destination for the tool's standard error
+     * @return the tool's exit code
+     * @throws IOException if communication with the server fails
+     */
+    public static int run(
+            final int port,
+            final String authToken,
+            final File workingDirectory,
+            final String[] args,
+            final OutputStream out,
+            final OutputStream err) throws IOException {
+        Utils.nonNull(authToken, "authentication token");
+        Utils.nonNull(workingDirectory, "working directory");
+        Utils.nonNull(args, "arguments");
+        if (!workingDirectory.isAbsolute()) {
+            throw new IllegalArgumentException("The working directory must be absolute: " + workingDirectory);
+        }
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+             final DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+             final DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            request.writeInt(CommandLineServerProtocol.MAGIC);
+            request.writeInt(CommandLineServerProtocol.VERSION);
+            CommandLineServerProtocol.writeString(request, authToken);
+            CommandLineServerProtocol.writeString(request, workingDirectory.getPath());
+            request.writeInt(args.length);
+            for (final String arg : args) {
+                CommandLineServerProtocol.writeString(request, arg);
+            }
+            request.flush();
+
+            byte[] buffer = new byte[8192];
+            while (true) {
+                final int frameType = response.read();
+                switch (frameType) {
+                    case CommandLineServerProtocol.EXIT_FRAME:
+                        return response.readInt();
+                    case CommandLineServerProtocol.STDOUT_FRAME:
+                    case CommandLineServerProtocol.STDERR_FRAME:
+                        final int length = response.readInt();
+                        if (length > buffer.length) {
+                            buffer = new byte[length];
+                        }
+                        response.readFully(buffer, 0, length);
+                        final OutputStream target = frameType == CommandLineServerProtocol.STDOUT_FRAME ? out : err;
+                        target.write(buffer, 0, length);
+                        target.flush();
+                        break;
+                    case -1:
+                        throw new EOFException("Server closed the connection without returning an exit code " +
+                                "(the request may have been rejected)");
+                    default:
+                        throw new IOException("Unrecognized response frame type: " + frameType);
+                }
+            }
+        }
+    }
+
+    /**
+     * Run a tool on the server described by a connection file written by {@link CommandLineServer#main(String[])},
+     * and exit with the tool's exit code.
+     *
+     * @param args the connection file, followed by the tool name and the tool's arguments
+     * @throws IOException if communication with the server fails
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println(String.format("Usage: %s <connection file> <tool name> [tool arguments...]",
+                    CommandLineClient.class.getName()));
+            System.exit(1);
+        }
+        final List<String> connection = Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8);
+        if (connection.size() < 2) {
+            throw new IOException("Malformed connection file: " + args[0]);
+        }
+        final int exitCode = run(
+                Integer.parseInt(connection.get(0).trim()),
+                connection.get(1).trim(),
+                Arrays.copyOfRange(args, 1, args.length),
+                System.out,
+                System.err);
+        System.exit(exitCode);
+    }
+}
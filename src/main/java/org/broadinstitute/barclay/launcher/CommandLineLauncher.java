@@ -0,0 +1,255 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.broadinstitute.barclay.argparser.CommandLineArgumentParser;
+import org.broadinstitute.barclay.argparser.CommandLineException;
+import org.broadinstitute.barclay.argparser.CommandLineParser;
+import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
+import org.broadinstitute.barclay.argparser.CommandLinePluginProvider;
+import org.broadinstitute.barclay.argparser.PluginDiscoveryCache;
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Generic "main" for applications composed of multiple command line programs. The launcher uses a
+ * {@link CommandLineToolIndex} generated at build time to list the available tools without loading any tool classes,
+ * and loads, reflects on, and parses the arguments for only the tool that is selected on the command line:
+ *
+ *     main --list
+ *     main ToolName [tool arguments...]
+ *
+ * Once the tool's arguments have been parsed, it is run using a {@link CommandLineToolRunner}.
+ *
+ * Loaded tool classes and discovered plugin classes are cached, so a single launcher can be used to
+ * run many tools (concurrently, if the tools themselves allow it), as is done by {@link CommandLineServer}.
+ */
+public class CommandLineLauncher {
+
+    /**
+     * Option used to list the available tools.
+     */
+    public static final String LIST_TOOLS_OPTION = "--list";
+
+    /**
+     * Exit code used when the tool name or tool arguments are invalid.
+     */
+    public static final int EXIT_CODE_COMMAND_LINE_ERROR = 2;
+
+    /**
+     * Exit code used when the tool throws an exception.
+     */
+    public static final int EXIT_CODE_TOOL_ERROR = 1;
+
+    // For formatting the tool list
+    private static final int TOOL_NAME_COLUMN_WIDTH = 45;
+
+    private final CommandLineToolIndex toolIndex;
+    private final ClassLoader classLoader;
+    private final CommandLineToolRunner toolRunner;
+
+    // tool classes that have been loaded so far, by tool name
+    private final Map<String, Class<?>> toolClasses = new ConcurrentHashMap<>();
+
+    // plugin classes discovered so far, shared by the parsers for all tools
+    private final PluginDiscoveryCache pluginDiscoveryCache = new PluginDiscoveryCache();
+
+    /**
+     * Create a launcher that uses the tool index resources visible to the current thread's context class loader.
+     * @param toolRunner runner used to run the selected tool
+     */
+    public CommandLineLauncher(final CommandLineToolRunner toolRunner) {
+        this(CommandLineToolIndex.load(Thread.currentThread().getContextClassLoader()),
+                Thread.currentThread().getContextClassLoader(),
+                toolRunner);
+    }
+
+    /**
+     * @param toolIndex index of the available tools
+     * @param classLoader class loader used to load the selected tool class
+     * @param toolRunner runner used to run the selected tool
+     */
+    public CommandLineLauncher(
+            final CommandLineToolIndex toolIndex,
+            final ClassLoader classLoader,
+            final CommandLineToolRunner toolRunner) {
+        this.toolIndex = Utils.nonNull(toolIndex, "tool index");
+        this.classLoader = Utils.nonNull(classLoader, "class loader");
+        this.toolRunner = Utils.nonNull(toolRunner, "tool runner");
+    }
+
+    /**
+     * @return the index of tools available to this launcher
+     */
+    public CommandLineToolIndex getToolIndex() {
+        return toolIndex;
+    }
+
+    /**
+     * Run the tool named by the first argument, or list the available tools if no tool is named or the first
+     * argument is {@link #LIST_TOOLS_OPTION}. If the tool can't be loaded or its arguments are defined incorrectly,
+     * the error is reported as a tool error, rather than as a user error.
+     *
+     * @param args tool name followed by the tool's arguments
+     * @param out stream for the tool's standard output
+     * @param err stream for the tool's standard error, and for usage and error messages
+     * @return exit code
+     */
+    public int launch(final String[] args, final PrintStream out, final PrintStream err) {
+        return launch(args, null, out, err);
+    }
+
+    /**
+     * Run the tool named by the first argument, as {@link #launch(String[], PrintStream, PrintStream)} does, with
+     * relative paths in the tool's arguments resolved against a given working directory rather than the process's
+     * working directory (see {@link CommandLineParser#setWorkingDirectory(File)}).
+     *
+     * @param args tool name followed by the tool's arguments
+     * @param workingDirectory absolute directory against which relative paths are resolved, or null to use the
+     *                         process's working directory
+     * @param out stream for the tool's standard output
+     * @param err stream for the tool's standard error, and for usage and error messages
+     * @return exit code
+     */
+    public int launch(final String[] args, final File workingDirectory, final PrintStream out, final PrintStream err) {
+        if (args.length == 0 || args[0].equals(LIST_TOOLS_OPTION)) {
+            printToolList(args.length == 0 ? err : out);
+            return args.length == 0 ? EXIT_CODE_COMMAND_LINE_ERROR : 0;
+        }
+
+        final CommandLineToolIndex.Entry entry = toolIndex.getEntry(args[0]);
+        if (entry == null) {
+            err.println(String.format("'%s' is not a valid tool name. Use %s to see the available tools.",
+                    args[0], LIST_TOOLS_OPTION));
+            return EXIT_CODE_COMMAND_LINE_ERROR;
+        }
+
+        final Object tool;
+        final CommandLineParser parser;
+        try {
+            tool = createTool(entry);
+            parser = createParser(tool);
+            if (workingDirectory != null) {
+                parser.setWorkingDirectory(workingDirectory);
+            }
+        } catch (final CommandLineException.CommandLineParserInternalException e) {
+            e.printStackTrace(err);
+            return EXIT_CODE_TOOL_ERROR;
+        }
+
+        try {
+            if (!parser.parseArguments(err, Arrays.copyOfRange(args, 1, args.length))) {
+                return 0; // help or version was requested
+            }
+        } catch (final CommandLineException.CommandLineParserInternalException e) {
+            e.printStackTrace(err);
+            return EXIT_CODE_TOOL_ERROR;
+        } catch (final CommandLineException e) {
+            err.println(parser.usage(false, false));
+            err.println("***********************************************************************");
+            err.println(String.format("A USER ERROR has occurred: %s", e.getMessage()));
+            err.println("***********************************************************************");
+            return EXIT_CODE_COMMAND_LINE_ERROR;
+        }
+
+        try {
+            return toolRunner.runTool(tool, out, err);
+        } catch (final Exception e) {
+            e.printStackTrace(err);
+            return EXIT_CODE_TOOL_ERROR;
+        }
+    }
+
+    /**
+     * Load and instantiate the tool for an index entry. Only this tool's class is loaded.
+     *
+     * @param entry index entry for the tool
+     * @return a new instance of the tool
+     */
+    public Object createTool(final CommandLineToolIndex.Entry entry) {
+        try {
+            return getToolClass(entry).newInstance();
+        } catch (final InstantiationException | IllegalAccessException e) {
+            throw new CommandLineException.CommandLineParserInternalException(
+                    String.format("Can't instantiate tool %s (%s)", entry.getName(), entry.getClassName()), e);
+        }
+    }
+
+    private Class<?> getToolClass(final CommandLineToolIndex.Entry entry) {
+        return toolClasses.computeIfAbsent(entry.getName(), name -> {
+            try {
+                return Class.forName(entry.getClassName(), true, classLoader);
+            } catch (final ClassNotFoundException | LinkageError e) {
+                throw new CommandLineException.CommandLineParserInternalException(
+                        String.format("Can't load tool %s (%s)", entry.getName(), entry.getClassName()), e);
+            }
+        });
+    }
+
+    /**
+     * Load every tool in the index and create an argument parser for each one, so that tool classes, plugin
+     * classes, and the parser's reflection caches are populated before the first tool is launched. This defeats
+     * the purpose of the index for a single tool invocation, but is useful for long-running processes.
+     */
+    public void warmUp() {
+        for (final CommandLineToolIndex.Entry entry : toolIndex.getEntries()) {
+            createParser(createTool(entry));
+        }
+    }
+
+    /**
+     * Create the argument parser for a tool instance. Plugin descriptors are obtained from tools that
+     * implement {@link CommandLinePluginProvider}.
+     *
+     * @param tool tool instance
+     * @return parser for the tool's arguments
+     */
+    protected CommandLineParser createParser(final Object tool) {
+        final List<? extends CommandLinePluginDescriptor<?>> pluginDescriptors = tool instanceof CommandLinePluginProvider ?
+                ((CommandLinePluginProvider) tool).getPluginDescriptors() :
+                Collections.emptyList();
+        return new CommandLineArgumentParser(
+                tool,
+                pluginDescriptors,
+                Collections.emptySet(),
+                pluginDiscoveryCache);
+    }
+
+    /**
+     * Print the available tools, grouped by program group. Tools that are marked as omitted from the
+     * command line are not listed.
+     *
+     * @param stream destination for the tool list
+     */
+    public void printToolList(final PrintStream stream) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("USAGE: <program name> [-h]\n\nAvailable Programs:\n");
+        for (final Map.Entry<String, List<CommandLineToolIndex.Entry>> group : toolIndex.getEntriesByGroup().entrySet()) {
+            final List<CommandLineToolIndex.Entry> visibleTools = new ArrayList<>();
+            group.getValue().stream().filter(e -> !e.isOmitFromCommandLine()).forEach(visibleTools::add);
+            if (visibleTools.isEmpty()) {
+                continue;
+            }
+            sb.append("--------------------------------------------------------------------------------------\n");
+            sb.append(String.format("%-" + TOOL_NAME_COLUMN_WIDTH + "s %s\n",
+                    group.getKey() + ":", visibleTools.get(0).getGroupDescription()));
+            for (final CommandLineToolIndex.Entry tool : visibleTools) {
+                final String status = tool.isBeta() ? " (BETA Tool)" : tool.isExperimental() ? " (EXPERIMENTAL Tool)" : "";
+                sb.append(String.format("    %-" + (TOOL_NAME_COLUMN_WIDTH - 4) + "s %s%s\n",
+                        tool.getName(), tool.getSummary(), status));
+            }
+        }
+        sb.append("--------------------------------------------------------------------------------------\n");
+        stream.print(sb.toString());
+    }
+
+    /**
+     * Launch a tool using the tool index on the classpath, running it with {@link CommandLineToolRunner#DEFAULT}.
+     * @param args tool name followed by the tool's arguments
+     */
+    public static void main(final String[] args) {
+        System.exit(new CommandLineLauncher(CommandLineToolRunner.DEFAULT).launch(args, System.out, System.err));
+    }
+}
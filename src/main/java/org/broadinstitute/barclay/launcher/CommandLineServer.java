@@ -0,0 +1,360 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A long-running server that launches tools in-process on behalf of {@link CommandLineClient}, to avoid paying for
+ * JVM startup, class loading, classpath scanning and reflection on every tool invocation. The server listens on the
+ * loopback interface only, and each request must present the server's authentication token.
+ *
+ * Each request carries the client's working directory, and a tool name and its arguments, which are parsed and
+ * run by a shared {@link CommandLineLauncher} (so tool classes, plugin classes and argument reflection are cached across requests).
+ * The tool's output and error streams are streamed back to the client as they are written, followed by the
+ * tool's exit code. Tools are run concurrently on a fixed size thread pool, and must not call {@link System#exit}.
+ *
+ * Relative paths in the values of {@link File} arguments, and in arguments files and collection list files, are
+ * resolved against the client's working directory (see
+ * {@link org.broadinstitute.barclay.argparser.CommandLineParser#setWorkingDirectory(File)}). The server process
+ * has a single working directory, so a tool that opens paths it receives in any other form (such as a String
+ * argument, or a path computed by the tool) resolves them against the server's working directory instead; such
+ * tools should be given absolute paths.
+ *
+ * Tools can write either to the streams provided by their {@link CommandLineToolRunner}, or to {@link System#out}
+ * and {@link System#err}: once a server has been started, {@link System#out} and {@link System#err} are replaced by
+ * streams that write to the output and error streams of the request being run by the current thread, and to the
+ * original streams for any other thread (including threads started by the tool, whose output isn't sent to the
+ * client), until every started server has been closed.
+ *
+ * The server can be run directly via {@link #main(String[])}, which writes the port and token to a connection
+ * file readable only by the current user, for use by {@link CommandLineClient#main(String[])}.
+ */
+public final class CommandLineServer implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger();
+
+    // The output and error streams for the request being run by the current thread. These aren't inherited by
+    // threads the tool starts, since pooled threads would keep them after the request finished.
+    private static final ThreadLocal<PrintStream[]> requestStreams = new ThreadLocal<>();
+
+    // The number of started servers that haven't been closed, and the streams that were replaced when the first
+    // of them started; guarded by CommandLineServer.class
+    private static int routingServers = 0;
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+    private static PrintStream routedOut;
+    private static PrintStream routedErr;
+
+    private final CommandLineLauncher launcher;
+    private final ServerSocket serverSocket;
+    private final ExecutorService requestExecutor;
+    private final byte[] authToken;
+    private final AtomicInteger threadCounter = new AtomicInteger();
+    private Thread acceptThread;
+    private boolean closed = false;
+
+    /**
+     * Create a server listening on the loopback interface. Call {@link #start()} to begin accepting requests.
+     *
+     * @param launcher launcher used to parse and run tools
+     * @param port port to listen on, or 0 to use any free port (see {@link #getPort()})
+     * @param threads maximum number of tools to run concurrently
+     * @param authToken token that clients must present with each request
+     * @throws IOException if the server socket can't be created
+     */
+    public CommandLineServer(
+            final CommandLineLauncher launcher,
+            final int port,
+            final int threads,
+            final String authToken) throws IOException {
+        this.launcher = Utils.nonNull(launcher, "launcher");
+        this.authToken = Utils.nonNull(authToken, "authentication token").getBytes(StandardCharsets.UTF_8);
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1: " + threads);
+        }
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.requestExecutor = Executors.newFixedThreadPool(threads, r -> {
+            final Thread t = new Thread(r, "barclay-server-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @return the port on which the server is listening
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Start accepting requests on a background thread.
+     */
+    public synchronized void start() {
+        if (acceptThread != null) {
+            throw new IllegalStateException("Server has already been started");
+        }
+        routeStandardStreams();
+        acceptThread = new Thread(this::acceptRequests, "barclay-server-accept");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        logger.info(String.format("Listening for tool requests on %s:%d",
+                serverSocket.getInetAddress().getHostAddress(), getPort()));
+    }
+
+    private void acceptRequests() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                requestExecutor.execute(() -> handleRequest(socket));
+            } catch (final SocketException e) {
+                // the server socket was closed
+            } catch (final IOException e) {
+                logger.warn("Error accepting tool request", e);
+            }
+        }
+    }
+
+    private void handleRequest(final Socket socket) {
+        try (final Socket s = socket;
+             final DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            final Request request = readRequest(in);
+            if (request == null) {
+                return;
+            }
+            final PrintStream toolOut = new PrintStream(new BufferedOutputStream(
+                    new CommandLineServerProtocol.FrameOutputStream(out, CommandLineServerProtocol.STDOUT_FRAME)), true, "UTF-8");
+            final PrintStream toolErr = new PrintStream(new BufferedOutputStream(
+                    new CommandLineServerProtocol.FrameOutputStream(out, CommandLineServerProtocol.STDERR_FRAME)), true, "UTF-8");
+            int exitCode;
+            requestStreams.set(new PrintStream[] { toolOut, toolErr });
+            try {
+                exitCode = launcher.launch(request.args, request.workingDirectory, toolOut, toolErr);
+            } catch (final RuntimeException e) {
+                e.printStackTrace(toolErr);
+                exitCode = CommandLineLauncher.EXIT_CODE_TOOL_ERROR;
+            } finally {
+                requestStreams.remove();
+            }
+            toolOut.flush();
+            toolErr.flush();
+            synchronized (out) {
+                out.writeByte(CommandLineServerProtocol.EXIT_FRAME);
+                out.writeInt(exitCode);
+                out.flush();
+            }
+        } catch (final IOException e) {
+            logger.warn("Error processing tool request", e);
+        }
+    }
+
+    /**
+     * Replace {@link System#out} and {@link System#err} with streams that write to the streams for the current
+     * thread's request, if that hasn't already been done by another running server.
+     */
+    private static synchronized void routeStandardStreams() {
+        if (routingServers++ == 0) {
+            originalOut = System.out;
+            originalErr = System.err;
+            routedOut = new PrintStream(new RequestOutputStream(originalOut, 0), true);
+            routedErr = new PrintStream(new RequestOutputStream(originalErr, 1), true);
+            System.setOut(routedOut);
+            System.setErr(routedErr);
+        }
+    }
+
+    /**
+     * Put back the streams replaced by {@link #routeStandardStreams()} once no running server needs them, unless
+     * they have since been replaced by someone else.
+     */
+    private static synchronized void restoreStandardStreams() {
+        if (--routingServers == 0) {
+            if (System.out == routedOut) {
+                System.setOut(originalOut);
+            }
+            if (System.err == routedErr) {
+                System.setErr(originalErr);
+            }
+            originalOut = originalErr = routedOut = routedErr = null;
+        }
+    }
+
+    // Writes to one of the current thread's request streams, or to the original stream if there's no request
+    private static final class RequestOutputStream extends OutputStream {
+        private final PrintStream originalStream;
+        private final int streamIndex;
+
+        RequestOutputStream(final PrintStream originalStream, final int streamIndex) {
+            this.originalStream = originalStream;
+            this.streamIndex = streamIndex;
+        }
+
+        private PrintStream getStream() {
+            final PrintStream[] streams = requestStreams.get();
+            return streams == null ? originalStream : streams[streamIndex];
+        }
+
+        @Override
+        public void write(final int b) {
+            getStream().write(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            getStream().write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            getStream().flush();
+        }
+    }
+
+    // A tool request from a client
+    private static final class Request {
+        final File workingDirectory;
+        final String[] args;
+
+        Request(final File workingDirectory, final String[] args) {
+            this.workingDirectory = workingDirectory;
+            this.args = args;
+        }
+    }
+
+    // Returns the request, or null if the request isn't valid
+    private Request readRequest(final DataInputStream in) throws IOException {
+        if (in.readInt() != CommandLineServerProtocol.MAGIC || in.readInt() != CommandLineServerProtocol.VERSION) {
+            logger.warn("Rejecting request with an unrecognized protocol header");
+            return null;
+        }
+        final byte[] token = CommandLineServerProtocol.readString(in).getBytes(StandardCharsets.UTF_8);
+        if (!MessageDigest.isEqual(token, authToken)) {
+            logger.warn("Rejecting request with an invalid authentication token");
+            return null;
+        }
+        final File workingDirectory = new File(CommandLineServerProtocol.readString(in));
+        if (!workingDirectory.isAbsolute()) {
+            logger.warn("Rejecting request with a relative working directory: " + workingDirectory);
+            return null;
+        }
+        final int argCount = in.readInt();
+        if (argCount < 0 || argCount > CommandLineServerProtocol.MAX_ARGUMENT_COUNT) {
+            logger.warn("Rejecting request with an invalid argument count: " + argCount);
+            return null;
+        }
+        final String[] args = new String[argCount];
+        for (int i = 0; i < argCount; i++) {
+            args[i] = CommandLineServerProtocol.readString(in);
+        }
+        return new Request(workingDirectory, args);
+    }
+
+    /**
+     * Stop accepting requests, wait briefly for running tools to finish, and put back {@link System#out} and
+     * {@link System#err} if no other server is running.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        requestExecutor.shutdown();
+        try {
+            requestExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (acceptThread != null && !closed) {
+                closed = true;
+                restoreStandardStreams();
+            }
+        }
+    }
+
+    /**
+     * @return a new random authentication token
+     */
+    public static String createAuthToken() {
+        final byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Run a server using the tool index on the classpath, and {@link CommandLineToolRunner#DEFAULT}.
+     *
+     * @param args the connection file to write, followed by optional port (default: any free port) and
+     *             thread count (default: the number of processors)
+     * @throws IOException if the server can't be started
+     * @throws InterruptedException if interrupted while serving requests
+     */
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println(String.format("Usage: %s <connection file> [port] [threads]", CommandLineServer.class.getName()));
+            System.exit(1);
+        }
+        final Path connectionFile = Paths.get(args[0]);
+        final int port = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        startServer(connectionFile, port, threads).acceptThread.join();
+    }
+
+    /**
+     * Start a server using the tool index visible to the current thread's context class loader, and
+     * {@link CommandLineToolRunner#DEFAULT}, as is done by {@link #main(String[])}.
+     *
+     * @param connectionFile connection file to write
+     * @param port port to listen on, or 0 to use any free port
+     * @param threads maximum number of tools to run concurrently
+     * @return the started server
+     * @throws IOException if the server can't be started
+     */
+    static CommandLineServer startServer(final Path connectionFile, final int port, final int threads) throws IOException {
+        final CommandLineLauncher launcher = new CommandLineLauncher(CommandLineToolRunner.DEFAULT);
+        launcher.warmUp();
+        final String token = createAuthToken();
+        final CommandLineServer server = new CommandLineServer(launcher, port, threads, token);
+        writeConnectionFile(connectionFile, server.getPort(), token);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Write the server port and authentication token to a file that only the current user can read.
+     *
+     * @param connectionFile file to write
+     * @param port server port
+     * @param token server authentication token
+     * @throws IOException if the file can't be written
+     */
+    static void writeConnectionFile(final Path connectionFile, final int port, final String token) throws IOException {
+        Files.deleteIfExists(connectionFile);
+        try {
+            Files.createFile(connectionFile, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (final UnsupportedOperationException e) {
+            logger.warn("Unable to restrict permissions on connection file " + connectionFile);
+        }
+        Files.write(connectionFile, (port + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+}
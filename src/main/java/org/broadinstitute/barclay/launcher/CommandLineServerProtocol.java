@@ -0,0 +1,77 @@
+package org.broadinstitute.barclay.launcher;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Wire format shared by {@link CommandLineServer} and {@link CommandLineClient}.
+ *
+ * A request is the protocol magic number and version, the server's authentication token, the client's (absolute)
+ * working directory, and the argument count followed by the arguments (the tool name followed by the tool's
+ * arguments), all strings being length-prefixed UTF-8. The response is a sequence of frames, each consisting of a frame type byte followed by
+ * a length-prefixed payload for {@link #STDOUT_FRAME} and {@link #STDERR_FRAME} frames, or by the integer exit
+ * code for the final {@link #EXIT_FRAME}.
+ */
+final class CommandLineServerProtocol {
+
+    static final int MAGIC = 0x42434c59; // "BCLY"
+    static final int VERSION = 2;
+
+    static final byte EXIT_FRAME = 0;
+    static final byte STDOUT_FRAME = 1;
+    static final byte STDERR_FRAME = 2;
+
+    // Upper bound on request strings/argument counts, to guard against garbage on the socket
+    static final int MAX_STRING_LENGTH = 16 * 1024 * 1024;
+    static final int MAX_ARGUMENT_COUNT = 1024 * 1024;
+
+    private CommandLineServerProtocol() {}
+
+    static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length in request: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Output stream that writes everything written to it as frames of a given type. Frames from multiple
+     * streams sharing the same underlying stream are interleaved, but never split.
+     */
+    static final class FrameOutputStream extends OutputStream {
+        private final DataOutputStream out;
+        private final byte frameType;
+
+        FrameOutputStream(final DataOutputStream out, final byte frameType) {
+            this.out = out;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (out) {
+                out.writeByte(frameType);
+                out.writeInt(len);
+                out.write(b, off, len);
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.barclay.argparser.*;
+import org.broadinstitute.barclay.utils.Utils;
+
+import java.io.*;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A build-time index of the command line programs (classes annotated with {@link CommandLineProgramProperties})
+ * available to a {@link CommandLineLauncher}. Each entry records the tool name, class name, program group,
+ * summary, and beta/experimental status, so that tools can be listed and looked up without loading (or
+ * scanning the classpath for) any tool class.
+ *
+ * The index is generated at build time by running {@link #main(String[])} with the output file and the packages
+ * to scan, and is packaged into the jar as the resource {@link #INDEX_RESOURCE}. At runtime, all index resources
+ * visible to a class loader are merged by {@link #load(ClassLoader)}.
+ *
+ * The index format is UTF-8 text with a header line, followed by one tab-separated line per tool. Tabs, newlines
+ * and backslashes within field values are escaped with a backslash.
+ */
+public final class CommandLineToolIndex {
+
+    /**
+     * Name of the classpath resource containing the tool index.
+     */
+    public static final String INDEX_RESOURCE = "META-INF/barclay/tools.index";
+
+    private static final String INDEX_HEADER = "#barclay-tool-index\t1";
+    private static final char FIELD_SEPARATOR = '\t';
+    private static final int FIELD_COUNT = 9;
+
+    private static final Logger logger = LogManager.getLogger();
+
+    private final SortedMap<String, Entry> entries = new TreeMap<>();
+
+    /**
+     * Create an index from a set of index entries.
+     * @param entries entries for the index. Tool names must be unique.
+     */
+    public CommandLineToolIndex(final Collection<Entry> entries) {
+        Utils.nonNull(entries);
+        entries.forEach(this::addEntry);
+    }
+
+    private void addEntry(final Entry entry) {
+        final Entry previous = entries.putIfAbsent(entry.getName(), entry);
+        if (previous != null && !previous.getClassName().equals(entry.getClassName())) {
+            throw new CommandLineException.CommandLineParserInternalException(
+                    String.format("Tool name %s is used by both %s and %s",
+                            entry.getName(), previous.getClassName(), entry.getClassName()));
+        }
+    }
+
+    /**
+     * Create an index by reflecting on a set of command line program classes. This is intended to be used at
+     * build time; the classes are loaded, and their program groups instantiated, to populate the index.
+     *
+     * @param toolClasses command line program classes. Each must be annotated with {@link CommandLineProgramProperties}.
+     * @return index containing an entry for each class
+     */
+    public static CommandLineToolIndex fromClasses(final Collection<Class<?>> toolClasses) {
+        Utils.nonNull(toolClasses);
+        final List<Entry> entries = new ArrayList<>(toolClasses.size());
+        for (final Class<?> toolClass : toolClasses) {
+            final CommandLineProgramProperties properties = toolClass.getAnnotation(CommandLineProgramProperties.class);
+            if (properties == null) {
+                throw new IllegalArgumentException(
+                        String.format("Class %s is not annotated with %s",
+                                toolClass.getName(), CommandLineProgramProperties.class.getSimpleName()));
+            }
+            final CommandLineProgramGroup group;
+            try {
+                group = properties.programGroup().newInstance();
+            } catch (final InstantiationException | IllegalAccessException e) {
+                throw new CommandLineException.CommandLineParserInternalException(
+                        String.format("Can't instantiate program group %s for tool %s",
+                                properties.programGroup().getName(), toolClass.getName()), e);
+            }
+            entries.add(new Entry(
+                    toolClass.getSimpleName(),
+                    toolClass.getName(),
+                    properties.programGroup().getName(),
+                    group.getName(),
+                    group.getDescription(),
+                    properties.oneLineSummary(),
+                    toolClass.getAnnotation(BetaFeature.class) != null,
+                    toolClass.getAnnotation(ExperimentalFeature.class) != null,
+                    properties.omitFromCommandLine()));
+        }
+        return new CommandLineToolIndex(entries);
+    }
+
+    /**
+     * Create an index by scanning packages on the classpath for concrete classes annotated with
+     * {@link CommandLineProgramProperties}. This is intended to be used at build time.
+     *
+     * @param packageNames packages to scan (including sub-packages)
+     * @return index containing an entry for each command line program found
+     */
+    public static CommandLineToolIndex fromPackages(final List<String> packageNames) {
+        final ClassFinder classFinder = new ClassFinder();
+        packageNames.forEach(pkg -> classFinder.find(pkg, Object.class));
+        final List<Class<?>> toolClasses = new ArrayList<>();
+        for (final Class<?> clazz : classFinder.getClasses()) {
+            if (ClassFinder.isConcrete(clazz)
+                    && !clazz.isAnonymousClass()
+                    && Modifier.isPublic(clazz.getModifiers())
+                    && clazz.getAnnotation(CommandLineProgramProperties.class) != null) {
+                toolClasses.add(clazz);
+            }
+        }
+        return fromClasses(toolClasses);
+    }
+
+    /**
+     * Load and merge all tool index resources visible to a class loader. No tool classes are loaded.
+     *
+     * @param classLoader class loader used to find {@link #INDEX_RESOURCE} resources
+     * @return the merged index, which will be empty if no index resources are found
+     */
+    public static CommandLineToolIndex load(final ClassLoader classLoader) {
+        Utils.nonNull(classLoader);
+        final List<Entry> entries = new ArrayList<>();
+        try {
+            final Enumeration<URL> indexURLs = classLoader.getResources(INDEX_RESOURCE);
+            while (indexURLs.hasMoreElements()) {
+                final URL indexURL = indexURLs.nextElement();
+                try (final Reader reader = new InputStreamReader(indexURL.openStream(), StandardCharsets.UTF_8)) {
+                    entries.addAll(read(reader).getEntries());
+                }
+            }
+        } catch (final IOException e) {
+            throw new CommandLineException.CommandLineParserInternalException("Error reading tool index", e);
+        }
+        if (entries.isEmpty()) {
+            logger.warn(String.format("No tool index (%s) was found on the classpath", INDEX_RESOURCE));
+        }
+        return new CommandLineToolIndex(entries);
+    }
+
+    /**
+     * Read an index in the format written by {@link #write(Writer)}.
+     * @param reader source for the index
+     * @return the index
+     * @throws IOException if the index can't be read
+     */
+    public static CommandLineToolIndex read(final Reader reader) throws IOException {
+        final BufferedReader bufferedReader = new BufferedReader(reader);
+        final String header = bufferedReader.readLine();
+        if (!INDEX_HEADER.equals(header)) {
+            throw new CommandLineException.CommandLineParserInternalException(
+                    String.format("Unrecognized tool index header: %s", header));
+        }
+        final List<Entry> entries = new ArrayList<>();
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            if (!line.isEmpty()) {
+                entries.add(Entry.fromFields(splitFields(line)));
+            }
+        }
+        return new CommandLineToolIndex(entries);
+    }
+
+    /**
+     * Write this index.
+     * @param writer destination for the index
+     * @throws IOException if the index can't be written
+     */
+    public void write(final Writer writer) throws IOException {
+        writer.write(INDEX_HEADER);
+        writer.write('\n');
+        for (final Entry entry : entries.values()) {
+            final String[] fields = entry.toFields();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    writer.write(FIELD_SEPARATOR);
+                }
+                writer.write(escape(fields[i]));
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    /**
+     * @return all entries in this index, sorted by tool name
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * @param toolName name of the tool to find
+     * @return the entry for {@code toolName}, or null if there is no such tool
+     */
+    public Entry getEntry(final String toolName) {
+        return entries.get(toolName);
+    }
+
+    /**
+     * @return entries grouped by program group name, with both groups and entries sorted by name
+     */
+    public SortedMap<String, List<Entry>> getEntriesByGroup() {
+        final SortedMap<String, List<Entry>> groups = new TreeMap<>();
+        entries.values().forEach(e -> groups.computeIfAbsent(e.getGroupName(), g -> new ArrayList<>()).add(e));
+        return groups;
+    }
+
+    /**
+     * Generate a tool index at build time.
+     *
+     * @param args the output index file, followed by one or more package names to scan for command line programs
+     * @throws IOException if the index can't be written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println(String.format(
+                    "Usage: %s <output index file> <package name>...", CommandLineToolIndex.class.getName()));
+            System.exit(1);
+        }
+        final CommandLineToolIndex index = fromPackages(Arrays.asList(args).subList(1, args.length));
+        final File indexFile = new File(args[0]);
+        if (indexFile.getParentFile() != null) {
+            indexFile.getParentFile().mkdirs();
+        }
+        try (final Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile), StandardCharsets.UTF_8)) {
+            index.write(writer);
+        }
+        logger.info(String.format("Wrote %d tools to tool index %s", index.getEntries().size(), indexFile));
+    }
+
+    private static String escape(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (final char c : value.toCharArray()) {
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\t': sb.append("\\t"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String[] splitFields(final String line) {
+        final List<String> fields = new ArrayList<>(FIELD_COUNT);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == FIELD_SEPARATOR) {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                final char escaped = line.charAt(++i);
+                switch (escaped) {
+                    case 't': sb.append('\t'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    default: sb.append(escaped);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+        fields.add(sb.toString());
+        if (fields.size() != FIELD_COUNT) {
+            throw new CommandLineException.CommandLineParserInternalException(
+                    String.format("Malformed tool index entry (expected %d fields, found %d): %s",
+                            FIELD_COUNT, fields.size(), line));
+        }
+        return fields.toArray(new String[FIELD_COUNT]);
+    }
+
+    /**
+     * Index entry for a single command line program.
+     */
+    public static final class Entry {
+        private final String name;
+        private final String className;
+        private final String groupClassName;
+        private final String groupName;
+        private final String groupDescription;
+        private final String summary;
+        private final boolean beta;
+        private final boolean experimental;
+        private final boolean omitFromCommandLine;
+
+        public Entry(
+                final String name,
+                final String className,
+                final String groupClassName,
+                final String groupName,
+                final String groupDescription,
+                final String summary,
+                final boolean beta,
+                final boolean experimental,
+                final boolean omitFromCommandLine) {
+            this.name = Utils.nonNull(name, "tool name");
+            this.className = Utils.nonNull(className, "tool class name");
+            this.groupClassName = Utils.nonNull(groupClassName, "program group class name");
+            this.groupName = Utils.nonNull(groupName, "program group name");
+            this.groupDescription = Utils.nonNull(groupDescription, "program group description");
+            this.summary = Utils.nonNull(summary, "tool summary");
+            this.beta = beta;
+            this.experimental = experimental;
+            this.omitFromCommandLine = omitFromCommandLine;
+        }
+
+        private static Entry fromFields(final String[] fields) {
+            return new Entry(
+                    fields[0], fields[1], fields[2], fields[3], fields[4], fields[5],
+                    Boolean.parseBoolean(fields[6]),
+                    Boolean.parseBoolean(fields[7]),
+                    Boolean.parseBoolean(fields[8]));
+        }
+
+        private String[] toFields() {
+            return new String[] {
+                    name, className, groupClassName, groupName, groupDescription, summary,
+                    Boolean.toString(beta), Boolean.toString(experimental), Boolean.toString(omitFromCommandLine)
+            };
+        }
+
+        /** @return the tool name (the simple name of the tool class) */
+        public String getName() { return name; }
+
+        /** @return the fully qualified name of the tool class */
+        public String getClassName() { return className; }
+
+        /** @return the fully qualified name of the tool's {@link CommandLineProgramGroup} class */
+        public String getGroupClassName() { return groupClassName; }
+
+        /** @return the name of the tool's program group */
+        public String getGroupName() { return groupName; }
+
+        /** @return the description of the tool's program group */
+        public String getGroupDescription() { return groupDescription; }
+
+        /** @return the one line summary for the tool */
+        public String getSummary() { return summary; }
+
+        /** @return true if the tool is a {@link BetaFeature} */
+        public boolean isBeta() { return beta; }
+
+        /** @return true if the tool is an {@link ExperimentalFeature} */
+        public boolean isExperimental() { return experimental; }
+
+        /** @return the value of {@link CommandLineProgramProperties#omitFromCommandLine()} for the tool */
+        public boolean isOmitFromCommandLine() { return omitFromCommandLine; }
+
+        @Override
+        public String toString() {
+            return name + " (" + className + ")";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.broadinstitute.barclay.argparser.CommandLineException;
+
+import java.io.PrintStream;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs a command line program instance after its arguments have been parsed by a {@link CommandLineLauncher}.
+ * Applications that have their own tool base class can provide an implementation that invokes it.
+ */
+@FunctionalInterface
+public interface CommandLineToolRunner {
+
+    /**
+     * Run a tool whose arguments have been parsed and validated.
+     *
+     * @param tool the tool instance, with its argument fields populated
+     * @param out stream to use for the tool's standard output
+     * @param err stream to use for the tool's standard error
+     * @return the exit code for the tool
+     * @throws Exception any exception thrown by the tool
+     */
+    int runTool(Object tool, PrintStream out, PrintStream err) throws Exception;
+
+    /**
+     * Runner for tools that implement {@link Callable} (the exit code is the result if it is an {@link Integer},
+     * otherwise 0) or {@link Runnable} (the exit code is always 0). The tool writes to {@link System#out} and
+     * {@link System#err}, which {@link CommandLineServer} routes to the streams for the tool's request.
+     */
+    CommandLineToolRunner DEFAULT = (tool, out, err) -> {
+        if (tool instanceof Callable) {
+            final Object result = ((Callable<?>) tool).call();
+            return result instanceof Integer ? (Integer) result : 0;
+        } else if (tool instanceof Runnable) {
+            ((Runnable) tool).run();
+            return 0;
+        }
+        throw new CommandLineException(
+                String.format("Tool %s implements neither Runnable nor Callable, and no tool runner was provided",
+                        tool.getClass().getName()));
+    };
+}
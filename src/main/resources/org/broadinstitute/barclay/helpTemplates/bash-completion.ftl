@@ -1,47 +1,88 @@
-
 ####################
 # Tab completion file to allow for easy use of this tool with the command-line using Bash.
+#
+# The completion information for each tool is in a separate file in the ${callerScriptOptions["toolCompletionDirName"]}
+# directory next to this file, which is only sourced the first time that tool is completed. The allowed values of
+# arguments (such as enum constants and plugin names) are looked up in the ${callerScriptOptions["completionIndexFileName"]}
+# file next to this file.
+# Requires Bash 4.2 or later.
 ####################
 
 <#include "bash-completion.macros.ftl"/>
+<#-- Prefix for the names of the global variables for this script -->
+<#assign vars = "_" + callerScriptOptions["callerScriptName"]?replace("\\W", "_", "r")>
 
 ####################################################################################################
 
+# The completion functions use associative arrays and other features that require Bash 4.2, so don't set up
+# completion at all for older versions.
+if (( BASH_VERSINFO[0] < 4 || ( BASH_VERSINFO[0] == 4 && BASH_VERSINFO[1] < 2 ) )) ; then
+    echo "Tab completion for ${callerScriptOptions["callerScriptName"]} requires Bash 4.2 or later" >&2
+    return 0
+fi
+
 # High-level caller/dispatch script information:
 
 CALLER_SCRIPT_NAME="${callerScriptOptions["callerScriptName"]}"
 
-# A description of these variables is below in the main completion function (_masterCompletionFunction)
-CS_PREFIX_OPTIONS_ALL_LEGAL_ARGUMENTS=(${callerScriptOptions["callerScriptPrefixLegalArgs"]} <@compress_single_line><@emitToolListForTopLevelComplete tools=tools /></@compress_single_line>)
-CS_PREFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS=(${callerScriptOptions["callerScriptPrefixLegalArgs"]} <@compress_single_line><@emitToolListForTopLevelComplete tools=tools /></@compress_single_line>)
-CS_PREFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES=(${callerScriptOptions["callerScriptPrefixArgValueTypes"]} <@compress_single_line><@emitStringsForToolList tools=tools repeatString="\"null\""/></@compress_single_line>)
-CS_PREFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS=(${callerScriptOptions["callerScriptPrefixMutexArgs"]})
-CS_PREFIX_OPTIONS_SYNONYMOUS_ARGS=(${callerScriptOptions["callerScriptPrefixAliasArgs"]})
-CS_PREFIX_OPTIONS_MIN_OCCURRENCES=(${callerScriptOptions["callerScriptPrefixMinOccurrences"]} <@compress_single_line><@emitStringsForToolList tools=tools repeatString="0"/></@compress_single_line>)
-CS_PREFIX_OPTIONS_MAX_OCCURRENCES=(${callerScriptOptions["callerScriptPrefixMaxOccurrences"]} <@compress_single_line><@emitStringsForToolList tools=tools repeatString="1"/></@compress_single_line>)
-
-CS_POSTFIX_OPTIONS_ALL_LEGAL_ARGUMENTS=(${callerScriptOptions["callerScriptPostfixLegalArgs"]})
-CS_POSTFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS=(${callerScriptOptions["callerScriptPostfixLegalArgs"]})
-CS_POSTFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES=(${callerScriptOptions["callerScriptPostfixArgValueTypes"]})
-CS_POSTFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS=(${callerScriptOptions["callerScriptPostfixMutexArgs"]})
-CS_POSTFIX_OPTIONS_SYNONYMOUS_ARGS=(${callerScriptOptions["callerScriptPostfixAliasArgs"]})
-CS_POSTFIX_OPTIONS_MIN_OCCURRENCES=(${callerScriptOptions["callerScriptPostfixMinOccurrences"]})
-CS_POSTFIX_OPTIONS_MAX_OCCURRENCES=(${callerScriptOptions["callerScriptPostfixMaxOccurrences"]})
-
-# Whether we have to worry about these extra script options at all.
-HAS_POSTFIX_OPTIONS="${callerScriptOptions["hasCallerScriptPostfixArgs"]}"
-
-# All the tool names we are able to complete:
-ALL_TOOLS=(<@compress_single_line><@emitToolListForTopLevelComplete tools=tools /></@compress_single_line>)
+# The directory containing this file:
+${vars}_COMPLETION_DIR="${r"${BASH_SOURCE[0]%/*}"}"
+[[ "${r"${BASH_SOURCE[0]}"}" != */* ]] && ${vars}_COMPLETION_DIR="."
+[[ "${r"${"}${vars}${r"_COMPLETION_DIR}"}" != /* ]] && ${vars}_COMPLETION_DIR="${r"${PWD}/"}${r"${"}${vars}${r"_COMPLETION_DIR}"}"
+
+# The directory containing the completion information for each tool:
+${vars}_TOOL_COMPLETION_DIR="${r"${"}${vars}${r"_COMPLETION_DIR}"}/${callerScriptOptions["toolCompletionDirName"]}"
+
+# The completion index, which has a line for each tool, each argument of a tool, and each allowed value of an
+# argument, with the fields of each line separated by tabs. The lines are sorted, so that the index can be searched
+# with look(1).
+${vars}_COMPLETION_INDEX="${r"${"}${vars}${r"_COMPLETION_DIR}"}/${callerScriptOptions["completionIndexFileName"]}"
+
+# Whether we have to worry about the caller script options that come after the tool options at all.
+${vars}_HAS_POSTFIX_OPTIONS="${callerScriptOptions["hasCallerScriptPostfixArgs"]}"
+
+# All the tool names we are able to complete, for fast lookup:
+<@compress_single_line>
+declare -gA ${vars}_ALL_TOOLS=(<@emitToolMap toolNames=toolNames value=1/>)
+</@compress_single_line>
+
 
 ####################################################################################################
 
+# Set up the completion information for the caller script options that come before the tool, and the tools themselves.
+# A description of these variables is below in the main completion function (_masterCompletionFunction)
+_${callerScriptOptions["callerScriptName"]}_setupPrefixOptions()
+{
+<@emitOptionCompletionData options=callerScriptOptions prefix="Prefix" extraArguments=toolNames/>
+
+}
+
+# Set up the completion information for the caller script options that come after the tool options,
+# following the special option "--".
+_${callerScriptOptions["callerScriptName"]}_setupPostfixOptions()
+{
+<@emitOptionCompletionData options=callerScriptOptions prefix="Postfix"/>
+
+}
+
+# Set up the completion information for the given tool, sourcing the file with the information for the tool
+# the first time it is completed.
+_${callerScriptOptions["callerScriptName"]}_setupTool()
+{
+    local toolName=$1
+    if ! declare -F "_${callerScriptOptions["callerScriptName"]}_setupTool_${r"${toolName}"}" > /dev/null ; then
+        source "${r"${"}${vars}${r"_TOOL_COMPLETION_DIR}/${toolName}.sh"}" || return 1
+    fi
+    "_${callerScriptOptions["callerScriptName"]}_setupTool_${r"${toolName}"}"
+}
+
 # Get the name of the tool that we're currently trying to call
 _${callerScriptOptions["callerScriptName"]}_getToolName()
 {
-    # Naively go through each word in the line until we find one that is in our list of tools:
-    for word in ${r"${COMP_WORDS[@]}"} ; do
-        if ( echo " ${r"${ALL_TOOLS[@]}"} " | grep -q " ${r"${word}"} " ) ; then
+    # Go through each word in the line until we find one that is one of our tools:
+    local word
+    for word in "${r"${COMP_WORDS[@]}"}" ; do
+        if [[ -n "${r"${word}"}" && -n "${r"${"}${vars}${r"_ALL_TOOLS[$word]}"}" ]] ; then
             echo "${r"${word}"}"
             break
         fi
@@ -51,10 +92,11 @@ _${callerScriptOptions["callerScriptName"]}_getToolName()
 # Get the index of the toolname inside COMP_WORDS
 _${callerScriptOptions["callerScriptName"]}_getToolNameIndex()
 {
-    # Naively go through each word in the line until we find one that is in our list of tools:
+    # Go through each word in the line until we find one that is one of our tools:
     local ctr=0
-    for word in ${r"${COMP_WORDS[@]}"} ; do
-        if ( echo " ${r"${ALL_TOOLS[@]}"} " | grep -q " ${r"${word}"} " ) ; then
+    local word
+    for word in "${r"${COMP_WORDS[@]}"}" ; do
+        if [[ -n "${r"${word}"}" && -n "${r"${"}${vars}${r"_ALL_TOOLS[$word]}"}" ]] ; then
             echo $ctr
             break
         fi
@@ -72,42 +114,66 @@ _${callerScriptOptions["callerScriptName"]}_getAllPossibleToolNames()
 # AND
 # the current word is also a substring in more than one tool name
 
-    local tool count matches toolList
-
-    let count=0
-    matches=false
-    toolList=()
-
-    # Go through tool names and get what matches and partial matches we have:
-    for tool in ${r"${ALL_TOOLS[@]}"} ; do
-        if [[ "${r"${COMP_WORDS[COMP_CWORD]}"}" == "${r"${tool}"}" ]] ; then
-            matches=true
-            let count=$count+1
-            ${r"toolList+=($tool)"}
-        elif [[ "${r"${tool}"}" == "${r"${COMP_WORDS[COMP_CWORD]}"}"* ]] ; then
-            ${r"toolList+=($tool)"}
-        fi
-    done
+    local word=${r"${COMP_WORDS[COMP_CWORD]}"}
+    local tool toolList
 
     # If we have a complete match, then we print out our partial matches as a space separated string.
     # That way we have a list of all possible full completions for this match.
     # For instance, if there was a tool named "read" and another named "readBetter" this would get both.
-    if $matches ; then
+    if [[ -n "${r"${word}"}" && -n "${r"${"}${vars}${r"_ALL_TOOLS[$word]}"}" ]] ; then
+        toolList=()
+        for tool in "${r"${!"}${vars}${r"_ALL_TOOLS[@]}"}" ; do
+            if [[ "${r"${tool}"}" == "${r"${word}"}"* ]] ; then
+                ${r"toolList+=($tool)"}
+            fi
+        done
         echo "${r"${toolList[@]}"}"
     fi
 }
 
+# Print the allowed values (such as enum constants or plugin names) of the given argument of the given tool
+# that start with the given prefix, one per line, from the completion index.
+# Uses look(1), which does a binary search of the index, if it's available. Otherwise reads the index
+# until it's past the matching lines.
+_${callerScriptOptions["callerScriptName"]}_lookupArgValues()
+{
+    local prefix="${r"${1}"}"$'\t'"${r"${2}"}"$'\t'"${r"${3}"}"
+    local line
+
+    [[ -r "${r"${"}${vars}${r"_COMPLETION_INDEX}"}" ]] || return 0
+
+    if type -P look > /dev/null ; then
+        while IFS= read -r line ; do
+            echo "${r"${line#*$'\t'*$'\t'}"}"
+        done < <( LC_ALL=C look -- "${r"${prefix}"}" "${r"${"}${vars}${r"_COMPLETION_INDEX}"}" )
+    else
+        # The index is sorted in byte order:
+        local LC_ALL=C
+        while IFS= read -r line ; do
+            if [[ "${r"${line}"}" == "${r"${prefix}"}"* ]] ; then
+                echo "${r"${line#*$'\t'*$'\t'}"}"
+            elif [[ "${r"${line}"}" > "${r"${prefix}"}" ]] ; then
+                break
+            fi
+        done < "${r"${"}${vars}${r"_COMPLETION_INDEX}"}"
+    fi
+}
+
 # Gets how many dependent arguments we have left to fill
 _${callerScriptOptions["callerScriptName"]}_getDependentArgumentCount()
 {
     local depArgCount=0
+    local word depArg
+    local -A isDependentArg=()
 
-    for word in ${r"${COMP_LINE}"} ; do
-        for depArg in ${r"${DEPENDENT_ARGUMENTS[@]}"} ; do
-            if [[ "${r"${word}"}" == "${r"${depArg}"}" ]] ; then
-                $((depArgCount++))
-            fi
-        done
+    for depArg in "${r"${DEPENDENT_ARGUMENTS[@]}"}" ; do
+        isDependentArg[$depArg]=1
+    done
+
+    for word in "${r"${COMP_WORDS[@]}"}" ; do
+        if [[ -n "${r"${word}"}" && -n "${r"${isDependentArg[$word]}"}" ]] ; then
+            depArgCount=$((depArgCount+1))
+        fi
     done
 
     echo ${r"$depArgCount"}
@@ -117,38 +183,27 @@ _${callerScriptOptions["callerScriptName"]}_getDependentArgumentCount()
 _${callerScriptOptions["callerScriptName"]}_resolveVarName()
 {
     local argName=$1
-    if [[ "${r"${SYNONYMOUS_ARGS[@]}"}" == *"${r"${argName}"}"* ]] ; then
-        echo "${r"${SYNONYMOUS_ARGS[@]}"}" | sed -e "s#.* \\([a-zA-Z0-9;,_\\-]*${r"${argName}"}[a-zA-Z0-9,;_\\-]*\\).*#\\1#g" -e 's#;.*##g'
+    if [[ -n "${r"${argName}"}" && -n "${r"${SYNONYM_ARGUMENTS[$argName]}"}" ]] ; then
+        echo "${r"${SYNONYM_ARGUMENTS[$argName]}"}"
     else
         echo "${r"${argName}"}"
     fi
 }
 
 # Checks if we need to complete the VALUE for an argument.
-# Prints the index in the given argument list of the corresponding argument whose value we must complete.
-# Takes as input 1 positional argument: the name of the last argument given to this script
-# Otherwise prints -1
+# Prints the name of the argument whose value we must complete, given the last argument given to this script.
+# Otherwise prints nothing.
 _${callerScriptOptions["callerScriptName"]}_needToCompleteArgValue()
 {
-    if [[ "${r"${prev}"}" != "--" ]] ; then
-        local resolved=$( _${callerScriptOptions["callerScriptName"]}_resolveVarName ${r"${prev}"} )
-
-        ${r"for (( i=0 ; i < ${#ALL_LEGAL_ARGUMENTS[@]} ; i++ )) ; do"}
-            if [[ "${r"${resolved}"}" == "${r"${ALL_LEGAL_ARGUMENTS[i]}"}" ]] ; then
-
-                # Make sure the argument isn't one that takes no additional value
-                # such as a flag.
-                if [[ "${r"${ALL_ARGUMENT_VALUE_TYPES[i]}"}" != "null" ]] ; then
-                    echo "$i"
-                else
-                    echo "-1"
-                fi
-                return 0
-            fi
-        done
-    fi
+    if [[ -n "${r"${prev}"}" && "${r"${prev}"}" != "--" ]] ; then
+        local resolved=$( _${callerScriptOptions["callerScriptName"]}_resolveVarName "${r"${prev}"}" )
 
-    echo "-1"
+        # Make sure the argument isn't one that takes no additional value
+        # such as a flag.
+        if [[ -n "${r"${ARGUMENT_TYPES[$resolved]+set}"}" && "${r"${ARGUMENT_TYPES[$resolved]}"}" != "null" ]] ; then
+            echo "${r"${resolved}"}"
+        fi
+    fi
 }
 
 # Get the completion word list for the given argument type.
@@ -156,7 +211,7 @@ _${callerScriptOptions["callerScriptName"]}_needToCompleteArgValue()
 _${callerScriptOptions["callerScriptName"]}_getCompletionWordList()
 {
     # Normalize the type string so it's easier to deal with:
-    local argType=$( echo $1 | tr '[A-Z]' '[a-z]')
+    local argType=${r"${1,,}"}
 
     local isNumeric=false
     local isFloating=false
@@ -238,50 +293,54 @@ _${callerScriptOptions["callerScriptName"]}_handleArgs()
     # NOTE: We don't need to worry about the prefix options case.
     #       The caller will specify it and it skips the two special cases above.
 
-    # First we must resolve all arguments to their full names
+    # First we must resolve all arguments to their full names, and count how many times each has occurred.
     # This is necessary to save time later because of short argument names / synonyms
     local resolvedArgList=()
+    local -A numPrevOccurrences=()
+    local prevArg resolvedArg
     for (( i=argOffsetIndex ; i < COMP_CWORD ; i++ )) ; do
         prevArg=${r"${COMP_WORDS[i]}"}
 
         # Skip the current word to be completed:
-        [[ "${r"${prevArg}"}" == "${r"${cur}"}" ]] && continue
-
-        # Check if this has synonyms:
-        if [[ "${r"${SYNONYMOUS_ARGS[@]}"}" == *"${r"${prevArg}"}"* ]] ; then
+        [[ -z "${r"${prevArg}"}" || "${r"${prevArg}"}" == "${r"${cur}"}" ]] && continue
 
-            local resolvedArg=$( _${callerScriptOptions["callerScriptName"]}_resolveVarName "${r"${prevArg}"}" )
+        # Resolve synonyms, and make sure this is an argument:
+        resolvedArg=${r"${SYNONYM_ARGUMENTS[$prevArg]:-$prevArg}"}
+        if [[ -n "${r"${ARGUMENT_TYPES[$resolvedArg]+set}"}" ]] ; then
             ${r"resolvedArgList+=($resolvedArg)"}
-
-        # Make sure this is an argument:
-        elif [[ "${r"${ALL_LEGAL_ARGUMENTS[@]}"}" == *"${r"${prevArg}"}"* ]] ; then
-            ${r"resolvedArgList+=($prevArg)"}
+            ${r"numPrevOccurrences[$resolvedArg]=$(( ${numPrevOccurrences[$resolvedArg]:-0} + 1 ))"}
         fi
     done
 
     # Check to see if the last thing we typed was a complete argument.
     # If so, we must complete the VALUE for the argument, not the
     # argument itself:
-    # Note: This is shorthand for last element in the array:
     local argToComplete=$( _${callerScriptOptions["callerScriptName"]}_needToCompleteArgValue )
 
-    if [[ $argToComplete -ne -1 ]] ; then
+    if [[ -n "${r"${argToComplete}"}" ]] ; then
         # We must complete the VALUE for an argument.
 
         # Get the argument type.
-        local valueType=${r"${ALL_ARGUMENT_VALUE_TYPES[argToComplete]}"}
+        local valueType=${r"${ARGUMENT_TYPES[$argToComplete]}"}
 
         # Get the correct completion string for the type:
         local completionString=$( _${callerScriptOptions["callerScriptName"]}_getCompletionWordList "${r"${valueType}"}" )
 
+        # If there's no completion for the type, complete the allowed values of a tool argument from the
+        # completion index:
+        if [[ ${r"${#completionString}"} -eq 0 && $# -eq 0 ]] ; then
+            COMPREPLY=( $( _${callerScriptOptions["callerScriptName"]}_lookupArgValues "${r"${toolName}"}" "${r"${argToComplete}"}" "${r"${cur}"}" ) )
+            [[ ${r"${#COMPREPLY[@]}"} -ne 0 ]] && return 0
+        fi
+
         if [[ ${r"${#completionString}"} -eq 0 ]] ; then
             # We don't have any information on the type to complete.
             # We use the default SHELL behavior:
             COMPREPLY=()
         else
             # We have a completion option.  Let's plug it in:
-            local compOperator=$( echo "${r"${completionString}"}" | awk '{print $1}' )
-            local compOptions=$( echo "${r"${completionString}"}" | awk '{$1="" ; print}' )
+            local compOperator=${r"${completionString%% *}"}
+            local compOptions=${r"${completionString#* }"}
 
             case ${r"${compOperator}"} in
                 -A) COMPREPLY=( ${r"$(compgen -A ${compOptions} -- $cur"}) ) ;;
@@ -295,50 +354,30 @@ _${callerScriptOptions["callerScriptName"]}_handleArgs()
 
     # We must create a list of the valid remaining arguments:
 
-    # Create a list of all arguments that are
+    # Create a set of all arguments that are
     # mutually exclusive with arguments we have already specified
-    local mutex_list=""
-    for prevArg in ${r"${resolvedArgList[@]}"} ; do
-        if [[ "${r"${MUTUALLY_EXCLUSIVE_ARGS[@]}"}" == *"${r"${prevArg}"};"* ]] ; then
-            local mutexArgs=$( echo "${r"${MUTUALLY_EXCLUSIVE_ARGS[@]}"}" | sed -e "s#.*${r"${prevArg}"};\([a-zA-Z0-9_,\-]*\) .*#\1#g" -e "s#,# --#g" -e "s#^#--#g" )
-            mutex_list="${r"${mutex_list}${mutexArgs}"}"
-        fi
+    local -A isExcludedArg=()
+    local mutexArg
+    for prevArg in "${r"${resolvedArgList[@]}"}" ; do
+        for mutexArg in ${r"${MUTUALLY_EXCLUSIVE_ARGS[$prevArg]}"} ; do
+            isExcludedArg[$mutexArg]=1
+        done
     done
 
     local remaining_legal_arguments=()
-    for (( i=0; i < ${r"${#NORMAL_COMPLETION_ARGUMENTS[@]}"} ; i++ )) ; do
-        local legalArg=${r"${NORMAL_COMPLETION_ARGUMENTS[i]}"}
-        local okToAdd=true
-
-        # Get the number of times this has occurred in the arguments already:
-        local numPrevOccurred=$( grep -o -- "${r"${legalArg}"}" <<< "${r"${resolvedArgList[@]}"}" | wc -l | awk '{print $1}' )
-
-        if [[ $numPrevOccurred -lt "${r"${MAX_OCCURRENCES[i]}"}" ]] ; then
-
-            # Make sure this arg isn't mutually exclusive to another argument that we've already had:
-            if [[ "${r"${mutex_list}"}" ==    "${r"${legalArg}"} "* ]] ||
-               [[ "${r"${mutex_list}"}" ==  *" ${r"${legalArg}"} "* ]] ||
-               [[ "${r"${mutex_list}"}" ==  *" ${r"${legalArg}"}"  ]] ; then
-                okToAdd=false
-            fi
-
-            # Check if we're still good to add in the argument:
-            if $okToAdd ; then
-                # Add in the argument:
-                ${r"remaining_legal_arguments+=($legalArg)"}
-
-                # Add in the synonyms of the argument:
-                if [[ "${r"${SYNONYMOUS_ARGS[@]}"}" == *"${r"${legalArg}"}"* ]] ; then
-                    local synonymString=$( echo "${r"${SYNONYMOUS_ARGS[@]}"}" | sed -e "s#.*${r"${legalArg}"};\([a-zA-Z0-9_,\-]*\).*#\1#g" -e "s#,# #g"  )
-                    ${r"remaining_legal_arguments+=($synonymString)"}
-                fi
-            fi
+    local legalArg
+    for legalArg in "${r"${NORMAL_COMPLETION_ARGUMENTS[@]}"}" ; do
+        # Make sure this arg hasn't occurred too many times already, and isn't
+        # mutually exclusive to another argument that we've already had:
+        if [[ ${r"${numPrevOccurrences[$legalArg]:-0}"} -lt ${r"${ARGUMENT_MAX_OCCURRENCES[$legalArg]:-1}"} ]] &&
+           [[ -z "${r"${isExcludedArg[$legalArg]}"}" ]] ; then
+            # Add in the argument, and its synonyms:
+            ${r"remaining_legal_arguments+=($legalArg ${ARGUMENT_SYNONYMS[$legalArg]})"}
         fi
-
     done
 
     # Add in the special option "--" which separates tool options from meta-options if they're necessary:
-    if $HAS_POSTFIX_OPTIONS ; then
+    if ${r"$"}${vars}_HAS_POSTFIX_OPTIONS ; then
         if [[ $# -eq 0 ]] || [[ "${r"${1}"}" == "PREFIX_OPTIONS"  ]] ; then
             remaining_legal_arguments+=("--")
         fi
@@ -352,46 +391,45 @@ _${callerScriptOptions["callerScriptName"]}_handleArgs()
 
 _${callerScriptOptions["callerScriptName"]}_masterCompletionFunction()
 {
-    # Set up global variables for the functions that do completion:
-    prev=${r"${COMP_WORDS[COMP_CWORD-1]}"}
-    cur=${r"${COMP_WORDS[COMP_CWORD]}"}
+    # Set up the variables for the functions that do completion.
+    # These are local to this function, but are visible to the functions that it calls.
+    local prev=${r"${COMP_WORDS[COMP_CWORD-1]}"}
+    local cur=${r"${COMP_WORDS[COMP_CWORD]}"}
 
     # How many positional arguments a tool will have.
     # These positional arguments must come directly after a tool name.
-    NUM_POSITIONAL_ARGUMENTS=0
+    local NUM_POSITIONAL_ARGUMENTS=0
 
     # The types of the positional arguments, in the order in which they must be specified
     # on the command-line.
-    POSITIONAL_ARGUMENT_TYPE=()
+    local POSITIONAL_ARGUMENT_TYPE=()
+
+    # The set of arguments that must occur immediately after all positional arguments.
+    local DEPENDENT_ARGUMENTS=()
 
-    # The set of legal arguments that aren't dependent arguments.
-    # (A dependent argument is an argument that must occur immediately after
-    # all positional arguments.)
-    NORMAL_COMPLETION_ARGUMENTS=()
+    # The set of legal arguments that aren't dependent arguments, in the order in which they're completed.
+    local NORMAL_COMPLETION_ARGUMENTS=()
 
-    # The set of ALL legal arguments
-    # Corresponds by index to the type of those arguments in ALL_ARGUMENT_VALUE_TYPES
-    ALL_LEGAL_ARGUMENTS=()
+    # The types of ALL legal arguments, keyed by argument name.
+    # The type of arguments that don't take a value (such as flags) is "null".
+    local -A ARGUMENT_TYPES=()
 
-    # The types of ALL legal arguments
-    # Corresponds by index to the names of those arguments in ALL_LEGAL_ARGUMENTS
-    ALL_ARGUMENT_VALUE_TYPES=()
+    # Arguments that are mutually exclusive, keyed by argument name.
+    # Each value is a space separated list of the arguments that are mutually exclusive with that argument.
+    local -A MUTUALLY_EXCLUSIVE_ARGS=()
 
-    # Arguments that are mutually exclusive.
-    # These are listed here as arguments concatenated together with delimiters:
-    # ${r"<"}Main argument${r">"};${r"<"}Mutex Argument 1${r">"}[,${r"<"}Mutex Argument 2${r">"},...]
-    MUTUALLY_EXCLUSIVE_ARGS=()
+    # Alternate names of arguments, keyed by argument name.
+    # Each value is a space separated list of the synonyms of that argument.
+    local -A ARGUMENT_SYNONYMS=()
 
-    # Alternate names of arguments.
-    # These are listed here as arguments concatenated together with delimiters.
-    # ${r"<"}Main argument${r">"};${r"<"}Synonym Argument 1${r">"}[,${r"<"}Synonym Argument 2${r">"},...]
-    SYNONYMOUS_ARGS=()
+    # The argument name for each alternate name of an argument.
+    local -A SYNONYM_ARGUMENTS=()
 
-    # The minimum number of times an argument can occur.
-    MIN_OCCURRENCES=()
+    # The minimum number of times each argument can occur, keyed by argument name.
+    local -A ARGUMENT_MIN_OCCURRENCES=()
 
-    # The maximum number of times an argument can occur.
-    MAX_OCCURRENCES=()
+    # The maximum number of times each argument can occur, keyed by argument name.
+    local -A ARGUMENT_MAX_OCCURRENCES=()
 
     # Set up locals for this function:
     local toolName=$( _${callerScriptOptions["callerScriptName"]}_getToolName )
@@ -401,17 +439,8 @@ _${callerScriptOptions["callerScriptName"]}_masterCompletionFunction()
 
     # Check if we have postfix options
     # and if we now need to go through them:
-    if $HAS_POSTFIX_OPTIONS && [[ "${r"${COMP_WORDS[@]}"}" == *" -- "* ]] ; then
-        NUM_POSITIONAL_ARGUMENTS=0
-        POSITIONAL_ARGUMENT_TYPE=()
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=("${r"${CS_POSTFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS[@]}"}")
-        MUTUALLY_EXCLUSIVE_ARGS=("${r"${CS_POSTFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS[@]}"}")
-        SYNONYMOUS_ARGS=("${r"${CS_POSTFIX_OPTIONS_SYNONYMOUS_ARGS[@]}"}")
-        MIN_OCCURRENCES=("${r"${CS_POSTFIX_OPTIONS_MIN_OCCURRENCES[@]}"}")
-        MAX_OCCURRENCES=("${r"${CS_POSTFIX_OPTIONS_MAX_OCCURRENCES[@]}"}")
-        ALL_LEGAL_ARGUMENTS=("${r"${CS_POSTFIX_OPTIONS_ALL_LEGAL_ARGUMENTS[@]}"}")
-        ALL_ARGUMENT_VALUE_TYPES=("${r"${CS_POSTFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES[@]}"}")
+    if ${r"$"}${vars}_HAS_POSTFIX_OPTIONS && [[ "${r"${COMP_WORDS[@]}"}" == *" -- "* ]] ; then
+        _${callerScriptOptions["callerScriptName"]}_setupPostfixOptions
 
         # Complete the arguments for the base script:
         # Strictly speaking, what the argument to this function is doesn't matter.
@@ -423,29 +452,20 @@ _${callerScriptOptions["callerScriptName"]}_masterCompletionFunction()
         # Set our reply as a list of the possible tool matches:
         COMPREPLY=( ${r"$(compgen -W '${possibleToolMatches[@]}' -- $cur"}) )
 
-<@emitGroupToolCheckConditional tools=tools/>
+    # Check if we're completing the arguments for a tool:
+    elif [[ -n "${r"${toolName}"}" ]] ; then
+
+        # Set up the completion information for this tool, and complete its arguments:
+        _${callerScriptOptions["callerScriptName"]}_setupTool "${r"${toolName}"}" && _${callerScriptOptions["callerScriptName"]}_handleArgs
 
     # We have no postfix options or tool options.
     # We now must complete any prefix options and the tools themselves.
-    # These are defined at the top.
     else
-        NUM_POSITIONAL_ARGUMENTS=0
-        POSITIONAL_ARGUMENT_TYPE=()
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=("${r"${CS_PREFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS[@]}"}")
-        MUTUALLY_EXCLUSIVE_ARGS=("${r"${CS_PREFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS[@]}"}")
-        SYNONYMOUS_ARGS=("${r"${CS_PREFIX_OPTIONS_SYNONYMOUS_ARGS[@]}"}")
-        MIN_OCCURRENCES=("${r"${CS_PREFIX_OPTIONS_MIN_OCCURRENCES[@]}"}")
-        MAX_OCCURRENCES=("${r"${CS_PREFIX_OPTIONS_MAX_OCCURRENCES[@]}"}")
-        ALL_LEGAL_ARGUMENTS=("${r"${CS_PREFIX_OPTIONS_ALL_LEGAL_ARGUMENTS[@]}"}")
-        ALL_ARGUMENT_VALUE_TYPES=("${r"${CS_PREFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES[@]}"}")
+        _${callerScriptOptions["callerScriptName"]}_setupPrefixOptions
 
         # Complete the arguments for the prefix arguments and tools:
         _${callerScriptOptions["callerScriptName"]}_handleArgs PREFIX_OPTIONS
     fi
 }
 
-${r"complete -o default -F _"}${callerScriptOptions["callerScriptName"]}${r"_masterCompletionFunction ${CALLER_SCRIPT_NAME}"}
-
-
-
+${r"complete -o default -F _"}${callerScriptOptions["callerScriptName"]}${r"_masterCompletionFunction ${CALLER_SCRIPT_NAME}"}
\ No newline at end of file
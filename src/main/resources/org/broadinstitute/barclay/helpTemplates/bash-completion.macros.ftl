@@ -55,65 +55,134 @@ ${args[fieldName]} <#nt>
     <@printArgFieldList argumentMap "minElements" />
 </#macro>
 
-<#macro emitGroupToolCheckConditional tools>
-    <#list tools?keys as toolName>
-    elif ${r"[[ ${toolName}"} == "${toolName}" ${r"]]"} ; then
-
-        <#assign arguments = tools[toolName].arguments>
-        # Set up the completion information for this tool:
-        <#if arguments["positional"]?size gt 0 >
-        <#-- We know that there will only be one positional argument in the list because of how they are declared: -->
-        NUM_POSITIONAL_ARGUMENTS=${arguments["positional"]?first["minElements"]}
-        POSITIONAL_ARGUMENT_TYPE=("${arguments["positional"]?first["type"]}")
-        </#if>
-        <@compress_single_line>
-        DEPENDENT_ARGUMENTS=(<@printArgNames arguments "dependent" />)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        NORMAL_COMPLETION_ARGUMENTS=(<@printArgFieldList arguments "name"/>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        MUTUALLY_EXCLUSIVE_ARGS=(<@printDelimitedArgSet arguments "exclusiveOf"/>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        SYNONYMOUS_ARGS=(<@printDelimitedArgSet arguments "synonyms"/>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        MIN_OCCURRENCES=(<@removeDelimiter ","><@printArgFieldList arguments "minElements"/></@removeDelimiter>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        MAX_OCCURRENCES=(<@removeDelimiter ","><@printArgFieldList arguments "maxElements"/></@removeDelimiter>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        ALL_LEGAL_ARGUMENTS=(<#list ["required", "common", "optional", "dependent", "advanced", "deprecated"] as argType><@printArgNames arguments argType/></#list>)
-        </@compress_single_line>
-
-        <@compress_single_line>
-        ALL_ARGUMENT_VALUE_TYPES=(<#list ["required", "common", "optional", "dependent", "advanced", "deprecated"] as argType><@printArgTypes arguments argType/></#list>)
-        </@compress_single_line>
+<#-- Print out "[name]=value" entries mapping the name of each argument of the given type in the given argument map
+ to the given field. -->
+<#macro printArgFieldMap argumentMap argType fieldName>
+    <#list argumentMap[argType]?sort_by("name") as args>
+[${args["name"]}]="${args[fieldName]}" <#nt>
+    </#list>
+</#macro>
 
+<#-- Print out "[name]=value" entries mapping each argument in the given argument map to the given field of the
+ argument, which is a comma separated list (such as synonyms or exclusiveOf).  The value is a space separated
+ list, with valuePrefix prepended to each element.  If reverse is true, each element of the list is mapped to
+ the name of the argument instead. -->
+<#macro printDelimitedArgMap argumentMap fieldName valuePrefix="" reverse=false>
+    <#list ["required", "common", "optional", "advanced", "deprecated"] as argType >
+        <#list argumentMap[argType]?sort_by("name") as args>
+            <#if args[fieldName]?length gt 0 && args[fieldName] != "NA" >
+                <#if reverse>
+<#list args[fieldName]?split(",") as value>[${value?trim}]="${args["name"]}" </#list><#nt>
+                <#else>
+[${args["name"]}]="<#list args[fieldName]?split(",") as value>${valuePrefix}${value?trim}<#sep> </#list>" <#nt>
+                </#if>
+            </#if>
+        </#list>
+    </#list>
+</#macro>
 
-        # Complete the arguments for this tool:
-        _${callerScriptOptions["callerScriptName"]}_handleArgs
+<#-- Print out "[name]=value" entries for a space separated list of argument names, and the corresponding space
+ separated list of values, from the caller script options. -->
+<#macro printOptionMap names values>
+    <#local valueList = values?split(" ")>
+    <#list names?split(" ") as name>
+        <#if name?length gt 0>
+[${name}]=<#if name?index lt valueList?size && valueList[name?index]?length gt 0>${valueList[name?index]}<#else>""</#if> <#nt>
+        </#if>
     </#list>
 </#macro>
 
-<#-- Print out the list of all tools. -->
-<#macro emitToolListForTopLevelComplete tools>
-    <#list tools?keys as toolName>
-${toolName} <#nt>
+<#-- Print out "[name]=value" entries for a caller script option that is a space separated list of
+ "argument;value1,value2,..." strings, in the same way as printDelimitedArgMap. -->
+<#macro printDelimitedOptionMap delimitedArgs valuePrefix="" reverse=false>
+    <#list delimitedArgs?split(" ") as entry>
+        <#local argSet = entry?replace("\"", "")>
+        <#if argSet?contains(";")>
+            <#if reverse>
+<#list argSet?keep_after(";")?split(",") as value>[${value}]="${argSet?keep_before(";")}" </#list><#nt>
+            <#else>
+[${argSet?keep_before(";")}]="<#list argSet?keep_after(";")?split(",") as value>${valuePrefix}${value}<#sep> </#list>" <#nt>
+            </#if>
+        </#if>
     </#list>
 </#macro>
 
-<#-- Print out repeatString for each tool in the list of all tools. -->
-<#macro emitStringsForToolList tools repeatString>
-    <#list tools?keys as toolName>
-${repeatString} <#nt>
+<#-- Set up the completion information for a tool, from its argument map. -->
+<#macro emitToolCompletionData arguments>
+    <#if arguments["positional"]?size gt 0 >
+    <#-- We know that there will only be one positional argument in the list because of how they are declared: -->
+    NUM_POSITIONAL_ARGUMENTS=${arguments["positional"]?first["minElements"]}
+    POSITIONAL_ARGUMENT_TYPE=("${arguments["positional"]?first["type"]}")
+    </#if>
+    <@compress_single_line>
+    DEPENDENT_ARGUMENTS=(<@printArgNames arguments "dependent" />)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    NORMAL_COMPLETION_ARGUMENTS=(<@printArgFieldList arguments "name"/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_TYPES=(<#list ["required", "common", "optional", "dependent", "advanced", "deprecated"] as argType><@printArgFieldMap arguments argType "type"/></#list>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    MUTUALLY_EXCLUSIVE_ARGS=(<@printDelimitedArgMap arguments "exclusiveOf" "--"/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_SYNONYMS=(<@printDelimitedArgMap arguments "synonyms"/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    SYNONYM_ARGUMENTS=(<@printDelimitedArgMap argumentMap=arguments fieldName="synonyms" reverse=true/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_MIN_OCCURRENCES=(<@removeDelimiter ","><#list ["required", "common", "optional", "advanced", "deprecated"] as argType><@printArgFieldMap arguments argType "minElements"/></#list></@removeDelimiter>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_MAX_OCCURRENCES=(<@removeDelimiter ","><#list ["required", "common", "optional", "advanced", "deprecated"] as argType><@printArgFieldMap arguments argType "maxElements"/></#list></@removeDelimiter>)
+    </@compress_single_line>
+</#macro>
+
+<#-- Set up the completion information for the caller script options with the given prefix ("Prefix" or
+ "Postfix"), plus the given extra arguments (i.e. the tools, which are completed along with the prefix options).
+ Extra arguments don't take a value, and can occur once. -->
+<#macro emitOptionCompletionData options prefix extraArguments=[]>
+    <@compress_single_line>
+    NORMAL_COMPLETION_ARGUMENTS=(${options["callerScript" + prefix + "LegalArgs"]} <#list extraArguments as arg>${arg} </#list>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_TYPES=(<@printOptionMap options["callerScript" + prefix + "LegalArgs"] options["callerScript" + prefix + "ArgValueTypes"]/><#list extraArguments as arg>[${arg}]="null" </#list>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    MUTUALLY_EXCLUSIVE_ARGS=(<@printDelimitedOptionMap options["callerScript" + prefix + "MutexArgs"] "--"/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_SYNONYMS=(<@printDelimitedOptionMap options["callerScript" + prefix + "AliasArgs"]/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    SYNONYM_ARGUMENTS=(<@printDelimitedOptionMap delimitedArgs=options["callerScript" + prefix + "AliasArgs"] reverse=true/>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_MIN_OCCURRENCES=(<@printOptionMap options["callerScript" + prefix + "LegalArgs"] options["callerScript" + prefix + "MinOccurrences"]/><#list extraArguments as arg>[${arg}]=0 </#list>)
+    </@compress_single_line>
+
+    <@compress_single_line>
+    ARGUMENT_MAX_OCCURRENCES=(<@printOptionMap options["callerScript" + prefix + "LegalArgs"] options["callerScript" + prefix + "MaxOccurrences"]/><#list extraArguments as arg>[${arg}]=1 </#list>)
+    </@compress_single_line>
+</#macro>
+
+<#-- Print out "[toolName]=value" entries for all tools. -->
+<#macro emitToolMap toolNames value>
+    <#list toolNames as toolName>
+[${toolName}]=${value} <#nt>
     </#list>
 </#macro>
\ No newline at end of file
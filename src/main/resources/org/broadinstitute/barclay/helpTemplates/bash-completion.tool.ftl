@@ -0,0 +1,12 @@
+####################
+# Tab completion information for the ${toolName} tool.
+# This is sourced by the ${callerScriptOptions["callerScriptName"]} completion script the first time the tool is completed.
+####################
+
+<#include "bash-completion.macros.ftl"/>
+
+_${callerScriptOptions["callerScriptName"]}_setupTool_${toolName}()
+{
+<@emitToolCompletionData arguments=tool.arguments/>
+
+}
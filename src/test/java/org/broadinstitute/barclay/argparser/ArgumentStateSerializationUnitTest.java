@@ -0,0 +1,208 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.*;
+
+/**
+ * Test serialization and rehydration of parsed argument state.
+ */
+public class ArgumentStateSerializationUnitTest {
+
+    enum StateFlavor { SWEET, SOUR }
+
+    public static class TaggableFile implements TaggedArgument {
+        private final String path;
+        private String tag;
+        private Map<String, String> tagAttributes;
+
+        public TaggableFile(final String path) {
+            this.path = path;
+        }
+
+        @Override
+        public void setTag(final String tag) { this.tag = tag; }
+
+        @Override
+        public String getTag() { return tag; }
+
+        @Override
+        public void setTagAttributes(final Map<String, String> attributes) { this.tagAttributes = attributes; }
+
+        @Override
+        public Map<String, String> getTagAttributes() { return tagAttributes; }
+
+        @Override
+        public String toString() { return path; }
+    }
+
+    @CommandLineProgramProperties(
+            summary = "Argument state test",
+            oneLineSummary = "Argument state test",
+            programGroup = TestProgramGroup.class
+    )
+    public static class StateArguments {
+        @PositionalArguments
+        public List<File> positionalFiles = new ArrayList<>();
+
+        @Argument(fullName = "flavor", optional = true)
+        public StateFlavor flavor = StateFlavor.SWEET;
+
+        @Argument(fullName = "threshold", optional = true, minValue = 0)
+        public int threshold = 1;
+
+        @Argument(fullName = "verbose", optional = true)
+        public boolean verbose = false;
+
+        @Argument(fullName = "name", optional = true)
+        public String name;
+
+        @Argument(fullName = "input", optional = true)
+        public List<TaggableFile> inputs = new ArrayList<>();
+
+        @Argument(fullName = "intervals", optional = true)
+        public List<String> intervals = new ArrayList<>(Collections.singletonList("default"));
+    }
+
+    private static CommandLineArgumentParser parse(final StateArguments arguments, final String... args) {
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(arguments);
+        Assert.assertTrue(clp.parseArguments(System.err, args));
+        return clp;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final CommandLineArgumentParser clp = parse(new StateArguments(),
+                "pos1", "pos2",
+                "--flavor", "SOUR",
+                "--threshold", "42",
+                "--verbose",
+                "--input:tumor,sample=S1,type=bam", "a.bam",
+                "--input:normal,sample=S2,type=bam", "b.bam",
+                "--input", "c.bam",
+                "--intervals", "chr1",
+                "--intervals", "chr2");
+        final byte[] state = clp.serializeArgumentState();
+
+        final StateArguments rehydrated = new StateArguments();
+        new CommandLineArgumentParser(rehydrated).deserializeArgumentState(state);
+
+        Assert.assertEquals(rehydrated.positionalFiles, Arrays.asList(new File("pos1"), new File("pos2")));
+        Assert.assertEquals(rehydrated.flavor, StateFlavor.SOUR);
+        Assert.assertEquals(rehydrated.threshold, 42);
+        Assert.assertTrue(rehydrated.verbose);
+        Assert.assertNull(rehydrated.name);
+        Assert.assertEquals(rehydrated.intervals, Arrays.asList("chr1", "chr2"));
+
+        Assert.assertEquals(rehydrated.inputs.size(), 3);
+        Assert.assertEquals(rehydrated.inputs.get(0).toString(), "a.bam");
+        Assert.assertEquals(rehydrated.inputs.get(0).getTag(), "tumor");
+        final Map<String, String> expectedAttributes = new HashMap<>();
+        expectedAttributes.put("sample", "S1");
+        expectedAttributes.put("type", "bam");
+        Assert.assertEquals(rehydrated.inputs.get(0).getTagAttributes(), expectedAttributes);
+        Assert.assertEquals(rehydrated.inputs.get(1).getTag(), "normal");
+        Assert.assertEquals(rehydrated.inputs.get(1).getTagAttributes().get("sample"), "S2");
+        Assert.assertNull(rehydrated.inputs.get(2).getTag());
+        Assert.assertTrue(rehydrated.inputs.get(2).getTagAttributes().isEmpty());
+    }
+
+    @Test
+    public void testRoundTripDefaults() {
+        final CommandLineArgumentParser clp = parse(new StateArguments());
+        final StateArguments rehydrated = new StateArguments();
+        rehydrated.threshold = 99; // unset arguments are left at the fresh instance's values
+        new CommandLineArgumentParser(rehydrated).deserializeArgumentState(clp.serializeArgumentState());
+        Assert.assertEquals(rehydrated.threshold, 99);
+        Assert.assertEquals(rehydrated.intervals, Collections.singletonList("default"));
+        Assert.assertTrue(rehydrated.positionalFiles.isEmpty());
+    }
+
+    @Test
+    public void testSerializedStateIsStable() {
+        final String[] args = { "--input:tumor,sample=S1", "a.bam", "--input:tumor,sample=S1", "b.bam" };
+        final byte[] state = parse(new StateArguments(), args).serializeArgumentState();
+        Assert.assertEquals(parse(new StateArguments(), args).serializeArgumentState(), state);
+
+        // re-serializing rehydrated state produces the same bytes
+        final CommandLineArgumentParser rehydratedParser = new CommandLineArgumentParser(new StateArguments());
+        rehydratedParser.deserializeArgumentState(state);
+        Assert.assertEquals(rehydratedParser.serializeArgumentState(), state);
+    }
+
+    @Test
+    public void testPluginRoundTrip() {
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(
+                new Object(),
+                Collections.singletonList(new CommandLinePluginUnitTest.TestPluginDescriptor(
+                        Collections.singletonList(new CommandLinePluginUnitTest.TestDefaultPlugin()))),
+                Collections.emptySet());
+        Assert.assertTrue(clp.parseArguments(System.err, new String[] {
+                "--" + CommandLinePluginUnitTest.TestPluginDescriptor.testPluginArgumentName,
+                CommandLinePluginUnitTest.TestPlugin.class.getSimpleName(),
+                "--" + CommandLinePluginUnitTest.TestPlugin.argumentName, "7"
+        }));
+
+        final CommandLineArgumentParser rehydratedParser = new CommandLineArgumentParser(
+                new Object(),
+                Collections.singletonList(new CommandLinePluginUnitTest.TestPluginDescriptor(
+                        Collections.singletonList(new CommandLinePluginUnitTest.TestDefaultPlugin()))),
+                Collections.emptySet());
+        rehydratedParser.deserializeArgumentState(clp.serializeArgumentState());
+
+        final List<CommandLinePluginUnitTest.TestPluginBase> plugins =
+                rehydratedParser.getPluginDescriptor(CommandLinePluginUnitTest.TestPluginDescriptor.class).getResolvedInstances();
+        Assert.assertEquals(plugins.size(), 1);
+        Assert.assertEquals(
+                ((CommandLinePluginUnitTest.TestPlugin) plugins.get(0)).argumentForTestPlugin,
+                Integer.valueOf(7));
+    }
+
+    @Test(expectedExceptions = CommandLineException.class)
+    public void testSchemaMismatch() {
+        final byte[] state = parse(new StateArguments(), "--threshold", "3").serializeArgumentState();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(
+                new Object(),
+                Collections.singletonList(new CommandLinePluginUnitTest.TestPluginDescriptor(
+                        Collections.singletonList(new CommandLinePluginUnitTest.TestDefaultPlugin()))),
+                Collections.emptySet());
+        clp.deserializeArgumentState(state);
+    }
+
+    @Test(expectedExceptions = CommandLineException.class)
+    public void testTruncatedState() {
+        final byte[] state = parse(new StateArguments(), "--name", "foo").serializeArgumentState();
+        new CommandLineArgumentParser(new StateArguments()).deserializeArgumentState(Arrays.copyOf(state, state.length - 1));
+    }
+
+    @Test(expectedExceptions = CommandLineException.class)
+    public void testUnrecognizedHeader() {
+        new CommandLineArgumentParser(new StateArguments()).deserializeArgumentState(new byte[32]);
+    }
+
+    @DataProvider(name = "corruptStringCounts")
+    public Object[][] corruptStringCounts() {
+        return new Object[][] {
+                // Integer.MAX_VALUE
+                { new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07 } },
+                // -1
+                { new byte[] { (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f } },
+                // more strings than there are remaining bytes
+                { new byte[] { (byte) 0x80, 0x01 } },
+        };
+    }
+
+    @Test(dataProvider = "corruptStringCounts", expectedExceptions = CommandLineException.BadArgumentValue.class)
+    public void testCorruptStringTableCount(final byte[] count) {
+        final byte[] state = parse(new StateArguments(), "--name", "foo").serializeArgumentState();
+        // the string table count follows the 13 byte header; replace it with the corrupt count
+        final byte[] corrupt = new byte[state.length - 1 + count.length];
+        System.arraycopy(state, 0, corrupt, 0, 13);
+        System.arraycopy(count, 0, corrupt, 13, count.length);
+        System.arraycopy(state, 14, corrupt, 13 + count.length, state.length - 14);
+        new CommandLineArgumentParser(new StateArguments()).deserializeArgumentState(corrupt);
+    }
+}
@@ -0,0 +1,144 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Test argument validators, and the built-in file validators.
+ */
+public class ArgumentValidatorUnitTest {
+
+    public static class RejectOddValidator implements ArgumentValidator {
+        @Override
+        public CompletableFuture<List<String>> validate(
+                final String argumentName,
+                final List<Object> values,
+                final Executor executor) {
+            return CompletableFuture.supplyAsync(() -> {
+                final List<String> messages = new ArrayList<>();
+                values.stream().filter(v -> ((Integer) v) % 2 != 0).forEach(v -> messages.add(argumentName + " odd: " + v));
+                return messages;
+            }, executor);
+        }
+    }
+
+    public static class NoDefaultConstructorValidator extends RejectOddValidator {
+        public NoDefaultConstructorValidator(final String unused) {}
+    }
+
+    @CommandLineProgramProperties(
+            summary = "Validator test",
+            oneLineSummary = "Validator test",
+            programGroup = TestProgramGroup.class
+    )
+    public static class ValidatedArguments {
+        @Argument(fullName = "input", optional = true, validators = FileArgumentValidators.Readable.class)
+        public List<File> inputs = new ArrayList<>();
+
+        @Argument(fullName = "output", optional = true,
+                validators = { FileArgumentValidators.Writable.class })
+        public File output;
+
+        @Argument(fullName = "reference", optional = true, validators = FileArgumentValidators.Exists.class)
+        public File reference = new File("/no/such/default/reference");
+
+        @Argument(fullName = "even", optional = true, validators = RejectOddValidator.class)
+        public List<Integer> evens = new ArrayList<>();
+    }
+
+    public static class BadValidatorArguments {
+        @Argument(fullName = "value", optional = true, validators = NoDefaultConstructorValidator.class)
+        public Integer value;
+    }
+
+    private static List<File> createTempFiles(final int count) throws IOException {
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final File f = File.createTempFile("validatorTest", ".txt");
+            f.deleteOnExit();
+            files.add(f);
+        }
+        return files;
+    }
+
+    private static String[] inputArgs(final List<File> files) {
+        final List<String> args = new ArrayList<>();
+        files.forEach(f -> {
+            args.add("--input");
+            args.add(f.getAbsolutePath());
+        });
+        return args.toArray(new String[args.size()]);
+    }
+
+    @Test
+    public void testValidValues() throws IOException {
+        // more files than fit in a single batch
+        final List<File> files = createTempFiles(FileArgumentValidators.BATCH_SIZE * 3 + 1);
+        final ValidatedArguments arguments = new ValidatedArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(arguments);
+        final List<String> args = new ArrayList<>(Arrays.asList(inputArgs(files)));
+        args.addAll(Arrays.asList(
+                "--output", new File(files.get(0).getParentFile(), "validatorTestOutput.txt").getAbsolutePath(),
+                "--even", "2", "--even", "4"));
+        Assert.assertTrue(clp.parseArguments(System.err, args.toArray(new String[args.size()])));
+        Assert.assertEquals(arguments.inputs, files);
+    }
+
+    @Test
+    public void testDefaultValuesAreNotValidated() {
+        // the default reference doesn't exist, but it wasn't specified on the command line
+        Assert.assertTrue(new CommandLineArgumentParser(new ValidatedArguments()).parseArguments(System.err, new String[0]));
+    }
+
+    @Test
+    public void testAllInvalidValuesAreReported() throws IOException {
+        final List<File> files = createTempFiles(FileArgumentValidators.BATCH_SIZE + 2);
+        final File missing1 = new File(files.get(0).getParentFile(), "validatorTestMissing1.txt");
+        final File missing2 = new File(files.get(0).getParentFile(), "validatorTestMissing2.txt");
+        files.add(3, missing1);
+        files.add(missing2);
+
+        final List<String> args = new ArrayList<>(Arrays.asList(inputArgs(files)));
+        args.addAll(Arrays.asList(
+                "--output", "/no/such/directory/output.txt",
+                "--reference", "/no/such/reference",
+                "--even", "1", "--even", "2", "--even", "3"));
+        try {
+            new CommandLineArgumentParser(new ValidatedArguments()).parseArguments(System.err, args.toArray(new String[args.size()]));
+            Assert.fail("Expected invalid arguments to be rejected");
+        } catch (final CommandLineException.BadArgumentValue e) {
+            final String message = e.getMessage();
+            Assert.assertTrue(message.contains("input: " + missing1.getAbsolutePath() + " does not exist"), message);
+            Assert.assertTrue(message.contains("input: " + missing2.getAbsolutePath() + " does not exist"), message);
+            Assert.assertTrue(message.indexOf(missing1.getAbsolutePath()) < message.indexOf(missing2.getAbsolutePath()), message);
+            Assert.assertTrue(message.contains("/no/such/directory/output.txt is in a directory that does not exist"), message);
+            Assert.assertTrue(message.contains("/no/such/reference does not exist"), message);
+            Assert.assertTrue(message.contains("even odd: 1"), message);
+            Assert.assertTrue(message.contains("even odd: 3"), message);
+            Assert.assertFalse(message.contains("even odd: 2"), message);
+        }
+    }
+
+    @Test
+    public void testWritableRejectsDirectory() {
+        final String tmpDir = System.getProperty("java.io.tmpdir");
+        try {
+            new CommandLineArgumentParser(new ValidatedArguments()).parseArguments(System.err, new String[] {"--output", tmpDir});
+            Assert.fail("Expected a directory to be rejected as an output file");
+        } catch (final CommandLineException.BadArgumentValue e) {
+            Assert.assertTrue(e.getMessage().contains("is a directory"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = CommandLineException.CommandLineParserInternalException.class)
+    public void testValidatorWithoutDefaultConstructor() {
+        new CommandLineArgumentParser(new BadValidatorArguments());
+    }
+}
@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -503,6 +504,43 @@ public final class CommandLineArgumentParserTest {
     }
 
 
+    @Test
+    public void testWorkingDirectory() throws Exception {
+        final File workingDirectory = Files.createTempDirectory("clpWorkingDirectory").toFile();
+        workingDirectory.deleteOnExit();
+        final File argumentsFile = new File(workingDirectory, "clp.arguments");
+        argumentsFile.deleteOnExit();
+        try (final PrintWriter writer = new PrintWriter(argumentsFile)) {
+            writer.println("--SHMIGGLE_TYPE shmiggle0");
+        }
+        final File absolutePositional = new File(workingDirectory.getParentFile(), "positional2").getAbsoluteFile();
+        final String[] args = {
+                // the arguments file is found relative to the working directory
+                "--"+SpecialArgumentsCollection.ARGUMENTS_FILE_FULLNAME, argumentsFile.getName(),
+                "--FROBNICATION_FLAVOR", "BAR",
+                "positional1",
+                absolutePositional.getPath(),
+        };
+        final FrobnicateArguments fo = new FrobnicateArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(fo);
+        clp.setWorkingDirectory(workingDirectory);
+        Assert.assertTrue(clp.parseArguments(System.err, args));
+        Assert.assertEquals(fo.positionalArguments,
+                Arrays.asList(new File(workingDirectory, "positional1"), absolutePositional));
+        // values that aren't Files aren't resolved
+        Assert.assertEquals(fo.SHMIGGLE_TYPE, Collections.singletonList("shmiggle0"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRelativeWorkingDirectory() {
+        new CommandLineArgumentParser(new FrobnicateArguments()).setWorkingDirectory(new File("relative"));
+    }
+
+    @Test(expectedExceptions = CommandLineException.CommandLineParserInternalException.class)
+    public void testLegacyParserWorkingDirectory() {
+        new LegacyCommandLineArgumentParser(new Object()).setWorkingDirectory(new File("/"));
+    }
+
     /**
      * In an arguments file, should not be allowed to override an argument set on the command line
      * @throws Exception
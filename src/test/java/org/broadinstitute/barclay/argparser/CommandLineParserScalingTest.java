@@ -0,0 +1,392 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Check that the time taken by the parser grows (roughly) linearly with the size of the schema and command line,
+ * using generated schemas with up to 10,000 arguments and 2,000 plugins, and a list argument with 1,000,000
+ * values. Each operation is timed for a small and a large case, and fails if the time for the large case grows by
+ * more than {@link #MAX_GROWTH_FACTOR} times the growth in size, which is well below the growth of a quadratic
+ * algorithm.
+ *
+ * These tests are slow, and depend on wall clock time, so they're in the {@link #SCALING_TEST_GROUP} group, which
+ * is excluded from the {@code test} task, and are run with {@code gradle scalingTest}.
+ */
+public final class CommandLineParserScalingTest {
+
+    static final String SCALING_TEST_GROUP = "scaling";
+
+    private static final String GENERATED_PACKAGE_NAME = "org.broadinstitute.barclay.argparser.scaling";
+
+    // the large case is this many times the size of the small case
+    private static final int SCALE = 10;
+    private static final double MAX_GROWTH_FACTOR = 4.0;
+    private static final int REPETITIONS = 3;
+    // shorter times for the small case are rounded up to this, so that timer resolution and noise don't dominate
+    private static final long MIN_SMALL_CASE_NANOS = 2_000_000L;
+
+    // generated argument collections, each with this many arguments
+    private static final int ARGUMENTS_PER_COLLECTION = 1000;
+    // generated plugin packages, each with this many plugins
+    private static final int PLUGINS_PER_PACKAGE = 200;
+    private static final int LIST_VALUES = 100_000;
+
+    private File generatedDir;
+    private URLClassLoader generatedClassLoader;
+    private ClassLoader contextClassLoader;
+
+    /**
+     * Base class for the generated plugins.
+     */
+    public static class ScalingPluginBase {
+    }
+
+    /**
+     * Descriptor for the plugins in the first {@code numPackages} generated plugin packages.
+     */
+    public static class ScalingPluginDescriptor extends CommandLinePluginDescriptor<ScalingPluginBase> {
+        static final String PLUGIN_ARGUMENT_NAME = "scalingPlugin";
+
+        @Argument(fullName = PLUGIN_ARGUMENT_NAME, optional = true)
+        public List<String> userPluginNames = new ArrayList<>();
+
+        private final int numPackages;
+        private final Map<String, ScalingPluginBase> plugins = new HashMap<>();
+        private Set<String> userPluginNameSet;
+
+        public ScalingPluginDescriptor(final int numPackages) {
+            this.numPackages = numPackages;
+        }
+
+        @Override
+        public Class<?> getPluginBaseClass() { return ScalingPluginBase.class; }
+
+        @Override
+        public List<String> getPackageNames() {
+            final List<String> packageNames = new ArrayList<>();
+            for (int i = 0; i < numPackages; i++) {
+                packageNames.add(getPluginPackageName(i));
+            }
+            return packageNames;
+        }
+
+        @Override
+        public boolean includePluginClass(final Class<?> pluginClass) {
+            return !pluginClass.equals(ScalingPluginBase.class);
+        }
+
+        @Override
+        public ScalingPluginBase createInstanceForPlugin(final Class<?> pluginClass)
+                throws IllegalAccessException, InstantiationException {
+            final ScalingPluginBase plugin = (ScalingPluginBase) pluginClass.newInstance();
+            plugins.put(pluginClass.getSimpleName(), plugin);
+            return plugin;
+        }
+
+        @Override
+        public boolean isDependentArgumentAllowed(final Class<?> predecessorClass) {
+            if (userPluginNameSet == null) {
+                userPluginNameSet = new HashSet<>(userPluginNames);
+            }
+            return userPluginNameSet.contains(predecessorClass.getSimpleName());
+        }
+
+        @Override
+        public void validateAndResolvePlugins() {}
+
+        @Override
+        public List<ScalingPluginBase> getDefaultInstances() { return new ArrayList<>(); }
+
+        @Override
+        public List<ScalingPluginBase> getResolvedInstances() {
+            final List<ScalingPluginBase> resolved = new ArrayList<>(userPluginNames.size());
+            userPluginNames.forEach(name -> resolved.add(plugins.get(name)));
+            return resolved;
+        }
+
+        @Override
+        public Set<String> getAllowedValuesForDescriptorHelp(final String longArgName) {
+            return longArgName.equals(PLUGIN_ARGUMENT_NAME) ? plugins.keySet() : null;
+        }
+
+        @Override
+        public Class<?> getClassForPluginHelp(final String pluginName) {
+            return plugins.containsKey(pluginName) ? plugins.get(pluginName).getClass() : null;
+        }
+    }
+
+    @CommandLineProgramProperties(
+            summary = "Plugin scaling test",
+            oneLineSummary = "Plugin scaling test",
+            programGroup = TestProgramGroup.class)
+    public static class PluginArguments {
+        @Argument(optional = true)
+        public String input;
+    }
+
+    @CommandLineProgramProperties(
+            summary = "List scaling test",
+            oneLineSummary = "List scaling test",
+            programGroup = TestProgramGroup.class)
+    public static class ListArguments {
+        @Argument(fullName = "value", optional = true)
+        public List<String> values = new ArrayList<>();
+    }
+
+    private static String getPluginPackageName(final int packageIndex) {
+        return GENERATED_PACKAGE_NAME + ".plugins" + packageIndex;
+    }
+
+    private static String getArgumentName(final int collectionIndex, final int argumentIndex) {
+        return "c" + collectionIndex + "a" + argumentIndex;
+    }
+
+    private static String getArgumentsClassName(final int numCollections) {
+        return GENERATED_PACKAGE_NAME + ".ScalingArguments" + numCollections;
+    }
+
+    /**
+     * Generate and compile the schemas: argument containers with 1 and {@link #SCALE} argument collections, where
+     * each odd argument is mutually exclusive with the preceding argument, and {@link #SCALE} packages of plugins,
+     * each plugin with its own argument.
+     */
+    @BeforeClass(groups = SCALING_TEST_GROUP)
+    public void generateSchemas() throws IOException {
+        generatedDir = Files.createTempDirectory("parserScaling").toFile();
+        final File sourceDir = new File(generatedDir, "src");
+        final File classesDir = new File(generatedDir, "classes");
+        final List<File> sourceFiles = new ArrayList<>();
+
+        for (int c = 0; c < SCALE; c++) {
+            final StringBuilder source = new StringBuilder()
+                    .append("public class ScalingCollection").append(c).append(" {\n");
+            for (int a = 0; a < ARGUMENTS_PER_COLLECTION; a++) {
+                source.append("    @Argument(optional = true");
+                if (a % 2 == 1) {
+                    source.append(", mutex = \"").append(getArgumentName(c, a - 1)).append("\"");
+                }
+                source.append(") public String ").append(getArgumentName(c, a)).append(";\n");
+            }
+            sourceFiles.add(writeSource(sourceDir, GENERATED_PACKAGE_NAME, "ScalingCollection" + c, source.append("}\n")));
+        }
+        for (final int numCollections : Arrays.asList(1, SCALE)) {
+            final StringBuilder source = new StringBuilder()
+                    .append("@CommandLineProgramProperties(summary = \"Scaling test\", oneLineSummary = \"Scaling test\",\n")
+                    .append("        programGroup = TestProgramGroup.class)\n")
+                    .append("public class ScalingArguments").append(numCollections).append(" {\n");
+            for (int c = 0; c < numCollections; c++) {
+                source.append("    @ArgumentCollection public ScalingCollection").append(c)
+                        .append(" c").append(c).append(" = new ScalingCollection").append(c).append("();\n");
+            }
+            sourceFiles.add(writeSource(sourceDir, GENERATED_PACKAGE_NAME, "ScalingArguments" + numCollections, source.append("}\n")));
+        }
+        for (int p = 0; p < SCALE; p++) {
+            for (int i = 0; i < PLUGINS_PER_PACKAGE; i++) {
+                final String className = "ScalingPlugin" + p + "_" + i;
+                final StringBuilder source = new StringBuilder()
+                        .append("public class ").append(className).append(" extends CommandLineParserScalingTest.ScalingPluginBase {\n")
+                        .append("    @Argument(fullName = \"").append(className).append("Argument\", optional = true)\n")
+                        .append("    public int pluginArgument;\n")
+                        .append("}\n");
+                sourceFiles.add(writeSource(sourceDir, getPluginPackageName(p), className, source));
+            }
+        }
+        compile(sourceFiles, classesDir);
+
+        generatedClassLoader = new URLClassLoader(new URL[] { classesDir.toURI().toURL() }, getClass().getClassLoader());
+        // plugin discovery uses the context class loader
+        contextClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(generatedClassLoader);
+    }
+
+    @AfterClass(groups = SCALING_TEST_GROUP, alwaysRun = true)
+    public void deleteSchemas() throws IOException {
+        if (generatedClassLoader != null) {
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            generatedClassLoader.close();
+        }
+        if (generatedDir != null) {
+            Files.walk(generatedDir.toPath())
+                    .sorted(Comparator.reverseOrder())
+                    .map(java.nio.file.Path::toFile)
+                    .forEach(File::delete);
+        }
+    }
+
+    private static File writeSource(final File sourceDir, final String packageName, final String className,
+            final CharSequence classSource) throws IOException {
+        final File packageDir = new File(sourceDir, packageName.replace('.', File.separatorChar));
+        Files.createDirectories(packageDir.toPath());
+        final File sourceFile = new File(packageDir, className + ".java");
+        final String source = "package " + packageName + ";\n\n" +
+                "import org.broadinstitute.barclay.argparser.*;\n\n" +
+                classSource;
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return sourceFile;
+    }
+
+    private static void compile(final List<File> sourceFiles, final File classesDir) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertNotNull(compiler, "No system Java compiler is available");
+        Files.createDirectories(classesDir.toPath());
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (final StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            final List<String> options = Arrays.asList(
+                    "-proc:none",
+                    "-d", classesDir.getAbsolutePath(),
+                    "-cp", System.getProperty("java.class.path"));
+            final boolean succeeded = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+            Assert.assertTrue(succeeded, diagnostics.getDiagnostics().toString());
+        }
+    }
+
+    private Object newArguments(final int numCollections) {
+        try {
+            return Class.forName(getArgumentsClassName(numCollections), true, generatedClassLoader).newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // set every even argument, so that no mutually exclusive arguments are both set
+    private static String[] getArgumentsCommandLine(final int numCollections) {
+        final List<String> commandLine = new ArrayList<>();
+        for (int c = 0; c < numCollections; c++) {
+            for (int a = 0; a < ARGUMENTS_PER_COLLECTION; a += 2) {
+                commandLine.add("--" + getArgumentName(c, a));
+                commandLine.add("value");
+            }
+        }
+        return commandLine.toArray(new String[commandLine.size()]);
+    }
+
+    // use every plugin, and set its argument
+    private static String[] getPluginsCommandLine(final int numPackages) {
+        final List<String> commandLine = new ArrayList<>();
+        for (int p = 0; p < numPackages; p++) {
+            for (int i = 0; i < PLUGINS_PER_PACKAGE; i++) {
+                final String pluginName = "ScalingPlugin" + p + "_" + i;
+                commandLine.addAll(Arrays.asList("--" + ScalingPluginDescriptor.PLUGIN_ARGUMENT_NAME, pluginName));
+                commandLine.addAll(Arrays.asList("--" + pluginName + "Argument", String.valueOf(i)));
+            }
+        }
+        return commandLine.toArray(new String[commandLine.size()]);
+    }
+
+    private static String[] getListCommandLine(final int numValues) {
+        final String[] commandLine = new String[2 * numValues];
+        for (int i = 0; i < numValues; i++) {
+            commandLine[2 * i] = "--value";
+            commandLine[2 * i + 1] = "v" + i;
+        }
+        return commandLine;
+    }
+
+    private static CommandLineArgumentParser newPluginParser(final int numPackages) {
+        return new CommandLineArgumentParser(
+                new PluginArguments(),
+                Collections.singletonList(new ScalingPluginDescriptor(numPackages)),
+                Collections.emptySet());
+    }
+
+    private static CommandLineArgumentParser parse(final CommandLineArgumentParser parser, final String[] commandLine) {
+        Assert.assertTrue(parser.parseArguments(new PrintStream(new ByteArrayOutputStream()), commandLine));
+        return parser;
+    }
+
+    /**
+     * Time an operation for the small and large case, and check that its growth is within the bound.
+     *
+     * @param operationName name of the operation
+     * @param setup creates the input for the operation, for the small (1) or large ({@link #SCALE}) case; not timed
+     * @param operation the timed operation
+     */
+    private static <T> void assertLinearGrowth(
+            final String operationName,
+            final Function<Integer, T> setup,
+            final Function<T, ?> operation) {
+        // warm up, so that the small case isn't slowed down by class loading and compilation
+        operation.apply(setup.apply(1));
+        final long smallNanos = Math.max(bestTime(() -> setup.apply(1), operation), MIN_SMALL_CASE_NANOS);
+        final long largeNanos = bestTime(() -> setup.apply(SCALE), operation);
+        final double growth = (double) largeNanos / smallNanos;
+        Assert.assertTrue(growth <= SCALE * MAX_GROWTH_FACTOR, String.format(
+                "%s took %.1f times as long for %d times the size (%d ms vs %d ms)",
+                operationName, growth, SCALE, largeNanos / 1_000_000, smallNanos / 1_000_000));
+    }
+
+    private static <T> long bestTime(final Supplier<T> setup, final Function<T, ?> operation) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            final T input = setup.get();
+            final long start = System.nanoTime();
+            operation.apply(input);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    @Test(groups = SCALING_TEST_GROUP)
+    public void testArgumentScaling() {
+        assertLinearGrowth("Construction with many arguments",
+                this::newArguments,
+                CommandLineArgumentParser::new);
+        assertLinearGrowth("Parsing many arguments",
+                n -> new AbstractMap.SimpleImmutableEntry<>(new CommandLineArgumentParser(newArguments(n)), getArgumentsCommandLine(n)),
+                input -> parse(input.getKey(), input.getValue()));
+        // with an empty command line, parsing is just validating every argument definition
+        assertLinearGrowth("Validating many arguments",
+                n -> new CommandLineArgumentParser(newArguments(n)),
+                parser -> parse(parser, new String[0]));
+        assertLinearGrowth("Usage for many arguments",
+                n -> new CommandLineArgumentParser(newArguments(n)),
+                parser -> parser.usage(true, true));
+        assertLinearGrowth("Command line for many arguments",
+                n -> parse(new CommandLineArgumentParser(newArguments(n)), getArgumentsCommandLine(n)),
+                CommandLineArgumentParser::getCommandLine);
+    }
+
+    @Test(groups = SCALING_TEST_GROUP)
+    public void testPluginScaling() {
+        assertLinearGrowth("Construction with many plugins",
+                n -> n,
+                CommandLineParserScalingTest::newPluginParser);
+        assertLinearGrowth("Parsing and validating many plugins",
+                n -> new AbstractMap.SimpleImmutableEntry<>(newPluginParser(n), getPluginsCommandLine(n)),
+                input -> parse(input.getKey(), input.getValue()));
+        assertLinearGrowth("Usage for many plugins",
+                CommandLineParserScalingTest::newPluginParser,
+                parser -> parser.usage(true, true));
+        assertLinearGrowth("Command line for many plugins",
+                n -> parse(newPluginParser(n), getPluginsCommandLine(n)),
+                CommandLineArgumentParser::getCommandLine);
+    }
+
+    @Test(groups = SCALING_TEST_GROUP)
+    public void testListScaling() {
+        assertLinearGrowth("Parsing a long list",
+                n -> new AbstractMap.SimpleImmutableEntry<>(new CommandLineArgumentParser(new ListArguments()), getListCommandLine(n * LIST_VALUES)),
+                input -> parse(input.getKey(), input.getValue()));
+        assertLinearGrowth("Command line for a long list",
+                n -> parse(new CommandLineArgumentParser(new ListArguments()), getListCommandLine(n * LIST_VALUES)),
+                CommandLineArgumentParser::getCommandLine);
+    }
+}
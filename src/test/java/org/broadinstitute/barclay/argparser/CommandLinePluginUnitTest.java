@@ -227,6 +227,23 @@ public class CommandLinePluginUnitTest {
         Assert.assertEquals(pluginBases.size(), expectedInstanceCount);
     }
 
+    @Test(dataProvider = "pluginTests")
+    public void testBasicPluginWithCachedDiscovery(final String[] args, final int expectedInstanceCount){
+        // run twice so the second parser uses the cached plugin classes
+        final PluginDiscoveryCache pluginDiscoveryCache = new PluginDiscoveryCache();
+        for (int i = 0; i < 2; i++) {
+            PlugInTestObject plugInTest = new PlugInTestObject();
+            final CommandLineArgumentParser clp = new CommandLineArgumentParser(
+                    plugInTest,
+                    Collections.singletonList(new TestPluginDescriptor(Collections.singletonList(new TestDefaultPlugin()))),
+                    Collections.emptySet(),
+                    pluginDiscoveryCache);
+
+            Assert.assertTrue(clp.parseArguments(System.err, args));
+            Assert.assertEquals(clp.getPluginDescriptor(TestPluginDescriptor.class).getResolvedInstances().size(), expectedInstanceCount);
+        }
+    }
+
     @Test
     public void testPluginUsage() {
         PlugInTestObject plugInTest = new PlugInTestObject();
@@ -146,6 +146,28 @@ public class LegacyCommandLineArgumentParserTest {
         clp.usage(true, true);
     }
 
+    @Test
+    public void testRepeatedUsageIsIdentical() {
+        final LegacyCommandLineArgumentParser clp = new LegacyCommandLineArgumentParser(new FrobnicateOptions());
+        final String usage = clp.usage(true, true);
+        Assert.assertEquals(clp.usage(true, true), usage);
+        Assert.assertEquals(new LegacyCommandLineArgumentParser(new FrobnicateOptions()).usage(true, true), usage);
+        Assert.assertTrue(usage.contains("OPTIONS_FILE=File"));
+        Assert.assertFalse(clp.usage(false, true).contains("OPTIONS_FILE=File"));
+    }
+
+    @Test
+    public void testUsageReflectsInstanceDefaults() {
+        // usage is cached per options class, but defaults come from each instance
+        final FrobnicateOptions options = new FrobnicateOptions();
+        final String usage = new LegacyCommandLineArgumentParser(options).usage(true, true);
+        options.FROBNICATION_THRESHOLD = 35;
+        final String otherUsage = new LegacyCommandLineArgumentParser(options).usage(true, true);
+        Assert.assertTrue(usage.contains("Default value: 20."));
+        Assert.assertTrue(otherUsage.contains("Default value: 35."));
+        Assert.assertEquals(otherUsage, usage.replace("Default value: 20.", "Default value: 35."));
+    }
+
     @Test
     public void testUsageWithoutPositional() {
         final OptionsWithoutPositional fo = new OptionsWithoutPositional();
@@ -553,6 +575,22 @@ public class LegacyCommandLineArgumentParserTest {
     }
 
 
+    @Test
+    public void testOptionsFileValueContainingSeparator() throws Exception {
+        final File optionsFile = File.createTempFile("clp.", ".options");
+        optionsFile.deleteOnExit();
+        final PrintWriter writer = new PrintWriter(optionsFile);
+        writer.println("# comment=ignored");
+        writer.println("SHMIGGLE_TYPE=a=b");
+        writer.println("SHMIGGLE_TYPE=");
+        writer.close();
+        final FrobnicateOptions fo = new FrobnicateOptions();
+        final LegacyCommandLineArgumentParser clp = new LegacyCommandLineArgumentParser(fo);
+        Assert.assertTrue(clp.parseArguments(System.err, new String[] {
+                "OPTIONS_FILE=" + optionsFile.getPath(), "FROBNICATION_FLAVOR=BAR", "TRUTHINESS=true", "positional1", "positional2"}));
+        Assert.assertEquals(fo.SHMIGGLE_TYPE, Arrays.asList("a=b", ""));
+    }
+
     /**
      * In an options file, should not be allowed to override an option set on the command line
      *
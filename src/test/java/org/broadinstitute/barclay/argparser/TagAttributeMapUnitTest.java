@@ -0,0 +1,87 @@
+package org.broadinstitute.barclay.argparser;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class TagAttributeMapUnitTest {
+
+    @DataProvider(name="attributeLists")
+    public Object[][] getAttributeLists() {
+        return new Object[][] {
+                { Collections.emptyList(), Collections.emptyList() },
+                { Arrays.asList("truth"), Arrays.asList("true") },
+                { Arrays.asList("truth", "training", "prior"), Arrays.asList("true", "false", "10") },
+                { Arrays.asList("b", "a"), Arrays.asList("1", "1") },
+        };
+    }
+
+    @Test(dataProvider = "attributeLists")
+    public void testMapContract(final List<String> keys, final List<String> values) {
+        final Map<String, String> expected = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            expected.put(keys.get(i), values.get(i));
+        }
+
+        final TagAttributeMap attributes = TagAttributeMap.of(keys, values);
+        Assert.assertEquals(attributes, expected);
+        Assert.assertEquals(expected, attributes);
+        Assert.assertEquals(attributes.hashCode(), expected.hashCode());
+        Assert.assertEquals(attributes.size(), expected.size());
+        Assert.assertEquals(attributes.isEmpty(), expected.isEmpty());
+        Assert.assertEquals(new ArrayList<>(attributes.keySet()), keys);
+        Assert.assertEquals(new ArrayList<>(attributes.values()), values);
+        for (int i = 0; i < keys.size(); i++) {
+            Assert.assertTrue(attributes.containsKey(keys.get(i)));
+            Assert.assertTrue(attributes.containsValue(values.get(i)));
+            Assert.assertEquals(attributes.get(keys.get(i)), values.get(i));
+        }
+        Assert.assertNull(attributes.get("missing"));
+        Assert.assertFalse(attributes.containsKey(null));
+        Assert.assertEquals(TagAttributeMap.copyOf(expected), attributes);
+    }
+
+    @Test
+    public void testSharedStorage() {
+        final TagAttributeMap first = TagAttributeMap.of(Arrays.asList("truth", "prior"), Arrays.asList("true", "10"));
+        final TagAttributeMap second = TagAttributeMap.of(
+                Arrays.asList(new String("truth"), new String("prior")),
+                Arrays.asList(new String("true"), new String("10")));
+        Assert.assertTrue(first.sharesKeyTableWith(second));
+        Assert.assertSame(first.get("prior"), second.get("prior"));
+
+        // same keys in a different order have a different key table, since order is preserved for display
+        final TagAttributeMap reordered = TagAttributeMap.of(Arrays.asList("prior", "truth"), Arrays.asList("10", "true"));
+        Assert.assertFalse(first.sharesKeyTableWith(reordered));
+        Assert.assertEquals(first, reordered);
+    }
+
+    @DataProvider(name="mutators")
+    public Object[][] getMutators() {
+        return new Object[][] {
+                { (java.util.function.Consumer<Map<String, String>>) m -> m.put("a", "b") },
+                { (java.util.function.Consumer<Map<String, String>>) m -> m.remove("truth") },
+                { (java.util.function.Consumer<Map<String, String>>) m -> m.clear() },
+                { (java.util.function.Consumer<Map<String, String>>) m -> m.entrySet().iterator().next().setValue("x") },
+                { (java.util.function.Consumer<Map<String, String>>) m -> m.keySet().remove("truth") },
+        };
+    }
+
+    @Test(dataProvider = "mutators", expectedExceptions = UnsupportedOperationException.class)
+    public void testImmutable(final java.util.function.Consumer<Map<String, String>> mutator) {
+        mutator.accept(TagAttributeMap.of(Collections.singletonList("truth"), Collections.singletonList("true")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateKeysRejected() {
+        TagAttributeMap.of(Arrays.asList("truth", "truth"), Arrays.asList("true", "false"));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMismatchedKeysAndValues() {
+        TagAttributeMap.of(Arrays.asList("truth", "prior"), Collections.singletonList("true"));
+    }
+
+}
@@ -4,6 +4,7 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.*;
 import java.util.*;
 
 /**
@@ -438,4 +439,124 @@ public class TaggedArgumentTest {
         final String commandLine = clp.getCommandLine();
         Assert.assertEquals(commandLine, expectedCommandLine);
     }
+
+    @Test
+    public void testTaggedListFile() throws IOException {
+        final File listFile = createListFile(
+                "# tagged inputs",
+                "tumor,truth=true,training=false\ttumor.bam",
+                "",
+                "normal\tgcs://my/normal.bam",
+                "untagged.bam",
+                "  tumor2,truth=true,training=false \t tumor2.bam  ");
+
+        final TaggableArguments taggable = new TaggableArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(taggable);
+        clp.parseArguments(System.err, new String[] {"--t:first", "first.bam", "--t", listFile.getAbsolutePath()});
+
+        Assert.assertEquals(taggable.taggableArgList.size(), 5);
+        final String[][] expectedTagsAndValues = {
+                {"first", "first.bam"},
+                {"tumor", "tumor.bam"},
+                {"normal", "gcs://my/normal.bam"},
+                {null, "untagged.bam"},
+                {"tumor2", "tumor2.bam"}
+        };
+        for (int i = 0; i < expectedTagsAndValues.length; i++) {
+            Assert.assertEquals(taggable.taggableArgList.get(i).getTag(), expectedTagsAndValues[i][0]);
+            Assert.assertEquals(taggable.taggableArgList.get(i).argValue, expectedTagsAndValues[i][1]);
+        }
+        Assert.assertEquals(taggable.taggableArgList.get(1).getTagAttributes().get("truth"), "true");
+        Assert.assertEquals(taggable.taggableArgList.get(1).getTagAttributes().get("training"), "false");
+        Assert.assertTrue(taggable.taggableArgList.get(2).getTagAttributes().isEmpty());
+        Assert.assertTrue(taggable.taggableArgList.get(3).getTagAttributes().isEmpty());
+        Assert.assertEquals(taggable.taggableArgList.get(4).getTagAttributes(),
+                taggable.taggableArgList.get(1).getTagAttributes());
+    }
+
+    @Test
+    public void testTagAttributesSerialization() throws IOException, ClassNotFoundException {
+        final TaggableArguments taggable = new TaggableArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(taggable);
+        clp.parseArguments(System.err, new String[] {
+                "--t:tumor,truth=false,training=true", "tumor.bam",
+                "--t:normal,truth=true,training=false", "normal.bam"});
+
+        final List<TagAttributeMap> attributes = new ArrayList<>();
+        taggable.taggableArgList.forEach(arg -> attributes.add(TagAttributeMap.copyOf(arg.getTagAttributes())));
+        attributes.add(TagAttributeMap.empty());
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (final TagAttributeMap tagAttributes : attributes) {
+                out.writeObject(tagAttributes);
+            }
+        }
+
+        final List<TagAttributeMap> roundTripped = new ArrayList<>();
+        try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (int i = 0; i < attributes.size(); i++) {
+                roundTripped.add((TagAttributeMap) in.readObject());
+            }
+        }
+
+        Assert.assertEquals(roundTripped, attributes);
+        Assert.assertEquals(new ArrayList<>(roundTripped.get(0).keySet()), new ArrayList<>(attributes.get(0).keySet()));
+        // deserialized maps share the interned key table with each other and with the originals
+        Assert.assertTrue(roundTripped.get(0).sharesKeyTableWith(roundTripped.get(1)));
+        Assert.assertTrue(roundTripped.get(0).sharesKeyTableWith(attributes.get(0)));
+        Assert.assertSame(roundTripped.get(2), TagAttributeMap.empty());
+    }
+
+    @DataProvider(name = "BadTaggedListFileLines")
+    public Object[][] badTaggedListFileLines() {
+        return new Object[][]{
+                {"tumor,truth\ttumor.bam"},                // attribute name with missing value
+                {"tumor,truth=true,truth=false\ttumor.bam"},// duplicate attribute
+                {"tumor,\ttumor.bam"},                     // dangling comma
+        };
+    }
+
+    @Test(dataProvider="BadTaggedListFileLines", expectedExceptions = CommandLineException.class)
+    public void testBadTaggedListFile(final String line) throws IOException {
+        final File listFile = createListFile("good\tgood.bam", line);
+        final TaggableArguments taggable = new TaggableArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(taggable);
+        clp.parseArguments(System.err, new String[] {"--t", listFile.getAbsolutePath()});
+    }
+
+    @Test
+    public void testListFileValuesContainingTabs() throws IOException {
+        final File listFile = createListFile(
+                "my sample\tsample.bam",     // whitespace in the prefix, so not a tag
+                ",truth=true\ttumor.bam",    // no logical name, so not a tag
+                "key=value\tother.bam",      // no logical name, so not a tag
+                "\tnormal\tnormal.bam",      // leading tab, so never tagged
+                "tumor\tfirst\tsecond");     // only the first tab separates the tag
+
+        final TaggableArguments taggable = new TaggableArguments();
+        final CommandLineArgumentParser clp = new CommandLineArgumentParser(taggable);
+        clp.parseArguments(System.err, new String[] {"--t", listFile.getAbsolutePath()});
+
+        Assert.assertEquals(taggable.taggableArgList.size(), 5);
+        final String[][] expectedTagsAndValues = {
+                {null, "my sample\tsample.bam"},
+                {null, ",truth=true\ttumor.bam"},
+                {null, "key=value\tother.bam"},
+                {null, "normal\tnormal.bam"},
+                {"tumor", "first\tsecond"}
+        };
+        for (int i = 0; i < expectedTagsAndValues.length; i++) {
+            Assert.assertEquals(taggable.taggableArgList.get(i).getTag(), expectedTagsAndValues[i][0]);
+            Assert.assertEquals(taggable.taggableArgList.get(i).argValue, expectedTagsAndValues[i][1]);
+        }
+    }
+
+    private static File createListFile(final String... lines) throws IOException {
+        final File listFile = File.createTempFile("taggedListFile", CommandLineArgumentParser.COLLECTION_LIST_FILE_EXTENSION);
+        listFile.deleteOnExit();
+        try (final PrintWriter writer = new PrintWriter(listFile)) {
+            Arrays.stream(lines).forEach(writer::println);
+        }
+        return listFile;
+    }
 }
@@ -0,0 +1,189 @@
+package org.broadinstitute.barclay.help;
+
+import com.google.gson.Gson;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.*;
+
+/**
+ * Test the typed argument documentation model, and its Map view.
+ */
+public class ArgumentDocUnitTest {
+
+    private static ArgumentDoc createArgumentDoc() {
+        final ArgumentDoc argumentDoc = new ArgumentDoc();
+        argumentDoc.setName("--input");
+        argumentDoc.setSynonyms("-I");
+        argumentDoc.setRequired("yes");
+        argumentDoc.setType("List[File]");
+        argumentDoc.setSummary("Input files");
+        argumentDoc.setFulltext("The input files.");
+        argumentDoc.setOtherArgumentRequired("NA");
+        argumentDoc.setExclusiveOf("NA");
+        argumentDoc.setOptions(Collections.emptyList());
+        argumentDoc.setAttributes("required");
+        argumentDoc.setKind("required");
+        argumentDoc.setDefaultValue("[]");
+        argumentDoc.setMinValue(1.0);
+        argumentDoc.setMaxValue(10.0);
+        argumentDoc.setMinRecValue("NA");
+        argumentDoc.setMaxRecValue("NA");
+        argumentDoc.setMinElements(1);
+        argumentDoc.setMaxElements(Integer.MAX_VALUE);
+        return argumentDoc;
+    }
+
+    private static Map<String, Object> asHashMap(final ArgumentDoc argumentDoc) {
+        final Map<String, Object> map = new HashMap<>();
+        map.put("name", argumentDoc.getName());
+        map.put("synonyms", argumentDoc.getSynonyms());
+        map.put("required", argumentDoc.getRequired());
+        map.put("type", argumentDoc.getType());
+        map.put("summary", argumentDoc.getSummary());
+        map.put("fulltext", argumentDoc.getFulltext());
+        map.put("otherArgumentRequired", argumentDoc.getOtherArgumentRequired());
+        map.put("exclusiveOf", argumentDoc.getExclusiveOf());
+        map.put("options", argumentDoc.getOptions());
+        map.put("attributes", argumentDoc.getAttributes());
+        map.put("kind", argumentDoc.getKind());
+        map.put("defaultValue", argumentDoc.getDefaultValue());
+        map.put("minValue", argumentDoc.getMinValue());
+        map.put("maxValue", argumentDoc.getMaxValue());
+        map.put("minRecValue", argumentDoc.getMinRecValue());
+        map.put("maxRecValue", argumentDoc.getMaxRecValue());
+        map.put("minElements", argumentDoc.getMinElements());
+        map.put("maxElements", argumentDoc.getMaxElements());
+        return map;
+    }
+
+    @Test
+    public void testMapView() {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+        Assert.assertEquals(argumentDoc.size(), 18);
+        Assert.assertEquals(argumentDoc, asHashMap(argumentDoc));
+        Assert.assertEquals(asHashMap(argumentDoc), argumentDoc);
+        Assert.assertEquals(argumentDoc.get("name"), "--input");
+        Assert.assertEquals(argumentDoc.get("minValue"), 1.0);
+        Assert.assertEquals(argumentDoc.get("maxElements"), Integer.MAX_VALUE);
+        Assert.assertNull(argumentDoc.get("noSuchProperty"));
+        Assert.assertNull(argumentDoc.get(1));
+    }
+
+    @Test
+    public void testPutAndRemove() {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+
+        // standard properties update the typed fields
+        Assert.assertEquals(argumentDoc.put("summary", "New summary"), "Input files");
+        Assert.assertEquals(argumentDoc.getSummary(), "New summary");
+        argumentDoc.put("minElements", 2L);
+        Assert.assertEquals(argumentDoc.getMinElements(), Integer.valueOf(2));
+
+        // other properties are kept separately
+        Assert.assertNull(argumentDoc.put("custom", Arrays.asList("a", "b")));
+        Assert.assertEquals(argumentDoc.get("custom"), Arrays.asList("a", "b"));
+        Assert.assertTrue(argumentDoc.containsKey("custom"));
+        Assert.assertEquals(argumentDoc.size(), 19);
+
+        Assert.assertEquals(argumentDoc.remove("synonyms"), "-I");
+        Assert.assertNull(argumentDoc.getSynonyms());
+        Assert.assertFalse(argumentDoc.containsKey("synonyms"));
+        Assert.assertEquals(argumentDoc.remove("custom"), Arrays.asList("a", "b"));
+        Assert.assertEquals(argumentDoc.size(), 17);
+
+        argumentDoc.keySet().removeIf(key -> key.startsWith("min") || key.startsWith("max"));
+        Assert.assertEquals(argumentDoc.size(), 11);
+        Assert.assertNull(argumentDoc.getMaxRecValue());
+
+        argumentDoc.clear();
+        Assert.assertTrue(argumentDoc.isEmpty());
+    }
+
+    @Test
+    public void testPutWithNonStandardType() {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+
+        // values that don't have the standard property's type are kept as-is, and clear the typed property
+        final Map<String, Object> option = Collections.singletonMap("name", "FOO");
+        Assert.assertEquals(argumentDoc.put("options", option), Collections.emptyList());
+        Assert.assertSame(argumentDoc.get("options"), option);
+        Assert.assertNull(argumentDoc.getOptions());
+        Assert.assertEquals(argumentDoc.put("maxElements", "unbounded"), Integer.MAX_VALUE);
+        Assert.assertEquals(argumentDoc.get("maxElements"), "unbounded");
+        Assert.assertNull(argumentDoc.getMaxElements());
+        final StringBuilder summary = new StringBuilder("Input files");
+        argumentDoc.put("summary", summary);
+        Assert.assertSame(argumentDoc.get("summary"), summary);
+        Assert.assertEquals(argumentDoc.size(), 18);
+        Assert.assertTrue(argumentDoc.containsKey("maxElements"));
+
+        // a value with the standard type replaces it again
+        Assert.assertEquals(argumentDoc.put("maxElements", 3), "unbounded");
+        Assert.assertEquals(argumentDoc.getMaxElements(), Integer.valueOf(3));
+        Assert.assertEquals(argumentDoc.size(), 18);
+        Assert.assertEquals(argumentDoc.remove("options"), option);
+        Assert.assertFalse(argumentDoc.containsKey("options"));
+        Assert.assertEquals(argumentDoc.size(), 17);
+    }
+
+    @Test
+    public void testStandardPropertySetToNull() {
+        final ArgumentDoc argumentDoc = new ArgumentDoc();
+        Assert.assertFalse(argumentDoc.containsKey("defaultValue"));
+        argumentDoc.setDefaultValue(null);
+        Assert.assertTrue(argumentDoc.containsKey("defaultValue"));
+        argumentDoc.put("summary", null);
+        Assert.assertTrue(argumentDoc.containsKey("summary"));
+        Assert.assertEquals(argumentDoc.size(), 2);
+        final Map<String, Object> expected = new HashMap<>();
+        expected.put("summary", null);
+        expected.put("defaultValue", null);
+        Assert.assertEquals(argumentDoc, expected);
+
+        argumentDoc.remove("summary");
+        Assert.assertFalse(argumentDoc.containsKey("summary"));
+        Assert.assertEquals(argumentDoc.size(), 1);
+    }
+
+    @Test
+    public void testGSONArgument() {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+        final GSONArgument expected = new GSONArgument();
+        expected.populate("Input files", "--input", "-I", "List[File]", "yes", "The input files.", "[]",
+                "1.0", "10.0", "NA", "NA", "required", Collections.emptyList());
+        final Gson gson = new Gson();
+        Assert.assertEquals(gson.toJson(argumentDoc.toGSONArgument()), gson.toJson(expected));
+    }
+
+    @Test
+    public void testGSONArgumentWithNonStandardTypes() {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+        argumentDoc.put("summary", new StringBuilder("Built summary"));
+        argumentDoc.put("kind", 42);
+        final GSONArgument expected = new GSONArgument();
+        expected.populate("Built summary", "--input", "-I", "List[File]", "yes", "The input files.", "[]",
+                "1.0", "10.0", "NA", "NA", "42", Collections.emptyList());
+        final Gson gson = new Gson();
+        Assert.assertEquals(gson.toJson(argumentDoc.toGSONArgument()), gson.toJson(expected));
+    }
+
+    @Test
+    public void testTemplateBinding() throws Exception {
+        final ArgumentDoc argumentDoc = createArgumentDoc();
+        final String source = "${arg.name} ${arg.synonyms} <#if arg.minValue?is_number>[${arg.minValue}</#if>" +
+                "<#if arg.maxRecValue?is_number>${arg.maxRecValue}</#if> ${arg.options?size}";
+        final Configuration cfg = DocTemplateEngine.forClasspath(
+                getClass(), "/org/broadinstitute/barclay/helpTemplates").getConfiguration();
+        final StringWriter typed = new StringWriter();
+        new Template("test", new StringReader(source), cfg).process(Collections.singletonMap("arg", argumentDoc), typed);
+        final StringWriter untyped = new StringWriter();
+        new Template("test", new StringReader(source), cfg).process(Collections.singletonMap("arg", asHashMap(argumentDoc)), untyped);
+        Assert.assertEquals(typed.toString(), "--input -I [1 0");
+        Assert.assertEquals(typed.toString(), untyped.toString());
+    }
+}
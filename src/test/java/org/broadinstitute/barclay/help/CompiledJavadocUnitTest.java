@@ -0,0 +1,110 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Tag;
+import org.broadinstitute.barclay.help.testinputs.TestArgumentContainer;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test the javadoc model built from compiled classes. The model for classes with recorded comments is tested by
+ * comparing the generated documentation with the javadoc output in DocumentationGenerationIntegrationTest.
+ */
+public class CompiledJavadocUnitTest {
+
+    private static List<String> describeTags(final Tag[] tags) {
+        return Arrays.stream(tags).map(t -> t.name() + ":" + t.text()).collect(Collectors.toList());
+    }
+
+    @DataProvider
+    public Object[][] getCommentTestData() {
+        return new Object[][] {
+                { "", "", Collections.emptyList() },
+                { " Text only.\n", "Text only.", Collections.emptyList() },
+                { " Text\n with a tag.\n @param x the x\n @return\n", "Text\n with a tag.", Arrays.asList("@param:x the x", "@return:") },
+                { " Text with an @ in it\n@deprecated", "Text with an @ in it", Collections.singletonList("@deprecated:") },
+                { "@see Other", "", Collections.singletonList("@see:Other") },
+        };
+    }
+
+    @Test(dataProvider = "getCommentTestData")
+    public void testComment(final String rawComment, final String expectedText, final List<String> expectedTags) {
+        final CompiledJavadoc.Comment comment = new CompiledJavadoc.Comment(rawComment);
+        Assert.assertEquals(comment.text, expectedText);
+        Assert.assertEquals(describeTags(comment.getTags(null, null)), expectedTags);
+    }
+
+    @DataProvider
+    public Object[][] getInlineTagTestData() {
+        return new Object[][] {
+                { "", Collections.emptyList() },
+                { "plain", Collections.singletonList("Text:plain") },
+                { "see {@link Foo#bar() bar} here", Arrays.asList("Text:see ", "@link:Foo#bar() bar", "Text: here") },
+                { "{@MyTag.Type  testType}", Arrays.asList("Text:", "@MyTag.Type:testType") },
+                { "nested {@code {a}} braces", Arrays.asList("Text:nested ", "@code:{a}", "Text: braces") },
+                { "unterminated {@code a", Collections.singletonList("Text:unterminated {@code a") },
+        };
+    }
+
+    @Test(dataProvider = "getInlineTagTestData")
+    public void testInlineTags(final String text, final List<String> expectedTags) {
+        Assert.assertEquals(describeTags(CompiledJavadoc.Comment.getInlineTags(null, text)), expectedTags);
+    }
+
+    @DataProvider
+    public Object[][] getFirstSentenceTestData() {
+        return new Object[][] {
+                { "", "" },
+                { "One sentence", "One sentence" },
+                { "First sentence. Second sentence.", "First sentence." },
+                { "Version 1.2 is the first.\nSecond.", "Version 1.2 is the first." },
+                { "Ends at a paragraph<p>Second", "Ends at a paragraph" },
+                { "<!-- comment --> After the comment. More.", "After the comment." },
+        };
+    }
+
+    @Test(dataProvider = "getFirstSentenceTestData")
+    public void testFirstSentence(final String text, final String expectedFirstSentence) {
+        Assert.assertEquals(CompiledJavadoc.Comment.getFirstSentence(text), expectedFirstSentence);
+    }
+
+    @Test
+    public void testClassesWithoutComments() {
+        final RootDoc rootDoc = CompiledJavadoc.createRootDoc(
+                getClass().getClassLoader(),
+                Collections.singletonList(TestArgumentContainer.TestEnum.class.getName()),
+                new String[][] { { "-d", "out" } });
+        Assert.assertEquals(rootDoc.options()[0], new String[] { "-d", "out" });
+
+        // the test inputs are compiled without the comment processor, so the model is built using reflection
+        final ClassDoc enumDoc = rootDoc.classes()[0];
+        Assert.assertEquals(enumDoc.name(), "TestArgumentContainer.TestEnum");
+        Assert.assertEquals(enumDoc.qualifiedName(), TestArgumentContainer.TestEnum.class.getCanonicalName());
+        Assert.assertEquals(enumDoc.containingPackage().name(), TestArgumentContainer.class.getPackage().getName());
+        Assert.assertSame(enumDoc.containingClass(), rootDoc.classNamed(TestArgumentContainer.class.getName()));
+        Assert.assertEquals(enumDoc.commentText(), "");
+        Assert.assertTrue(enumDoc.isEnum());
+        Assert.assertEquals(
+                Arrays.stream(enumDoc.enumConstants()).map(FieldDoc::name).collect(Collectors.toList()),
+                Arrays.asList("ENUM_VALUE_1", "ENUM_VALUE_2"));
+
+        // classes can be named with either '.' or '$' before nested class names
+        Assert.assertSame(rootDoc.classNamed(TestArgumentContainer.TestEnum.class.getCanonicalName()), enumDoc);
+        Assert.assertSame(rootDoc.classNamed(TestArgumentContainer.TestEnum.class.getName()), enumDoc);
+        Assert.assertNull(rootDoc.classNamed("org.broadinstitute.barclay.help.NoSuchClass"));
+
+        final FieldDoc helpdoc = Arrays.stream(enumDoc.fields(false)).filter(f -> f.name().equals("helpdoc")).findFirst().get();
+        Assert.assertEquals(helpdoc.type().qualifiedTypeName(), String.class.getName());
+        Assert.assertEquals(helpdoc.qualifiedName(), enumDoc.qualifiedName() + ".helpdoc");
+        Assert.assertSame(helpdoc.containingClass(), enumDoc);
+        Assert.assertTrue(helpdoc.isPrivate());
+    }
+}
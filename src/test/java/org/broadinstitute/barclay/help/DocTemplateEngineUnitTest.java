@@ -0,0 +1,120 @@
+package org.broadinstitute.barclay.help;
+
+import freemarker.template.Template;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TreeSet;
+
+/**
+ * Test the shared doclet template engine.
+ */
+public class DocTemplateEngineUnitTest {
+
+    private static final String HELP_TEMPLATES_DIR = "src/main/resources/org/broadinstitute/barclay/helpTemplates";
+    private static final String HELP_TEMPLATES_CLASSPATH = "/org/broadinstitute/barclay/helpTemplates";
+
+    private static File createTemplateDir() throws IOException {
+        final File dir = Files.createTempDirectory("docTemplateEngineTest").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static void writeTemplate(final File dir, final String name, final String source) throws IOException {
+        final File f = new File(dir, name);
+        Files.write(f.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        f.deleteOnExit();
+    }
+
+    private static String render(final Template template) throws Exception {
+        final StringWriter writer = new StringWriter();
+        template.process(Collections.singletonMap("name", "world"), writer);
+        return writer.toString();
+    }
+
+    @Test
+    public void testEnginesAreShared() {
+        Assert.assertSame(
+                DocTemplateEngine.forDirectory(new File(HELP_TEMPLATES_DIR)),
+                DocTemplateEngine.forDirectory(new File(HELP_TEMPLATES_DIR + "/../helpTemplates")));
+        Assert.assertSame(
+                DocTemplateEngine.forClasspath(getClass(), HELP_TEMPLATES_CLASSPATH),
+                DocTemplateEngine.forClasspath(getClass(), HELP_TEMPLATES_CLASSPATH.substring(1)));
+    }
+
+    @Test
+    public void testTemplatesAreCachedBySource() throws Exception {
+        final File dir = createTemplateDir();
+        writeTemplate(dir, "hello.ftl", "Hello ${name}");
+        final DocTemplateEngine engine = DocTemplateEngine.forDirectory(dir);
+
+        final Template template = engine.getTemplate("hello.ftl");
+        Assert.assertSame(engine.getTemplate("hello.ftl"), template);
+        Assert.assertEquals(render(template), "Hello world");
+
+        // changes aren't picked up by lookups during a run...
+        final long lastModified = new File(dir, "hello.ftl").lastModified();
+        writeTemplate(dir, "hello.ftl", "Goodbye ${name}");
+        Assert.assertTrue(new File(dir, "hello.ftl").setLastModified(lastModified));
+        Assert.assertSame(engine.getTemplate("hello.ftl"), template);
+
+        // ...but a changed template is parsed again when the next run starts, even if its timestamp doesn't change
+        engine.preloadTemplates(Collections.singleton("hello.ftl"));
+        final Template changed = engine.getTemplate("hello.ftl");
+        Assert.assertNotSame(changed, template);
+        Assert.assertEquals(render(changed), "Goodbye world");
+
+        // and changing it back reuses the original parsed template
+        writeTemplate(dir, "hello.ftl", "Hello ${name}");
+        engine.preloadTemplates(Collections.singleton("hello.ftl"));
+        Assert.assertSame(engine.getTemplate("hello.ftl"), template);
+    }
+
+    @Test
+    public void testPreloadHelpTemplates() {
+        final DocTemplateEngine directoryEngine = DocTemplateEngine.forDirectory(new File(HELP_TEMPLATES_DIR));
+        final DocTemplateEngine classpathEngine =
+                DocTemplateEngine.forClasspath(getClass(), HELP_TEMPLATES_CLASSPATH);
+        Assert.assertEquals(directoryEngine.getTemplateNames(), new TreeSet<>(Arrays.asList(
+                "bash-completion.ftl",
+                "bash-completion.macros.ftl",
+                "bash-completion.tool.ftl",
+                "common.html.ftl",
+                "generic.html.ftl",
+                "generic.index.html.ftl")));
+        Assert.assertEquals(classpathEngine.getTemplateNames(), directoryEngine.getTemplateNames());
+        directoryEngine.preloadAllTemplates();
+        classpathEngine.preloadAllTemplates();
+    }
+
+    @Test
+    public void testPreloadReportsAllInvalidTemplates() throws IOException {
+        final File dir = createTemplateDir();
+        writeTemplate(dir, "good.ftl", "Hello ${name}");
+        writeTemplate(dir, "bad1.ftl", "<#if name>unterminated");
+        writeTemplate(dir, "bad2.ftl", "${name");
+        writeTemplate(dir, "notATemplate.txt", "${name");
+        final DocTemplateEngine engine = DocTemplateEngine.forDirectory(dir);
+        try {
+            engine.preloadAllTemplates();
+            Assert.fail("Expected invalid templates to be rejected");
+        } catch (final DocException e) {
+            Assert.assertTrue(e.getMessage().contains("bad1.ftl"), e.getMessage());
+            Assert.assertTrue(e.getMessage().contains("bad2.ftl"), e.getMessage());
+            Assert.assertFalse(e.getMessage().contains("good.ftl"), e.getMessage());
+            Assert.assertFalse(e.getMessage().contains("notATemplate.txt"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = DocException.class)
+    public void testPreloadMissingTemplate() throws IOException {
+        DocTemplateEngine.forDirectory(createTemplateDir()).preloadTemplates(Collections.singleton("missing.ftl"));
+    }
+}
@@ -8,6 +8,7 @@ import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.Collections;
+import java.util.Map;
 
 /**
  * @author Daniel Gomez-Sanchez (magicDGS)
@@ -26,6 +27,18 @@ public class DocWorkUnitTest {
         Assert.assertEquals(workUnit.getRootMap().size(), 1);
     }
 
+    @Test
+    public void testReleaseProperties() {
+        final DocWorkUnit workUnit = createDocWorkUnitForDefaultHandler(TestExtraDocs.class, DocGenMocks.mockClassDoc("", Collections.emptyMap()));
+        workUnit.setProperty("test_property", "test_value");
+        final Map<String, Object> released = workUnit.getRootMap();
+        workUnit.releaseProperties();
+        Assert.assertTrue(workUnit.getRootMap().isEmpty());
+        Assert.assertNull(workUnit.getProperty("test_property"));
+        // the released map isn't modified, since it may still be referenced by output that's being generated
+        Assert.assertEquals(released.get("test_property"), "test_value");
+    }
+
     @Test
     public void testGetName() {
         Assert.assertEquals(
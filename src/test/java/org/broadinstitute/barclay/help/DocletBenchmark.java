@@ -0,0 +1,195 @@
+package org.broadinstitute.barclay.help;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end benchmark for documentation generation, which can be run with {@code gradle docletBenchmark}.
+ * Generates a {@link SyntheticFeatureCorpus}, compiles it, and runs {@link HelpDoclet} and
+ * {@link BashTabCompletionDoclet} over the generated sources with javadoc, reporting the wall time, peak heap
+ * usage and number of files written for each phase.
+ *
+ * The arguments are {@code [numTools [numArguments [numPlugins [workDir]]]]}.
+ *
+ * Each doclet run loads the doclet, Barclay and the corpus classes with a new class loader, since the doclet has
+ * to be able to load the corpus classes, so each run starts with empty caches, as a real doc build does.
+ */
+public final class DocletBenchmark {
+
+    static final String GENERATE_PHASE = "generate";
+    static final String COMPILE_PHASE = "compile";
+    static final String HELP_DOCLET_PHASE = "HelpDoclet";
+    static final String BASH_DOCLET_PHASE = "BashTabCompletionDoclet";
+
+    static final String CALLER_SCRIPT_NAME = "synthetic.sh";
+
+    private DocletBenchmark() {}
+
+    /**
+     * The measurements for one phase of the benchmark.
+     */
+    static final class PhaseResult {
+        final String phase;
+        final long wallTimeMillis;
+        final long peakHeapBytes;
+        final long filesWritten;
+
+        PhaseResult(final String phase, final long wallTimeMillis, final long peakHeapBytes, final long filesWritten) {
+            this.phase = phase;
+            this.wallTimeMillis = wallTimeMillis;
+            this.peakHeapBytes = peakHeapBytes;
+            this.filesWritten = filesWritten;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %10d %14.1f %14d", phase, wallTimeMillis, peakHeapBytes / (1024.0 * 1024.0), filesWritten);
+        }
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final int numTools = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        final int numArguments = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        final int numPlugins = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        final File workDir = args.length > 3 ?
+                new File(args[3]) :
+                Files.createTempDirectory("docletBenchmark").toFile();
+
+        final List<PhaseResult> results = run(new SyntheticFeatureCorpus(numTools, numArguments, numPlugins), workDir);
+        System.out.println(String.format("Documentation generation for %d tools with %d arguments and %d plugins, in %s",
+                numTools, numArguments, numPlugins, workDir.getAbsolutePath()));
+        System.out.println(String.format("%-24s %10s %14s %14s", "phase", "wall (ms)", "peak heap (MB)", "files written"));
+        results.forEach(System.out::println);
+    }
+
+    /**
+     * Run every phase of the benchmark.
+     *
+     * @param corpus corpus to generate
+     * @param workDir directory for the generated sources, classes and documentation, which must not already
+     *                contain any of them
+     * @return the results for each phase, in order
+     * @throws IOException if the corpus can't be generated
+     */
+    static List<PhaseResult> run(final SyntheticFeatureCorpus corpus, final File workDir) throws IOException {
+        final File sourceDir = new File(workDir, "src");
+        final File classesDir = new File(workDir, "classes");
+        final File helpDocletDir = new File(workDir, HELP_DOCLET_PHASE);
+        final File bashDocletDir = new File(workDir, BASH_DOCLET_PHASE);
+        Files.createDirectories(helpDocletDir.toPath());
+        Files.createDirectories(bashDocletDir.toPath());
+
+        final List<PhaseResult> results = new ArrayList<>();
+        final List<File> sourceFiles = new ArrayList<>();
+        results.add(measure(GENERATE_PHASE, sourceDir, () -> sourceFiles.addAll(corpus.writeSources(sourceDir))));
+        results.add(measure(COMPILE_PHASE, classesDir, () -> SyntheticFeatureCorpus.compile(sourceFiles, classesDir)));
+        results.add(measure(HELP_DOCLET_PHASE, helpDocletDir,
+                () -> runJavadoc(HelpDoclet.class, sourceDir, classesDir, helpDocletDir)));
+        results.add(measure(BASH_DOCLET_PHASE, bashDocletDir,
+                () -> runJavadoc(BashTabCompletionDoclet.class, sourceDir, classesDir, bashDocletDir,
+                        "-caller-script-name", CALLER_SCRIPT_NAME,
+                        "-index-file-extension", "sh",
+                        "-output-file-extension", "sh")));
+        return results;
+    }
+
+    private interface Phase {
+        void run() throws IOException;
+    }
+
+    private static PhaseResult measure(final String phaseName, final File outputDir, final Phase phase) throws IOException {
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        final long startTime = System.nanoTime();
+        phase.run();
+        final long wallTimeMillis = (System.nanoTime() - startTime) / 1_000_000;
+
+        // the pools' peaks may not have been reached at the same time, so this is an upper bound
+        final long peakHeapBytes = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        return new PhaseResult(phaseName, wallTimeMillis, peakHeapBytes, countFiles(outputDir));
+    }
+
+    private static long countFiles(final File dir) throws IOException {
+        if (!dir.exists()) {
+            return 0;
+        }
+        try (final Stream<Path> paths = Files.walk(dir.toPath())) {
+            return paths.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static void runJavadoc(
+            final Class<? extends HelpDoclet> docletClass,
+            final File sourceDir,
+            final File classesDir,
+            final File outputDir,
+            final String... docletArgs) throws IOException {
+        final List<String> javadocArgs = new ArrayList<>(Arrays.asList(
+                "-doclet", docletClass.getName(),
+                "-docletpath", classesDir.getAbsolutePath(),
+                "-sourcepath", sourceDir.getAbsolutePath(),
+                "-subpackages", SyntheticFeatureCorpus.PACKAGE_NAME,
+                "-cp", System.getProperty("java.class.path"),
+                "-d", outputDir.getAbsolutePath(),
+                "-use-default-templates",
+                "-build-timestamp", "2016/01/01 01:01:01",
+                "-absolute-version", "11.1",
+                "-quiet"));
+        javadocArgs.addAll(Arrays.asList(docletArgs));
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (final URLClassLoader docletClassLoader = new URLClassLoader(getClassPathURLs(classesDir), new JavadocClassLoader())) {
+            // plugin discovery uses the context class loader
+            thread.setContextClassLoader(docletClassLoader);
+            final int result = com.sun.tools.javadoc.Main.execute("javadoc", docletClassLoader, javadocArgs.toArray(new String[] {}));
+            if (result != 0) {
+                throw new DocException(String.format("Javadoc failed running %s: %d", docletClass.getSimpleName(), result));
+            }
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    private static URL[] getClassPathURLs(final File classesDir) throws MalformedURLException {
+        final List<URL> urls = new ArrayList<>();
+        urls.add(classesDir.toURI().toURL());
+        for (final String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            urls.add(new File(entry).toURI().toURL());
+        }
+        return urls.toArray(new URL[urls.size()]);
+    }
+
+    // Loads only the javadoc tool and API classes, which have to be shared with the javadoc tool, from the
+    // system class loader; everything else on the class path is loaded by the doclet class loader.
+    private static final class JavadocClassLoader extends ClassLoader {
+        JavadocClassLoader() {
+            super(ClassLoader.getSystemClassLoader().getParent());
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            if (name.startsWith("com.sun.javadoc.") || name.startsWith("com.sun.tools.")) {
+                return ClassLoader.getSystemClassLoader().loadClass(name);
+            }
+            throw new ClassNotFoundException(name);
+        }
+    }
+}
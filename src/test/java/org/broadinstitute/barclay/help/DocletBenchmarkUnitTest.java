@@ -0,0 +1,50 @@
+package org.broadinstitute.barclay.help;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Run the documentation generation benchmark over a small corpus, so that it doesn't silently stop working.
+ */
+public class DocletBenchmarkUnitTest {
+
+    @Test
+    public void testBenchmark() throws IOException {
+        final File workDir = Files.createTempDirectory("docletBenchmark").toFile();
+        workDir.deleteOnExit();
+        final int numTools = 3;
+        final int numPlugins = 2;
+        final SyntheticFeatureCorpus corpus = new SyntheticFeatureCorpus(numTools, 7, numPlugins);
+
+        final List<DocletBenchmark.PhaseResult> results = DocletBenchmark.run(corpus, workDir);
+
+        Assert.assertEquals(
+                results.stream().map(result -> result.phase).collect(Collectors.toList()),
+                Arrays.asList(
+                        DocletBenchmark.GENERATE_PHASE,
+                        DocletBenchmark.COMPILE_PHASE,
+                        DocletBenchmark.HELP_DOCLET_PHASE,
+                        DocletBenchmark.BASH_DOCLET_PHASE));
+        // program group, enum, plugin base and descriptor, plugins, one argument collection and extra docs, tools
+        final int numClasses = 4 + numPlugins + 2 + numTools;
+        final int numFeatures = corpus.getNumDocumentedFeatures();
+        Assert.assertEquals(numFeatures, numTools + 1);
+        Assert.assertEquals(
+                results.stream().map(result -> result.filesWritten).collect(Collectors.toList()),
+                Arrays.asList(
+                        (long) numClasses,
+                        (long) numClasses,
+                        // html and json for each feature, and the index
+                        2L * numFeatures + 1,
+                        // completion script and index, and a file for each feature
+                        numFeatures + 2L));
+        results.forEach(result -> Assert.assertTrue(result.peakHeapBytes > 0, result.phase));
+    }
+}
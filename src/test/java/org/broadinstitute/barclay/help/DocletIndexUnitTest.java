@@ -0,0 +1,156 @@
+package org.broadinstitute.barclay.help;
+
+import com.sun.javadoc.ClassDoc;
+import com.sun.javadoc.FieldDoc;
+import com.sun.javadoc.PackageDoc;
+import com.sun.javadoc.RootDoc;
+import com.sun.javadoc.Type;
+import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.help.testinputs.TestArgumentContainer;
+import org.broadinstitute.barclay.help.testinputs.TestExtraDocs;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the per-run doclet lookup indexes.
+ */
+public class DocletIndexUnitTest {
+
+    public static class IndexedCollection {
+        public int shadowed;
+        public int collectionField;
+    }
+
+    public static class IndexedBase {
+        public int shadowed;
+        public int baseField;
+    }
+
+    public static class IndexedDerived extends IndexedBase {
+        public int derivedField;
+        @ArgumentCollection
+        public IndexedCollection collection = new IndexedCollection();
+        public int afterCollectionField;
+    }
+
+    private static ClassDoc mockClassDoc(final Class<?> clazz, final ClassDoc superclass, final String... fieldNames) {
+        final ClassDoc classDoc = Mockito.mock(ClassDoc.class);
+        final PackageDoc packageDoc = Mockito.mock(PackageDoc.class);
+        Mockito.when(packageDoc.name()).thenReturn(clazz.getPackage().getName());
+        Mockito.when(classDoc.containingPackage()).thenReturn(packageDoc);
+        Mockito.when(classDoc.name()).thenReturn(clazz.getName().substring(clazz.getPackage().getName().length() + 1).replace('$', '.'));
+        Mockito.when(classDoc.qualifiedTypeName()).thenReturn(clazz.getCanonicalName());
+        Mockito.when(classDoc.superclass()).thenReturn(superclass);
+        final FieldDoc[] fieldDocs = new FieldDoc[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++) {
+            final FieldDoc fieldDoc = Mockito.mock(FieldDoc.class);
+            Mockito.when(fieldDoc.name()).thenReturn(fieldNames[i]);
+            Mockito.when(fieldDoc.containingClass()).thenReturn(classDoc);
+            if (fieldNames[i].equals("collection")) {
+                final Type type = Mockito.mock(Type.class);
+                Mockito.when(type.qualifiedTypeName()).thenReturn(IndexedCollection.class.getCanonicalName());
+                Mockito.when(fieldDoc.type()).thenReturn(type);
+            }
+            fieldDocs[i] = fieldDoc;
+        }
+        Mockito.when(classDoc.fields(false)).thenReturn(fieldDocs);
+        return classDoc;
+    }
+
+    private static ClassDoc mockDerivedClassDoc() {
+        return mockClassDoc(IndexedDerived.class,
+                mockClassDoc(IndexedBase.class, null, "shadowed", "baseField"),
+                "derivedField", "collection", "afterCollectionField");
+    }
+
+    private static RootDoc mockRootDoc(final boolean includeCollection) {
+        final ClassDoc collectionDoc = includeCollection ?
+                mockClassDoc(IndexedCollection.class, null, "shadowed", "collectionField") :
+                null;
+        final RootDoc rootDoc = Mockito.mock(RootDoc.class);
+        Mockito.when(rootDoc.classNamed(IndexedCollection.class.getCanonicalName())).thenReturn(collectionDoc);
+        return rootDoc;
+    }
+
+    private static String containingClassName(final FieldDoc fieldDoc) {
+        return fieldDoc.containingClass().qualifiedTypeName();
+    }
+
+    @Test
+    public void testFieldDocSearchOrder() {
+        final DocletIndex index = new DocletIndex(mockRootDoc(true), Collections.emptySet());
+        final ClassDoc derived = mockDerivedClassDoc();
+
+        Assert.assertEquals(containingClassName(index.getFieldDoc(derived, "derivedField")), IndexedDerived.class.getCanonicalName());
+        Assert.assertEquals(containingClassName(index.getFieldDoc(derived, "collectionField")), IndexedCollection.class.getCanonicalName());
+        Assert.assertEquals(containingClassName(index.getFieldDoc(derived, "afterCollectionField")), IndexedDerived.class.getCanonicalName());
+        Assert.assertEquals(containingClassName(index.getFieldDoc(derived, "baseField")), IndexedBase.class.getCanonicalName());
+        // the argument collection is searched before the superclass
+        Assert.assertEquals(containingClassName(index.getFieldDoc(derived, "shadowed")), IndexedCollection.class.getCanonicalName());
+        Assert.assertNull(index.getFieldDoc(derived, "noSuchField"));
+    }
+
+    @Test
+    public void testFieldDocIndexIsBuiltOnce() {
+        final DocletIndex index = new DocletIndex(mockRootDoc(true), Collections.emptySet());
+        final ClassDoc derived = mockDerivedClassDoc();
+        index.getFieldDoc(derived, "derivedField");
+        index.getFieldDoc(derived, "baseField");
+        index.getFieldDoc(derived, "noSuchField");
+        Mockito.verify(derived, Mockito.times(1)).fields(false);
+    }
+
+    @Test
+    public void testUnresolvedArgumentCollection() {
+        final DocletIndex index = new DocletIndex(mockRootDoc(false), Collections.emptySet());
+        final ClassDoc derived = mockDerivedClassDoc();
+        // fields found before the unresolvable collection can still be found
+        Assert.assertNotNull(index.getFieldDoc(derived, "derivedField"));
+        for (final String fieldName : Arrays.asList("afterCollectionField", "baseField", "noSuchField")) {
+            try {
+                index.getFieldDoc(derived, fieldName);
+                Assert.fail("Expected the unresolved argument collection to be reported for " + fieldName);
+            } catch (final DocException e) {
+                Assert.assertTrue(e.getMessage().contains("ArgumentCollection"), e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testFindWorkUnitForClass() {
+        final HelpDoclet doclet = new HelpDoclet();
+        final List<DocWorkUnit> workUnits = new ArrayList<>();
+        for (final Class<?> clazz : Arrays.asList(TestArgumentContainer.class, TestExtraDocs.class)) {
+            workUnits.add(new DocWorkUnit(
+                    new DefaultDocWorkUnitHandler(doclet),
+                    clazz.getAnnotation(DocumentedFeature.class),
+                    DocGenMocks.mockClassDoc("", Collections.emptyMap()),
+                    clazz));
+        }
+        final DocletIndex index = new DocletIndex(Mockito.mock(RootDoc.class), workUnits);
+        Assert.assertSame(index.findWorkUnitForClass(TestArgumentContainer.class), workUnits.get(0));
+        Assert.assertSame(index.findWorkUnitForClass(TestExtraDocs.class), workUnits.get(1));
+        Assert.assertNull(index.findWorkUnitForClass(String.class));
+    }
+
+    @Test
+    public void testEnumDocsAreComputedOnce() {
+        final DocletIndex index = new DocletIndex(Mockito.mock(RootDoc.class), Collections.emptySet());
+        final AtomicInteger computeCount = new AtomicInteger();
+        final List<Map<String, Object>> docs = Collections.singletonList(Collections.singletonMap("name", "FOO"));
+        for (int i = 0; i < 3; i++) {
+            final List<Map<String, Object>> enumDocs = index.getEnumDocs(Thread.State.class, c -> {
+                computeCount.incrementAndGet();
+                return docs;
+            });
+            Assert.assertEquals(enumDocs, docs);
+            // each caller gets its own list
+            enumDocs.clear();
+        }
+        Assert.assertEquals(computeCount.get(), 1);
+    }
+}
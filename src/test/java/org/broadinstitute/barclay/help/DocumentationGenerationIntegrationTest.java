@@ -1,16 +1,33 @@
 package org.broadinstitute.barclay.help;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.javadoc.RootDoc;
 import org.broadinstitute.barclay.help.testdoclets.TestDoclet;
 import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
-import java.io.File;
-import java.io.IOException;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Integration test for documentation generation.
@@ -23,6 +40,8 @@ public class DocumentationGenerationIntegrationTest {
     private static final String indexFileName = "index";
     private static final String jsonFileExtension = ".json";
 
+    private static ClassLoader commentClassLoader;
+
     // common arguments not changed for tests
     private static final List<String> COMMON_DOC_ARG_LIST = Arrays.asList(
             "-build-timestamp", "2016/01/01 01:01:01",      // dummy, constant timestamp
@@ -108,6 +127,42 @@ public class DocumentationGenerationIntegrationTest {
                         new String[] {}, // customDocletArgs
                         false    // onlyTestIndex
                 },
+                // default doclet and templates, processing work units in parallel
+                {HelpDoclet.class,
+                        new File(inputResourcesDir + "helpTemplates/"),
+                        new File(testResourcesDir + "help/expected/HelpDoclet"),
+                        indexFileName,
+                        "html", // testIndexFileExtension
+                        "html", // testOutputFileExtension
+                        "html", // requestedIndexFileExtension
+                        "html", // requestedOutputFileExtension
+                        new String[] {"-parallel-threads", "4"}, // customDocletArgs
+                        false    // onlyTestIndex
+                },
+                // custom doclet and templates, processing work units in parallel
+                {TestDoclet.class,
+                        new File(testResourcesDir + "help/templates/TestDoclet/"),
+                        new File(testResourcesDir + "help/expected/TestDoclet"),
+                        indexFileName,
+                        "html", // testIndexFileExtension
+                        "html", // testOutputFileExtension
+                        "html", // requestedIndexFileExtension
+                        "html", // requestedOutputFileExtension
+                        new String[] {"-parallel-threads", "4"}, // customDocletArgs
+                        false    // onlyTestIndex
+                },
+                // default templates, releasing the property map of each work unit once it has been rendered
+                {ReleasingDoclet.class,
+                        new File(inputResourcesDir + "helpTemplates/"),
+                        new File(testResourcesDir + "help/expected/HelpDoclet"),
+                        indexFileName,
+                        "html", // testIndexFileExtension
+                        "html", // testOutputFileExtension
+                        "html", // requestedIndexFileExtension
+                        "html", // requestedOutputFileExtension
+                        new String[] {"-parallel-threads", "4"}, // customDocletArgs
+                        false    // onlyTestIndex
+                },
                 // custom bash doclet and templates
                 {BashTabCompletionDoclet.class,
                         new File(inputResourcesDir + "helpTemplates/"),
@@ -246,6 +301,7 @@ public class DocumentationGenerationIntegrationTest {
         assertFileContentsIdentical(
                 new File(outputDir, indexFileBaseName + "." + requestedIndexFileExtension),
                 new File(expectedDir, indexFileBaseName + "." + testIndexFileExtension));
+        assertCompletionFilesIdentical(outputDir, expectedDir, indexFileBaseName);
 
         // Only compare other output files if we should have them:
         if ( !onlyTestIndex ) {
@@ -263,6 +319,463 @@ public class DocumentationGenerationIntegrationTest {
         }
     }
 
+    @Test
+    public void testIncrementalDocGen() throws IOException {
+        final File outputDir = Files.createTempDirectory("incrementalDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final File expectedDir = new File(testResourcesDir + "help/expected/HelpDoclet");
+        final List<String> javadocArgs = docArgList(HelpDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.add("-incremental");
+        final String[] args = javadocArgs.toArray(new String[] {});
+
+        final String pluginProviderPrefix = EXPECTED_OUTPUT_FILE_NAME_PREFIXES.get(0);
+        final String extraDocsPrefix = EXPECTED_OUTPUT_FILE_NAME_PREFIXES.get(1);
+        final File manifest = new File(outputDir, DocManifest.MANIFEST_FILE_NAME);
+        final byte[] sentinel = "unchanged".getBytes();
+
+        // the first run generates everything
+        com.sun.tools.javadoc.Main.execute(args);
+        assertWorkUnitOutputs(outputDir, expectedDir, pluginProviderPrefix);
+        assertWorkUnitOutputs(outputDir, expectedDir, extraDocsPrefix);
+        Assert.assertTrue(manifest.exists());
+
+        // unchanged work units aren't regenerated, but plugin providers always are
+        Files.write(new File(outputDir, extraDocsPrefix + ".html").toPath(), sentinel);
+        Files.write(new File(outputDir, pluginProviderPrefix + ".html").toPath(), sentinel);
+        com.sun.tools.javadoc.Main.execute(args);
+        Assert.assertEquals(Files.readAllBytes(new File(outputDir, extraDocsPrefix + ".html").toPath()), sentinel);
+        assertWorkUnitOutputs(outputDir, expectedDir, pluginProviderPrefix);
+        assertFileContentsIdentical(new File(outputDir, indexFileName + ".html"), new File(expectedDir, indexFileName + ".html"));
+
+        // missing outputs are regenerated
+        Assert.assertTrue(new File(outputDir, extraDocsPrefix + jsonFileExtension).delete());
+        com.sun.tools.javadoc.Main.execute(args);
+        assertWorkUnitOutputs(outputDir, expectedDir, extraDocsPrefix);
+
+        // without a manifest, everything is regenerated
+        Files.write(new File(outputDir, extraDocsPrefix + ".html").toPath(), sentinel);
+        Assert.assertTrue(manifest.delete());
+        com.sun.tools.javadoc.Main.execute(args);
+        assertWorkUnitOutputs(outputDir, expectedDir, extraDocsPrefix);
+        Assert.assertTrue(manifest.exists());
+    }
+
+    @DataProvider
+    public Object[][] getJSONIndexFileNames() {
+        return new Object[][] { { "features.json" }, { "features.json.gz" } };
+    }
+
+    @Test(dataProvider = "getJSONIndexFileNames")
+    public void testJSONIndex(final String jsonIndexFileName) throws IOException {
+        final File outputDir = Files.createTempDirectory("jsonIndexDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final File expectedDir = new File(testResourcesDir + "help/expected/HelpDoclet");
+        final List<String> javadocArgs = docArgList(HelpDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.add("-json-index-file");
+        javadocArgs.add(jsonIndexFileName);
+        com.sun.tools.javadoc.Main.execute(javadocArgs.toArray(new String[] {}));
+
+        final File indexFile = new File(outputDir, jsonIndexFileName);
+        final JsonObject index;
+        try (final InputStream fileStream = new FileInputStream(indexFile);
+             final Reader reader = new InputStreamReader(
+                     jsonIndexFileName.endsWith(".gz") ? new GZIPInputStream(fileStream) : fileStream,
+                     StandardCharsets.UTF_8)) {
+            index = new JsonParser().parse(reader).getAsJsonObject();
+        }
+        assertJSONIndexFeatures(index, expectedDir);
+
+        // the index is compact
+        if (!jsonIndexFileName.endsWith(".gz")) {
+            Assert.assertFalse(new String(Files.readAllBytes(indexFile.toPath()), StandardCharsets.UTF_8).contains("\n"));
+        }
+    }
+
+    private void assertJSONIndexFeatures(final JsonObject index, final File expectedDir) throws IOException {
+        Assert.assertEquals(index.get("version").getAsString(), "11.1");
+
+        final JsonArray features = index.getAsJsonArray("features");
+        Assert.assertEquals(features.size(), EXPECTED_OUTPUT_FILE_NAME_PREFIXES.size());
+        for (int i = 0; i < features.size(); i++) {
+            final String prefix = EXPECTED_OUTPUT_FILE_NAME_PREFIXES.get(i);
+            final JsonObject expected;
+            try (final Reader reader = new FileReader(new File(expectedDir, prefix + jsonFileExtension))) {
+                expected = new JsonParser().parse(reader).getAsJsonObject();
+            }
+            expected.addProperty("filename", prefix + ".html");
+            Assert.assertEquals(features.get(i), expected);
+        }
+    }
+
+    @Test
+    public void testSearchIndex() throws IOException {
+        final File outputDir = Files.createTempDirectory("searchIndexDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final List<String> javadocArgs = docArgList(HelpDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.add("-search-index-file");
+        javadocArgs.add("search.json");
+        com.sun.tools.javadoc.Main.execute(javadocArgs.toArray(new String[] {}));
+
+        final JsonObject index;
+        try (final Reader reader = new InputStreamReader(new FileInputStream(new File(outputDir, "search.json")), StandardCharsets.UTF_8)) {
+            index = new JsonParser().parse(reader).getAsJsonObject();
+        }
+        Assert.assertEquals(index.get("version").getAsString(), "11.1");
+
+        final JsonArray features = index.getAsJsonArray("features");
+        Assert.assertEquals(features.size(), EXPECTED_OUTPUT_FILE_NAME_PREFIXES.size());
+        final JsonObject argumentContainer = features.get(0).getAsJsonObject();
+        Assert.assertEquals(argumentContainer.get("name").getAsString(), "TestArgumentContainer");
+        Assert.assertEquals(argumentContainer.get("filename").getAsString(), EXPECTED_OUTPUT_FILE_NAME_PREFIXES.get(0) + ".html");
+        final List<String> argumentNames = new ArrayList<>();
+        argumentContainer.getAsJsonArray("arguments").forEach(a -> argumentNames.add(a.getAsString()));
+
+        final JsonObject terms = index.getAsJsonObject("terms");
+        // the tool name
+        Assert.assertEquals(terms.getAsJsonArray("testargumentcontainer").toString(),
+                String.format("[[0,-1,%d]]", SearchIndexDocRenderer.FEATURE_NAME_WEIGHT));
+        // argument names and synonyms, and the parts of compound names
+        Assert.assertEquals(terms.getAsJsonArray("reqfillist").toString(),
+                String.format("[[0,%d,%d]]", argumentNames.indexOf("--requiredFileList"), SearchIndexDocRenderer.ARGUMENT_NAME_WEIGHT));
+        final List<String> enumArguments = new ArrayList<>();
+        terms.getAsJsonArray("enum").forEach(p -> enumArguments.add(argumentNames.get(p.getAsJsonArray().get(1).getAsInt())));
+        Assert.assertTrue(enumArguments.containsAll(Arrays.asList("--optionalClpEnum", "--requiredClpEnum")), enumArguments.toString());
+        // argument docs
+        final List<String> alignedArguments = new ArrayList<>();
+        terms.getAsJsonArray("alignment").forEach(p -> alignedArguments.add(argumentNames.get(p.getAsJsonArray().get(1).getAsInt())));
+        Assert.assertTrue(alignedArguments.containsAll(Arrays.asList("--mutexTargetField1", "--mutexTargetField2")), alignedArguments.toString());
+    }
+
+    @DataProvider
+    public Object[][] getZipOutputParams() {
+        return new Object[][] { { false }, { true } };
+    }
+
+    @Test(dataProvider = "getZipOutputParams")
+    public void testZipOutput(final boolean zipStore) throws IOException {
+        final File outputDir = Files.createTempDirectory("zipDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final File zipFile = File.createTempFile("zipDocGen", ".zip");
+        zipFile.deleteOnExit();
+        final List<String> javadocArgs = docArgList(HelpDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.addAll(Arrays.asList(
+                "-zip-output", zipFile.getAbsolutePath(),
+                "-json-index-file", "features.json",
+                "-caller-script-name", "bashTabCompletionDocletTestLaunchWithDefaults.sh"));
+        if (zipStore) {
+            javadocArgs.add("-zip-store");
+        }
+        com.sun.tools.javadoc.Main.execute(javadocArgs.toArray(new String[] {}));
+
+        // nothing is written to the destination directory
+        Assert.assertEquals(outputDir.list(), new String[0]);
+
+        final File expectedDir = new File(testResourcesDir + "help/expected/HelpDoclet");
+        final File expectedCompletionDir = new File(testResourcesDir + "help/expected/BashTabCompletionDoclet");
+        final String completionBaseFileName = "bashTabCompletionDocletTestLaunchWithDefaults-completion";
+        try (final ZipFile zip = new ZipFile(zipFile)) {
+            final List<String> expectedEntryNames = new ArrayList<>();
+            expectedEntryNames.add(indexFileName + ".html");
+            expectedEntryNames.add("features.json");
+            for (final String workUnitFileNamePrefix : EXPECTED_OUTPUT_FILE_NAME_PREFIXES) {
+                expectedEntryNames.add(workUnitFileNamePrefix + ".html");
+                expectedEntryNames.add(workUnitFileNamePrefix + jsonFileExtension);
+            }
+            expectedEntryNames.add(completionBaseFileName + ".sh");
+            expectedEntryNames.add(completionBaseFileName + ".index");
+            for (final String toolFileName : new File(expectedCompletionDir, completionBaseFileName + ".d").list()) {
+                expectedEntryNames.add(completionBaseFileName + ".d/" + toolFileName);
+            }
+            final List<String> entryNames = new ArrayList<>();
+            for (final ZipEntry entry : Collections.list(zip.entries())) {
+                entryNames.add(entry.getName());
+                Assert.assertEquals(entry.getMethod(), zipStore ? ZipEntry.STORED : ZipEntry.DEFLATED, entry.getName());
+            }
+            Collections.sort(entryNames);
+            Collections.sort(expectedEntryNames);
+            Assert.assertEquals(entryNames, expectedEntryNames);
+
+            assertZipEntryIdentical(zip, indexFileName + ".html", new File(expectedDir, indexFileName + ".html"));
+            for (final String workUnitFileNamePrefix : EXPECTED_OUTPUT_FILE_NAME_PREFIXES) {
+                for (final String extension : Arrays.asList(".html", jsonFileExtension)) {
+                    assertZipEntryIdentical(zip, workUnitFileNamePrefix + extension,
+                            new File(expectedDir, workUnitFileNamePrefix + extension));
+                }
+            }
+            for (final String entryName : entryNames) {
+                if (entryName.startsWith(completionBaseFileName)) {
+                    assertZipEntryIdentical(zip, entryName, new File(expectedCompletionDir, entryName));
+                }
+            }
+
+            // the JSON index is built without reading the JSON files back
+            try (final Reader reader = new InputStreamReader(zip.getInputStream(zip.getEntry("features.json")), StandardCharsets.UTF_8)) {
+                assertJSONIndexFeatures(new JsonParser().parse(reader).getAsJsonObject(), expectedDir);
+            }
+        }
+    }
+
+    private void assertZipEntryIdentical(final ZipFile zip, final String entryName, final File expectedFile) throws IOException {
+        final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+        try (final InputStream in = zip.getInputStream(zip.getEntry(entryName))) {
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                actualBytes.write(buffer, 0, n);
+            }
+        }
+        Assert.assertEquals(actualBytes.toByteArray(), Files.readAllBytes(expectedFile.toPath()), entryName);
+    }
+
+    /**
+     * Doclet that opts in to releasing the property map of each work unit once it has been rendered.
+     */
+    public static class ReleasingDoclet extends HelpDoclet {
+        public static boolean start(final RootDoc rootDoc) throws IOException {
+            return new ReleasingDoclet().startProcessDocs(rootDoc);
+        }
+
+        public static int optionLength(final String option) {
+            return HelpDoclet.optionLength(option);
+        }
+
+        @Override
+        protected boolean releaseWorkUnitProperties() { return true; }
+    }
+
+    /**
+     * Doclet that makes each documentation server it starts available to the test.
+     */
+    public static class ServingDoclet extends HelpDoclet {
+        static final BlockingQueue<DocServer> servers = new LinkedBlockingQueue<>();
+
+        public static boolean start(final RootDoc rootDoc) throws IOException {
+            return new ServingDoclet().startProcessDocs(rootDoc);
+        }
+
+        public static int optionLength(final String option) {
+            return HelpDoclet.optionLength(option);
+        }
+
+        @Override
+        protected void waitForServer(final DocServer server) {
+            servers.add(server);
+            super.waitForServer(server);
+        }
+    }
+
+    @Test
+    public void testDocServer() throws Exception {
+        final File outputDir = Files.createTempDirectory("servedDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final List<String> javadocArgs = docArgList(ServingDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.addAll(Arrays.asList("-serve-port", "0", "-serve-cache-size", "2"));
+        final Thread docletThread = new Thread(() -> com.sun.tools.javadoc.Main.execute(javadocArgs.toArray(new String[] {})));
+        docletThread.setDaemon(true);
+        docletThread.start();
+
+        final DocServer server = ServingDoclet.servers.poll(2, TimeUnit.MINUTES);
+        Assert.assertNotNull(server, "The documentation server wasn't started");
+        try {
+            final File expectedDir = new File(testResourcesDir + "help/expected/HelpDoclet");
+            assertServedFileIdentical(server, "/", new File(expectedDir, indexFileName + ".html"));
+            for (final String workUnitFileNamePrefix : EXPECTED_OUTPUT_FILE_NAME_PREFIXES) {
+                for (final String extension : Arrays.asList(".html", jsonFileExtension)) {
+                    assertServedFileIdentical(server, "/" + workUnitFileNamePrefix + extension,
+                            new File(expectedDir, workUnitFileNamePrefix + extension));
+                }
+            }
+            Assert.assertEquals(getResponseCode(server, "/missing.html"), 404);
+
+            // only the most recently used files are kept
+            final String lastPrefix = EXPECTED_OUTPUT_FILE_NAME_PREFIXES.get(EXPECTED_OUTPUT_FILE_NAME_PREFIXES.size() - 1);
+            Assert.assertEquals(server.getCachedFileNames(), Arrays.asList(lastPrefix + ".html", lastPrefix + jsonFileExtension));
+
+            // nothing is written to the destination directory
+            Assert.assertEquals(outputDir.list(), new String[0]);
+        } finally {
+            server.stop();
+            docletThread.join(TimeUnit.MINUTES.toMillis(1));
+        }
+    }
+
+    private static HttpURLConnection openConnection(final DocServer server, final String path) throws IOException {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+
+    private static int getResponseCode(final DocServer server, final String path) throws IOException {
+        final HttpURLConnection connection = openConnection(server, path);
+        try {
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void assertServedFileIdentical(final DocServer server, final String path, final File expectedFile) throws IOException {
+        final HttpURLConnection connection = openConnection(server, path);
+        final ByteArrayOutputStream actualBytes = new ByteArrayOutputStream();
+        try (final InputStream in = connection.getInputStream()) {
+            final byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                actualBytes.write(buffer, 0, n);
+            }
+        } finally {
+            connection.disconnect();
+        }
+        Assert.assertEquals(actualBytes.toByteArray(), Files.readAllBytes(expectedFile.toPath()), path);
+    }
+
+    @Test
+    public void testCombinedRenderers() throws IOException {
+        final File outputDir = Files.createTempDirectory("combinedDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final List<String> javadocArgs = docArgList(HelpDoclet.class, new File(inputResourcesDir + "helpTemplates/"),
+                outputDir, "html", "html");
+        javadocArgs.addAll(Arrays.asList("-caller-script-name", "bashTabCompletionDocletTestLaunchWithDefaults.sh"));
+        com.sun.tools.javadoc.Main.execute(javadocArgs.toArray(new String[] {}));
+
+        // a single run generates the HTML and JSON output, and the completion script
+        final File expectedDir = new File(testResourcesDir + "help/expected/HelpDoclet");
+        assertFileContentsIdentical(new File(outputDir, indexFileName + ".html"), new File(expectedDir, indexFileName + ".html"));
+        for (final String workUnitFileNamePrefix : EXPECTED_OUTPUT_FILE_NAME_PREFIXES) {
+            assertWorkUnitOutputs(outputDir, expectedDir, workUnitFileNamePrefix);
+        }
+        final String completionFileName = "bashTabCompletionDocletTestLaunchWithDefaults-completion.sh";
+        assertFileContentsIdentical(
+                new File(outputDir, completionFileName),
+                new File(testResourcesDir + "help/expected/BashTabCompletionDoclet", completionFileName));
+        assertCompletionFilesIdentical(outputDir, new File(testResourcesDir + "help/expected/BashTabCompletionDoclet"),
+                "bashTabCompletionDocletTestLaunchWithDefaults-completion");
+    }
+
+    @DataProvider
+    public Object[][] getCompiledDocGenTestParams() {
+        return new Object[][] {
+                {HelpDoclet.class,
+                        new File(testResourcesDir + "help/expected/HelpDoclet"),
+                        indexFileName,
+                        new String[] {"-settings-dir", new File(inputResourcesDir + "helpTemplates/").getAbsolutePath()},
+                        false    // onlyTestIndex
+                },
+                {TestDoclet.class,
+                        new File(testResourcesDir + "help/expected/TestDoclet"),
+                        indexFileName,
+                        new String[] {"-settings-dir", new File(testResourcesDir + "help/templates/TestDoclet/").getAbsolutePath()},
+                        false    // onlyTestIndex
+                },
+                {BashTabCompletionDoclet.class,
+                        new File(testResourcesDir + "help/expected/BashTabCompletionDoclet"),
+                        "bashTabCompletionDocletTestLaunchWithDefaults-completion",
+                        new String[] {
+                                "-caller-script-name", "bashTabCompletionDocletTestLaunchWithDefaults.sh",
+                                "-use-default-templates"
+                        },
+                        true    // onlyTestIndex
+                },
+        };
+    }
+
+    @Test(dataProvider = "getCompiledDocGenTestParams")
+    public void testCompiledDocGen(
+            final Class<?> docletClass,
+            final File expectedDir,
+            final String indexFileBaseName,
+            final String[] customDocletArgs,
+            final boolean onlyTestIndex) throws IOException {
+        final File outputDir = Files.createTempDirectory("compiledDocGen").toAbsolutePath().toFile();
+        outputDir.deleteOnExit();
+        final String outputFileExtension = onlyTestIndex ? "sh" : "html";
+
+        final List<String> args = new ArrayList<>(Arrays.asList(
+                "-doclet", docletClass.getName(),
+                "-package", "org.broadinstitute.barclay.help.testinputs",
+                "-build-timestamp", "2016/01/01 01:01:01",
+                "-absolute-version", "11.1",
+                "-d", outputDir.getAbsolutePath(),
+                "-index-file-extension", outputFileExtension,
+                "-output-file-extension", outputFileExtension));
+        args.addAll(Arrays.asList(customDocletArgs));
+        Assert.assertTrue(CompiledDocGenerator.generate(args.toArray(new String[] {}), getCommentClassLoader()));
+
+        assertFileContentsIdentical(
+                new File(outputDir, indexFileBaseName + "." + outputFileExtension),
+                new File(expectedDir, indexFileBaseName + "." + outputFileExtension));
+        assertCompletionFilesIdentical(outputDir, expectedDir, indexFileBaseName);
+        if (!onlyTestIndex) {
+            for (final String workUnitFileNamePrefix : EXPECTED_OUTPUT_FILE_NAME_PREFIXES) {
+                assertWorkUnitOutputs(outputDir, expectedDir, workUnitFileNamePrefix);
+            }
+        }
+    }
+
+    // Run the comment processor over the test inputs, and return a class loader that can load the comments
+    private static synchronized ClassLoader getCommentClassLoader() throws IOException {
+        if (commentClassLoader == null) {
+            final File commentsDir = Files.createTempDirectory("docComments").toAbsolutePath().toFile();
+            commentsDir.deleteOnExit();
+            final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            try (final StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+                final File[] sources = new File("src/test/java/org/broadinstitute/barclay/help/testinputs")
+                        .listFiles((dir, name) -> name.endsWith(".java"));
+                final Boolean succeeded = compiler.getTask(
+                        null,
+                        fileManager,
+                        null,
+                        Arrays.asList(
+                                "-proc:only",
+                                "-processor", DocCommentProcessor.class.getName(),
+                                "-d", commentsDir.getAbsolutePath(),
+                                "-classpath", System.getProperty("java.class.path")),
+                        null,
+                        fileManager.getJavaFileObjects(sources)).call();
+                Assert.assertTrue(succeeded);
+            }
+            commentClassLoader = new URLClassLoader(
+                    new URL[] { commentsDir.toURI().toURL() },
+                    DocumentationGenerationIntegrationTest.class.getClassLoader());
+        }
+        return commentClassLoader;
+    }
+
+    private void assertWorkUnitOutputs(final File outputDir, final File expectedDir, final String workUnitFileNamePrefix)
+            throws IOException {
+        assertFileContentsIdentical(
+                new File(outputDir, workUnitFileNamePrefix + jsonFileExtension),
+                new File(expectedDir, workUnitFileNamePrefix + jsonFileExtension));
+        assertFileContentsIdentical(
+                new File(outputDir, workUnitFileNamePrefix + ".html"),
+                new File(expectedDir, workUnitFileNamePrefix + ".html"));
+    }
+
+    // Compare the completion index and the per-tool files written next to a completion script, if they're expected
+    private void assertCompletionFilesIdentical(final File outputDir, final File expectedDir, final String completionBaseFileName)
+            throws IOException {
+        final File expectedIndexFile = new File(expectedDir, completionBaseFileName + ".index");
+        if (expectedIndexFile.isFile()) {
+            assertFileContentsIdentical(new File(outputDir, completionBaseFileName + ".index"), expectedIndexFile);
+        }
+        final File expectedToolDir = new File(expectedDir, completionBaseFileName + ".d");
+        if (expectedToolDir.isDirectory()) {
+            final File actualToolDir = new File(outputDir, completionBaseFileName + ".d");
+            final String[] expectedFileNames = expectedToolDir.list();
+            Arrays.sort(expectedFileNames);
+            final String[] actualFileNames = actualToolDir.list();
+            Assert.assertNotNull(actualFileNames, "Missing tool completion directory " + actualToolDir);
+            Arrays.sort(actualFileNames);
+            Assert.assertEquals(actualFileNames, expectedFileNames);
+            for (final String fileName : expectedFileNames) {
+                assertFileContentsIdentical(new File(actualToolDir, fileName), new File(expectedToolDir, fileName));
+            }
+        }
+    }
+
     private void assertFileContentsIdentical(
             final File actualFile,
             final File expectedFile) throws IOException {
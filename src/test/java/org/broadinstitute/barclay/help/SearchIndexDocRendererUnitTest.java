@@ -0,0 +1,36 @@
+package org.broadinstitute.barclay.help;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test the splitting of documentation text into search terms.
+ */
+public class SearchIndexDocRendererUnitTest {
+
+    @DataProvider
+    public Object[][] getTokenizeTestParams() {
+        return new Object[][] {
+                { null, Collections.emptyList() },
+                { "", Collections.emptyList() },
+                { "Reads the input file.", Arrays.asList("reads", "input", "file") },
+                // compound words are indexed whole, and as their parts
+                { "--optionalClpEnum", Arrays.asList("optionalclpenum", "optional", "clp", "enum") },
+                { "-optDoubleList", Arrays.asList("optdoublelist", "opt", "double", "list") },
+                { "VCFHeader", Arrays.asList("vcfheader", "vcf", "header") },
+                { "READ1_ALIGNED_BAM", Arrays.asList("read1", "read", "aligned", "bam") },
+                // markup, stop words and single characters are dropped
+                { "<p>Use <b>a</b> BAM &amp; a CRAM</p>", Arrays.asList("use", "bam", "cram") },
+        };
+    }
+
+    @Test(dataProvider = "getTokenizeTestParams")
+    public void testTokenize(final String text, final List<String> expectedTerms) {
+        Assert.assertEquals(SearchIndexDocRenderer.tokenize(text), expectedTerms);
+    }
+}
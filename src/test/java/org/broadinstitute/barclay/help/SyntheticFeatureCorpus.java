@@ -0,0 +1,271 @@
+package org.broadinstitute.barclay.help;
+
+import javax.tools.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * Generates the sources for a corpus of synthetic documented tools, for benchmarking documentation generation,
+ * and compiles them. Each tool is a {@link DocumentedFeature} command line program with a given number of
+ * commented arguments of assorted types, one of a set of shared argument collections, a plugin descriptor with
+ * a set of plugins, and an extraDocs link to one of a set of documented features that aren't tools.
+ */
+final class SyntheticFeatureCorpus {
+
+    static final String PACKAGE_NAME = "org.broadinstitute.barclay.help.synthetic";
+    static final String PLUGIN_PACKAGE_NAME = PACKAGE_NAME + ".plugins";
+
+    static final int NUM_GROUPS = 5;
+    static final int ARGUMENTS_PER_COLLECTION = 5;
+    // the number of tools that share each argument collection and each extra docs feature
+    static final int TOOLS_PER_SHARED_CLASS = 10;
+
+    // types of the generated arguments, used in turn, with the initial value of each
+    private static final String[][] ARGUMENT_TYPES = {
+            { "String", "\"value\"" },
+            { "int", "1" },
+            { "double", "0.5" },
+            { "boolean", "false" },
+            { "List<File>", "new ArrayList<>()" },
+            { "SyntheticEnum", "SyntheticEnum.FIRST" },
+            { "List<String>", "new ArrayList<>(Arrays.asList(\"a\", \"b\"))" },
+    };
+
+    private final int numTools;
+    private final int numArguments;
+    private final int numPlugins;
+    private final int numSharedClasses;
+
+    /**
+     * @param numTools number of tools to generate
+     * @param numArguments number of arguments for each tool, in addition to those in its argument collection
+     * @param numPlugins number of plugins managed by the plugin descriptor
+     */
+    SyntheticFeatureCorpus(final int numTools, final int numArguments, final int numPlugins) {
+        if (numTools < 1 || numArguments < 0 || numPlugins < 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Invalid corpus size: %d tools, %d arguments, %d plugins", numTools, numArguments, numPlugins));
+        }
+        this.numTools = numTools;
+        this.numArguments = numArguments;
+        this.numPlugins = numPlugins;
+        this.numSharedClasses = (numTools + TOOLS_PER_SHARED_CLASS - 1) / TOOLS_PER_SHARED_CLASS;
+    }
+
+    /**
+     * @return the number of generated documented features: the tools and the extra docs features
+     */
+    int getNumDocumentedFeatures() { return numTools + numSharedClasses; }
+
+    /**
+     * Write the sources for the corpus.
+     *
+     * @param sourceDir root directory for the sources
+     * @return the source files that were written
+     * @throws IOException if a source file can't be written
+     */
+    List<File> writeSources(final File sourceDir) throws IOException {
+        final List<File> sourceFiles = new ArrayList<>();
+        sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticProgramGroup", programGroupSource()));
+        sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticEnum", enumSource()));
+        sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticPluginBase", pluginBaseSource()));
+        sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticPluginDescriptor", pluginDescriptorSource()));
+        for (int i = 0; i < numPlugins; i++) {
+            sourceFiles.add(writeSource(sourceDir, PLUGIN_PACKAGE_NAME, "SyntheticPlugin" + i, pluginSource(i)));
+        }
+        for (int i = 0; i < numSharedClasses; i++) {
+            sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticArgumentCollection" + i, argumentCollectionSource(i)));
+            sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticExtraDocs" + i, extraDocsSource(i)));
+        }
+        for (int i = 0; i < numTools; i++) {
+            sourceFiles.add(writeSource(sourceDir, PACKAGE_NAME, "SyntheticTool" + i, toolSource(i)));
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * Compile the corpus, against the current class path.
+     *
+     * @param sourceFiles the source files for the corpus
+     * @param classesDir directory in which to write the class files
+     * @throws IOException if the sources can't be read or the class files can't be written
+     */
+    static void compile(final List<File> sourceFiles, final File classesDir) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No system Java compiler is available");
+        }
+        Files.createDirectories(classesDir.toPath());
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (final StandardJavaFileManager fileManager =
+                     compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8)) {
+            final List<String> options = Arrays.asList(
+                    "-proc:none",
+                    "-d", classesDir.getAbsolutePath(),
+                    "-cp", System.getProperty("java.class.path"));
+            final boolean succeeded = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+            if (!succeeded) {
+                throw new IllegalStateException("Failed to compile the synthetic corpus: " + diagnostics.getDiagnostics());
+            }
+        }
+    }
+
+    private static File writeSource(final File sourceDir, final String packageName, final String className,
+            final String source) throws IOException {
+        final File packageDir = new File(sourceDir, packageName.replace('.', File.separatorChar));
+        Files.createDirectories(packageDir.toPath());
+        final File sourceFile = new File(packageDir, className + ".java");
+        Files.write(sourceFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return sourceFile;
+    }
+
+    private static String header(final String packageName) {
+        return "package " + packageName + ";\n\n" +
+                "import org.broadinstitute.barclay.argparser.*;\n" +
+                "import org.broadinstitute.barclay.help.DocumentedFeature;\n\n" +
+                "import java.io.File;\n" +
+                "import java.util.*;\n\n";
+    }
+
+    private static String programGroupSource() {
+        return header(PACKAGE_NAME) +
+                "/** Program group for the synthetic tools. */\n" +
+                "public final class SyntheticProgramGroup implements CommandLineProgramGroup {\n" +
+                "    @Override public String getName() { return \"Synthetic\"; }\n" +
+                "    @Override public String getDescription() { return \"Synthetic tools\"; }\n" +
+                "}\n";
+    }
+
+    private static String enumSource() {
+        return header(PACKAGE_NAME) +
+                "/** Enum for synthetic enum arguments. */\n" +
+                "public enum SyntheticEnum implements CommandLineParser.ClpEnum {\n" +
+                "    FIRST, SECOND, THIRD;\n" +
+                "    @Override public String getHelpDoc() { return \"The \" + name().toLowerCase() + \" value.\"; }\n" +
+                "}\n";
+    }
+
+    private static String pluginBaseSource() {
+        return header(PACKAGE_NAME) +
+                "/** Base class for the synthetic plugins. */\n" +
+                "public class SyntheticPluginBase {\n" +
+                "}\n";
+    }
+
+    private static String pluginDescriptorSource() {
+        return header(PACKAGE_NAME) +
+                "/** Descriptor for the synthetic plugins. */\n" +
+                "public class SyntheticPluginDescriptor extends CommandLinePluginDescriptor<SyntheticPluginBase> {\n" +
+                "    public static final String PLUGIN_ARGUMENT_NAME = \"syntheticPlugin\";\n\n" +
+                "    /** Names of the plugins to use. */\n" +
+                "    @Argument(fullName = PLUGIN_ARGUMENT_NAME, doc = \"Synthetic plugins to use\", optional = true)\n" +
+                "    public List<String> userPluginNames = new ArrayList<>();\n\n" +
+                "    private final Map<String, SyntheticPluginBase> plugins = new LinkedHashMap<>();\n\n" +
+                "    @Override public String getDisplayName() { return PLUGIN_ARGUMENT_NAME; }\n" +
+                "    @Override public Class<?> getPluginBaseClass() { return SyntheticPluginBase.class; }\n" +
+                "    @Override public List<String> getPackageNames() { return Collections.singletonList(\"" + PLUGIN_PACKAGE_NAME + "\"); }\n" +
+                "    @Override public boolean includePluginClass(final Class<?> pluginClass) {\n" +
+                "        return !pluginClass.equals(SyntheticPluginBase.class);\n" +
+                "    }\n" +
+                "    @Override public SyntheticPluginBase createInstanceForPlugin(final Class<?> pluginClass)\n" +
+                "            throws IllegalAccessException, InstantiationException {\n" +
+                "        final SyntheticPluginBase plugin = (SyntheticPluginBase) pluginClass.newInstance();\n" +
+                "        plugins.put(pluginClass.getSimpleName(), plugin);\n" +
+                "        return plugin;\n" +
+                "    }\n" +
+                "    @Override public boolean isDependentArgumentAllowed(final Class<?> predecessorClass) {\n" +
+                "        return userPluginNames.contains(predecessorClass.getSimpleName());\n" +
+                "    }\n" +
+                "    @Override public void validateAndResolvePlugins() {}\n" +
+                "    @Override public List<SyntheticPluginBase> getDefaultInstances() { return new ArrayList<>(); }\n" +
+                "    @Override public List<SyntheticPluginBase> getResolvedInstances() {\n" +
+                "        final List<SyntheticPluginBase> resolved = new ArrayList<>();\n" +
+                "        userPluginNames.forEach(name -> resolved.add(plugins.get(name)));\n" +
+                "        return resolved;\n" +
+                "    }\n" +
+                "    @Override public Set<String> getAllowedValuesForDescriptorHelp(final String longArgName) {\n" +
+                "        return longArgName.equals(PLUGIN_ARGUMENT_NAME) ? plugins.keySet() : null;\n" +
+                "    }\n" +
+                "    @Override public Class<?> getClassForPluginHelp(final String pluginName) {\n" +
+                "        return plugins.containsKey(pluginName) ? plugins.get(pluginName).getClass() : null;\n" +
+                "    }\n" +
+                "}\n";
+    }
+
+    private static String pluginSource(final int index) {
+        return header(PLUGIN_PACKAGE_NAME) +
+                "import " + PACKAGE_NAME + ".SyntheticPluginBase;\n\n" +
+                "/** Synthetic plugin " + index + ". */\n" +
+                "public class SyntheticPlugin" + index + " extends SyntheticPluginBase {\n" +
+                "    /** Argument for synthetic plugin " + index + ". */\n" +
+                "    @Argument(fullName = \"syntheticPlugin" + index + "Argument\", doc = \"Argument for plugin " + index + "\", optional = true)\n" +
+                "    public int pluginArgument = " + index + ";\n" +
+                "}\n";
+    }
+
+    private static String argumentCollectionSource(final int index) {
+        final StringBuilder source = new StringBuilder(header(PACKAGE_NAME))
+                .append("/** Synthetic argument collection ").append(index).append(". */\n")
+                .append("public class SyntheticArgumentCollection").append(index).append(" {\n");
+        for (int i = 0; i < ARGUMENTS_PER_COLLECTION; i++) {
+            appendArgument(source, "collection" + index + "Argument" + i, "shared collection " + index + " argument " + i, i);
+        }
+        return source.append("}\n").toString();
+    }
+
+    private static String extraDocsSource(final int index) {
+        return header(PACKAGE_NAME) +
+                "/**\n" +
+                " * Synthetic feature " + index + ", which is documented with the tools that refer to it.\n" +
+                " */\n" +
+                "@DocumentedFeature(groupName = \"Synthetic extra docs\")\n" +
+                "public class SyntheticExtraDocs" + index + " {\n" +
+                "    /** Argument for synthetic feature " + index + ". */\n" +
+                "    @Argument(fullName = \"extraDocs" + index + "Argument\", doc = \"Extra docs argument\", optional = true)\n" +
+                "    public String extraDocsArgument;\n" +
+                "}\n";
+    }
+
+    private String toolSource(final int index) {
+        final int sharedIndex = index / TOOLS_PER_SHARED_CLASS;
+        final StringBuilder source = new StringBuilder(header(PACKAGE_NAME))
+                .append("/**\n")
+                .append(" * Synthetic tool ").append(index).append(", which processes <b>synthetic</b> inputs.\n")
+                .append(" *\n")
+                .append(" * <p>Refers to {@link SyntheticExtraDocs").append(sharedIndex).append("}.</p>\n")
+                .append(" */\n")
+                .append("@CommandLineProgramProperties(\n")
+                .append("        summary = \"Synthetic tool ").append(index).append(" summary\",\n")
+                .append("        oneLineSummary = \"Synthetic tool ").append(index).append("\",\n")
+                .append("        programGroup = SyntheticProgramGroup.class)\n")
+                .append("@DocumentedFeature(groupName = \"Synthetic tools ").append(index % NUM_GROUPS)
+                .append("\", extraDocs = SyntheticExtraDocs").append(sharedIndex).append(".class)\n")
+                .append("public class SyntheticTool").append(index).append(" implements CommandLinePluginProvider {\n")
+                .append("    @ArgumentCollection\n")
+                .append("    public SyntheticArgumentCollection").append(sharedIndex)
+                .append(" collection = new SyntheticArgumentCollection").append(sharedIndex).append("();\n\n");
+        for (int i = 0; i < numArguments; i++) {
+            appendArgument(source, "tool" + index + "Argument" + i, "tool " + index + " argument " + i, i);
+        }
+        return source
+                .append("    @Override\n")
+                .append("    public List<? extends CommandLinePluginDescriptor<?>> getPluginDescriptors() {\n")
+                .append("        return Collections.singletonList(new SyntheticPluginDescriptor());\n")
+                .append("    }\n")
+                .append("}\n")
+                .toString();
+    }
+
+    private static void appendArgument(final StringBuilder source, final String name, final String description, final int index) {
+        final String[] type = ARGUMENT_TYPES[index % ARGUMENT_TYPES.length];
+        source.append("    /**\n")
+                .append("     * Full text for the ").append(description).append(", which is a <i>").append(type[0]).append("</i>.\n")
+                .append("     */\n")
+                .append("    @Argument(fullName = \"").append(name).append("\", shortName = \"").append(name).append("Short")
+                .append("\", doc = \"Summary for the ").append(description).append("\", optional = true)\n")
+                .append("    public ").append(type[0]).append(" ").append(name).append(" = ").append(type[1]).append(";\n\n");
+    }
+}
@@ -0,0 +1,13 @@
+package org.broadinstitute.barclay.help.testinputs;
+
+/**
+ * Class that can't be initialized (like a class with unavailable native bindings), used to test that
+ * documentation generation doesn't load classes that aren't annotated for documentation.
+ */
+public class TestUnloadableClass {
+    static {
+        if (true) {
+            throw new IllegalStateException("TestUnloadableClass must not be initialized by the doclet");
+        }
+    }
+}
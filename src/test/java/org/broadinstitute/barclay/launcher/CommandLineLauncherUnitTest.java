@@ -0,0 +1,171 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.broadinstitute.barclay.argparser.*;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
+
+public class CommandLineLauncherUnitTest {
+
+    @CommandLineProgramProperties(
+            summary = "Launcher test tool",
+            oneLineSummary = "Launcher test tool",
+            programGroup = TestProgramGroup.class
+    )
+    public static class LauncherTestTool implements Callable<Integer> {
+        @Argument(fullName = "exitCode", optional = true)
+        public int exitCode = 0;
+
+        @Override
+        public Integer call() {
+            return exitCode;
+        }
+    }
+
+    @BetaFeature
+    @CommandLineProgramProperties(
+            summary = "Launcher test beta tool",
+            oneLineSummary = "Launcher test beta tool\twith a tab",
+            programGroup = TestProgramGroup.class,
+            omitFromCommandLine = true
+    )
+    public static class LauncherTestBetaTool implements Runnable {
+        @Argument(fullName = "required")
+        public String required;
+
+        @Override
+        public void run() { }
+    }
+
+    private static CommandLineToolIndex.Entry unloadableEntry() {
+        return new CommandLineToolIndex.Entry(
+                "Unloadable",
+                "org.broadinstitute.barclay.launcher.DoesNotExist",
+                TestProgramGroup.class.getName(),
+                "Unloaded group",
+                "Group whose tools are never loaded",
+                "A tool that is listed but can't be loaded",
+                false,
+                true,
+                false);
+    }
+
+    private static CommandLineLauncher createLauncher(final CommandLineToolIndex.Entry... extraEntries) {
+        final List<CommandLineToolIndex.Entry> entries = new ArrayList<>(
+                CommandLineToolIndex.fromClasses(Arrays.asList(LauncherTestTool.class, LauncherTestBetaTool.class)).getEntries());
+        entries.addAll(Arrays.asList(extraEntries));
+        return new CommandLineLauncher(
+                new CommandLineToolIndex(entries),
+                CommandLineLauncherUnitTest.class.getClassLoader(),
+                CommandLineToolRunner.DEFAULT);
+    }
+
+    @Test
+    public void testIndexFromClasses() {
+        final CommandLineToolIndex index =
+                CommandLineToolIndex.fromClasses(Arrays.asList(LauncherTestTool.class, LauncherTestBetaTool.class));
+        final CommandLineToolIndex.Entry entry = index.getEntry("LauncherTestBetaTool");
+        Assert.assertEquals(entry.getClassName(), LauncherTestBetaTool.class.getName());
+        Assert.assertEquals(entry.getGroupClassName(), TestProgramGroup.class.getName());
+        Assert.assertEquals(entry.getGroupName(), TestProgramGroup.NAME);
+        Assert.assertEquals(entry.getGroupDescription(), TestProgramGroup.DESCRIPTION);
+        Assert.assertEquals(entry.getSummary(), "Launcher test beta tool\twith a tab");
+        Assert.assertTrue(entry.isBeta());
+        Assert.assertFalse(entry.isExperimental());
+        Assert.assertTrue(entry.isOmitFromCommandLine());
+        Assert.assertFalse(index.getEntry("LauncherTestTool").isBeta());
+    }
+
+    @Test
+    public void testIndexRoundTrip() throws IOException {
+        final CommandLineToolIndex index = createLauncher(unloadableEntry()).getToolIndex();
+        final StringWriter writer = new StringWriter();
+        index.write(writer);
+
+        final CommandLineToolIndex roundTripped = CommandLineToolIndex.read(new StringReader(writer.toString()));
+        Assert.assertEquals(roundTripped.getEntries().size(), 3);
+        for (final CommandLineToolIndex.Entry expected : index.getEntries()) {
+            final CommandLineToolIndex.Entry actual = roundTripped.getEntry(expected.getName());
+            Assert.assertEquals(actual.getClassName(), expected.getClassName());
+            Assert.assertEquals(actual.getGroupClassName(), expected.getGroupClassName());
+            Assert.assertEquals(actual.getGroupName(), expected.getGroupName());
+            Assert.assertEquals(actual.getGroupDescription(), expected.getGroupDescription());
+            Assert.assertEquals(actual.getSummary(), expected.getSummary());
+            Assert.assertEquals(actual.isBeta(), expected.isBeta());
+            Assert.assertEquals(actual.isExperimental(), expected.isExperimental());
+            Assert.assertEquals(actual.isOmitFromCommandLine(), expected.isOmitFromCommandLine());
+        }
+    }
+
+    @Test(expectedExceptions = CommandLineException.CommandLineParserInternalException.class)
+    public void testMalformedIndex() throws IOException {
+        CommandLineToolIndex.read(new StringReader("#barclay-tool-index\t1\nTool\tclass.Name\n"));
+    }
+
+    @Test
+    public void testIndexFromPackages() {
+        final CommandLineToolIndex index = CommandLineToolIndex.fromPackages(
+                Collections.singletonList(CommandLineLauncherUnitTest.class.getPackage().getName()));
+        Assert.assertNotNull(index.getEntry("LauncherTestTool"));
+        Assert.assertNotNull(index.getEntry("LauncherTestBetaTool"));
+    }
+
+    @Test
+    public void testListDoesNotLoadTools() {
+        // the index includes a tool whose class doesn't exist, which is fine as long as it isn't selected
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final int exitCode = createLauncher(unloadableEntry()).launch(
+                new String[] { CommandLineLauncher.LIST_TOOLS_OPTION }, new PrintStream(out), System.err);
+        Assert.assertEquals(exitCode, 0);
+
+        final String toolList = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(toolList.contains("LauncherTestTool"));
+        Assert.assertTrue(toolList.contains("Unloadable"));
+        Assert.assertTrue(toolList.contains("(EXPERIMENTAL Tool)"));
+        Assert.assertTrue(toolList.contains(TestProgramGroup.NAME + ":"));
+        // omitted from the command line
+        Assert.assertFalse(toolList.contains("LauncherTestBetaTool"));
+    }
+
+    @Test
+    public void testLaunchTool() {
+        final CommandLineLauncher launcher = createLauncher(unloadableEntry());
+        Assert.assertEquals(launcher.launch(new String[] {"LauncherTestTool", "--exitCode", "3"}, System.out, System.err), 3);
+        Assert.assertEquals(launcher.launch(new String[] {"LauncherTestBetaTool", "--required", "x"}, System.out, System.err), 0);
+    }
+
+    @Test
+    public void testLaunchErrors() {
+        final CommandLineLauncher launcher = createLauncher();
+        final PrintStream err = new PrintStream(new ByteArrayOutputStream());
+        Assert.assertEquals(launcher.launch(new String[0], System.out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+        Assert.assertEquals(launcher.launch(new String[] {"NoSuchTool"}, System.out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+        Assert.assertEquals(launcher.launch(new String[] {"LauncherTestBetaTool"}, System.out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+        Assert.assertEquals(launcher.launch(new String[] {"LauncherTestTool", "--exitCode", "notAnInt"}, System.out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+    }
+
+    @Test
+    public void testUnloadableTool() {
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int exitCode = createLauncher(unloadableEntry()).launch(
+                new String[] {"Unloadable"}, System.out, new PrintStream(err, true));
+        Assert.assertEquals(exitCode, CommandLineLauncher.EXIT_CODE_TOOL_ERROR);
+
+        final String errors = new String(err.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(errors.contains("Can't load tool Unloadable (org.broadinstitute.barclay.launcher.DoesNotExist)"));
+        Assert.assertFalse(errors.contains("USER ERROR"));
+    }
+
+    @Test(expectedExceptions = CommandLineException.CommandLineParserInternalException.class)
+    public void testCreateUnloadableTool() {
+        createLauncher(unloadableEntry()).createTool(unloadableEntry());
+    }
+}
@@ -0,0 +1,198 @@
+package org.broadinstitute.barclay.launcher;
+
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineProgramProperties;
+import org.broadinstitute.barclay.argparser.TestProgramGroup;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+public class CommandLineServerUnitTest {
+
+    private static final String TOKEN = CommandLineServer.createAuthToken();
+
+    private CommandLineServer server;
+
+    @CommandLineProgramProperties(
+            summary = "Server test tool that writes to the standard streams",
+            oneLineSummary = "Server test tool that writes to the standard streams",
+            programGroup = TestProgramGroup.class
+    )
+    public static class PrintingTool implements Runnable {
+        @Argument(fullName = "message")
+        public String message;
+
+        @Argument(fullName = "fromThread", optional = true)
+        public boolean fromThread = false;
+
+        @Argument(fullName = "file", optional = true)
+        public File file;
+
+        @Override
+        public void run() {
+            System.out.println("out:" + message);
+            System.err.println("err:" + message);
+            if (file != null) {
+                System.out.println("file:" + file.getPath());
+            }
+            if (fromThread) {
+                // threads started by the tool don't write to the request's streams
+                final Thread thread = new Thread(() -> System.out.println("thread:" + message));
+                thread.start();
+                try {
+                    thread.join();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        final CommandLineToolIndex index = CommandLineToolIndex.fromClasses(
+                Collections.singletonList(CommandLineLauncherUnitTest.LauncherTestTool.class));
+        final CommandLineLauncher launcher = new CommandLineLauncher(
+                index,
+                getClass().getClassLoader(),
+                (tool, out, err) -> {
+                    final int exitCode = ((CommandLineLauncherUnitTest.LauncherTestTool) tool).call();
+                    out.println("out:" + exitCode);
+                    err.println("err:" + exitCode);
+                    return exitCode;
+                });
+        launcher.warmUp();
+        server = new CommandLineServer(launcher, 0, 4, TOKEN);
+        server.start();
+    }
+
+    @AfterClass
+    public void stopServer() throws IOException {
+        server.close();
+    }
+
+    private static String toString(final ByteArrayOutputStream stream) {
+        return new String(stream.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testRunTool() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        final int exitCode = CommandLineClient.run(
+                server.getPort(), TOKEN, new String[] {"LauncherTestTool", "--exitCode", "7"}, out, err);
+        Assert.assertEquals(exitCode, 7);
+        Assert.assertEquals(toString(out), "out:7" + System.lineSeparator());
+        Assert.assertEquals(toString(err), "err:7" + System.lineSeparator());
+    }
+
+    @Test
+    public void testArgumentErrors() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        Assert.assertEquals(
+                CommandLineClient.run(server.getPort(), TOKEN, new String[] {"LauncherTestTool", "--exitCode", "x"}, out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+        Assert.assertTrue(toString(err).contains("A USER ERROR has occurred"));
+        Assert.assertEquals(
+                CommandLineClient.run(server.getPort(), TOKEN, new String[] {"NoSuchTool"}, out, err),
+                CommandLineLauncher.EXIT_CODE_COMMAND_LINE_ERROR);
+    }
+
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                final int expected = i;
+                results.add(executor.submit(() -> {
+                    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    final int exitCode = CommandLineClient.run(server.getPort(), TOKEN,
+                            new String[] {"LauncherTestTool", "--exitCode", Integer.toString(expected)},
+                            out, new ByteArrayOutputStream());
+                    Assert.assertEquals(toString(out), "out:" + expected + System.lineSeparator());
+                    return exitCode;
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(results.get(i).get().intValue(), i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = EOFException.class)
+    public void testBadToken() throws IOException {
+        CommandLineClient.run(server.getPort(), "not the token", new String[] {"LauncherTestTool"},
+                new ByteArrayOutputStream(), new ByteArrayOutputStream());
+    }
+
+    @Test
+    public void testDefaultServerStandardStreams() throws IOException {
+        // a class path entry with a tool index resource, as would be packaged into an application jar
+        final Path classPathDir = Files.createTempDirectory("barclayServer");
+        classPathDir.toFile().deleteOnExit();
+        final Path indexFile = classPathDir.resolve(CommandLineToolIndex.INDEX_RESOURCE);
+        Files.createDirectories(indexFile.getParent());
+        try (final Writer writer = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8)) {
+            CommandLineToolIndex.fromClasses(Collections.singletonList(PrintingTool.class)).write(writer);
+        }
+        final Path connectionFile = classPathDir.resolve("server.connection");
+
+        final PrintStream systemOut = System.out;
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        try (final URLClassLoader classLoader = new URLClassLoader(
+                new URL[] { classPathDir.toUri().toURL() }, getClass().getClassLoader())) {
+            thread.setContextClassLoader(classLoader);
+            try (final CommandLineServer defaultServer = CommandLineServer.startServer(connectionFile, 0, 2)) {
+                final List<String> connection = Files.readAllLines(connectionFile, StandardCharsets.UTF_8);
+                Assert.assertEquals(connection.get(0), Integer.toString(defaultServer.getPort()));
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                final ByteArrayOutputStream err = new ByteArrayOutputStream();
+                final int exitCode = CommandLineClient.run(Integer.parseInt(connection.get(0)), connection.get(1),
+                        new String[] {"PrintingTool", "--message", "hello"}, out, err);
+                Assert.assertEquals(exitCode, 0);
+                Assert.assertEquals(toString(out), "out:hello" + System.lineSeparator());
+                Assert.assertEquals(toString(err), "err:hello" + System.lineSeparator());
+
+                final ByteArrayOutputStream threadOut = new ByteArrayOutputStream();
+                Assert.assertEquals(CommandLineClient.run(Integer.parseInt(connection.get(0)), connection.get(1),
+                        new String[] {"PrintingTool", "--message", "hello", "--fromThread"}, threadOut, err), 0);
+                Assert.assertEquals(toString(threadOut), "out:hello" + System.lineSeparator());
+
+                // relative paths are resolved against the client's working directory
+                final ByteArrayOutputStream fileOut = new ByteArrayOutputStream();
+                Assert.assertEquals(CommandLineClient.run(Integer.parseInt(connection.get(0)), connection.get(1),
+                        classPathDir.toFile(), new String[] {"PrintingTool", "--message", "hello", "--file", "input.txt"},
+                        fileOut, err), 0);
+                Assert.assertEquals(toString(fileOut), "out:hello" + System.lineSeparator() +
+                        "file:" + new File(classPathDir.toFile(), "input.txt").getPath() + System.lineSeparator());
+            }
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+        // the streams are put back when the server is closed (other servers may still be routing them)
+        Assert.assertSame(System.out, systemOut);
+    }
+
+    @Test
+    public void testConnectionFile() throws IOException {
+        final Path connectionFile = Files.createTempFile("barclayServer", ".connection");
+        connectionFile.toFile().deleteOnExit();
+        CommandLineServer.writeConnectionFile(connectionFile, 1234, TOKEN);
+        Assert.assertEquals(Files.readAllLines(connectionFile, StandardCharsets.UTF_8), Arrays.asList("1234", TOKEN));
+    }
+}
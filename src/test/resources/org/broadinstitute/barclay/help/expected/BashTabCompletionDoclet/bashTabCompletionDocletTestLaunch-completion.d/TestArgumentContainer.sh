@@ -0,0 +1,19 @@
+####################
+# Tab completion information for the TestArgumentContainer tool.
+# This is sourced by the bashTabCompletionDocletTestLaunch completion script the first time the tool is completed.
+####################
+
+
+_bashTabCompletionDocletTestLaunch_setupTool_TestArgumentContainer()
+{
+    NUM_POSITIONAL_ARGUMENTS=2
+    POSITIONAL_ARGUMENT_TYPE=("List[File]")
+    DEPENDENT_ARGUMENTS=()
+    NORMAL_COMPLETION_ARGUMENTS=(--requiredClpEnum --requiredFileList --requiredInputFilesFromArgCollection --requiredStringInputFromArgCollection --requiredStringList --usesFieldNameForArgName --fullAnonymousArgName --mutexArg --mutexTargetField1 --mutexTargetField2 --optionalClpEnum --optionalDouble --optionalDoubleList --optionalFileList --optionalFlag --optionalInputFilesFromArgCollection --optionalStringInputFromArgCollection --optionalStringList --testPlugin --advancedOptionalInt --deprecatedString )
+    ARGUMENT_TYPES=([--requiredClpEnum]="TestEnum" [--requiredFileList]="List[File]" [--requiredInputFilesFromArgCollection]="List[File]" [--requiredStringInputFromArgCollection]="String" [--requiredStringList]="List[String]" [--usesFieldNameForArgName]="String" [--fullAnonymousArgName]="List[File]" [--mutexArg]="List[File]" [--mutexTargetField1]="List[File]" [--mutexTargetField2]="List[File]" [--optionalClpEnum]="TestEnum" [--optionalDouble]="double" [--optionalDoubleList]="List[Double]" [--optionalFileList]="List[File]" [--optionalFlag]="boolean" [--optionalInputFilesFromArgCollection]="List[File]" [--optionalStringInputFromArgCollection]="String" [--optionalStringList]="List[String]" [--testPlugin]="List[String]" [--advancedOptionalInt]="int" [--deprecatedString]="int" )
+    MUTUALLY_EXCLUSIVE_ARGS=([--mutexArg]="--READ1_ALIGNED_BAM --READ2_ALIGNED_BAM" [--mutexTargetField1]="--mutexSourceField" [--mutexTargetField2]="--mutexSourceField" )
+    ARGUMENT_SYNONYMS=([--requiredClpEnum]="-requiredClpEnum" [--requiredFileList]="-reqFilList" [--requiredInputFilesFromArgCollection]="-rRequiredInputFilesFromArgCollection" [--requiredStringInputFromArgCollection]="-requiredStringInputFromArgCollection" [--requiredStringList]="-reqStrList" [--fullAnonymousArgName]="-anonymousClassArg" [--mutexArg]="-mutexArg" [--mutexTargetField1]="-mutexTargetField1" [--mutexTargetField2]="-mutexTargetField2" [--optionalClpEnum]="-optionalClpEnum" [--optionalDouble]="-optDouble" [--optionalDoubleList]="-optDoubleList" [--optionalFileList]="-optFilList" [--optionalFlag]="-optFlag" [--optionalInputFilesFromArgCollection]="-optionalInputFilesFromArgCollection" [--optionalStringInputFromArgCollection]="-optionalStringInputFromArgCollection" [--optionalStringList]="-optStrList" [--advancedOptionalInt]="-advancedOptInt" [--deprecatedString]="-depStr" )
+    SYNONYM_ARGUMENTS=([-requiredClpEnum]="--requiredClpEnum" [-reqFilList]="--requiredFileList" [-rRequiredInputFilesFromArgCollection]="--requiredInputFilesFromArgCollection" [-requiredStringInputFromArgCollection]="--requiredStringInputFromArgCollection" [-reqStrList]="--requiredStringList" [-anonymousClassArg]="--fullAnonymousArgName" [-mutexArg]="--mutexArg" [-mutexTargetField1]="--mutexTargetField1" [-mutexTargetField2]="--mutexTargetField2" [-optionalClpEnum]="--optionalClpEnum" [-optDouble]="--optionalDouble" [-optDoubleList]="--optionalDoubleList" [-optFilList]="--optionalFileList" [-optFlag]="--optionalFlag" [-optionalInputFilesFromArgCollection]="--optionalInputFilesFromArgCollection" [-optionalStringInputFromArgCollection]="--optionalStringInputFromArgCollection" [-optStrList]="--optionalStringList" [-advancedOptInt]="--advancedOptionalInt" [-depStr]="--deprecatedString" )
+    ARGUMENT_MIN_OCCURRENCES=([--requiredClpEnum]="0" [--requiredFileList]="0" [--requiredInputFilesFromArgCollection]="0" [--requiredStringInputFromArgCollection]="0" [--requiredStringList]="0" [--usesFieldNameForArgName]="0" [--fullAnonymousArgName]="0" [--mutexArg]="0" [--mutexTargetField1]="0" [--mutexTargetField2]="0" [--optionalClpEnum]="0" [--optionalDouble]="0" [--optionalDoubleList]="0" [--optionalFileList]="0" [--optionalFlag]="0" [--optionalInputFilesFromArgCollection]="0" [--optionalStringInputFromArgCollection]="0" [--optionalStringList]="0" [--testPlugin]="0" [--advancedOptionalInt]="0" [--deprecatedString]="0" )
+    ARGUMENT_MAX_OCCURRENCES=([--requiredClpEnum]="2147483647" [--requiredFileList]="2147483647" [--requiredInputFilesFromArgCollection]="2147483647" [--requiredStringInputFromArgCollection]="2147483647" [--requiredStringList]="2147483647" [--usesFieldNameForArgName]="2147483647" [--fullAnonymousArgName]="2147483647" [--mutexArg]="2147483647" [--mutexTargetField1]="2147483647" [--mutexTargetField2]="2147483647" [--optionalClpEnum]="2147483647" [--optionalDouble]="2147483647" [--optionalDoubleList]="2147483647" [--optionalFileList]="2147483647" [--optionalFlag]="2147483647" [--optionalInputFilesFromArgCollection]="2147483647" [--optionalStringInputFromArgCollection]="2147483647" [--optionalStringList]="2147483647" [--testPlugin]="2147483647" [--advancedOptionalInt]="2147483647" [--deprecatedString]="2147483647" )
+}
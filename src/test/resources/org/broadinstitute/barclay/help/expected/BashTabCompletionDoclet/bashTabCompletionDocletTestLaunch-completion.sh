@@ -1,46 +1,92 @@
-
 ####################
 # Tab completion file to allow for easy use of this tool with the command-line using Bash.
+#
+# The completion information for each tool is in a separate file in the bashTabCompletionDocletTestLaunch-completion.d
+# directory next to this file, which is only sourced the first time that tool is completed. The allowed values of
+# arguments (such as enum constants and plugin names) are looked up in the bashTabCompletionDocletTestLaunch-completion.index
+# file next to this file.
+# Requires Bash 4.2 or later.
 ####################
 
 
 ####################################################################################################
 
+# The completion functions use associative arrays and other features that require Bash 4.2, so don't set up
+# completion at all for older versions.
+if (( BASH_VERSINFO[0] < 4 || ( BASH_VERSINFO[0] == 4 && BASH_VERSINFO[1] < 2 ) )) ; then
+    echo "Tab completion for bashTabCompletionDocletTestLaunch requires Bash 4.2 or later" >&2
+    return 0
+fi
+
 # High-level caller/dispatch script information:
 
 CALLER_SCRIPT_NAME="bashTabCompletionDocletTestLaunch"
 
-# A description of these variables is below in the main completion function (_masterCompletionFunction)
-CS_PREFIX_OPTIONS_ALL_LEGAL_ARGUMENTS=(--pre-help --pre-info --pre-inputFile TestExtraDocs TestArgumentContainer )
-CS_PREFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS=(--pre-help --pre-info --pre-inputFile TestExtraDocs TestArgumentContainer )
-CS_PREFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES=("null" "null" "File" "null" "null" )
-CS_PREFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS=("--pre-help;pre-info,pre-inputFile" "--pre-info;pre-help,pre-inputFile")
-CS_PREFIX_OPTIONS_SYNONYMOUS_ARGS=("--pre-help;-prh" "--pre-inputFile;-prif")
-CS_PREFIX_OPTIONS_MIN_OCCURRENCES=(0 0 1 0 0 )
-CS_PREFIX_OPTIONS_MAX_OCCURRENCES=(1 1 1 1 1 )
-
-CS_POSTFIX_OPTIONS_ALL_LEGAL_ARGUMENTS=(--post-help --post-info --post-inputFile)
-CS_POSTFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS=(--post-help --post-info --post-inputFile)
-CS_POSTFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES=("null" "null" "File")
-CS_POSTFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS=("--post-help;post-info,post-inputFile" "--post-info;post-help,post-inputFile")
-CS_POSTFIX_OPTIONS_SYNONYMOUS_ARGS=("--post-help;-poh" "--post-inputFile;-poif")
-CS_POSTFIX_OPTIONS_MIN_OCCURRENCES=(0 0 1)
-CS_POSTFIX_OPTIONS_MAX_OCCURRENCES=(1 1 1)
-
-# Whether we have to worry about these extra script options at all.
-HAS_POSTFIX_OPTIONS="true"
-
-# All the tool names we are able to complete:
-ALL_TOOLS=(TestExtraDocs TestArgumentContainer )
+# The directory containing this file:
+_bashTabCompletionDocletTestLaunch_COMPLETION_DIR="${BASH_SOURCE[0]%/*}"
+[[ "${BASH_SOURCE[0]}" != */* ]] && _bashTabCompletionDocletTestLaunch_COMPLETION_DIR="."
+[[ "${_bashTabCompletionDocletTestLaunch_COMPLETION_DIR}" != /* ]] && _bashTabCompletionDocletTestLaunch_COMPLETION_DIR="${PWD}/${_bashTabCompletionDocletTestLaunch_COMPLETION_DIR}"
+
+# The directory containing the completion information for each tool:
+_bashTabCompletionDocletTestLaunch_TOOL_COMPLETION_DIR="${_bashTabCompletionDocletTestLaunch_COMPLETION_DIR}/bashTabCompletionDocletTestLaunch-completion.d"
+
+# The completion index, which has a line for each tool, each argument of a tool, and each allowed value of an
+# argument, with the fields of each line separated by tabs. The lines are sorted, so that the index can be searched
+# with look(1).
+_bashTabCompletionDocletTestLaunch_COMPLETION_INDEX="${_bashTabCompletionDocletTestLaunch_COMPLETION_DIR}/bashTabCompletionDocletTestLaunch-completion.index"
+
+# Whether we have to worry about the caller script options that come after the tool options at all.
+_bashTabCompletionDocletTestLaunch_HAS_POSTFIX_OPTIONS="true"
+
+# All the tool names we are able to complete, for fast lookup:
+declare -gA _bashTabCompletionDocletTestLaunch_ALL_TOOLS=([TestArgumentContainer]=1 [TestExtraDocs]=1 )
 
 ####################################################################################################
 
+# Set up the completion information for the caller script options that come before the tool, and the tools themselves.
+# A description of these variables is below in the main completion function (_masterCompletionFunction)
+_bashTabCompletionDocletTestLaunch_setupPrefixOptions()
+{
+    NORMAL_COMPLETION_ARGUMENTS=(--pre-help --pre-info --pre-inputFile TestArgumentContainer TestExtraDocs )
+    ARGUMENT_TYPES=([--pre-help]="null" [--pre-info]="null" [--pre-inputFile]="File" [TestArgumentContainer]="null" [TestExtraDocs]="null" )
+    MUTUALLY_EXCLUSIVE_ARGS=([--pre-help]="--pre-info --pre-inputFile" [--pre-info]="--pre-help --pre-inputFile" )
+    ARGUMENT_SYNONYMS=([--pre-help]="-prh" [--pre-inputFile]="-prif" )
+    SYNONYM_ARGUMENTS=([-prh]="--pre-help" [-prif]="--pre-inputFile" )
+    ARGUMENT_MIN_OCCURRENCES=([--pre-help]=0 [--pre-info]=0 [--pre-inputFile]=1 [TestArgumentContainer]=0 [TestExtraDocs]=0 )
+    ARGUMENT_MAX_OCCURRENCES=([--pre-help]=1 [--pre-info]=1 [--pre-inputFile]=1 [TestArgumentContainer]=1 [TestExtraDocs]=1 )
+}
+
+# Set up the completion information for the caller script options that come after the tool options,
+# following the special option "--".
+_bashTabCompletionDocletTestLaunch_setupPostfixOptions()
+{
+    NORMAL_COMPLETION_ARGUMENTS=(--post-help --post-info --post-inputFile )
+    ARGUMENT_TYPES=([--post-help]="null" [--post-info]="null" [--post-inputFile]="File" )
+    MUTUALLY_EXCLUSIVE_ARGS=([--post-help]="--post-info --post-inputFile" [--post-info]="--post-help --post-inputFile" )
+    ARGUMENT_SYNONYMS=([--post-help]="-poh" [--post-inputFile]="-poif" )
+    SYNONYM_ARGUMENTS=([-poh]="--post-help" [-poif]="--post-inputFile" )
+    ARGUMENT_MIN_OCCURRENCES=([--post-help]=0 [--post-info]=0 [--post-inputFile]=1 )
+    ARGUMENT_MAX_OCCURRENCES=([--post-help]=1 [--post-info]=1 [--post-inputFile]=1 )
+}
+
+# Set up the completion information for the given tool, sourcing the file with the information for the tool
+# the first time it is completed.
+_bashTabCompletionDocletTestLaunch_setupTool()
+{
+    local toolName=$1
+    if ! declare -F "_bashTabCompletionDocletTestLaunch_setupTool_${toolName}" > /dev/null ; then
+        source "${_bashTabCompletionDocletTestLaunch_TOOL_COMPLETION_DIR}/${toolName}.sh" || return 1
+    fi
+    "_bashTabCompletionDocletTestLaunch_setupTool_${toolName}"
+}
+
 # Get the name of the tool that we're currently trying to call
 _bashTabCompletionDocletTestLaunch_getToolName()
 {
-    # Naively go through each word in the line until we find one that is in our list of tools:
-    for word in ${COMP_WORDS[@]} ; do
-        if ( echo " ${ALL_TOOLS[@]} " | grep -q " ${word} " ) ; then
+    # Go through each word in the line until we find one that is one of our tools:
+    local word
+    for word in "${COMP_WORDS[@]}" ; do
+        if [[ -n "${word}" && -n "${_bashTabCompletionDocletTestLaunch_ALL_TOOLS[$word]}" ]] ; then
             echo "${word}"
             break
         fi
@@ -50,10 +96,11 @@ _bashTabCompletionDocletTestLaunch_getToolName()
 # Get the index of the toolname inside COMP_WORDS
 _bashTabCompletionDocletTestLaunch_getToolNameIndex()
 {
-    # Naively go through each word in the line until we find one that is in our list of tools:
+    # Go through each word in the line until we find one that is one of our tools:
     local ctr=0
-    for word in ${COMP_WORDS[@]} ; do
-        if ( echo " ${ALL_TOOLS[@]} " | grep -q " ${word} " ) ; then
+    local word
+    for word in "${COMP_WORDS[@]}" ; do
+        if [[ -n "${word}" && -n "${_bashTabCompletionDocletTestLaunch_ALL_TOOLS[$word]}" ]] ; then
             echo $ctr
             break
         fi
@@ -71,42 +118,66 @@ _bashTabCompletionDocletTestLaunch_getAllPossibleToolNames()
 # AND
 # the current word is also a substring in more than one tool name
 
-    local tool count matches toolList
-
-    let count=0
-    matches=false
-    toolList=()
-
-    # Go through tool names and get what matches and partial matches we have:
-    for tool in ${ALL_TOOLS[@]} ; do
-        if [[ "${COMP_WORDS[COMP_CWORD]}" == "${tool}" ]] ; then
-            matches=true
-            let count=$count+1
-            toolList+=($tool)
-        elif [[ "${tool}" == "${COMP_WORDS[COMP_CWORD]}"* ]] ; then
-            toolList+=($tool)
-        fi
-    done
+    local word=${COMP_WORDS[COMP_CWORD]}
+    local tool toolList
 
     # If we have a complete match, then we print out our partial matches as a space separated string.
     # That way we have a list of all possible full completions for this match.
     # For instance, if there was a tool named "read" and another named "readBetter" this would get both.
-    if $matches ; then
+    if [[ -n "${word}" && -n "${_bashTabCompletionDocletTestLaunch_ALL_TOOLS[$word]}" ]] ; then
+        toolList=()
+        for tool in "${!_bashTabCompletionDocletTestLaunch_ALL_TOOLS[@]}" ; do
+            if [[ "${tool}" == "${word}"* ]] ; then
+                toolList+=($tool)
+            fi
+        done
         echo "${toolList[@]}"
     fi
 }
 
+# Print the allowed values (such as enum constants or plugin names) of the given argument of the given tool
+# that start with the given prefix, one per line, from the completion index.
+# Uses look(1), which does a binary search of the index, if it's available. Otherwise reads the index
+# until it's past the matching lines.
+_bashTabCompletionDocletTestLaunch_lookupArgValues()
+{
+    local prefix="${1}"$'\t'"${2}"$'\t'"${3}"
+    local line
+
+    [[ -r "${_bashTabCompletionDocletTestLaunch_COMPLETION_INDEX}" ]] || return 0
+
+    if type -P look > /dev/null ; then
+        while IFS= read -r line ; do
+            echo "${line#*$'\t'*$'\t'}"
+        done < <( LC_ALL=C look -- "${prefix}" "${_bashTabCompletionDocletTestLaunch_COMPLETION_INDEX}" )
+    else
+        # The index is sorted in byte order:
+        local LC_ALL=C
+        while IFS= read -r line ; do
+            if [[ "${line}" == "${prefix}"* ]] ; then
+                echo "${line#*$'\t'*$'\t'}"
+            elif [[ "${line}" > "${prefix}" ]] ; then
+                break
+            fi
+        done < "${_bashTabCompletionDocletTestLaunch_COMPLETION_INDEX}"
+    fi
+}
+
 # Gets how many dependent arguments we have left to fill
 _bashTabCompletionDocletTestLaunch_getDependentArgumentCount()
 {
     local depArgCount=0
+    local word depArg
+    local -A isDependentArg=()
 
-    for word in ${COMP_LINE} ; do
-        for depArg in ${DEPENDENT_ARGUMENTS[@]} ; do
-            if [[ "${word}" == "${depArg}" ]] ; then
-                $((depArgCount++))
-            fi
-        done
+    for depArg in "${DEPENDENT_ARGUMENTS[@]}" ; do
+        isDependentArg[$depArg]=1
+    done
+
+    for word in "${COMP_WORDS[@]}" ; do
+        if [[ -n "${word}" && -n "${isDependentArg[$word]}" ]] ; then
+            depArgCount=$((depArgCount+1))
+        fi
     done
 
     echo $depArgCount
@@ -116,38 +187,27 @@ _bashTabCompletionDocletTestLaunch_getDependentArgumentCount()
 _bashTabCompletionDocletTestLaunch_resolveVarName()
 {
     local argName=$1
-    if [[ "${SYNONYMOUS_ARGS[@]}" == *"${argName}"* ]] ; then
-        echo "${SYNONYMOUS_ARGS[@]}" | sed -e "s#.* \\([a-zA-Z0-9;,_\\-]*${argName}[a-zA-Z0-9,;_\\-]*\\).*#\\1#g" -e 's#;.*##g'
+    if [[ -n "${argName}" && -n "${SYNONYM_ARGUMENTS[$argName]}" ]] ; then
+        echo "${SYNONYM_ARGUMENTS[$argName]}"
     else
         echo "${argName}"
     fi
 }
 
 # Checks if we need to complete the VALUE for an argument.
-# Prints the index in the given argument list of the corresponding argument whose value we must complete.
-# Takes as input 1 positional argument: the name of the last argument given to this script
-# Otherwise prints -1
+# Prints the name of the argument whose value we must complete, given the last argument given to this script.
+# Otherwise prints nothing.
 _bashTabCompletionDocletTestLaunch_needToCompleteArgValue()
 {
-    if [[ "${prev}" != "--" ]] ; then
-        local resolved=$( _bashTabCompletionDocletTestLaunch_resolveVarName ${prev} )
-
-        for (( i=0 ; i < ${#ALL_LEGAL_ARGUMENTS[@]} ; i++ )) ; do
-            if [[ "${resolved}" == "${ALL_LEGAL_ARGUMENTS[i]}" ]] ; then
-
-                # Make sure the argument isn't one that takes no additional value
-                # such as a flag.
-                if [[ "${ALL_ARGUMENT_VALUE_TYPES[i]}" != "null" ]] ; then
-                    echo "$i"
-                else
-                    echo "-1"
-                fi
-                return 0
-            fi
-        done
-    fi
+    if [[ -n "${prev}" && "${prev}" != "--" ]] ; then
+        local resolved=$( _bashTabCompletionDocletTestLaunch_resolveVarName "${prev}" )
 
-    echo "-1"
+        # Make sure the argument isn't one that takes no additional value
+        # such as a flag.
+        if [[ -n "${ARGUMENT_TYPES[$resolved]+set}" && "${ARGUMENT_TYPES[$resolved]}" != "null" ]] ; then
+            echo "${resolved}"
+        fi
+    fi
 }
 
 # Get the completion word list for the given argument type.
@@ -155,7 +215,7 @@ _bashTabCompletionDocletTestLaunch_needToCompleteArgValue()
 _bashTabCompletionDocletTestLaunch_getCompletionWordList()
 {
     # Normalize the type string so it's easier to deal with:
-    local argType=$( echo $1 | tr '[A-Z]' '[a-z]')
+    local argType=${1,,}
 
     local isNumeric=false
     local isFloating=false
@@ -237,50 +297,54 @@ _bashTabCompletionDocletTestLaunch_handleArgs()
     # NOTE: We don't need to worry about the prefix options case.
     #       The caller will specify it and it skips the two special cases above.
 
-    # First we must resolve all arguments to their full names
+    # First we must resolve all arguments to their full names, and count how many times each has occurred.
     # This is necessary to save time later because of short argument names / synonyms
     local resolvedArgList=()
+    local -A numPrevOccurrences=()
+    local prevArg resolvedArg
     for (( i=argOffsetIndex ; i < COMP_CWORD ; i++ )) ; do
         prevArg=${COMP_WORDS[i]}
 
         # Skip the current word to be completed:
-        [[ "${prevArg}" == "${cur}" ]] && continue
+        [[ -z "${prevArg}" || "${prevArg}" == "${cur}" ]] && continue
 
-        # Check if this has synonyms:
-        if [[ "${SYNONYMOUS_ARGS[@]}" == *"${prevArg}"* ]] ; then
-
-            local resolvedArg=$( _bashTabCompletionDocletTestLaunch_resolveVarName "${prevArg}" )
+        # Resolve synonyms, and make sure this is an argument:
+        resolvedArg=${SYNONYM_ARGUMENTS[$prevArg]:-$prevArg}
+        if [[ -n "${ARGUMENT_TYPES[$resolvedArg]+set}" ]] ; then
             resolvedArgList+=($resolvedArg)
-
-        # Make sure this is an argument:
-        elif [[ "${ALL_LEGAL_ARGUMENTS[@]}" == *"${prevArg}"* ]] ; then
-            resolvedArgList+=($prevArg)
+            numPrevOccurrences[$resolvedArg]=$(( ${numPrevOccurrences[$resolvedArg]:-0} + 1 ))
         fi
     done
 
     # Check to see if the last thing we typed was a complete argument.
     # If so, we must complete the VALUE for the argument, not the
     # argument itself:
-    # Note: This is shorthand for last element in the array:
     local argToComplete=$( _bashTabCompletionDocletTestLaunch_needToCompleteArgValue )
 
-    if [[ $argToComplete -ne -1 ]] ; then
+    if [[ -n "${argToComplete}" ]] ; then
         # We must complete the VALUE for an argument.
 
         # Get the argument type.
-        local valueType=${ALL_ARGUMENT_VALUE_TYPES[argToComplete]}
+        local valueType=${ARGUMENT_TYPES[$argToComplete]}
 
         # Get the correct completion string for the type:
         local completionString=$( _bashTabCompletionDocletTestLaunch_getCompletionWordList "${valueType}" )
 
+        # If there's no completion for the type, complete the allowed values of a tool argument from the
+        # completion index:
+        if [[ ${#completionString} -eq 0 && $# -eq 0 ]] ; then
+            COMPREPLY=( $( _bashTabCompletionDocletTestLaunch_lookupArgValues "${toolName}" "${argToComplete}" "${cur}" ) )
+            [[ ${#COMPREPLY[@]} -ne 0 ]] && return 0
+        fi
+
         if [[ ${#completionString} -eq 0 ]] ; then
             # We don't have any information on the type to complete.
             # We use the default SHELL behavior:
             COMPREPLY=()
         else
             # We have a completion option.  Let's plug it in:
-            local compOperator=$( echo "${completionString}" | awk '{print $1}' )
-            local compOptions=$( echo "${completionString}" | awk '{$1="" ; print}' )
+            local compOperator=${completionString%% *}
+            local compOptions=${completionString#* }
 
             case ${compOperator} in
                 -A) COMPREPLY=( $(compgen -A ${compOptions} -- $cur) ) ;;
@@ -294,50 +358,30 @@ _bashTabCompletionDocletTestLaunch_handleArgs()
 
     # We must create a list of the valid remaining arguments:
 
-    # Create a list of all arguments that are
+    # Create a set of all arguments that are
     # mutually exclusive with arguments we have already specified
-    local mutex_list=""
-    for prevArg in ${resolvedArgList[@]} ; do
-        if [[ "${MUTUALLY_EXCLUSIVE_ARGS[@]}" == *"${prevArg};"* ]] ; then
-            local mutexArgs=$( echo "${MUTUALLY_EXCLUSIVE_ARGS[@]}" | sed -e "s#.*${prevArg};\([a-zA-Z0-9_,\-]*\) .*#\1#g" -e "s#,# --#g" -e "s#^#--#g" )
-            mutex_list="${mutex_list}${mutexArgs}"
-        fi
+    local -A isExcludedArg=()
+    local mutexArg
+    for prevArg in "${resolvedArgList[@]}" ; do
+        for mutexArg in ${MUTUALLY_EXCLUSIVE_ARGS[$prevArg]} ; do
+            isExcludedArg[$mutexArg]=1
+        done
     done
 
     local remaining_legal_arguments=()
-    for (( i=0; i < ${#NORMAL_COMPLETION_ARGUMENTS[@]} ; i++ )) ; do
-        local legalArg=${NORMAL_COMPLETION_ARGUMENTS[i]}
-        local okToAdd=true
-
-        # Get the number of times this has occurred in the arguments already:
-        local numPrevOccurred=$( grep -o -- "${legalArg}" <<< "${resolvedArgList[@]}" | wc -l | awk '{print $1}' )
-
-        if [[ $numPrevOccurred -lt "${MAX_OCCURRENCES[i]}" ]] ; then
-
-            # Make sure this arg isn't mutually exclusive to another argument that we've already had:
-            if [[ "${mutex_list}" ==    "${legalArg} "* ]] ||
-               [[ "${mutex_list}" ==  *" ${legalArg} "* ]] ||
-               [[ "${mutex_list}" ==  *" ${legalArg}"  ]] ; then
-                okToAdd=false
-            fi
-
-            # Check if we're still good to add in the argument:
-            if $okToAdd ; then
-                # Add in the argument:
-                remaining_legal_arguments+=($legalArg)
-
-                # Add in the synonyms of the argument:
-                if [[ "${SYNONYMOUS_ARGS[@]}" == *"${legalArg}"* ]] ; then
-                    local synonymString=$( echo "${SYNONYMOUS_ARGS[@]}" | sed -e "s#.*${legalArg};\([a-zA-Z0-9_,\-]*\).*#\1#g" -e "s#,# #g"  )
-                    remaining_legal_arguments+=($synonymString)
-                fi
-            fi
+    local legalArg
+    for legalArg in "${NORMAL_COMPLETION_ARGUMENTS[@]}" ; do
+        # Make sure this arg hasn't occurred too many times already, and isn't
+        # mutually exclusive to another argument that we've already had:
+        if [[ ${numPrevOccurrences[$legalArg]:-0} -lt ${ARGUMENT_MAX_OCCURRENCES[$legalArg]:-1} ]] &&
+           [[ -z "${isExcludedArg[$legalArg]}" ]] ; then
+            # Add in the argument, and its synonyms:
+            remaining_legal_arguments+=($legalArg ${ARGUMENT_SYNONYMS[$legalArg]})
         fi
-
     done
 
     # Add in the special option "--" which separates tool options from meta-options if they're necessary:
-    if $HAS_POSTFIX_OPTIONS ; then
+    if $_bashTabCompletionDocletTestLaunch_HAS_POSTFIX_OPTIONS ; then
         if [[ $# -eq 0 ]] || [[ "${1}" == "PREFIX_OPTIONS"  ]] ; then
             remaining_legal_arguments+=("--")
         fi
@@ -351,46 +395,45 @@ _bashTabCompletionDocletTestLaunch_handleArgs()
 
 _bashTabCompletionDocletTestLaunch_masterCompletionFunction()
 {
-    # Set up global variables for the functions that do completion:
-    prev=${COMP_WORDS[COMP_CWORD-1]}
-    cur=${COMP_WORDS[COMP_CWORD]}
+    # Set up the variables for the functions that do completion.
+    # These are local to this function, but are visible to the functions that it calls.
+    local prev=${COMP_WORDS[COMP_CWORD-1]}
+    local cur=${COMP_WORDS[COMP_CWORD]}
 
     # How many positional arguments a tool will have.
     # These positional arguments must come directly after a tool name.
-    NUM_POSITIONAL_ARGUMENTS=0
+    local NUM_POSITIONAL_ARGUMENTS=0
 
     # The types of the positional arguments, in the order in which they must be specified
     # on the command-line.
-    POSITIONAL_ARGUMENT_TYPE=()
+    local POSITIONAL_ARGUMENT_TYPE=()
 
-    # The set of legal arguments that aren't dependent arguments.
-    # (A dependent argument is an argument that must occur immediately after
-    # all positional arguments.)
-    NORMAL_COMPLETION_ARGUMENTS=()
+    # The set of arguments that must occur immediately after all positional arguments.
+    local DEPENDENT_ARGUMENTS=()
 
-    # The set of ALL legal arguments
-    # Corresponds by index to the type of those arguments in ALL_ARGUMENT_VALUE_TYPES
-    ALL_LEGAL_ARGUMENTS=()
+    # The set of legal arguments that aren't dependent arguments, in the order in which they're completed.
+    local NORMAL_COMPLETION_ARGUMENTS=()
 
-    # The types of ALL legal arguments
-    # Corresponds by index to the names of those arguments in ALL_LEGAL_ARGUMENTS
-    ALL_ARGUMENT_VALUE_TYPES=()
+    # The types of ALL legal arguments, keyed by argument name.
+    # The type of arguments that don't take a value (such as flags) is "null".
+    local -A ARGUMENT_TYPES=()
 
-    # Arguments that are mutually exclusive.
-    # These are listed here as arguments concatenated together with delimiters:
-    # <Main argument>;<Mutex Argument 1>[,<Mutex Argument 2>,...]
-    MUTUALLY_EXCLUSIVE_ARGS=()
+    # Arguments that are mutually exclusive, keyed by argument name.
+    # Each value is a space separated list of the arguments that are mutually exclusive with that argument.
+    local -A MUTUALLY_EXCLUSIVE_ARGS=()
 
-    # Alternate names of arguments.
-    # These are listed here as arguments concatenated together with delimiters.
-    # <Main argument>;<Synonym Argument 1>[,<Synonym Argument 2>,...]
-    SYNONYMOUS_ARGS=()
+    # Alternate names of arguments, keyed by argument name.
+    # Each value is a space separated list of the synonyms of that argument.
+    local -A ARGUMENT_SYNONYMS=()
 
-    # The minimum number of times an argument can occur.
-    MIN_OCCURRENCES=()
+    # The argument name for each alternate name of an argument.
+    local -A SYNONYM_ARGUMENTS=()
 
-    # The maximum number of times an argument can occur.
-    MAX_OCCURRENCES=()
+    # The minimum number of times each argument can occur, keyed by argument name.
+    local -A ARGUMENT_MIN_OCCURRENCES=()
+
+    # The maximum number of times each argument can occur, keyed by argument name.
+    local -A ARGUMENT_MAX_OCCURRENCES=()
 
     # Set up locals for this function:
     local toolName=$( _bashTabCompletionDocletTestLaunch_getToolName )
@@ -400,17 +443,8 @@ _bashTabCompletionDocletTestLaunch_masterCompletionFunction()
 
     # Check if we have postfix options
     # and if we now need to go through them:
-    if $HAS_POSTFIX_OPTIONS && [[ "${COMP_WORDS[@]}" == *" -- "* ]] ; then
-        NUM_POSITIONAL_ARGUMENTS=0
-        POSITIONAL_ARGUMENT_TYPE=()
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=("${CS_POSTFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS[@]}")
-        MUTUALLY_EXCLUSIVE_ARGS=("${CS_POSTFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS[@]}")
-        SYNONYMOUS_ARGS=("${CS_POSTFIX_OPTIONS_SYNONYMOUS_ARGS[@]}")
-        MIN_OCCURRENCES=("${CS_POSTFIX_OPTIONS_MIN_OCCURRENCES[@]}")
-        MAX_OCCURRENCES=("${CS_POSTFIX_OPTIONS_MAX_OCCURRENCES[@]}")
-        ALL_LEGAL_ARGUMENTS=("${CS_POSTFIX_OPTIONS_ALL_LEGAL_ARGUMENTS[@]}")
-        ALL_ARGUMENT_VALUE_TYPES=("${CS_POSTFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES[@]}")
+    if $_bashTabCompletionDocletTestLaunch_HAS_POSTFIX_OPTIONS && [[ "${COMP_WORDS[@]}" == *" -- "* ]] ; then
+        _bashTabCompletionDocletTestLaunch_setupPostfixOptions
 
         # Complete the arguments for the base script:
         # Strictly speaking, what the argument to this function is doesn't matter.
@@ -422,58 +456,20 @@ _bashTabCompletionDocletTestLaunch_masterCompletionFunction()
         # Set our reply as a list of the possible tool matches:
         COMPREPLY=( $(compgen -W '${possibleToolMatches[@]}' -- $cur) )
 
-    elif [[ ${toolName} == "TestExtraDocs" ]] ; then
-
-        # Set up the completion information for this tool:
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=(--extraDocsArgument )
-        MUTUALLY_EXCLUSIVE_ARGS=()
-        SYNONYMOUS_ARGS=("--extraDocsArgument;-extDocArg" )
-        MIN_OCCURRENCES=(0 )
-        MAX_OCCURRENCES=(2147483647 )
-        ALL_LEGAL_ARGUMENTS=(--extraDocsArgument )
-        ALL_ARGUMENT_VALUE_TYPES=("String" )
-
-        # Complete the arguments for this tool:
-        _bashTabCompletionDocletTestLaunch_handleArgs
-    elif [[ ${toolName} == "TestArgumentContainer" ]] ; then
-
-        # Set up the completion information for this tool:
-        NUM_POSITIONAL_ARGUMENTS=2
-        POSITIONAL_ARGUMENT_TYPE=("List[File]")
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=(--requiredClpEnum --requiredFileList --requiredInputFilesFromArgCollection --requiredStringInputFromArgCollection --requiredStringList --usesFieldNameForArgName --fullAnonymousArgName --mutexArg --mutexTargetField1 --mutexTargetField2 --optionalClpEnum --optionalDouble --optionalDoubleList --optionalFileList --optionalFlag --optionalInputFilesFromArgCollection --optionalStringInputFromArgCollection --optionalStringList --testPlugin --advancedOptionalInt --deprecatedString )
-        MUTUALLY_EXCLUSIVE_ARGS=("--mutexArg;READ1_ALIGNED_BAM,READ2_ALIGNED_BAM" "--mutexTargetField1;mutexSourceField" "--mutexTargetField2;mutexSourceField" )
-        SYNONYMOUS_ARGS=("--requiredClpEnum;-requiredClpEnum" "--requiredFileList;-reqFilList" "--requiredInputFilesFromArgCollection;-rRequiredInputFilesFromArgCollection" "--requiredStringInputFromArgCollection;-requiredStringInputFromArgCollection" "--requiredStringList;-reqStrList" "--fullAnonymousArgName;-anonymousClassArg" "--mutexArg;-mutexArg" "--mutexTargetField1;-mutexTargetField1" "--mutexTargetField2;-mutexTargetField2" "--optionalClpEnum;-optionalClpEnum" "--optionalDouble;-optDouble" "--optionalDoubleList;-optDoubleList" "--optionalFileList;-optFilList" "--optionalFlag;-optFlag" "--optionalInputFilesFromArgCollection;-optionalInputFilesFromArgCollection" "--optionalStringInputFromArgCollection;-optionalStringInputFromArgCollection" "--optionalStringList;-optStrList" "--advancedOptionalInt;-advancedOptInt" "--deprecatedString;-depStr" )
-        MIN_OCCURRENCES=(0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 0 )
-        MAX_OCCURRENCES=(2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 2147483647 )
-        ALL_LEGAL_ARGUMENTS=(--requiredClpEnum --requiredFileList --requiredInputFilesFromArgCollection --requiredStringInputFromArgCollection --requiredStringList --usesFieldNameForArgName --fullAnonymousArgName --mutexArg --mutexTargetField1 --mutexTargetField2 --optionalClpEnum --optionalDouble --optionalDoubleList --optionalFileList --optionalFlag --optionalInputFilesFromArgCollection --optionalStringInputFromArgCollection --optionalStringList --testPlugin --advancedOptionalInt --deprecatedString )
-        ALL_ARGUMENT_VALUE_TYPES=("TestEnum" "List[File]" "List[File]" "String" "List[String]" "String" "List[File]" "List[File]" "List[File]" "List[File]" "TestEnum" "double" "List[Double]" "List[File]" "boolean" "List[File]" "String" "List[String]" "List[String]" "int" "int" )
-
-        # Complete the arguments for this tool:
-        _bashTabCompletionDocletTestLaunch_handleArgs
+    # Check if we're completing the arguments for a tool:
+    elif [[ -n "${toolName}" ]] ; then
+
+        # Set up the completion information for this tool, and complete its arguments:
+        _bashTabCompletionDocletTestLaunch_setupTool "${toolName}" && _bashTabCompletionDocletTestLaunch_handleArgs
 
     # We have no postfix options or tool options.
     # We now must complete any prefix options and the tools themselves.
-    # These are defined at the top.
     else
-        NUM_POSITIONAL_ARGUMENTS=0
-        POSITIONAL_ARGUMENT_TYPE=()
-        DEPENDENT_ARGUMENTS=()
-        NORMAL_COMPLETION_ARGUMENTS=("${CS_PREFIX_OPTIONS_NORMAL_COMPLETION_ARGUMENTS[@]}")
-        MUTUALLY_EXCLUSIVE_ARGS=("${CS_PREFIX_OPTIONS_MUTUALLY_EXCLUSIVE_ARGS[@]}")
-        SYNONYMOUS_ARGS=("${CS_PREFIX_OPTIONS_SYNONYMOUS_ARGS[@]}")
-        MIN_OCCURRENCES=("${CS_PREFIX_OPTIONS_MIN_OCCURRENCES[@]}")
-        MAX_OCCURRENCES=("${CS_PREFIX_OPTIONS_MAX_OCCURRENCES[@]}")
-        ALL_LEGAL_ARGUMENTS=("${CS_PREFIX_OPTIONS_ALL_LEGAL_ARGUMENTS[@]}")
-        ALL_ARGUMENT_VALUE_TYPES=("${CS_PREFIX_OPTIONS_ALL_ARGUMENT_VALUE_TYPES[@]}")
+        _bashTabCompletionDocletTestLaunch_setupPrefixOptions
 
         # Complete the arguments for the prefix arguments and tools:
         _bashTabCompletionDocletTestLaunch_handleArgs PREFIX_OPTIONS
     fi
 }
 
-complete -o default -F _bashTabCompletionDocletTestLaunch_masterCompletionFunction ${CALLER_SCRIPT_NAME}
-
-
-
+complete -o default -F _bashTabCompletionDocletTestLaunch_masterCompletionFunction ${CALLER_SCRIPT_NAME}
\ No newline at end of file
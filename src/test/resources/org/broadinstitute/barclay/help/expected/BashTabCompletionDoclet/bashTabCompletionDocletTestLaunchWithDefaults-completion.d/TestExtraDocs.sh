@@ -0,0 +1,17 @@
+####################
+# Tab completion information for the TestExtraDocs tool.
+# This is sourced by the bashTabCompletionDocletTestLaunchWithDefaults completion script the first time the tool is completed.
+####################
+
+
+_bashTabCompletionDocletTestLaunchWithDefaults_setupTool_TestExtraDocs()
+{
+    DEPENDENT_ARGUMENTS=()
+    NORMAL_COMPLETION_ARGUMENTS=(--extraDocsArgument )
+    ARGUMENT_TYPES=([--extraDocsArgument]="String" )
+    MUTUALLY_EXCLUSIVE_ARGS=()
+    ARGUMENT_SYNONYMS=([--extraDocsArgument]="-extDocArg" )
+    SYNONYM_ARGUMENTS=([-extDocArg]="--extraDocsArgument" )
+    ARGUMENT_MIN_OCCURRENCES=([--extraDocsArgument]="0" )
+    ARGUMENT_MAX_OCCURRENCES=([--extraDocsArgument]="2147483647" )
+}